@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2014-2016 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import toniarts.openkeeper.tools.convert.map.SyntheticLevel;
+import toniarts.openkeeper.world.MapData;
+import toniarts.openkeeper.world.TileData;
+import toniarts.openkeeper.world.creature.pathfinding.MapNavigationGrid;
+import toniarts.openkeeper.world.creature.pathfinding.PathFindingService;
+
+/**
+ * A generated level with the navigation set up, shared by the benchmarks
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public class BenchmarkLevel {
+
+    private static final long SEED = 1;
+
+    private final MapData mapData;
+    private final MapNavigationGrid navigationGrid;
+    private final PathFindingService pathFindingService;
+    private final List<TileData> walkableTiles = new ArrayList<>();
+    private final List<TileData> diggableTiles = new ArrayList<>();
+
+    public BenchmarkLevel(int size) {
+        mapData = new MapData(SyntheticLevel.generate(size, size, SEED));
+        navigationGrid = new MapNavigationGrid(mapData, (TileData tile) -> true);
+        pathFindingService = new PathFindingService(mapData, navigationGrid);
+
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                TileData tile = mapData.getTile(x, y);
+                if (navigationGrid.isAccessible(tile, MapNavigationGrid.MovementClass.WALKER)) {
+                    walkableTiles.add(tile);
+                } else if (tile.getTerrainId() == SyntheticLevel.EARTH && getWalkableNeighbour(tile) != null) {
+                    diggableTiles.add(tile);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get a walkable tile next to the given tile
+     *
+     * @param tile the tile
+     * @return walkable neighbour, or {@code null} if none
+     */
+    public final TileData getWalkableNeighbour(TileData tile) {
+        int[][] neighbours = {{0, -1}, {1, 0}, {0, 1}, {-1, 0}};
+        for (int[] neighbour : neighbours) {
+            TileData n = mapData.getTile(tile.getX() + neighbour[0], tile.getY() + neighbour[1]);
+            if (n != null && navigationGrid.isAccessible(n, MapNavigationGrid.MovementClass.WALKER)) {
+                return n;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Pick random walkable tiles
+     *
+     * @param count the number of tiles
+     * @param random the random generator
+     * @return the tiles
+     */
+    public TileData[] getRandomWalkableTiles(int count, Random random) {
+        TileData[] tiles = new TileData[count];
+        for (int i = 0; i < count; i++) {
+            tiles[i] = walkableTiles.get(random.nextInt(walkableTiles.size()));
+        }
+        return tiles;
+    }
+
+    /**
+     * Get the solid earth tiles that have a walkable neighbour, i.e. the ones
+     * imps could dig
+     *
+     * @return the diggable tiles
+     */
+    public List<TileData> getDiggableTiles() {
+        return diggableTiles;
+    }
+
+    public MapData getMapData() {
+        return mapData;
+    }
+
+    public MapNavigationGrid getNavigationGrid() {
+        return navigationGrid;
+    }
+
+    public PathFindingService getPathFindingService() {
+        return pathFindingService;
+    }
+
+    public void cleanup() {
+        pathFindingService.shutdown();
+    }
+
+}
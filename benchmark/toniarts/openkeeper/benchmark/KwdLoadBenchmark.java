@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2014-2016 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import toniarts.openkeeper.tools.convert.ConversionUtils;
+import toniarts.openkeeper.tools.convert.ResourceReader;
+import toniarts.openkeeper.tools.convert.map.KwdFile;
+
+/**
+ * Loads a campaign level from the original game files. Needs the DK II folder,
+ * i.e. run with "-p dkFolder=&lt;DK II folder&gt;".<br>
+ * The read benchmarks go through all the files of the level field by field,
+ * with the old RandomAccessFile based reading and with the ResourceReader
+ * KwdFile uses now.
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KwdLoadBenchmark {
+
+    @Param({""})
+    public String dkFolder;
+
+    @Param({"Level1"})
+    public String level;
+
+    private String basePath;
+    private File levelFile;
+    private File[] levelFiles;
+
+    @Setup
+    public void setup() {
+        if (dkFolder.isEmpty() || !new File(dkFolder).isDirectory()) {
+            throw new IllegalStateException("Give the DK II folder with -p dkFolder=<folder>!");
+        }
+        basePath = (dkFolder.endsWith(File.separator) ? dkFolder : dkFolder.concat(File.separator));
+        File mapsFolder = new File(basePath.concat("Data").concat(File.separator).concat("editor").concat(File.separator).concat("maps"));
+        levelFile = new File(mapsFolder, level.concat(".kwd"));
+        if (!levelFile.exists()) {
+            throw new IllegalStateException("Level " + levelFile + " not found!");
+        }
+
+        // The level consists of the KWD and the files named after it
+        levelFiles = mapsFolder.listFiles((File dir, String name) -> name.toLowerCase().startsWith(level.toLowerCase()));
+    }
+
+    @Benchmark
+    public KwdFile load() {
+        return new KwdFile(basePath, levelFile, true);
+    }
+
+    @Benchmark
+    public void readRandomAccessFile(Blackhole blackhole) throws IOException {
+        for (File file : levelFiles) {
+            try (RandomAccessFile rawFile = new RandomAccessFile(file, "r")) {
+                long fields = rawFile.length() / 4;
+                for (long i = 0; i < fields; i++) {
+                    blackhole.consume(ConversionUtils.readInteger(rawFile));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void readResourceReader(Blackhole blackhole) throws IOException {
+        for (File file : levelFiles) {
+            try (ResourceReader rawFile = new ResourceReader(file)) {
+                long fields = rawFile.length() / 4;
+                for (long i = 0; i < fields; i++) {
+                    blackhole.consume(rawFile.readInteger());
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2014-2016 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import toniarts.openkeeper.world.MapData;
+import toniarts.openkeeper.world.TileData;
+import toniarts.openkeeper.world.creature.pathfinding.MapIndexedGraph;
+import toniarts.openkeeper.world.creature.pathfinding.MapNavigationGrid;
+
+/**
+ * Sweeps over the whole map querying the graph connections and the tile
+ * accessibility (WorldState.isAccessible)
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapGraphBenchmark {
+
+    @Param({"64", "128"})
+    public int mapSize;
+
+    private BenchmarkLevel level;
+    private MapIndexedGraph graph;
+    private TileData[] tiles;
+
+    @Setup
+    public void setup() {
+        level = new BenchmarkLevel(mapSize);
+        graph = new MapIndexedGraph(level.getMapData(), level.getNavigationGrid());
+        MapData mapData = level.getMapData();
+        tiles = new TileData[mapData.getWidth() * mapData.getHeight()];
+        for (int y = 0; y < mapData.getHeight(); y++) {
+            for (int x = 0; x < mapData.getWidth(); x++) {
+                tiles[y * mapData.getWidth() + x] = mapData.getTile(x, y);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        level.cleanup();
+    }
+
+    @Benchmark
+    public void getConnections(Blackhole blackhole) {
+        for (TileData tile : tiles) {
+            blackhole.consume(graph.getConnections(tile));
+        }
+    }
+
+    @Benchmark
+    public void isAccessible(Blackhole blackhole) {
+        MapNavigationGrid navigationGrid = level.getNavigationGrid();
+        for (TileData tile : tiles) {
+            blackhole.consume(navigationGrid.isAccessible(tile, MapNavigationGrid.MovementClass.WALKER));
+        }
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2014-2016 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.benchmark;
+
+import com.badlogic.gdx.ai.pfa.GraphPath;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import toniarts.openkeeper.world.TileData;
+import toniarts.openkeeper.world.creature.pathfinding.PathFindingService;
+
+/**
+ * Path finding between random walkable tiles. WorldState.findPath and
+ * WorldState.isReachable need the whole running game, so this drives the
+ * PathFindingService they delegate to, with the tiles already resolved. The
+ * uncached searches clear the path cache first.
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PathFindingBenchmark {
+
+    private static final int PAIRS = 1024;
+    private static final int CACHED_PAIRS = 16;
+
+    @Param({"64", "128"})
+    public int mapSize;
+
+    private BenchmarkLevel level;
+    private PathFindingService pathFindingService;
+    private TileData[] starts;
+    private TileData[] ends;
+    private int next = 0;
+
+    @Setup
+    public void setup() {
+        level = new BenchmarkLevel(mapSize);
+        pathFindingService = level.getPathFindingService();
+        Random random = new Random(1);
+        starts = level.getRandomWalkableTiles(PAIRS, random);
+        ends = level.getRandomWalkableTiles(PAIRS, random);
+    }
+
+    @TearDown
+    public void tearDown() {
+        level.cleanup();
+    }
+
+    @Benchmark
+    public GraphPath<TileData> findPath() {
+        int i = next++ % PAIRS;
+        pathFindingService.getPathCache().clear();
+        return pathFindingService.findPath(starts[i], ends[i], null);
+    }
+
+    @Benchmark
+    public GraphPath<TileData> findPathCached() {
+        int i = next++ % CACHED_PAIRS;
+        return pathFindingService.findPath(starts[i], ends[i], null);
+    }
+
+    @Benchmark
+    public boolean isReachable() {
+        int i = next++ % PAIRS;
+        return pathFindingService.isReachable(starts[i], ends[i], null);
+    }
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2014-2016 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.benchmark;
+
+import com.jme3.math.Vector2f;
+import toniarts.openkeeper.game.task.AbstractTileTask;
+import toniarts.openkeeper.tools.convert.map.ArtResource;
+import toniarts.openkeeper.world.creature.CreatureControl;
+
+/**
+ * A dig task whose validity is just a flag on the synthetic map
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public class SyntheticTask extends AbstractTileTask {
+
+    private final boolean[] tagged;
+    private final int index;
+
+    public SyntheticTask(boolean[] tagged, int mapSize, int x, int y) {
+        super(null, x, y, (short) 3);
+        this.tagged = tagged;
+        this.index = y * mapSize + x;
+    }
+
+    @Override
+    public boolean isValid() {
+        return tagged[index];
+    }
+
+    @Override
+    public boolean isReachable(CreatureControl creature) {
+        return true;
+    }
+
+    @Override
+    public Vector2f getTarget(CreatureControl creature) {
+        return new Vector2f(getTaskLocation().x + 0.5f, getTaskLocation().y + 0.5f);
+    }
+
+    @Override
+    protected String getStringId() {
+        return "";
+    }
+
+    @Override
+    public void executeTask(CreatureControl creature) {
+    }
+
+    @Override
+    public ArtResource getTaskAnimation(CreatureControl creature) {
+        return null;
+    }
+
+    @Override
+    public String getTaskIcon() {
+        return null;
+    }
+
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2014-2016 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.benchmark;
+
+import java.awt.Point;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import toniarts.openkeeper.game.task.AbstractTask;
+import toniarts.openkeeper.game.task.TaskIndex;
+import toniarts.openkeeper.world.TileData;
+import toniarts.openkeeper.world.creature.CreatureControl;
+
+/**
+ * Every idle imp looks for a task, like TaskManager.assignTask does each tick.
+ * The task manager needs the whole running game, so this drives the TaskIndex
+ * it delegates to. The tasks are dig tasks scattered on the map, reachable only
+ * if there is a path to a walkable tile next to them, checked like
+ * AbstractTask.isReachable does. A found task is taken so the next imp has to
+ * find another one.
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TaskAssignmentBenchmark {
+
+    /**
+     * Dig task that checks the reachability from the current imp
+     */
+    private class ReachableTask extends SyntheticTask {
+
+        private final TileData target;
+
+        public ReachableTask(boolean[] tagged, int x, int y) {
+            super(tagged, MAP_SIZE, x, y);
+            TileData tile = level.getMapData().getTile(x, y);
+            target = level.getWalkableNeighbour(tile);
+        }
+
+        @Override
+        public boolean isReachable(CreatureControl creature) {
+            return target != null && level.getPathFindingService().isReachable(impTile, target, null);
+        }
+    }
+
+    private static final int MAP_SIZE = 128;
+
+    @Param({"100", "1000", "5000"})
+    public int tasks;
+
+    @Param({"10", "50"})
+    public int imps;
+
+    private BenchmarkLevel level;
+    private TaskIndex taskIndex;
+    private boolean[] tagged;
+    private TileData[] impTiles;
+    private TileData impTile;
+
+    @Setup
+    public void setup() {
+        level = new BenchmarkLevel(MAP_SIZE);
+        taskIndex = new TaskIndex(MAP_SIZE, MAP_SIZE);
+        tagged = new boolean[MAP_SIZE * MAP_SIZE];
+        Random random = new Random(1);
+
+        // Prefer the diggable tiles, then anything
+        Set<Point> locations = new HashSet<>();
+        for (TileData tile : level.getDiggableTiles()) {
+            if (locations.size() == tasks) {
+                break;
+            }
+            locations.add(new Point(tile.getX(), tile.getY()));
+        }
+        while (locations.size() < tasks) {
+            locations.add(new Point(1 + random.nextInt(MAP_SIZE - 2), 1 + random.nextInt(MAP_SIZE - 2)));
+        }
+        for (Point p : locations) {
+            tagged[p.y * MAP_SIZE + p.x] = true;
+            taskIndex.add(new ReachableTask(tagged, p.x, p.y));
+        }
+
+        impTiles = level.getRandomWalkableTiles(imps, random);
+    }
+
+    @TearDown
+    public void tearDown() {
+        level.cleanup();
+    }
+
+    @Benchmark
+    public void assignTasks(Blackhole blackhole) {
+        AbstractTask[] assigned = new AbstractTask[impTiles.length];
+        for (int i = 0; i < impTiles.length; i++) {
+            impTile = impTiles[i];
+            AbstractTask task = taskIndex.findAssignableTask(null, new Point(impTile.getX(), impTile.getY()));
+            if (task != null) {
+                Point p = task.getTaskLocation();
+                tagged[p.y * MAP_SIZE + p.x] = false;
+                assigned[i] = task;
+            }
+        }
+
+        // Free the tasks for the next round
+        for (AbstractTask task : assigned) {
+            if (task != null) {
+                Point p = task.getTaskLocation();
+                tagged[p.y * MAP_SIZE + p.x] = true;
+            }
+        }
+        blackhole.consume(assigned);
+    }
+
+}
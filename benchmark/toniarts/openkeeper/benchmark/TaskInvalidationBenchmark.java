@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2014-2016 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.benchmark;
+
+import java.awt.Point;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import toniarts.openkeeper.game.task.AbstractTask;
+import toniarts.openkeeper.game.task.TaskIndex;
+
+/**
+ * Simulates mass digging and compares the per tick cost of invalidating the
+ * tile tasks by scanning the whole task queue against looking up only the
+ * tasks of the changed tiles. Each operation digs a batch of tiles and then
+ * tags them again, so both variants pay the same cost of re-adding the tasks.
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TaskInvalidationBenchmark {
+
+    private static final int MAP_SIZE = 128;
+    private static final int[][] NEIGHBOURS = {{0, 0}, {0, -1}, {1, 0}, {0, 1}, {-1, 0}};
+
+    @Param({"800", "3200"})
+    public int taggedTiles;
+
+    @Param({"20"})
+    public int tilesPerTick;
+
+    private boolean[] tagged;
+    private TaskIndex tasks;
+    private Point[] digOrder;
+    private int next = 0;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(1);
+        tagged = new boolean[MAP_SIZE * MAP_SIZE];
+        tasks = new TaskIndex(MAP_SIZE, MAP_SIZE);
+        digOrder = new Point[taggedTiles];
+        int count = 0;
+        while (count < taggedTiles) {
+            int x = random.nextInt(MAP_SIZE);
+            int y = random.nextInt(MAP_SIZE);
+            if (!tagged[y * MAP_SIZE + x]) {
+                tagged[y * MAP_SIZE + x] = true;
+                tasks.add(new SyntheticTask(tagged, MAP_SIZE, x, y));
+                digOrder[count++] = new Point(x, y);
+            }
+        }
+    }
+
+    @Benchmark
+    public int fullScan() {
+        int start = dig();
+        Iterator<AbstractTask> iter = tasks.iterator();
+        while (iter.hasNext()) {
+            if (!iter.next().isValid()) {
+                iter.remove();
+            }
+        }
+        return retag(start);
+    }
+
+    @Benchmark
+    public int perTile() {
+        int start = dig();
+        for (int i = start; i < start + tilesPerTick; i++) {
+            Point p = digOrder[i % taggedTiles];
+            for (int[] neighbour : NEIGHBOURS) {
+                for (AbstractTask task : tasks.getTasks(new Point(p.x + neighbour[0], p.y + neighbour[1]))) {
+                    if (!task.isValid()) {
+                        tasks.remove(task);
+                    }
+                }
+            }
+        }
+        return retag(start);
+    }
+
+    private int dig() {
+        int start = next;
+        for (int i = start; i < start + tilesPerTick; i++) {
+            Point p = digOrder[i % taggedTiles];
+            tagged[p.y * MAP_SIZE + p.x] = false;
+        }
+        next = (start + tilesPerTick) % taggedTiles;
+        return start;
+    }
+
+    private int retag(int start) {
+        for (int i = start; i < start + tilesPerTick; i++) {
+            Point p = digOrder[i % taggedTiles];
+            tagged[p.y * MAP_SIZE + p.x] = true;
+            tasks.add(new SyntheticTask(tagged, MAP_SIZE, p.x, p.y));
+        }
+        return tasks.size();
+    }
+
+}
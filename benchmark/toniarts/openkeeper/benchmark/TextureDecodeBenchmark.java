@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2014-2016 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import toniarts.openkeeper.tools.convert.ConversionUtils;
+import toniarts.openkeeper.tools.convert.ResourceReader;
+import toniarts.openkeeper.tools.convert.textures.enginetextures.EngineTextureDecoder;
+import toniarts.openkeeper.tools.convert.textures.enginetextures.EngineTextureEntry;
+import toniarts.openkeeper.tools.convert.textures.enginetextures.EngineTexturesFile;
+
+/**
+ * Decodes the engine textures of the original game files, without the PNG
+ * encoding. Needs the DK II folder, i.e. run with "-p dkFolder=&lt;DK II
+ * folder&gt;".<br>
+ * The "bytes" counter is the decoded RGBA data per second, run the benchmark
+ * on an earlier revision to compare decoders.
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TextureDecodeBenchmark {
+
+    /**
+     * Decoded bytes, reported per second
+     */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+
+    @Param({""})
+    public String dkFolder;
+
+    /**
+     * Only the highest quality mipmap levels, like the conversion
+     */
+    @Param({"true"})
+    public boolean highestMipMapOnly;
+
+    private final List<EngineTextureEntry> entries = new ArrayList<>();
+    private final List<long[]> data = new ArrayList<>();
+
+    @Setup
+    public void setup() throws IOException {
+        if (dkFolder.isEmpty() || !new File(dkFolder).isDirectory()) {
+            throw new IllegalStateException("Give the DK II folder with -p dkFolder=<folder>!");
+        }
+        String basePath = (dkFolder.endsWith(File.separator) ? dkFolder : dkFolder.concat(File.separator));
+        File file = new File(ConversionUtils.getRealFileName(basePath, "DK2TextureCache".concat(File.separator).concat("EngineTextures.dat")));
+        EngineTexturesFile etFile = new EngineTexturesFile(file);
+
+        // Read the compressed textures to memory beforehand
+        try (ResourceReader rawTextures = new ResourceReader(file)) {
+            for (String texture : etFile) {
+                if (highestMipMapOnly && EngineTexturesFile.getHighestMipMapName(texture) == null) {
+                    continue;
+                }
+                EngineTextureEntry entry = etFile.getEntry(texture);
+                rawTextures.seek(entry.getDataStartLocation());
+                long[] buf = new long[entry.getSize() / 4];
+                for (int i = 0; i < buf.length; i++) {
+                    buf[i] = rawTextures.readUnsignedIntegerAsLong();
+                }
+                entries.add(entry);
+                data.add(buf);
+            }
+        }
+    }
+
+    @Benchmark
+    public void decode(Counters counters, Blackhole blackhole) {
+        EngineTextureDecoder decoder = new EngineTextureDecoder();
+        for (int i = 0; i < entries.size(); i++) {
+            EngineTextureEntry entry = entries.get(i);
+            byte[] pixels = decoder.dd_texture(data.get(i), entry.getResX() * 4, entry.getResX(), entry.getResY(), entry.isAlphaFlag());
+            counters.bytes += pixels.length;
+            blackhole.consume(pixels);
+        }
+    }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2014-2016 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.tools.convert.map;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Random;
+
+/**
+ * Generates dungeon like levels in code, so the benchmarks don't need the
+ * original game files. The map is solid earth with impenetrable rock borders,
+ * dug out rooms connected by corridors, and some water and lava pools on the
+ * way.
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public final class SyntheticLevel {
+
+    public static final short ROCK = 1;
+    public static final short EARTH = 2;
+    public static final short PATH = 3;
+    public static final short WATER = 4;
+    public static final short LAVA = 5;
+
+    private static final int MIN_ROOM_SIZE = 3;
+    private static final int MAX_ROOM_SIZE = 9;
+    private static final int TILES_PER_ROOM = 150;
+    private static final float POOL_CHANCE = 0.3f;
+
+    private SyntheticLevel() {
+        // Nope
+    }
+
+    /**
+     * Generate a level
+     *
+     * @param width map width
+     * @param height map height
+     * @param seed random seed, the same seed always gives the same level
+     * @return the level, with only the map and the terrains
+     */
+    public static KwdFile generate(int width, int height, long seed) {
+        Random random = new Random(seed);
+        short[][] terrain = new short[width][height];
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                terrain[x][y] = (x == 0 || y == 0 || x == width - 1 || y == height - 1 ? ROCK : EARTH);
+            }
+        }
+
+        // Rooms, each connected to the previous one
+        int rooms = Math.max(2, width * height / TILES_PER_ROOM);
+        int previousX = -1;
+        int previousY = -1;
+        for (int i = 0; i < rooms; i++) {
+            int roomWidth = MIN_ROOM_SIZE + random.nextInt(MAX_ROOM_SIZE - MIN_ROOM_SIZE + 1);
+            int roomHeight = MIN_ROOM_SIZE + random.nextInt(MAX_ROOM_SIZE - MIN_ROOM_SIZE + 1);
+            int roomX = 1 + random.nextInt(Math.max(1, width - roomWidth - 2));
+            int roomY = 1 + random.nextInt(Math.max(1, height - roomHeight - 2));
+            fill(terrain, roomX, roomY, roomWidth, roomHeight, PATH);
+
+            // Pools
+            if (random.nextFloat() < POOL_CHANCE) {
+                fill(terrain, roomX + 1, roomY + 1, roomWidth - 2, roomHeight - 2, (random.nextBoolean() ? WATER : LAVA));
+            }
+
+            int centerX = roomX + roomWidth / 2;
+            int centerY = roomY + roomHeight / 2;
+            if (previousX >= 0) {
+                carveCorridor(terrain, previousX, previousY, centerX, centerY);
+            }
+            previousX = centerX;
+            previousY = centerY;
+        }
+
+        // Make the level
+        Map map = new Map(width, height);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                Tile tile = new Tile();
+                tile.setTerrainId(terrain[x][y]);
+                tile.setPlayerId((short) (terrain[x][y] == PATH ? 3 : 0));
+                map.setTile(x, y, tile);
+            }
+        }
+        java.util.Map<Short, Terrain> terrains = new HashMap<>();
+        terrains.put(ROCK, createTerrain(ROCK, "Rock", EnumSet.of(Terrain.TerrainFlag.SOLID, Terrain.TerrainFlag.IMPENETRABLE)));
+        terrains.put(EARTH, createTerrain(EARTH, "Earth", EnumSet.of(Terrain.TerrainFlag.SOLID, Terrain.TerrainFlag.TAGGABLE)));
+        terrains.put(PATH, createTerrain(PATH, "Claimed Path", EnumSet.of(Terrain.TerrainFlag.OWNABLE)));
+        terrains.put(WATER, createTerrain(WATER, "Water", EnumSet.of(Terrain.TerrainFlag.WATER)));
+        terrains.put(LAVA, createTerrain(LAVA, "Lava", EnumSet.of(Terrain.TerrainFlag.LAVA)));
+
+        return new KwdFile(map, terrains);
+    }
+
+    private static void fill(short[][] terrain, int startX, int startY, int width, int height, short terrainId) {
+        for (int x = startX; x < startX + width && x < terrain.length - 1; x++) {
+            for (int y = startY; y < startY + height && y < terrain[x].length - 1; y++) {
+                terrain[x][y] = terrainId;
+            }
+        }
+    }
+
+    private static void carveCorridor(short[][] terrain, int fromX, int fromY, int toX, int toY) {
+        for (int x = Math.min(fromX, toX); x <= Math.max(fromX, toX); x++) {
+            if (terrain[x][fromY] != WATER && terrain[x][fromY] != LAVA) {
+                terrain[x][fromY] = PATH;
+            }
+        }
+        for (int y = Math.min(fromY, toY); y <= Math.max(fromY, toY); y++) {
+            if (terrain[toX][y] != WATER && terrain[toX][y] != LAVA) {
+                terrain[toX][y] = PATH;
+            }
+        }
+    }
+
+    private static Terrain createTerrain(short terrainId, String name, EnumSet<Terrain.TerrainFlag> flags) {
+        Terrain terrain = new Terrain();
+        terrain.setTerrainId(terrainId);
+        terrain.setName(name);
+        terrain.setFlags(flags);
+        return terrain;
+    }
+
+}
@@ -33,6 +33,7 @@ import com.jme3.post.FilterPostProcessor;
 import com.jme3.post.ssao.SSAOFilter;
 import com.jme3.renderer.RenderManager;
 import com.jme3.system.AppSettings;
+import com.jme3.system.JmeContext;
 import com.jme3.system.JmeSystem;
 import de.lessvoid.nifty.Nifty;
 import de.lessvoid.nifty.render.batch.BatchRenderConfiguration;
@@ -63,12 +64,14 @@ import toniarts.openkeeper.game.data.Settings;
 import toniarts.openkeeper.game.state.GameState;
 import toniarts.openkeeper.game.state.MainMenuState;
 import toniarts.openkeeper.game.state.PlayerState;
+import toniarts.openkeeper.game.state.SimulationState;
 import toniarts.openkeeper.game.state.loading.TitleScreenState;
 import toniarts.openkeeper.gui.CursorFactory;
 import toniarts.openkeeper.setup.DKConverter;
 import toniarts.openkeeper.setup.DKFolderSelector;
 import toniarts.openkeeper.setup.IFrameClosingBehavior;
 import toniarts.openkeeper.tools.convert.AssetsConverter;
+import toniarts.openkeeper.tools.convert.DKAssetLocator;
 import toniarts.openkeeper.utils.PathUtils;
 import toniarts.openkeeper.utils.SettingUtils;
 import toniarts.openkeeper.utils.UTF8Control;
@@ -108,6 +111,17 @@ public class Main extends SimpleApplication {
         app.showSettings = false;
         initSettings(app);
 
+        // Headless simulation, no prompts nor rendering
+        if (params.containsKey("simulate")) {
+            if (PathUtils.checkDkFolder(getDkIIFolder()) && !AssetsConverter.conversionNeeded(Main.getSettings(), true)) {
+                app.setTimer(new SimulationState.FixedStepTimer(GameState.MOVEMENT_UPDATE_TPF));
+                app.start(JmeContext.Type.Headless);
+            } else {
+                logger.severe("Dungeon Keeper II folder not set or the assets not converted, can not simulate!");
+            }
+            return;
+        }
+
         // Finally start it if everything went ok
         if (checkSetup(app)) {
             app.start();
@@ -178,7 +192,7 @@ public class Main extends SimpleApplication {
         }
 
         // If the folder is ok, check the conversion
-        if (folderOk && (AssetsConverter.conversionNeeded(Main.getSettings()))) {
+        if (folderOk && (AssetsConverter.conversionNeeded(Main.getSettings(), true))) {
             logger.info("Need to convert the assets!");
             saveSetup = true;
 
@@ -313,8 +327,15 @@ public class Main extends SimpleApplication {
     @Override
     public void simpleInitApp() {
 
-        // Distribution locator
+        // Distribution locator, and the original archives for the assets not converted
         getAssetManager().registerLocator(AssetsConverter.getAssetsFolder(), FileLocator.class);
+        getAssetManager().registerLocator(getDkIIFolder(), DKAssetLocator.class);
+
+        // Headless simulation, skip all the menus
+        if (params.containsKey("simulate")) {
+            startSimulation();
+            return;
+        }
 
         // Initiate the title screen
         TitleScreenState gameLoader = new TitleScreenState() {
@@ -469,6 +490,15 @@ public class Main extends SimpleApplication {
         return PathUtils.getDKIIFolder();
     }
 
+    /**
+     * Gets the folder for the user specific files, like the settings
+     *
+     * @return the user home folder of the game
+     */
+    public static String getUserHomeFolder() {
+        return USER_HOME_FOLDER;
+    }
+
     @Override
     public void restart() {
         try {
@@ -550,6 +580,19 @@ public class Main extends SimpleApplication {
         }
     }
 
+    /**
+     * Starts a headless level simulation. Parameters: -simulate &lt;level&gt;
+     * [-ticks &lt;count&gt;] [-seed &lt;seed&gt;] [-profile &lt;file.csv|file.json&gt;]
+     */
+    private void startSimulation() {
+        getAssetManager().registerLoader(MP2Loader.class, "mp2");
+        getAssetManager().registerLoader(CameraSweepDataLoader.class, CameraSweepDataLoader.CAMERA_SWEEP_DATA_FILE_EXTENSION);
+
+        long ticks = (params.get("ticks") != null ? Long.parseLong(params.get("ticks")) : 10000);
+        long seed = (params.get("seed") != null ? Long.parseLong(params.get("seed")) : 0);
+        stateManager.attach(new SimulationState(params.get("simulate"), ticks, seed, params.get("profile")));
+    }
+
     /**
      * Plays the intro movies, after which the game is started
      */
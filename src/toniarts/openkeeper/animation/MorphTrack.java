@@ -0,0 +1,215 @@
+/*
+ * Copyright (C) 2014-2016 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.animation;
+
+import com.jme3.animation.AnimChannel;
+import com.jme3.animation.AnimControl;
+import com.jme3.animation.ClonableTrack;
+import com.jme3.animation.Track;
+import com.jme3.export.InputCapsule;
+import com.jme3.export.JmeExporter;
+import com.jme3.export.JmeImporter;
+import com.jme3.export.OutputCapsule;
+import com.jme3.material.MatParamOverride;
+import com.jme3.math.FastMath;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
+import com.jme3.shader.VarType;
+import com.jme3.util.TempVars;
+import com.jme3.util.clone.Cloner;
+import java.io.IOException;
+
+/**
+ * A single track of vertex morph animation associated with a certain mesh. The
+ * frames are baked to a texture and blended on the GPU, the track just tells
+ * the material which frame to show. So the mesh is never modified and can be
+ * shared by all the instances. The material needs to support the morph
+ * parameters, like MatDefs/LightingMorph.j3md does.
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public final class MorphTrack implements Track, ClonableTrack {
+
+    /**
+     * The baked frames, a float texture of the vertex positions
+     */
+    public static final String MORPH_MAP = "MorphMap";
+    /**
+     * Size of the morph map
+     */
+    public static final String MORPH_MAP_SIZE = "MorphMapSize";
+    /**
+     * Vertex count of a single frame in the morph map
+     */
+    public static final String MORPH_VERTEX_COUNT = "MorphVertexCount";
+    /**
+     * The frame to show, the fraction is the weight of the next frame
+     */
+    public static final String MORPH_FRAME = "MorphFrame";
+
+    private int targetMeshIndex;
+    private float startTime;
+    private float frameTime;
+    private int frames;
+    private transient Geometry target;
+    private transient MatParamOverride frameOverride;
+
+    /**
+     * Create a morph track
+     *
+     * @param targetMeshIndex the mesh index
+     * @param startTime the time of the first frame
+     * @param frameTime time between the frames
+     * @param frames frame count
+     */
+    public MorphTrack(int targetMeshIndex, float startTime, float frameTime, int frames) {
+        this.targetMeshIndex = targetMeshIndex;
+        this.startTime = startTime;
+        this.frameTime = frameTime;
+        this.frames = frames;
+    }
+
+    /**
+     * Serialization-only. Do not use.
+     */
+    public MorphTrack() {
+    }
+
+    @Override
+    public float[] getKeyFrameTimes() {
+        float[] times = new float[frames];
+        for (int i = 0; i < frames; i++) {
+            times[i] = startTime + i * frameTime;
+        }
+        return times;
+    }
+
+    @Override
+    public Track cloneForSpatial(Spatial spatial) {
+        return new MorphTrack(targetMeshIndex, startTime, frameTime, frames);
+    }
+
+    @Override
+    public void cleanUp() {
+        if (target != null) {
+            target.removeMatParamOverride(frameOverride);
+            target = null;
+            frameOverride = null;
+        }
+    }
+
+    @Override
+    public void setTime(float time, float weight, AnimControl control,
+            AnimChannel channel, TempVars vars) {
+        Geometry geom = findGeom(control.getSpatial());
+        if (geom == null) {
+            return;
+        }
+
+        float frame = FastMath.clamp((time - startTime) / frameTime, 0, frames - 1);
+        getFrameOverride(geom).setValue(frame);
+    }
+
+    /**
+     * Get the frame parameter of the geometry. The overrides of a cloned
+     * geometry are shared with the original, so the geometry always gets its
+     * own.
+     *
+     * @param geom the geometry
+     * @return the frame parameter override
+     */
+    private MatParamOverride getFrameOverride(Geometry geom) {
+        if (geom != target) {
+            for (MatParamOverride override : geom.getLocalMatParamOverrides().getArray()) {
+                if (MORPH_FRAME.equals(override.getName())) {
+                    geom.removeMatParamOverride(override);
+                }
+            }
+            frameOverride = new MatParamOverride(VarType.Float, MORPH_FRAME, 0f);
+            geom.addMatParamOverride(frameOverride);
+            target = geom;
+        }
+        return frameOverride;
+    }
+
+    public Geometry findGeom(Spatial spatial) {
+        if (spatial instanceof Node) {
+            Node findingnode = (Node) spatial;
+            Spatial child = findingnode.getChild(targetMeshIndex);
+            Geometry result = findGeom(child);
+            if (result != null) {
+                return result;
+            }
+        } else if (spatial instanceof Geometry) {
+            return (Geometry) spatial;
+        }
+        return null;
+    }
+
+    /**
+     * @return the length of the track
+     */
+    @Override
+    public float getLength() {
+        return (frames - 1) * frameTime;
+    }
+
+    /**
+     * This method creates a clone of the current object.
+     *
+     * @return a clone of the current object
+     */
+    @Override
+    public MorphTrack clone() {
+        try {
+            MorphTrack result = (MorphTrack) super.clone();
+            result.target = null;
+            result.frameOverride = null;
+            return result;
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError();
+        }
+    }
+
+    @Override
+    public Object jmeClone() {
+        return clone();
+    }
+
+    @Override
+    public void cloneFields(Cloner cloner, Object o) {
+    }
+
+    @Override
+    public void write(JmeExporter e) throws IOException {
+        OutputCapsule out = e.getCapsule(this);
+        out.write(targetMeshIndex, "meshIndex", 0);
+        out.write(startTime, "startTime", 0);
+        out.write(frameTime, "frameTime", 0);
+        out.write(frames, "frames", 0);
+    }
+
+    @Override
+    public void read(JmeImporter i) throws IOException {
+        InputCapsule in = i.getCapsule(this);
+        targetMeshIndex = in.readInt("meshIndex", 0);
+        startTime = in.readFloat("startTime", 0);
+        frameTime = in.readFloat("frameTime", 0);
+        frames = in.readInt("frames", 0);
+    }
+}
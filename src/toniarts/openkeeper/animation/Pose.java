@@ -37,15 +37,21 @@ import java.io.IOException;
 
 /**
  * A pose is a list of offsets that say where a mesh vertices should be for this
- * pose.
+ * pose.<br>
+ * The pose is immutable, the offsets are packed to a single array that all the
+ * clones share.
  */
 public final class Pose implements Savable, Cloneable {
 
     private String name;
-    private Vector3f[] offsets;
+    private float[] offsets;
     private int[] indices;
 
     public Pose(String name, Vector3f[] offsets, int[] indices) {
+        this(name, pack(offsets), indices);
+    }
+
+    public Pose(String name, float[] offsets, int[] indices) {
         this.name = name;
         this.offsets = offsets;
         this.indices = indices;
@@ -58,11 +64,12 @@ public final class Pose implements Savable, Cloneable {
     }
 
     /**
-     * Get the vertice offsets
+     * Get the vertice offsets, x, y and z of each vertice one after another.
+     * The array is shared, do not modify it
      *
      * @return the vertice offsets
      */
-    public Vector3f[] getOffsets() {
+    public float[] getOffsets() {
         return offsets;
     }
 
@@ -83,15 +90,9 @@ public final class Pose implements Savable, Cloneable {
     @Override
     public Pose clone() {
         try {
-            Pose result = (Pose) super.clone();
-            result.indices = this.indices.clone();
-            if (this.offsets != null) {
-                result.offsets = new Vector3f[this.offsets.length];
-                for (int i = 0; i < this.offsets.length; ++i) {
-                    result.offsets[i] = this.offsets[i].clone();
-                }
-            }
-            return result;
+
+            // Immutable, so the clone can share the data
+            return (Pose) super.clone();
         } catch (CloneNotSupportedException e) {
             throw new AssertionError();
         }
@@ -101,7 +102,7 @@ public final class Pose implements Savable, Cloneable {
     public void write(JmeExporter e) throws IOException {
         OutputCapsule out = e.getCapsule(this);
         out.write(name, "name", "");
-        out.write(offsets, "offsets", null);
+        out.write(offsets, "packedOffsets", null);
         out.write(indices, "indices", null);
     }
 
@@ -111,10 +112,26 @@ public final class Pose implements Savable, Cloneable {
         name = in.readString("name", "");
         indices = in.readIntArray("indices", null);
 
-        Savable[] readSavableArray = in.readSavableArray("offsets", null);
-        if (readSavableArray != null) {
-            offsets = new Vector3f[readSavableArray.length];
-            System.arraycopy(readSavableArray, 0, offsets, 0, readSavableArray.length);
+        offsets = in.readFloatArray("packedOffsets", null);
+
+        // The older models have the offsets as vectors
+        if (offsets == null) {
+            Savable[] readSavableArray = in.readSavableArray("offsets", null);
+            if (readSavableArray != null) {
+                Vector3f[] vectors = new Vector3f[readSavableArray.length];
+                System.arraycopy(readSavableArray, 0, vectors, 0, readSavableArray.length);
+                offsets = pack(vectors);
+            }
+        }
+    }
+
+    private static float[] pack(Vector3f[] vectors) {
+        float[] packed = new float[vectors.length * 3];
+        for (int i = 0; i < vectors.length; i++) {
+            packed[i * 3] = vectors[i].x;
+            packed[i * 3 + 1] = vectors[i].y;
+            packed[i * 3 + 2] = vectors[i].z;
         }
+        return packed;
     }
 }
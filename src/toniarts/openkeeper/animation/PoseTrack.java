@@ -40,21 +40,21 @@ import com.jme3.export.JmeExporter;
 import com.jme3.export.JmeImporter;
 import com.jme3.export.OutputCapsule;
 import com.jme3.export.Savable;
-import com.jme3.math.Vector3f;
 import com.jme3.scene.Geometry;
 import com.jme3.scene.Mesh;
 import com.jme3.scene.Node;
 import com.jme3.scene.Spatial;
 import com.jme3.scene.VertexBuffer;
 import com.jme3.scene.VertexBuffer.Type;
-import com.jme3.util.BufferUtils;
 import com.jme3.util.TempVars;
 import com.jme3.util.clone.Cloner;
 import java.io.IOException;
 import java.nio.FloatBuffer;
 
 /**
- * A single track of pose animation associated with a certain mesh.
+ * A single track of pose animation associated with a certain mesh.<br>
+ * The frames are immutable and shared by all the clones, only the mesh is per
+ * instance.
  */
 public final class PoseTrack implements Track, ClonableTrack {
 
@@ -78,6 +78,24 @@ public final class PoseTrack implements Track, ClonableTrack {
         public PoseFrame() {
         }
 
+        /**
+         * Get the poses, in pairs of start and end pose
+         *
+         * @return the poses
+         */
+        public Pose[] getPoses() {
+            return poses;
+        }
+
+        /**
+         * Get the weights of the pose pairs
+         *
+         * @return the weights
+         */
+        public float[] getWeights() {
+            return weights;
+        }
+
         /**
          * This method creates a clone of the current object.
          *
@@ -86,15 +104,9 @@ public final class PoseTrack implements Track, ClonableTrack {
         @Override
         public PoseTrack.PoseFrame clone() {
             try {
-                PoseTrack.PoseFrame result = (PoseTrack.PoseFrame) super.clone();
-                result.weights = this.weights.clone();
-                if (this.poses != null) {
-                    result.poses = new Pose[this.poses.length];
-                    for (int i = 0; i < this.poses.length; ++i) {
-                        result.poses[i] = this.poses[i].clone();
-                    }
-                }
-                return result;
+
+                // Immutable, so the clone can share the data
+                return (PoseTrack.PoseFrame) super.clone();
             } catch (CloneNotSupportedException e) {
                 throw new AssertionError();
             }
@@ -172,20 +184,17 @@ public final class PoseTrack implements Track, ClonableTrack {
      */
     private void applyPose(Pose startPose, Pose endPose, float weight, FloatBuffer vertexBuffer) {
         int[] startingIndices = startPose.getIndices();
-        Vector3f interpOffset = new Vector3f();
+        float[] startOffsets = startPose.getOffsets();
+        float[] endOffsets = endPose.getOffsets();
         for (int i = 0; i < startingIndices.length; i++) {
-            int vertIndex = startingIndices[i];
-            Vector3f startOffset = startPose.getOffsets()[i];
-            Vector3f endOffset = endPose.getOffsets()[i];
-
-            // Interpolate
-            interpOffset.set(endOffset);
-            interpOffset.subtractLocal(startOffset);
-            interpOffset.multLocal(weight);
-            interpOffset.addLocal(startOffset);
-
-            // Write modified vertex
-            BufferUtils.setInBuffer(interpOffset, vertexBuffer, vertIndex);
+            int vertIndex = startingIndices[i] * 3;
+            int offsetIndex = i * 3;
+
+            // Interpolate & write modified vertex
+            for (int k = 0; k < 3; k++) {
+                float startOffset = startOffsets[offsetIndex + k];
+                vertexBuffer.put(vertIndex + k, (endOffsets[offsetIndex + k] - startOffset) * weight + startOffset);
+            }
         }
     }
 
@@ -251,15 +260,9 @@ public final class PoseTrack implements Track, ClonableTrack {
     @Override
     public PoseTrack clone() {
         try {
-            PoseTrack result = (PoseTrack) super.clone();
-            result.times = this.times.clone();
-            if (this.frames != null) {
-                result.frames = new PoseTrack.PoseFrame[this.frames.length];
-                for (int i = 0; i < this.frames.length; ++i) {
-                    result.frames[i] = this.frames[i].clone();
-                }
-            }
-            return result;
+
+            // The times and the frames are shared
+            return (PoseTrack) super.clone();
         } catch (CloneNotSupportedException e) {
             throw new AssertionError();
         }
@@ -0,0 +1,289 @@
+/*
+ * Copyright (C) 2014-2016 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.game;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import toniarts.openkeeper.tools.convert.ConversionUtils;
+import toniarts.openkeeper.tools.convert.map.GameLevel;
+import toniarts.openkeeper.tools.convert.map.KwdFile;
+
+/**
+ * Persistent index of the maps in the maps folder. Holds what the map
+ * selection shows, so the levels don't need to be read every time the menus
+ * are opened.<br>
+ * The index is refreshed by the size and modification time of the level
+ * files, only the added and changed levels are read.
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public class MapIndex {
+
+    public static final String INDEX_FILE = "maps.index";
+    private static final int VERSION = 1;
+
+    private final Path file;
+    private final Map<String, MapEntry> maps = new HashMap<>();
+    private boolean changed = false;
+    private static final Logger logger = Logger.getLogger(MapIndex.class.getName());
+
+    private MapIndex(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Load the map index. A missing or broken index is just empty, all the
+     * maps get read on refresh.
+     *
+     * @param file the index file
+     * @return the map index
+     */
+    public static MapIndex load(File file) {
+        MapIndex index = new MapIndex(file.toPath());
+        if (!file.exists()) {
+            return index;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(index.file, StandardCharsets.UTF_8)) {
+            index.read(reader);
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "Failed to read the map index " + file + "!", e);
+            index.maps.clear();
+        }
+        return index;
+    }
+
+    private void read(BufferedReader reader) throws IOException {
+
+        // Every line is a tab separated map, after the version
+        String line = reader.readLine();
+        if (line == null || Integer.parseInt(line) != VERSION) {
+            return;
+        }
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] fields = line.split("\t", -1);
+            MapEntry map = new MapEntry(new File(fields[0]), Long.parseLong(fields[1]), Long.parseLong(fields[2]),
+                    fields[3], fields[4], Integer.parseInt(fields[5]), Integer.parseInt(fields[6]), Integer.parseInt(fields[7]),
+                    Boolean.parseBoolean(fields[8]), Boolean.parseBoolean(fields[9]), Boolean.parseBoolean(fields[10]),
+                    fields[11]);
+            maps.put(fields[0], map);
+        }
+    }
+
+    /**
+     * Save the index, if it has changed
+     *
+     * @throws IOException if the saving fails
+     */
+    public synchronized void save() throws IOException {
+        if (!changed) {
+            return;
+        }
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path tmp = file.resolveSibling(file.getFileName().toString().concat(".tmp"));
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8);
+                PrintWriter pw = new PrintWriter(writer)) {
+            pw.println(VERSION);
+            for (MapEntry map : maps.values()) {
+                pw.println(map.file.getPath() + "\t" + map.length + "\t" + map.lastModified + "\t"
+                        + clean(map.name) + "\t" + clean(map.levelName) + "\t" + map.playerCount + "\t" + map.width + "\t" + map.height + "\t"
+                        + map.skirmish + "\t" + map.multiplayer + "\t" + map.mpd + "\t" + map.thumbnail);
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        changed = false;
+    }
+
+    private static String clean(String value) {
+        return value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    /**
+     * Refresh the index from the maps folder. The maps that have been removed
+     * are dropped, and the added and changed ones are read.
+     *
+     * @param dkIIFolder the DK II folder
+     * @param mapsFolder the maps folder
+     */
+    public synchronized void refresh(String dkIIFolder, File mapsFolder) {
+        File[] files = mapsFolder.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.toLowerCase().endsWith(".kwd");
+            }
+        });
+        if (files == null) {
+            files = new File[0];
+        }
+
+        Map<String, MapEntry> current = new HashMap<>(files.length);
+        for (File f : files) {
+            String key = f.getAbsolutePath();
+            MapEntry map = maps.get(key);
+            if (map == null || map.length != f.length() || map.lastModified != f.lastModified()) {
+                try {
+                    map = new MapEntry(f.getAbsoluteFile(), new KwdFile(dkIIFolder, f, false));
+                } catch (Exception e) {
+                    logger.log(Level.WARNING, "Failed to read the map " + f + "!", e);
+                    continue;
+                }
+                changed = true;
+            }
+            current.put(key, map);
+        }
+        if (current.size() != maps.size()) {
+            changed = true;
+        }
+        maps.clear();
+        maps.putAll(current);
+    }
+
+    /**
+     * Get the indexed maps
+     *
+     * @return the maps, in no particular order
+     */
+    public synchronized List<MapEntry> getMaps() {
+        return new ArrayList<>(maps.values());
+    }
+
+    /**
+     * The indexed info of a single map. The actual level is read only when
+     * asked.
+     */
+    public static class MapEntry {
+
+        private final File file;
+        private final long length;
+        private final long lastModified;
+        private final String name;
+        private final String levelName;
+        private final int playerCount;
+        private final int width;
+        private final int height;
+        private final boolean skirmish;
+        private final boolean multiplayer;
+        private final boolean mpd;
+        private final String thumbnail;
+        private KwdFile kwdFile;
+
+        private MapEntry(File file, KwdFile kwdFile) {
+            this(file, file.length(), file.lastModified(), kwdFile.getGameLevel().getName(), kwdFile.getGameLevel().getLevelName(),
+                    kwdFile.getGameLevel().getPlayerCount(), kwdFile.getMap().getWidth(), kwdFile.getMap().getHeight(),
+                    kwdFile.getGameLevel().getLvlFlags().contains(GameLevel.LevFlag.IS_SKIRMISH_LEVEL),
+                    kwdFile.getGameLevel().getLvlFlags().contains(GameLevel.LevFlag.IS_MULTIPLAYER_LEVEL),
+                    kwdFile.getGameLevel().getLvlFlags().contains(GameLevel.LevFlag.IS_MY_PET_DUNGEON_LEVEL),
+                    "Textures/Thumbnails/" + ConversionUtils.stripFileName(kwdFile.getGameLevel().getName()) + ".png");
+        }
+
+        private MapEntry(File file, long length, long lastModified, String name, String levelName, int playerCount, int width, int height, boolean skirmish, boolean multiplayer, boolean mpd, String thumbnail) {
+            this.file = file;
+            this.length = length;
+            this.lastModified = lastModified;
+            this.name = name;
+            this.levelName = levelName;
+            this.playerCount = playerCount;
+            this.width = width;
+            this.height = height;
+            this.skirmish = skirmish;
+            this.multiplayer = multiplayer;
+            this.mpd = mpd;
+            this.thumbnail = thumbnail;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getLevelName() {
+            return levelName;
+        }
+
+        public int getPlayerCount() {
+            return playerCount;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        public boolean isSkirmish() {
+            return skirmish;
+        }
+
+        public boolean isMultiplayer() {
+            return multiplayer;
+        }
+
+        public boolean isMPD() {
+            return mpd;
+        }
+
+        /**
+         * Get the thumbnail asset of the map, it may not exist yet
+         *
+         * @return the thumbnail asset key
+         */
+        public String getThumbnail() {
+            return thumbnail;
+        }
+
+        /**
+         * Get the level, only the general info is read
+         *
+         * @param dkIIFolder the DK II folder
+         * @return the level
+         */
+        public synchronized KwdFile getKwdFile(String dkIIFolder) {
+            if (kwdFile == null) {
+                kwdFile = new KwdFile(dkIIFolder, file, false);
+            }
+            return kwdFile;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
@@ -18,73 +18,88 @@ package toniarts.openkeeper.game;
 
 import com.jme3.math.FastMath;
 import java.io.File;
-import java.io.FilenameFilter;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import toniarts.openkeeper.Main;
+import toniarts.openkeeper.game.MapIndex.MapEntry;
 import toniarts.openkeeper.tools.convert.AssetsConverter;
-import toniarts.openkeeper.tools.convert.map.GameLevel;
-import toniarts.openkeeper.tools.convert.map.KwdFile;
 
 /**
- * Class isolate map selection
+ * Class isolate map selection<br>
+ * The maps come from the map index, which is refreshed in the background
  *
  * @author ArchDemon
  */
 public class MapSelector {
 
-    private List<KwdFile> skirmishMaps;
-    private List<KwdFile> multiplayerMaps;
-    private List<KwdFile> mpdMaps;
-    private KwdFile map;
+    private final CompletableFuture<Void> indexing;
+    private List<MapEntry> skirmishMaps;
+    private List<MapEntry> multiplayerMaps;
+    private List<MapEntry> mpdMaps;
+    private MapEntry map;
     private boolean skirmish;
     private boolean mpd;
+    private static final Logger logger = Logger.getLogger(MapSelector.class.getName());
 
     public MapSelector() {
         reset();
-        // Get the skirmish maps
-        File f = new File(Main.getDkIIFolder().concat(AssetsConverter.MAPS_FOLDER));
-        File[] files = f.listFiles(new FilenameFilter() {
-            @Override
-            public boolean accept(File dir, String name) {
-                return name.toLowerCase().endsWith(".kwd");
-            }
-        });
 
-        // Read them
-        multiplayerMaps = new ArrayList<>(files.length);
-        skirmishMaps = new ArrayList<>(files.length);
-        mpdMaps = new ArrayList<>(files.length);
-        for (File file : files) {
-            KwdFile kwd = new KwdFile(Main.getDkIIFolder(), file, false);
-            if (kwd.getGameLevel().getLvlFlags().contains(GameLevel.LevFlag.IS_SKIRMISH_LEVEL)) {
-                skirmishMaps.add(kwd);
-            }
-            if (kwd.getGameLevel().getLvlFlags().contains(GameLevel.LevFlag.IS_MULTIPLAYER_LEVEL)) {
-                multiplayerMaps.add(kwd);
-            }
-            if (kwd.getGameLevel().getLvlFlags().contains(GameLevel.LevFlag.IS_MY_PET_DUNGEON_LEVEL)) {
-                mpdMaps.add(kwd);
+        // Refresh the index in the background, only the changed maps are read
+        indexing = CompletableFuture.runAsync(() -> {
+            MapIndex index = MapIndex.load(new File(Main.getUserHomeFolder().concat(MapIndex.INDEX_FILE)));
+            index.refresh(Main.getDkIIFolder(), new File(Main.getDkIIFolder().concat(AssetsConverter.MAPS_FOLDER)));
+            try {
+                index.save();
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Failed to save the map index!", e);
             }
-        }
 
-        // Sort them
-        Comparator c = new Comparator<KwdFile>() {
-            @Override
-            public int compare(KwdFile o1, KwdFile o2) {
-                return o1.getGameLevel().getName().compareToIgnoreCase(o2.getGameLevel().getName());
+            // Sort them
+            List<MapEntry> maps = index.getMaps();
+            Collections.sort(maps, new Comparator<MapEntry>() {
+                @Override
+                public int compare(MapEntry o1, MapEntry o2) {
+                    return o1.getName().compareToIgnoreCase(o2.getName());
+                }
+            });
+            List<MapEntry> skirmishList = new ArrayList<>(maps.size());
+            List<MapEntry> multiplayerList = new ArrayList<>(maps.size());
+            List<MapEntry> mpdList = new ArrayList<>(maps.size());
+            for (MapEntry entry : maps) {
+                if (entry.isSkirmish()) {
+                    skirmishList.add(entry);
+                }
+                if (entry.isMultiplayer()) {
+                    multiplayerList.add(entry);
+                }
+                if (entry.isMPD()) {
+                    mpdList.add(entry);
+                }
             }
-        };
-        Collections.sort(skirmishMaps, c);
-        Collections.sort(multiplayerMaps, c);
-        Collections.sort(mpdMaps, c);
+            skirmishMaps = skirmishList;
+            multiplayerMaps = multiplayerList;
+            mpdMaps = mpdList;
+        });
+    }
+
+    /**
+     * Wait for the map index, it is normally ready by the time the map
+     * selection is opened
+     */
+    private void waitForIndex() {
+        indexing.join();
     }
 
     public void random() {
-        KwdFile current;
-        List<KwdFile> maps = skirmish ? skirmishMaps : multiplayerMaps;
+        waitForIndex();
+        MapEntry current;
+        List<MapEntry> maps = skirmish ? skirmishMaps : multiplayerMaps;
 
         if (maps.isEmpty()) {
             current = null;
@@ -105,7 +120,7 @@ public class MapSelector {
         mpd = false;
     }
 
-    public KwdFile getMap() {
+    public MapEntry getMap() {
         if (map == null) {
             random();
         }
@@ -113,6 +128,7 @@ public class MapSelector {
     }
 
     public void selectMap(int index) {
+        waitForIndex();
         if (skirmish) {
             map = skirmishMaps.get(index);
         } else if (mpd) {
@@ -122,7 +138,8 @@ public class MapSelector {
         }
     }
 
-    public List<KwdFile> getMaps() {
+    public List<MapEntry> getMaps() {
+        waitForIndex();
         if (skirmish) {
             return skirmishMaps;
         } else if (mpd) {
@@ -40,7 +40,7 @@ public class ConsoleState extends AbstractPauseAwareState {
     public void initialize(AppStateManager stateManager, Application app) {
         super.initialize(stateManager, app);
         this.app = (Main) app;
-        console = new GameConsole(stateManager.getState(PlayerState.class).getScreen().getConsole());
+        console = new GameConsole(stateManager.getState(PlayerState.class).getScreen().getConsole(), stateManager);
         inputListener = new ConsoleInputListener(this);
         setEnabled(false);
     }
@@ -16,8 +16,13 @@
  */
 package toniarts.openkeeper.game.console;
 
+import com.jme3.app.state.AppStateManager;
 import de.lessvoid.nifty.controls.Console;
 import de.lessvoid.nifty.controls.ConsoleCommands;
+import java.io.IOException;
+import java.nio.file.Paths;
+import toniarts.openkeeper.game.logic.TickProfiler;
+import toniarts.openkeeper.game.state.GameState;
 
 /**
  *
@@ -25,9 +30,11 @@ import de.lessvoid.nifty.controls.ConsoleCommands;
  */
 public class GameConsole {
     private final Console console;
+    private final AppStateManager stateManager;
 
-    public GameConsole(Console console) {
+    public GameConsole(Console console, AppStateManager stateManager) {
         this.console = console;
+        this.stateManager = stateManager;
         initialize();
     }
 
@@ -42,6 +49,8 @@ public class GameConsole {
         consoleCommands.registerCommand("show", showCommand);
         */
 
+        consoleCommands.registerCommand("profiler", new ProfilerCommand());
+
         consoleCommands.enableCommandCompletion(true);
     }
 
@@ -73,6 +82,53 @@ public class GameConsole {
         }
     }
 
+    /**
+     * Shows the game logic tick profile. Usage: profiler [show|reset|on|off|dump
+     * file.csv|file.json]
+     */
+    private class ProfilerCommand implements ConsoleCommands.ConsoleCommand {
+        @Override
+        public void execute(final String[] args) {
+            GameState gameState = stateManager.getState(GameState.class);
+            if (gameState == null) {
+                console.outputError("No game running!");
+                return;
+            }
+            TickProfiler profiler = gameState.getTickProfiler();
+            String action = (args.length > 1 ? args[1] : "show");
+            switch (action) {
+                case "show":
+                    for (String line : profiler.getSummary()) {
+                        console.output(line);
+                    }
+                    break;
+                case "reset":
+                    profiler.reset();
+                    console.output("Profiler reset");
+                    break;
+                case "on":
+                case "off":
+                    profiler.setEnabled(action.equals("on"));
+                    console.output("Profiler " + action);
+                    break;
+                case "dump":
+                    if (args.length < 3) {
+                        console.outputError("Usage: profiler dump <file.csv|file.json>");
+                        return;
+                    }
+                    try {
+                        profiler.dump(Paths.get(args[2]));
+                        console.output("Profile written to " + args[2]);
+                    } catch (IOException e) {
+                        console.outputError("Failed to write the profile: " + e.getMessage());
+                    }
+                    break;
+                default:
+                    console.outputError("Usage: profiler [show|reset|on|off|dump <file>]");
+            }
+        }
+    }
+
     private class ShowCommand implements ConsoleCommands.ConsoleCommand {
         @Override
         public void execute(final String[] args) {
@@ -18,26 +18,52 @@ package toniarts.openkeeper.game.logic;
 
 import com.jme3.app.Application;
 import com.jme3.app.state.AbstractAppState;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import toniarts.openkeeper.world.ThingLoader;
 import toniarts.openkeeper.world.creature.CreatureControl;
 
 /**
- * Handles creature logic updates
+ * Handles creature logic updates. In the parallel mode the creatures' own
+ * attributes and timers are updated across a fork join pool. The state
+ * machines change the world (tasks, gold, dying...), so they are always run
+ * on the logic thread in the creature order.
  *
  * @author Toni Helenius <helenius.toni@gmail.com>
  */
 public class CreatureLogicState extends AbstractAppState implements IGameLogicUpdateable {
 
     private final ThingLoader thingLoader;
+    private final ForkJoinPool pool;
 
     public CreatureLogicState(ThingLoader thingLoader) {
+        this(thingLoader, null);
+    }
+
+    /**
+     * Creates a creature logic state
+     *
+     * @param thingLoader the thing loader
+     * @param pool the pool to run the creatures in, {@code null} for serial
+     * updates
+     */
+    public CreatureLogicState(ThingLoader thingLoader, ForkJoinPool pool) {
         this.thingLoader = thingLoader;
+        this.pool = pool;
     }
 
     @Override
     public void processTick(float tpf, Application app) {
-        for (CreatureControl creatureControl : thingLoader.getCreatures()) {
-            creatureControl.processTick(tpf, app);
+        List<CreatureControl> creatures = thingLoader.getCreatures();
+        if (pool == null) {
+            for (CreatureControl creatureControl : creatures) {
+                creatureControl.processTick(tpf, app);
+            }
+        } else {
+            ParallelTick.forEach(pool, creatures, (CreatureControl creatureControl) -> creatureControl.updateAttributesAndTimers(tpf));
+            for (CreatureControl creatureControl : creatures) {
+                creatureControl.updateStateMachine();
+            }
         }
     }
 
@@ -29,35 +29,66 @@ public class GameLogicThread implements Runnable {
 
     private final float tpf;
     private final IGameLogicUpdateable[] updatables;
+    private final String[] updatableNames;
+    private final long[] updatableTimes;
     private long ticks = 0;
     private final Application app;
+    private final TickProfiler profiler;
     private static final Logger logger = Logger.getLogger(GameLogicThread.class.getName());
 
     public GameLogicThread(Application app, float tpf, IGameLogicUpdateable... updatables) {
+        this(app, tpf, null, updatables);
+    }
+
+    /**
+     * Creates a game logic thread
+     *
+     * @param app the application
+     * @param tpf the time per tick
+     * @param profiler the profiler to record the tick timings to, can be
+     * {@code null}
+     * @param updatables the game logic systems, run in this order
+     */
+    public GameLogicThread(Application app, float tpf, TickProfiler profiler, IGameLogicUpdateable... updatables) {
         this.app = app;
         this.tpf = tpf;
+        this.profiler = profiler;
         this.updatables = updatables;
+        updatableNames = new String[updatables.length];
+        for (int i = 0; i < updatables.length; i++) {
+            updatableNames[i] = updatables[i].getClass().getSimpleName();
+        }
+        updatableTimes = new long[updatables.length];
     }
 
     @Override
     public void run() {
-        long start = System.currentTimeMillis();
+        long start = System.nanoTime();
+        long allocated = (profiler != null ? TickProfiler.getAllocatedBytes() : -1);
 
         // Update updatables
-        for (IGameLogicUpdateable updatable : updatables) {
+        for (int i = 0; i < updatables.length; i++) {
+            long updatableStart = System.nanoTime();
             try {
-                updatable.processTick(tpf, app);
+                updatables[i].processTick(tpf, app);
             } catch (Exception e) {
-                logger.log(Level.SEVERE, "Error in game logic tick on " + updatable.getClass() + "!", e);
+                logger.log(Level.SEVERE, "Error in game logic tick on " + updatables[i].getClass() + "!", e);
             }
+            updatableTimes[i] = System.nanoTime() - updatableStart;
         }
 
         // Increase ticks
         ticks++;
 
+        // Profiling
+        long tickTime = System.nanoTime() - start;
+        if (profiler != null) {
+            profiler.recordTick(ticks, tickTime, updatableNames, updatableTimes, (allocated < 0 ? -1 : TickProfiler.getAllocatedBytes() - allocated));
+        }
+
         // Logging
-        long tickTime = System.currentTimeMillis() - start;
-        logger.log(tickTime < tpf * 1000 ? Level.FINEST : Level.SEVERE, "Tick took {0} ms!", tickTime);
+        long tickTimeMs = tickTime / 1000000;
+        logger.log(tickTimeMs < tpf * 1000 ? Level.FINEST : Level.SEVERE, "Tick took {0} ms!", tickTimeMs);
     }
 
     /**
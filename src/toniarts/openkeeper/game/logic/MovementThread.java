@@ -17,6 +17,7 @@
 package toniarts.openkeeper.game.logic;
 
 import com.jme3.app.Application;
+import java.util.concurrent.ForkJoinPool;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import toniarts.openkeeper.world.ThingLoader;
@@ -33,26 +34,59 @@ public class MovementThread implements Runnable {
     private final float tpf;
     private final Application app;
     private final ThingLoader thingLoader;
+    private final ForkJoinPool pool;
+    private final TickProfiler profiler;
     private static final Logger logger = Logger.getLogger(MovementThread.class.getName());
 
     public MovementThread(Application app, float tpf, ThingLoader thingLoader) {
+        this(app, tpf, thingLoader, null, null);
+    }
+
+    /**
+     * Creates a movement thread
+     *
+     * @param app the application
+     * @param tpf the time per frame
+     * @param thingLoader the thing loader
+     * @param pool the pool to steer the creatures in, {@code null} for serial
+     * updates
+     * @param profiler the profiler to record the timings to, can be
+     * {@code null}
+     */
+    public MovementThread(Application app, float tpf, ThingLoader thingLoader, ForkJoinPool pool, TickProfiler profiler) {
         this.app = app;
         this.tpf = tpf;
         this.thingLoader = thingLoader;
+        this.pool = pool;
+        this.profiler = profiler;
     }
 
     @Override
     public void run() {
-        long start = System.currentTimeMillis();
+        long start = System.nanoTime();
+        long allocated = (profiler != null ? TickProfiler.getAllocatedBytes() : -1);
+
+        // Update movement, every creature steers into its own acceleration and only reads the others
+        if (pool == null) {
+            for (AbstractCreatureSteeringControl steerable : thingLoader.getCreatures()) {
+                steerable.processSteeringTick(tpf, app);
+            }
+        } else {
+            ParallelTick.forEach(pool, thingLoader.getCreatures(), (AbstractCreatureSteeringControl steerable) -> steerable.processSteeringTick(tpf, app));
+        }
 
-        // Update movement
-        for (AbstractCreatureSteeringControl steerable : thingLoader.getCreatures()) {
-            steerable.processSteeringTick(tpf, app);
+        // Profiling
+        long tickTime = System.nanoTime() - start;
+        if (profiler != null) {
+            profiler.record(TickProfiler.MOVEMENT, TickProfiler.Unit.NANOSECONDS, tickTime);
+            if (allocated >= 0) {
+                profiler.record(TickProfiler.MOVEMENT_ALLOCATION, TickProfiler.Unit.BYTES, TickProfiler.getAllocatedBytes() - allocated);
+            }
         }
 
         // Logging
-        long tickTime = System.currentTimeMillis() - start;
-        logger.log(tickTime < tpf * 1000 ? Level.FINEST : Level.SEVERE, "Movement took {0}ms!", tickTime);
+        long tickTimeMs = tickTime / 1000000;
+        logger.log(tickTimeMs < tpf * 1000 ? Level.FINEST : Level.SEVERE, "Movement took {0}ms!", tickTimeMs);
     }
 
 }
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2014-2016 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.game.logic;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Runs an action for a list of items in a fork join pool, splitting the list
+ * to partitions
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public class ParallelTick<T> extends RecursiveAction {
+
+    private static final int PARTITION_SIZE = 16;
+    private static final Logger logger = Logger.getLogger(ParallelTick.class.getName());
+
+    private final List<T> items;
+    private final int from;
+    private final int to;
+    private final Consumer<? super T> action;
+
+    private ParallelTick(List<T> items, int from, int to, Consumer<? super T> action) {
+        this.items = items;
+        this.from = from;
+        this.to = to;
+        this.action = action;
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from <= PARTITION_SIZE) {
+            for (int i = from; i < to; i++) {
+                T item = items.get(i);
+                try {
+                    action.accept(item);
+                } catch (Exception e) {
+                    logger.log(Level.SEVERE, "Error in parallel tick on " + item + "!", e);
+                }
+            }
+        } else {
+            int middle = (from + to) >>> 1;
+            invokeAll(new ParallelTick<>(items, from, middle, action), new ParallelTick<>(items, middle, to, action));
+        }
+    }
+
+    /**
+     * Run the action for all the items and wait for them to finish
+     *
+     * @param <T> the item type
+     * @param pool the pool to run in
+     * @param items the items
+     * @param action the action
+     */
+    public static <T> void forEach(ForkJoinPool pool, List<T> items, Consumer<? super T> action) {
+        if (items.isEmpty()) {
+            return;
+        }
+        pool.invoke(new ParallelTick<>(items, 0, items.size(), action));
+    }
+
+}
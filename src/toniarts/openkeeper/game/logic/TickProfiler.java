@@ -0,0 +1,450 @@
+/*
+ * Copyright (C) 2014-2016 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.game.logic;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.function.LongSupplier;
+
+/**
+ * Collects the game logic tick timings. Every game logic system, the movement,
+ * the per tick counters (path requests, task assignments...) and the allocated
+ * bytes get their own histogram. The last ticks are also kept as a trace that
+ * can be dumped to a CSV or JSON file.<br>
+ * The allocations are measured on the calling thread only, so work done in the
+ * parallel creature logic pool is not included.
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public class TickProfiler {
+
+    public enum Unit {
+
+        NANOSECONDS,
+        BYTES,
+        COUNT;
+    }
+
+    /**
+     * Lock free histogram with logarithmic buckets, each split to linear sub
+     * buckets, like the HdrHistogram. The values are accurate to about 1.5%
+     */
+    public static class Histogram {
+
+        private static final int SUB_BUCKET_BITS = 7;
+        private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+        private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT >> 1;
+        private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (64 - SUB_BUCKET_BITS) * SUB_BUCKET_HALF_COUNT;
+
+        private final Unit unit;
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong sum = new AtomicLong();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        public Histogram(Unit unit) {
+            this.unit = unit;
+        }
+
+        public void record(long value) {
+            if (value < 0) {
+                return;
+            }
+            counts.incrementAndGet(getIndex(value));
+            count.incrementAndGet();
+            sum.addAndGet(value);
+            max.accumulate(value);
+        }
+
+        public long getCount() {
+            return count.get();
+        }
+
+        public double getMean() {
+            long n = count.get();
+            return (n == 0 ? 0 : sum.get() / (double) n);
+        }
+
+        public long getMax() {
+            return max.get();
+        }
+
+        /**
+         * Get the value at the given percentile
+         *
+         * @param percentile the percentile, 0 - 100
+         * @return the highest value equivalent to the bucket the percentile
+         * falls in
+         */
+        public long getValueAtPercentile(double percentile) {
+            long n = count.get();
+            if (n == 0) {
+                return 0;
+            }
+            long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * n));
+            long cumulative = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                cumulative += counts.get(i);
+                if (cumulative >= target) {
+                    return Math.min(getHighestValue(i), getMax());
+                }
+            }
+            return getMax();
+        }
+
+        public Unit getUnit() {
+            return unit;
+        }
+
+        public void reset() {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                counts.set(i, 0);
+            }
+            count.set(0);
+            sum.set(0);
+            max.reset();
+        }
+
+        private static int getIndex(long value) {
+            if (value < SUB_BUCKET_COUNT) {
+                return (int) value;
+            }
+            int shift = (63 - Long.numberOfLeadingZeros(value)) - (SUB_BUCKET_BITS - 1);
+            return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF_COUNT + ((int) (value >>> shift) - SUB_BUCKET_HALF_COUNT);
+        }
+
+        private static long getHighestValue(int index) {
+            if (index < SUB_BUCKET_COUNT) {
+                return index;
+            }
+            int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF_COUNT + 1;
+            long subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+            return ((subBucket + 1) << shift) - 1;
+        }
+    }
+
+    /**
+     * A single traced tick
+     */
+    private static class TickSample {
+
+        private final long tick;
+        private final long tickTime;
+        private final String[] systems;
+        private final long[] systemTimes;
+        private final long allocatedBytes;
+        private final long[] counterValues;
+
+        public TickSample(long tick, long tickTime, String[] systems, long[] systemTimes, long allocatedBytes, long[] counterValues) {
+            this.tick = tick;
+            this.tickTime = tickTime;
+            this.systems = systems;
+            this.systemTimes = systemTimes;
+            this.allocatedBytes = allocatedBytes;
+            this.counterValues = counterValues;
+        }
+    }
+
+    /**
+     * A monotonically increasing counter, sampled every tick
+     */
+    private static class Counter {
+
+        private final String name;
+        private final LongSupplier supplier;
+        private long lastValue;
+
+        public Counter(String name, LongSupplier supplier) {
+            this.name = name;
+            this.supplier = supplier;
+            this.lastValue = supplier.getAsLong();
+        }
+    }
+
+    public static final String TICK = "Tick";
+    public static final String TICK_ALLOCATION = "Tick allocation";
+    public static final String MOVEMENT = "Movement";
+    public static final String MOVEMENT_ALLOCATION = "Movement allocation";
+
+    private final int traceSize;
+    private volatile boolean enabled = true;
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final List<Counter> counters = new ArrayList<>();
+    private final ArrayDeque<TickSample> trace;
+    private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+    /**
+     * Creates a new profiler
+     *
+     * @param traceSize the number of last ticks to keep in the trace
+     */
+    public TickProfiler(int traceSize) {
+        this.traceSize = traceSize;
+        trace = new ArrayDeque<>(traceSize);
+    }
+
+    /**
+     * Add a per tick counter. The difference to the previous tick is recorded
+     *
+     * @param name name of the counter, i.e. "Path requests"
+     * @param counter supplies the running total
+     */
+    public void addCounter(String name, LongSupplier counter) {
+        synchronized (counters) {
+            counters.add(new Counter(name, counter));
+        }
+    }
+
+    /**
+     * Record a value to the named histogram, can be called from any thread
+     *
+     * @param name the histogram name
+     * @param unit the unit of the value
+     * @param value the value
+     */
+    public void record(String name, Unit unit, long value) {
+        if (!enabled) {
+            return;
+        }
+        Histogram histogram = histograms.get(name);
+        if (histogram == null) {
+            histogram = histograms.computeIfAbsent(name, (String key) -> new Histogram(unit));
+        }
+        histogram.record(value);
+    }
+
+    /**
+     * Record a whole game logic tick. Samples the counters and adds the tick to
+     * the trace
+     *
+     * @param tick the tick number
+     * @param tickTime the tick duration, in nanoseconds
+     * @param systems names of the game logic systems
+     * @param systemTimes durations of the systems, in nanoseconds
+     * @param allocatedBytes bytes allocated during the tick, negative if not
+     * known
+     */
+    public void recordTick(long tick, long tickTime, String[] systems, long[] systemTimes, long allocatedBytes) {
+        if (!enabled) {
+            return;
+        }
+        record(TICK, Unit.NANOSECONDS, tickTime);
+        for (int i = 0; i < systems.length; i++) {
+            record(systems[i], Unit.NANOSECONDS, systemTimes[i]);
+        }
+        if (allocatedBytes >= 0) {
+            record(TICK_ALLOCATION, Unit.BYTES, allocatedBytes);
+        }
+        long[] counterValues;
+        synchronized (counters) {
+            counterValues = new long[counters.size()];
+            for (int i = 0; i < counters.size(); i++) {
+                Counter counter = counters.get(i);
+                long value = counter.supplier.getAsLong();
+                counterValues[i] = value - counter.lastValue;
+                counter.lastValue = value;
+                record(counter.name, Unit.COUNT, counterValues[i]);
+            }
+        }
+
+        synchronized (trace) {
+            if (trace.size() >= traceSize) {
+                trace.pollFirst();
+            }
+            trace.addLast(new TickSample(tick, tickTime, systems, systemTimes.clone(), allocatedBytes, counterValues));
+        }
+    }
+
+    /**
+     * Get the bytes allocated by the current thread so far
+     *
+     * @return allocated bytes, or -1 if the JVM can't tell
+     */
+    public static long getAllocatedBytes() {
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threadBean;
+            if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+                return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Clear the histograms and the trace
+     */
+    public void reset() {
+        for (Histogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+        synchronized (trace) {
+            trace.clear();
+        }
+    }
+
+    public Map<String, Histogram> getHistograms() {
+        return new LinkedHashMap<>(histograms);
+    }
+
+    /**
+     * Get a human readable summary of the histograms, worst mean first
+     *
+     * @return summary lines
+     */
+    public List<String> getSummary() {
+        List<Map.Entry<String, Histogram>> entries = new ArrayList<>(histograms.entrySet());
+        entries.sort((Map.Entry<String, Histogram> e1, Map.Entry<String, Histogram> e2) -> {
+            int result = e1.getValue().getUnit().compareTo(e2.getValue().getUnit());
+            if (result == 0) {
+                return Double.compare(e2.getValue().getMean(), e1.getValue().getMean());
+            }
+            return result;
+        });
+        List<String> lines = new ArrayList<>(entries.size());
+        for (Map.Entry<String, Histogram> entry : entries) {
+            Histogram h = entry.getValue();
+            lines.add(String.format(Locale.ROOT, "%s: n=%d mean=%s p50=%s p99=%s max=%s", entry.getKey(), h.getCount(),
+                    format(h.getMean(), h.getUnit()), format(h.getValueAtPercentile(50), h.getUnit()),
+                    format(h.getValueAtPercentile(99), h.getUnit()), format(h.getMax(), h.getUnit())));
+        }
+        return lines;
+    }
+
+    private static String format(double value, Unit unit) {
+        switch (unit) {
+            case NANOSECONDS:
+                return String.format(Locale.ROOT, "%.3fms", value / 1000000);
+            case BYTES:
+                return String.format(Locale.ROOT, "%.1fkB", value / 1024);
+            default:
+                return String.format(Locale.ROOT, "%.1f", value);
+        }
+    }
+
+    /**
+     * Dump the histograms and the tick trace to a file. JSON is written if the
+     * file name ends with .json, CSV (the trace only) otherwise
+     *
+     * @param file the file to write to
+     * @throws IOException if writing fails
+     */
+    public void dump(Path file) throws IOException {
+        List<TickSample> samples;
+        synchronized (trace) {
+            samples = new ArrayList<>(trace);
+        }
+        List<String> counterNames = new ArrayList<>();
+        synchronized (counters) {
+            for (Counter counter : counters) {
+                counterNames.add(counter.name);
+            }
+        }
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            if (file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".json")) {
+                writeJson(writer, samples, counterNames);
+            } else {
+                writeCsv(writer, samples, counterNames);
+            }
+        }
+    }
+
+    private void writeCsv(Writer writer, List<TickSample> samples, List<String> counterNames) throws IOException {
+        if (samples.isEmpty()) {
+            return;
+        }
+
+        // Header
+        writer.write("tick,tickNanos");
+        for (String system : samples.get(0).systems) {
+            writer.write("," + system);
+        }
+        writer.write(",allocatedBytes");
+        for (String counter : counterNames) {
+            writer.write("," + counter);
+        }
+        writer.write("\n");
+
+        // The ticks
+        for (TickSample sample : samples) {
+            writer.write(sample.tick + "," + sample.tickTime);
+            for (long time : sample.systemTimes) {
+                writer.write("," + time);
+            }
+            writer.write("," + sample.allocatedBytes);
+            for (long value : sample.counterValues) {
+                writer.write("," + value);
+            }
+            writer.write("\n");
+        }
+    }
+
+    private void writeJson(Writer writer, List<TickSample> samples, List<String> counterNames) throws IOException {
+        writer.write("{\"histograms\":[");
+        boolean first = true;
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            Histogram h = entry.getValue();
+            writer.write((first ? "" : ",") + "\n{\"name\":" + quote(entry.getKey()) + ",\"unit\":" + quote(h.getUnit().name())
+                    + ",\"count\":" + h.getCount() + ",\"mean\":" + String.format(Locale.ROOT, "%.1f", h.getMean())
+                    + ",\"p50\":" + h.getValueAtPercentile(50) + ",\"p90\":" + h.getValueAtPercentile(90)
+                    + ",\"p99\":" + h.getValueAtPercentile(99) + ",\"max\":" + h.getMax() + "}");
+            first = false;
+        }
+        writer.write("],\n\"ticks\":[");
+        first = true;
+        for (TickSample sample : samples) {
+            writer.write((first ? "" : ",") + "\n{\"tick\":" + sample.tick + ",\"tickNanos\":" + sample.tickTime + ",\"systems\":{");
+            for (int i = 0; i < sample.systems.length; i++) {
+                writer.write((i > 0 ? "," : "") + quote(sample.systems[i]) + ":" + sample.systemTimes[i]);
+            }
+            writer.write("},\"allocatedBytes\":" + sample.allocatedBytes + ",\"counters\":{");
+            for (int i = 0; i < sample.counterValues.length && i < counterNames.size(); i++) {
+                writer.write((i > 0 ? "," : "") + quote(counterNames.get(i)) + ":" + sample.counterValues[i]);
+            }
+            writer.write("}}");
+            first = false;
+        }
+        writer.write("]}\n");
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+}
@@ -26,6 +26,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
@@ -34,12 +35,14 @@ import toniarts.openkeeper.Main;
 import toniarts.openkeeper.game.GameTimer;
 import toniarts.openkeeper.game.action.ActionPointState;
 import toniarts.openkeeper.game.data.Keeper;
+import toniarts.openkeeper.game.data.Settings;
 import toniarts.openkeeper.game.logic.CreatureLogicState;
 import toniarts.openkeeper.game.logic.CreatureSpawnLogicState;
 import toniarts.openkeeper.game.logic.GameLogicThread;
 import toniarts.openkeeper.game.logic.IGameLogicUpdateable;
 import toniarts.openkeeper.game.logic.MovementThread;
 import toniarts.openkeeper.game.logic.RoomGoldFixer;
+import toniarts.openkeeper.game.logic.TickProfiler;
 import toniarts.openkeeper.game.party.PartyState;
 import toniarts.openkeeper.game.state.loading.SingleBarLoadingState;
 import toniarts.openkeeper.game.task.TaskManager;
@@ -73,6 +76,8 @@ public class GameState extends AbstractPauseAwareState implements IGameLogicUpda
     private KwdFile kwdFile;
 
     private GameLogicThread gameLogicThread;
+    private MovementThread movementThread;
+    private final boolean simulation;
     private TriggerControl triggerControl = null;
     private CreatureTriggerState creatureTriggerState;
     private ObjectTriggerState objectTriggerState;
@@ -85,7 +90,10 @@ public class GameState extends AbstractPauseAwareState implements IGameLogicUpda
     private TaskManager taskManager;
     private final Map<Short, Keeper> players = new TreeMap<>();
     private PauseableScheduledThreadPoolExecutor exec;
-    private static final float MOVEMENT_UPDATE_TPF = 0.02f;
+    private ForkJoinPool creatureLogicPool;
+    private final TickProfiler tickProfiler = new TickProfiler(TICK_PROFILER_TRACE_SIZE);
+    public static final float MOVEMENT_UPDATE_TPF = 0.02f;
+    private static final int TICK_PROFILER_TRACE_SIZE = 3600;
     private static final Logger logger = Logger.getLogger(GameState.class.getName());
 
     /**
@@ -94,7 +102,19 @@ public class GameState extends AbstractPauseAwareState implements IGameLogicUpda
      * @param level the level to load
      */
     public GameState(String level) {
+        this(level, false);
+    }
+
+    /**
+     * Single use game states
+     *
+     * @param level the level to load
+     * @param simulation run as a headless simulation, the game logic is not
+     * scheduled but stepped by the {@link SimulationState}
+     */
+    public GameState(String level, boolean simulation) {
         this.level = level;
+        this.simulation = simulation;
     }
 
     /**
@@ -105,6 +125,7 @@ public class GameState extends AbstractPauseAwareState implements IGameLogicUpda
      */
     public GameState(KwdFile level, List<Keeper> players) {
         this.kwdFile = level;
+        this.simulation = false;
         if (players != null) {
             for (Keeper keeper : players) {
                 this.players.put(keeper.getId(), keeper);
@@ -161,7 +182,12 @@ public class GameState extends AbstractPauseAwareState implements IGameLogicUpda
 
                     GameState.this.stateManager.attach(worldState);
 
-                    GameState.this.stateManager.attach(new SoundState(false));
+                    // Simulations need to be repeatable, search the paths on the calling thread
+                    if (simulation) {
+                        worldState.getPathFindingService().setDirectExecution(true);
+                    } else {
+                        GameState.this.stateManager.attach(new SoundState(false));
+                    }
                     setProgress(0.60f);
 
                     GameState.this.stateManager.attach(new PartyState(false));
@@ -191,9 +217,23 @@ public class GameState extends AbstractPauseAwareState implements IGameLogicUpda
                             return new Thread(r, "GameLogicAndMovementThread");
                         }
                     });
-                    gameLogicThread = new GameLogicThread(GameState.this.app, 1.0f / kwdFile.getGameLevel().getTicksPerSec(), GameState.this, new CreatureLogicState(worldState.getThingLoader()), new CreatureSpawnLogicState(worldState.getThingLoader(), getPlayers(), GameState.this), new RoomGoldFixer(worldState));
-                    exec.scheduleAtFixedRate(gameLogicThread, 0, 1000 / kwdFile.getGameLevel().getTicksPerSec(), TimeUnit.MILLISECONDS);
-                    exec.scheduleAtFixedRate(new MovementThread(GameState.this.app, MOVEMENT_UPDATE_TPF, worldState.getThingLoader()), 0, (long) (MOVEMENT_UPDATE_TPF * 1000), TimeUnit.MILLISECONDS);
+
+                    // Parallel creature logic, only the creatures' own updates and steering are run in parallel
+                    if (Main.getUserSettings().getSettingBoolean(Settings.Setting.PARALLEL_CREATURE_LOGIC)) {
+                        creatureLogicPool = new ForkJoinPool();
+                    }
+
+                    // Profiling
+                    tickProfiler.addCounter("Path requests", worldState.getPathFindingService()::getRequestCount);
+                    tickProfiler.addCounter("Task assignments", taskManager::getAssignmentCount);
+
+                    // Simulation steps the game logic itself
+                    gameLogicThread = new GameLogicThread(GameState.this.app, 1.0f / kwdFile.getGameLevel().getTicksPerSec(), tickProfiler, GameState.this, new CreatureLogicState(worldState.getThingLoader(), creatureLogicPool), new CreatureSpawnLogicState(worldState.getThingLoader(), getPlayers(), GameState.this), new RoomGoldFixer(worldState));
+                    movementThread = new MovementThread(GameState.this.app, MOVEMENT_UPDATE_TPF, worldState.getThingLoader(), creatureLogicPool, tickProfiler);
+                    if (!simulation) {
+                        exec.scheduleAtFixedRate(gameLogicThread, 0, 1000 / kwdFile.getGameLevel().getTicksPerSec(), TimeUnit.MILLISECONDS);
+                        exec.scheduleAtFixedRate(movementThread, 0, (long) (MOVEMENT_UPDATE_TPF * 1000), TimeUnit.MILLISECONDS);
+                    }
 
                     setProgress(1.0f);
                 } catch (Exception e) {
@@ -259,6 +299,14 @@ public class GameState extends AbstractPauseAwareState implements IGameLogicUpda
             @Override
             public void onLoadComplete() {
 
+                // Headless, no player, sounds nor rendering
+                if (simulation) {
+                    GameState.this.stateManager.getState(ActionPointState.class).setEnabled(true);
+                    GameState.this.stateManager.getState(PartyState.class).setEnabled(true);
+                    GameState.this.initialized = true;
+                    return;
+                }
+
                 // Prewarm the whole scene
                 GameState.this.app.getRenderManager().preloadScene(rootNode);
 
@@ -315,6 +363,9 @@ public class GameState extends AbstractPauseAwareState implements IGameLogicUpda
      */
     public void detach() {
         exec.shutdownNow();
+        if (creatureLogicPool != null) {
+            creatureLogicPool.shutdownNow();
+        }
         stateManager.detach(this);
         detachRelatedAppStates();
     }
@@ -328,6 +379,33 @@ public class GameState extends AbstractPauseAwareState implements IGameLogicUpda
         super.cleanup();
     }
 
+    /**
+     * Get the game logic runner
+     *
+     * @return the game logic thread
+     */
+    protected GameLogicThread getGameLogicThread() {
+        return gameLogicThread;
+    }
+
+    /**
+     * Get the creature movement runner
+     *
+     * @return the movement thread
+     */
+    protected MovementThread getMovementThread() {
+        return movementThread;
+    }
+
+    /**
+     * Get the profiler of the game logic & movement ticks
+     *
+     * @return the tick profiler
+     */
+    public TickProfiler getTickProfiler() {
+        return tickProfiler;
+    }
+
     @Override
     public void processTick(float tpf, Application app) {
 
@@ -48,6 +48,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.logging.Logger;
 import toniarts.openkeeper.Main;
+import toniarts.openkeeper.game.MapIndex;
 import toniarts.openkeeper.game.data.CustomMPDLevel;
 import toniarts.openkeeper.game.data.HiScores;
 import toniarts.openkeeper.game.data.Keeper;
@@ -59,7 +60,6 @@ import toniarts.openkeeper.gui.nifty.table.TableRow;
 import toniarts.openkeeper.tools.convert.AssetsConverter;
 import toniarts.openkeeper.tools.convert.ConversionUtils;
 import toniarts.openkeeper.tools.convert.map.GameLevel;
-import toniarts.openkeeper.tools.convert.map.KwdFile;
 
 /**
  *
@@ -478,10 +478,10 @@ public class MainMenuScreenController implements IMainMenuScreenController {
             return;
         }
 
-        KwdFile map = state.mapSelector.getMaps().get(event.getSelectionIndices().get(0));
+        MapIndex.MapEntry map = state.mapSelector.getMaps().get(event.getSelectionIndices().get(0));
         if (state.mapSelector.isMPD()) {
             // on mpd we show the briefing
-            state.selectedLevel = new CustomMPDLevel(map);
+            state.selectedLevel = new CustomMPDLevel(map.getKwdFile(Main.getDkIIFolder()));
             goToScreen("briefing");
         } else {
             // The map title
@@ -668,17 +668,17 @@ public class MainMenuScreenController implements IMainMenuScreenController {
         screen.findNiftyControl("invertMouse", CheckBox.class).setChecked((boolean) Settings.Setting.MOUSE_INVERT.getDefaultValue());
     }
 
-    private void populateSelectedMap(KwdFile map) {
+    private void populateSelectedMap(MapIndex.MapEntry map) {
         // The map title
         Label label = screen.findNiftyControl("mapNameTitle", Label.class);
-        label.setText(map == null ? "No maps found from " + AssetsConverter.MAPS_FOLDER : map.getGameLevel().getName());
+        label.setText(map == null ? "No maps found from " + AssetsConverter.MAPS_FOLDER : map.getName());
         NiftyUtils.resetContraints(label);
 
         if (map != null) {
 
             // Player count
             label = screen.findNiftyControl("playerCount", Label.class);
-            label.setText(": " + map.getGameLevel().getPlayerCount());
+            label.setText(": " + map.getPlayerCount());
             NiftyUtils.resetContraints(label);
 
             // Map image
@@ -689,8 +689,8 @@ public class MainMenuScreenController implements IMainMenuScreenController {
             mapImage.setConstraintHeight(new SizeValue(img.getHeight() + "px"));
 
             // We can't have more players than the map supports
-            if (state.skirmishPlayers.size() > map.getGameLevel().getPlayerCount()) {
-                state.skirmishPlayers.subList(map.getGameLevel().getPlayerCount(), state.skirmishPlayers.size()).clear();
+            if (state.skirmishPlayers.size() > map.getPlayerCount()) {
+                state.skirmishPlayers.subList(map.getPlayerCount(), state.skirmishPlayers.size()).clear();
             }
         }
 
@@ -715,18 +715,18 @@ public class MainMenuScreenController implements IMainMenuScreenController {
         ListBox<TableRow> listBox = screen.findNiftyControl("mapsTable", ListBox.class);
         int i = 0;
         listBox.clear();
-        for (KwdFile kwd : state.mapSelector.getMaps()) {
+        for (MapIndex.MapEntry map : state.mapSelector.getMaps()) {
 
-            String name = kwd.getGameLevel().getName();
-            if (kwd.getGameLevel().getLvlFlags().contains(GameLevel.LevFlag.IS_MY_PET_DUNGEON_LEVEL)) {
+            String name = map.getName();
+            if (map.isMPD()) {
                 // the resource tables in all the other levels are completely wrong, so we just use it for custom mpd maps
-                name = kwd.getGameLevel().getLevelName().isEmpty() ? kwd.getGameLevel().getName() : kwd.getGameLevel().getLevelName();
+                name = map.getLevelName().isEmpty() ? map.getName() : map.getLevelName();
             }
             listBox.addItem(new TableRow(i, name,
-                    String.valueOf(kwd.getGameLevel().getPlayerCount()),
-                    String.format("%s x %s", kwd.getMap().getWidth(), kwd.getMap().getHeight())));
+                    String.valueOf(map.getPlayerCount()),
+                    String.format("%s x %s", map.getWidth(), map.getHeight())));
 
-            if (selectMap && kwd.equals(state.mapSelector.getMap())) {
+            if (selectMap && map.equals(state.mapSelector.getMap())) {
                 listBox.selectItemByIndex(i);
             }
             i++;
@@ -43,6 +43,7 @@ import toniarts.openkeeper.cinematics.CameraSweepData;
 import toniarts.openkeeper.cinematics.CameraSweepDataEntry;
 import toniarts.openkeeper.cinematics.CameraSweepDataLoader;
 import toniarts.openkeeper.cinematics.Cinematic;
+import toniarts.openkeeper.game.MapIndex;
 import toniarts.openkeeper.game.MapSelector;
 import toniarts.openkeeper.game.data.GeneralLevel;
 import toniarts.openkeeper.game.data.HiScores;
@@ -56,7 +57,6 @@ import toniarts.openkeeper.game.state.loading.SingleBarLoadingState;
 import toniarts.openkeeper.gui.CursorFactory;
 import toniarts.openkeeper.tools.convert.AssetsConverter;
 import static toniarts.openkeeper.tools.convert.AssetsConverter.MAP_THUMBNAILS_FOLDER;
-import toniarts.openkeeper.tools.convert.ConversionUtils;
 import toniarts.openkeeper.tools.convert.map.KwdFile;
 import toniarts.openkeeper.tools.convert.map.Player;
 import toniarts.openkeeper.utils.AssetUtils;
@@ -375,7 +375,7 @@ public class MainMenuState extends AbstractAppState {
             // Disable us
             setEnabled(false);
 
-            GameState gameState = new GameState(mapSelector.getMap(), skirmishPlayers);
+            GameState gameState = new GameState(mapSelector.getMap().getKwdFile(Main.getDkIIFolder()), skirmishPlayers);
             stateManager.attach(gameState);
 
         } else if ("multiplayer".equals(type.toLowerCase())) {
@@ -386,7 +386,7 @@ public class MainMenuState extends AbstractAppState {
             // Disable us
             setEnabled(false);
             //TODO make true multiplayer start
-            GameState gameState = new GameState(mapSelector.getMap(), new ArrayList<>());
+            GameState gameState = new GameState(mapSelector.getMap().getKwdFile(Main.getDkIIFolder()), new ArrayList<>());
             stateManager.attach(gameState);
 
         } else {
@@ -519,19 +519,19 @@ public class MainMenuState extends AbstractAppState {
      * See if the map thumbnail exist, otherwise create one TODO maybe move to
      * KwdFile class ???
      *
-     * @param map
+     * @param map the indexed map
      * @return path to map thumbnail file
      */
-    protected String getMapThumbnail(KwdFile map) {
+    protected String getMapThumbnail(MapIndex.MapEntry map) {
         // See if the map thumbnail exist, otherwise create one
-        String asset = "Textures/Thumbnails/" + ConversionUtils.stripFileName(map.getGameLevel().getName()) + ".png";
+        String asset = map.getThumbnail();
         if (assetManager.locateAsset(new TextureKey(asset)) == null) {
 
             // Generate
             try {
-                AssetsConverter.genererateMapThumbnail(map, AssetsConverter.getAssetsFolder().concat(MAP_THUMBNAILS_FOLDER).concat(File.separator));
+                AssetsConverter.genererateMapThumbnail(map.getKwdFile(Main.getDkIIFolder()), AssetsConverter.getAssetsFolder().concat(MAP_THUMBNAILS_FOLDER).concat(File.separator));
             } catch (Exception e) {
-                logger.log(java.util.logging.Level.WARNING, "Failed to generate map file out of {0}!", kwdFile);
+                logger.log(java.util.logging.Level.WARNING, "Failed to generate map file out of {0}!", map.getFile());
                 asset = "Textures/Unique_NoTextureName.png";
             }
         }
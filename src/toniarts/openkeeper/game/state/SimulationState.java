@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2014-2016 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.game.state;
+
+import com.jme3.app.Application;
+import com.jme3.app.state.AbstractAppState;
+import com.jme3.app.state.AppStateManager;
+import com.jme3.math.FastMath;
+import com.jme3.system.Timer;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import toniarts.openkeeper.game.logic.GameLogicThread;
+import toniarts.openkeeper.game.logic.TickProfiler;
+import toniarts.openkeeper.utils.Utils;
+
+/**
+ * Runs a level without rendering, as fast as possible. Every frame advances
+ * the game by a fixed time step: the creature movement is stepped once and the
+ * game logic as many times as its tick rate requires. The whole application
+ * should run with the {@link FixedStepTimer} so that the scene controls
+ * (animations etc.) see the same time.<br>
+ * Quits the application after the given amount of game logic ticks, logging
+ * the achieved ticks per second and the tick profile.
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public class SimulationState extends AbstractAppState {
+
+    /**
+     * Timer that advances a fixed time step per frame, regardless of the real
+     * time passed
+     */
+    public static class FixedStepTimer extends Timer {
+
+        private static final long RESOLUTION = 1000000000L;
+
+        private final float timePerFrame;
+        private long frames = 0;
+
+        public FixedStepTimer(float timePerFrame) {
+            this.timePerFrame = timePerFrame;
+        }
+
+        @Override
+        public long getTime() {
+            return (long) (frames * (double) timePerFrame * RESOLUTION);
+        }
+
+        @Override
+        public long getResolution() {
+            return RESOLUTION;
+        }
+
+        @Override
+        public float getFrameRate() {
+            return 1.0f / timePerFrame;
+        }
+
+        @Override
+        public float getTimePerFrame() {
+            return timePerFrame;
+        }
+
+        @Override
+        public void update() {
+            frames++;
+        }
+
+        @Override
+        public void reset() {
+            frames = 0;
+        }
+    }
+
+    private final String level;
+    private final long ticks;
+    private final String profileFile;
+    private Application app;
+    private GameState gameState;
+    private long frames = 0;
+    private long startTime = 0;
+    private static final Logger logger = Logger.getLogger(SimulationState.class.getName());
+
+    /**
+     * Creates a new simulation
+     *
+     * @param level the level to run
+     * @param ticks the amount of game logic ticks to run
+     * @param seed the seed for the random generators
+     * @param profileFile write the tick profile here (.csv or .json), can be
+     * {@code null}
+     */
+    public SimulationState(String level, long ticks, long seed, String profileFile) {
+        this.level = level;
+        this.ticks = ticks;
+        this.profileFile = profileFile;
+        Utils.setRandomSeed(seed);
+        FastMath.rand.setSeed(seed);
+    }
+
+    @Override
+    public void initialize(AppStateManager stateManager, Application app) {
+        super.initialize(stateManager, app);
+        this.app = app;
+
+        gameState = new GameState(level, true);
+        stateManager.attach(gameState);
+    }
+
+    @Override
+    public void update(float tpf) {
+        if (!gameState.isInitialized()) {
+            return;
+        }
+        if (startTime == 0) {
+            startTime = System.nanoTime();
+            logger.log(Level.INFO, "Simulating level {0} for {1} ticks", new Object[]{level, ticks});
+        }
+
+        // Movement every frame, the logic at its own rate
+        GameLogicThread gameLogicThread = gameState.getGameLogicThread();
+        gameState.getMovementThread().run();
+        frames++;
+        double simulationTime = frames * (double) GameState.MOVEMENT_UPDATE_TPF;
+        double logicTpf = 1.0 / gameState.getLevelData().getGameLevel().getTicksPerSec();
+        while (gameLogicThread.getGameTime() + logicTpf <= simulationTime + 0.0001) {
+            gameLogicThread.run();
+        }
+
+        if (gameLogicThread.getGameTime() / logicTpf >= ticks) {
+            finish(gameLogicThread.getGameTime());
+        }
+    }
+
+    private void finish(double gameTime) {
+        double realTime = (System.nanoTime() - startTime) / 1000000000.0;
+        logger.log(Level.INFO, "Simulated {0} ticks ({1} s of game time) in {2} s, {3} ticks per second, {4}x speed",
+                new Object[]{ticks, gameTime, realTime, ticks / realTime, gameTime / realTime});
+
+        // The profile
+        TickProfiler profiler = gameState.getTickProfiler();
+        for (String line : profiler.getSummary()) {
+            logger.info(line);
+        }
+        if (profileFile != null) {
+            try {
+                profiler.dump(Paths.get(profileFile));
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Failed to write the profile to " + profileFile + "!", e);
+            }
+        }
+
+        setEnabled(false);
+        app.stop();
+    }
+
+}
@@ -19,6 +19,7 @@ package toniarts.openkeeper.game.task;
 import com.jme3.math.Vector2f;
 import com.jme3.math.Vector3f;
 import java.awt.Point;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.Set;
@@ -36,7 +37,7 @@ public abstract class AbstractTask implements Comparable<AbstractTask> {
 
     private final Date taskCreated;
     protected final WorldState worldState;
-    private final Set<CreatureControl> assignees = new HashSet<>();
+    private final Set<CreatureControl> assignees = Collections.synchronizedSet(new HashSet<>());
 
     public AbstractTask(final WorldState worldState) {
         this.taskCreated = new Date();
@@ -170,8 +171,8 @@ public abstract class AbstractTask implements Comparable<AbstractTask> {
             return false;
         }
 
-        // Path find
-        return (worldState.findPath(worldState.getTileCoordinates(new Vector3f(creature.getPosition().x, 0, creature.getPosition().y)), targetTile, creature.getCreature()) != null);
+        // See that there is a path
+        return worldState.isReachable(worldState.getTileCoordinates(new Vector3f(creature.getPosition().x, 0, creature.getPosition().y)), targetTile, creature.getCreature());
     }
 
     /**
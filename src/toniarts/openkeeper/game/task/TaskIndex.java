@@ -0,0 +1,252 @@
+/*
+ * Copyright (C) 2014-2016 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.game.task;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import toniarts.openkeeper.world.creature.CreatureControl;
+
+/**
+ * Task queue of a single player, spatially indexed. The tasks are bucketed to
+ * square cells by their location, so that the closest assignable task can be
+ * found by expanding rings of cells around the creature instead of sorting
+ * the whole queue. The tasks are also indexed by their exact tile, for
+ * updating the tasks of the changed tiles only.<br>
+ * The tasks are ordered by distance + priority and then by the creation time,
+ * lowest first.
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public class TaskIndex implements Iterable<AbstractTask> {
+
+    /**
+     * A task and its score for the creature
+     */
+    private static class Candidate implements Comparable<Candidate> {
+
+        private final AbstractTask task;
+        private final int score;
+
+        public Candidate(AbstractTask task, int score) {
+            this.task = task;
+            this.score = score;
+        }
+
+        @Override
+        public int compareTo(Candidate o) {
+            int result = Integer.compare(score, o.score);
+            if (result == 0) {
+
+                // If the same, compare by date added
+                return task.getTaskCreated().compareTo(o.task.getTaskCreated());
+            }
+            return result;
+        }
+    }
+
+    private static final int CELL_SIZE = 8;
+
+    private final int cellsX;
+    private final int cellsY;
+    private final Set<AbstractTask>[] cells;
+    private final Map<AbstractTask, Integer> taskCells = new HashMap<>();
+    private final Map<Point, Set<AbstractTask>> tileTasks = new HashMap<>();
+    private int minPriority = Integer.MAX_VALUE;
+
+    @SuppressWarnings("unchecked")
+    public TaskIndex(int width, int height) {
+        cellsX = (int) Math.ceil(width / (float) CELL_SIZE);
+        cellsY = (int) Math.ceil(height / (float) CELL_SIZE);
+        cells = new Set[cellsX * cellsY];
+    }
+
+    public boolean contains(AbstractTask task) {
+        return taskCells.containsKey(task);
+    }
+
+    public boolean add(AbstractTask task) {
+        if (taskCells.containsKey(task)) {
+            return false;
+        }
+        int cell = getCell(task.getTaskLocation());
+        if (cells[cell] == null) {
+            cells[cell] = new HashSet<>();
+        }
+        cells[cell].add(task);
+        taskCells.put(task, cell);
+        Set<AbstractTask> tasks = tileTasks.get(task.getTaskLocation());
+        if (tasks == null) {
+            tasks = new HashSet<>(2);
+            tileTasks.put(task.getTaskLocation(), tasks);
+        }
+        tasks.add(task);
+
+        // Only a lower bound, it doesn't need to go back up on removal
+        minPriority = Math.min(minPriority, task.getPriority());
+        return true;
+    }
+
+    public boolean remove(AbstractTask task) {
+        Integer cell = taskCells.remove(task);
+        if (cell == null) {
+            return false;
+        }
+        cells[cell].remove(task);
+        removeFromTile(task);
+        return true;
+    }
+
+    private void removeFromTile(AbstractTask task) {
+        Set<AbstractTask> tasks = tileTasks.get(task.getTaskLocation());
+        if (tasks != null && tasks.remove(task) && tasks.isEmpty()) {
+            tileTasks.remove(task.getTaskLocation());
+        }
+    }
+
+    /**
+     * Get the tasks located on the given tile
+     *
+     * @param location the tile coordinates
+     * @return a copy of the tasks on the tile
+     */
+    public List<AbstractTask> getTasks(Point location) {
+        Set<AbstractTask> tasks = tileTasks.get(location);
+        if (tasks == null) {
+            return Collections.emptyList();
+        }
+        return new ArrayList<>(tasks);
+    }
+
+    public int size() {
+        return taskCells.size();
+    }
+
+    /**
+     * Iterates all the tasks, in no particular order. Supports removal
+     *
+     * @return the iterator
+     */
+    @Override
+    public Iterator<AbstractTask> iterator() {
+        final Iterator<Map.Entry<AbstractTask, Integer>> iter = taskCells.entrySet().iterator();
+        return new Iterator<AbstractTask>() {
+
+            private Map.Entry<AbstractTask, Integer> current;
+
+            @Override
+            public boolean hasNext() {
+                return iter.hasNext();
+            }
+
+            @Override
+            public AbstractTask next() {
+                current = iter.next();
+                return current.getKey();
+            }
+
+            @Override
+            public void remove() {
+                iter.remove();
+                cells[current.getValue()].remove(current.getKey());
+                removeFromTile(current.getKey());
+            }
+        };
+    }
+
+    /**
+     * Finds the best task the creature can be assigned to. Rings of cells are
+     * expanded around the location only as long as they can still contain a
+     * better task than the best one seen
+     *
+     * @param creature the creature
+     * @param location the creature location
+     * @return the task, or {@code null} if none can be assigned
+     */
+    public AbstractTask findAssignableTask(CreatureControl creature, Point location) {
+        if (taskCells.isEmpty()) {
+            return null;
+        }
+
+        int cellX = Math.max(0, Math.min(cellsX - 1, location.x / CELL_SIZE));
+        int cellY = Math.max(0, Math.min(cellsY - 1, location.y / CELL_SIZE));
+        int maxRing = Math.max(Math.max(cellX, cellsX - 1 - cellX), Math.max(cellY, cellsY - 1 - cellY));
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>();
+        int ring = 0;
+        while (true) {
+
+            // Expand while the next ring could hold a better task
+            while (ring <= maxRing && (candidates.isEmpty() || getRingDistance(ring) + minPriority <= candidates.peek().score)) {
+                addRing(cellX, cellY, ring, location, candidates);
+                ring++;
+            }
+            if (candidates.isEmpty()) {
+                return null;
+            }
+
+            AbstractTask task = candidates.poll().task;
+            if (task.canAssign(creature)) {
+                return task;
+            }
+        }
+    }
+
+    private void addRing(int cellX, int cellY, int ring, Point location, PriorityQueue<Candidate> candidates) {
+        for (int y = cellY - ring; y <= cellY + ring; y++) {
+            if (y < 0 || y >= cellsY) {
+                continue;
+            }
+            boolean edge = (y == cellY - ring || y == cellY + ring);
+            for (int x = cellX - ring; x <= cellX + ring; x += (edge ? 1 : ring * 2)) {
+                if (x < 0 || x >= cellsX) {
+                    continue;
+                }
+                Set<AbstractTask> tasks = cells[y * cellsX + x];
+                if (tasks != null) {
+                    for (AbstractTask task : tasks) {
+                        candidates.add(new Candidate(task, calculateDistance(location, task.getTaskLocation()) + task.getPriority()));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The minimum distance from a tile to any tile in the given cell ring
+     */
+    private static int getRingDistance(int ring) {
+        return (ring == 0 ? 0 : (ring - 1) * CELL_SIZE + 1);
+    }
+
+    private int getCell(Point p) {
+        int x = Math.max(0, Math.min(cellsX - 1, p.x / CELL_SIZE));
+        int y = Math.max(0, Math.min(cellsY - 1, p.y / CELL_SIZE));
+        return y * cellsX + x;
+    }
+
+    private static int calculateDistance(Point currentPosition, Point p) {
+        return Math.abs(currentPosition.x - p.x) + Math.abs(currentPosition.y - p.y);
+    }
+
+}
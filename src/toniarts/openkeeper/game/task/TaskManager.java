@@ -16,19 +16,15 @@
  */
 package toniarts.openkeeper.game.task;
 
-import com.badlogic.gdx.ai.pfa.GraphPath;
 import java.awt.Point;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import toniarts.openkeeper.game.data.Keeper;
@@ -54,14 +50,17 @@ import toniarts.openkeeper.world.room.GenericRoom;
 
 /**
  * Task manager for several players. Can assign creatures to different tasks.
+ * The tasks are synchronized, the tile and object changes come from other
+ * threads than the creature logic.
  *
  * @author Toni Helenius <helenius.toni@gmail.com>
  */
 public class TaskManager {
 
     private final WorldState worldState;
-    private final Map<Short, Set<AbstractTask>> taskQueues;
+    private final Map<Short, TaskIndex> taskQueues;
     private final Map<GenericRoom, Map<Point, AbstractCapacityCriticalRoomTask>> roomTasks = new HashMap<>();
+    private final AtomicLong assignments = new AtomicLong();
     private static final Logger logger = Logger.getLogger(TaskManager.class.getName());
 
     public TaskManager(WorldState worldState, short... playerIds) {
@@ -70,7 +69,7 @@ public class TaskManager {
         // Create a queue for each managed player
         taskQueues = new HashMap<>(playerIds.length);
         for (short playerId : playerIds) {
-            taskQueues.put(playerId, new HashSet<>());
+            taskQueues.put(playerId, new TaskIndex(worldState.getMapData().getWidth(), worldState.getMapData().getHeight()));
         }
 
         // Scan the initial tasks
@@ -82,7 +81,9 @@ public class TaskManager {
             @Override
             public void onTileChange(final int x, final int y) {
                 MapData mapData = worldState.getMapData();
-                scanTerrainTasks(mapData, x, y, true, true);
+                synchronized (TaskManager.this) {
+                    scanTerrainTasks(mapData, x, y, true, true);
+                }
             }
         });
 
@@ -91,15 +92,19 @@ public class TaskManager {
 
             @Override
             public void onAdded(ObjectControl objectControl) {
-                for (Entry<Short, Set<AbstractTask>> entry : taskQueues.entrySet()) {
-                    entry.getValue().add(getObjectTask(objectControl, entry.getKey()));
+                synchronized (TaskManager.this) {
+                    for (Entry<Short, TaskIndex> entry : taskQueues.entrySet()) {
+                        entry.getValue().add(getObjectTask(objectControl, entry.getKey()));
+                    }
                 }
             }
 
             @Override
             public void onRemoved(ObjectControl objectControl) {
-                for (Entry<Short, Set<AbstractTask>> entry : taskQueues.entrySet()) {
-                    entry.getValue().remove(getObjectTask(objectControl, entry.getKey()));
+                synchronized (TaskManager.this) {
+                    for (Entry<Short, TaskIndex> entry : taskQueues.entrySet()) {
+                        entry.getValue().remove(getObjectTask(objectControl, entry.getKey()));
+                    }
                 }
             }
         });
@@ -115,25 +120,22 @@ public class TaskManager {
 
         // Object tasks
         for (ObjectControl objectControl : worldState.getThingLoader().getObjects()) {
-            for (Entry<Short, Set<AbstractTask>> entry : taskQueues.entrySet()) {
+            for (Entry<Short, TaskIndex> entry : taskQueues.entrySet()) {
                 entry.getValue().add(getObjectTask(objectControl, entry.getKey()));
             }
         }
     }
 
     private void scanTerrainTasks(final MapData mapData, final int x, final int y, final boolean checkNeighbours, final boolean deleteObsolete) {
-        for (Entry<Short, Set<AbstractTask>> entry : taskQueues.entrySet()) {
+        Point location = new Point(x, y);
+        for (Entry<Short, TaskIndex> entry : taskQueues.entrySet()) {
 
-            // Scan existing tasks that are they valid, should be only one tile task per tile?
+            // Scan existing tasks on this tile that are they valid, should be only one tile task per tile?
+            // The object tasks are maintained by the object listener
             if (deleteObsolete) {
-                Iterator<AbstractTask> iter = entry.getValue().iterator();
-                while (iter.hasNext()) {
-                    AbstractTask task = iter.next();
-                    if (task instanceof AbstractTileTask) {
-                        AbstractTileTask tileTask = (AbstractTileTask) task;
-                        if (!tileTask.isValid()) {
-                            iter.remove();
-                        }
+                for (AbstractTask task : entry.getValue().getTasks(location)) {
+                    if (task instanceof AbstractTileTask && !(task instanceof FetchObjectTask) && !task.isValid()) {
+                        entry.getValue().remove(task);
                     }
                 }
             }
@@ -165,8 +167,8 @@ public class TaskManager {
 
         // See the neighbours
         if (checkNeighbours) {
-            for (Point p : worldState.getMapLoader().getSurroundingTiles(new Point(x, y), false)) {
-                scanTerrainTasks(mapData, p.x, p.y, false, false);
+            for (Point p : worldState.getMapLoader().getSurroundingTiles(location, false)) {
+                scanTerrainTasks(mapData, p.x, p.y, false, deleteObsolete);
             }
         }
     }
@@ -179,47 +181,27 @@ public class TaskManager {
      * player drops the creature somewhere)
      * @return true if a task was assigned
      */
-    public boolean assignTask(CreatureControl creature, boolean byDistance) {
+    public synchronized boolean assignTask(CreatureControl creature, boolean byDistance) {
 
-        Set<AbstractTask> taskQueue = taskQueues.get(creature.getOwnerId());
+        TaskIndex taskQueue = taskQueues.get(creature.getOwnerId());
         if (taskQueue == null) {
             return false;
 //            throw new IllegalArgumentException("This task manager instance is not for the given player!");
         }
 
-        // Sort by distance & priority
-        final Point currentLocation = creature.getCreatureCoordinates();
-        List<AbstractTask> prioritisedTaskQueue = new ArrayList<>(taskQueue);
-        Collections.sort(prioritisedTaskQueue, new Comparator<AbstractTask>() {
-
-            @Override
-            public int compare(AbstractTask t, AbstractTask t1) {
-                int result = Integer.compare(calculateDistance(currentLocation, t.getTaskLocation()) + t.getPriority(), calculateDistance(currentLocation, t1.getTaskLocation()) + t1.getPriority());
-                if (result == 0) {
-
-                    // If the same, compare by date added
-                    return t.getTaskCreated().compareTo(t1.getTaskCreated());
-                }
-                return result;
-            }
-
-        });
-
-        // Take the first available task from the sorted queue
-        for (AbstractTask task : prioritisedTaskQueue) {
-            if (task.canAssign(creature)) {
-
-                // Assign to first task
-                task.assign(creature);
-                return true;
-            }
+        // Take the first available task by distance & priority
+        AbstractTask task = taskQueue.findAssignableTask(creature, creature.getCreatureCoordinates());
+        if (task != null) {
+            task.assign(creature);
+            assignments.incrementAndGet();
+            return true;
         }
 
         return false;
     }
 
     private void addTask(short playerId, AbstractTask task) {
-        Set<AbstractTask> tasks = taskQueues.get(playerId);
+        TaskIndex tasks = taskQueues.get(playerId);
         if (!tasks.contains(task)) {
             tasks.add(task);
             logger.log(Level.INFO, "Added task {0} for player {1}!", new Object[]{task, playerId});
@@ -234,7 +216,7 @@ public class TaskManager {
      * @param creature the creature to assign to
      * @return true if the task was assigned
      */
-    public boolean assignGoldToTreasuryTask(CreatureControl creature) {
+    public synchronized boolean assignGoldToTreasuryTask(CreatureControl creature) {
 
         // See if the creature's player lacks of gold
         Keeper player = worldState.getGameState().getPlayer(creature.getOwnerId());
@@ -251,7 +233,7 @@ public class TaskManager {
      * @param objectType the type of room service
      * @return true if the task was assigned
      */
-    public boolean assignClosestRoomTask(CreatureControl creature, GenericRoom.ObjectType objectType) {
+    public synchronized boolean assignClosestRoomTask(CreatureControl creature, GenericRoom.ObjectType objectType) {
         Point currentPosition = creature.getCreatureCoordinates();
 
         // Get all the rooms of the given type
@@ -280,11 +262,10 @@ public class TaskManager {
                 }
             }
 
-            // Assign
+            // Assign, the path itself is searched when the creature starts to navigate
             if (!coordinates.isEmpty()) {
                 Point target = Utils.getRandomItem(coordinates);
-                GraphPath<TileData> path = worldState.findPath(creature.getCreatureCoordinates(), target, creature.getCreature());
-                if (path != null || target == creature.getCreatureCoordinates()) {
+                if (worldState.isReachable(currentPosition, target, creature.getCreature())) {
 
                     // Assign the task
                     AbstractTask task = getRoomTask(objectType, target, creature, room);
@@ -296,6 +277,7 @@ public class TaskManager {
                         roomTasks.put(room, taskPoints);
                     }
                     task.assign(creature);
+                    assignments.incrementAndGet();
                     return true;
                 }
             }
@@ -332,7 +314,7 @@ public class TaskManager {
         return null;
     }
 
-    protected void removeRoomTask(AbstractCapacityCriticalRoomTask task) {
+    protected synchronized void removeRoomTask(AbstractCapacityCriticalRoomTask task) {
         Map<Point, AbstractCapacityCriticalRoomTask> taskPoints = roomTasks.get(task.getRoom());
         taskPoints.remove(task.getTaskLocation());
         if (taskPoints.isEmpty()) {
@@ -347,17 +329,27 @@ public class TaskManager {
      * @param objective the objective
      * @return true if the objective task could be accomplished
      */
-    public boolean assignObjectiveTask(CreatureControl creature, Thing.HeroParty.Objective objective) {
+    public synchronized boolean assignObjectiveTask(CreatureControl creature, Thing.HeroParty.Objective objective) {
         switch (objective) {
             case SEND_TO_ACTION_POINT: {
                 AbstractTask task = new SendToActionPoint(worldState, creature.getObjectiveTargetActionPoint(), creature.getOwnerId());
                 task.assign(creature);
+                assignments.incrementAndGet();
                 return true;
             }
         }
         return false;
     }
 
+    /**
+     * Get the number of tasks assigned so far
+     *
+     * @return the task assignment count
+     */
+    public long getAssignmentCount() {
+        return assignments.get();
+    }
+
     private AbstractTask getObjectTask(ObjectControl objectControl, short playerId) {
         return new FetchObjectTask(worldState, objectControl, playerId);
     }
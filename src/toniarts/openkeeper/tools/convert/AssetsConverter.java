@@ -41,12 +41,23 @@ import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
@@ -59,6 +70,7 @@ import toniarts.openkeeper.game.data.HiScores;
 import toniarts.openkeeper.tools.convert.bf4.Bf4File;
 import toniarts.openkeeper.tools.convert.hiscores.HiScoresEntry;
 import toniarts.openkeeper.tools.convert.hiscores.HiScoresFile;
+import toniarts.openkeeper.tools.convert.kmf.Grop;
 import toniarts.openkeeper.tools.convert.kcs.KcsEntry;
 import toniarts.openkeeper.tools.convert.kcs.KcsFile;
 import toniarts.openkeeper.tools.convert.kmf.KmfFile;
@@ -85,30 +97,54 @@ import toniarts.openkeeper.world.MapThumbnailGenerator;
 public abstract class AssetsConverter {
 
     /**
-     * Processes are done in order
+     * Processes are run concurrently, a process is started once the processes
+     * it depends on are done
      *
-     * @see ConvertProcess#getProcessNumber()
+     * @see ConvertProcess#getDependencies()
      */
     public enum ConvertProcess {
 
-        TEXTURES(4),
-        MODELS(5),
-        MOUSE_CURSORS(3),
-        MUSIC_AND_SOUNDS(3),
-        INTERFACE_TEXTS(2),
-        PATHS(4),
-        HI_SCORES(2),
-        FONTS(3),
-        MAP_THUMBNAILS(2);
-
-        private ConvertProcess(int version) {
+        TEXTURES(4, true),
+        MODELS(7, true, TEXTURES),
+        MOUSE_CURSORS(3, true),
+        MUSIC_AND_SOUNDS(3, true),
+        INTERFACE_TEXTS(2, false),
+        PATHS(4, false),
+        HI_SCORES(2, false),
+        FONTS(3, false),
+        MAP_THUMBNAILS(2, false, TEXTURES);
+
+        private ConvertProcess(int version, boolean onDemand, ConvertProcess... dependencies) {
             this.version = version;
+            this.onDemand = onDemand;
+            this.dependencies = Arrays.asList(dependencies);
         }
 
         public int getVersion() {
             return this.version;
         }
 
+        /**
+         * Get the processes that need to be done before this one, the models
+         * need the textures and the map thumbnails need the map colour palette
+         *
+         * @return the processes this process depends on
+         */
+        public List<ConvertProcess> getDependencies() {
+            return dependencies;
+        }
+
+        /**
+         * Whether the assets of this process can also be served straight from
+         * the original archives
+         *
+         * @return true if the assets can be read on demand
+         * @see DKAssetLocator
+         */
+        public boolean isOnDemand() {
+            return onDemand;
+        }
+
         public String getSettingName() {
             String[] names = this.toString().toLowerCase().split(" ");
             String name = "";
@@ -131,8 +167,35 @@ public abstract class AssetsConverter {
             return super.toString().replace('_', ' ');
         }
         private final int version;
+        private final boolean onDemand;
+        private final List<ConvertProcess> dependencies;
         private boolean outdated = false;
     }
+
+    /**
+     * Progress of a single process, reported as the entries are done by the
+     * workers
+     */
+    private class Progress {
+
+        private final ConvertProcess process;
+        private final int total;
+        private int current = 0;
+
+        public Progress(ConvertProcess process, int total) {
+            this.process = process;
+            this.total = total;
+            reportStatus(current, total, process);
+        }
+
+        public void increment() {
+            synchronized (AssetsConverter.this) {
+                current++;
+                updateStatus(current, total, process);
+            }
+        }
+    }
+
     private final String dungeonKeeperFolder;
     private final AssetManager assetManager;
     private static final String ASSETS_FOLDER = "assets".concat(File.separator).concat("Converted");
@@ -146,7 +209,10 @@ public abstract class AssetsConverter {
     public static final String PATHS_FOLDER = "Interface".concat(File.separator).concat("Paths");
     public static final String MAP_THUMBNAILS_FOLDER = TEXTURES_FOLDER.concat(File.separator).concat("Thumbnails");
     public static final String MAPS_FOLDER = PathUtils.DKII_DATA_FOLDER.concat(File.separator).concat(PathUtils.DKII_EDITOR_FOLDER).concat(File.separator).concat(PathUtils.DKII_MAPS_FOLDER).concat(File.separator);
-    private static final boolean OVERWRITE_DATA = true; // Not exhausting your SDD :) or our custom graphics
+    static final String ENGINE_TEXTURES_FILE = "DK2TextureCache".concat(File.separator).concat("EngineTextures.dat");
+    private static final int WORKER_THREADS = Runtime.getRuntime().availableProcessors();
+    private ExecutorService workers;
+    private ConversionManifest manifest;
     private static final Logger logger = Logger.getLogger(AssetsConverter.class.getName());
 
     public AssetsConverter(String dungeonKeeperFolder, AssetManager assetManager) {
@@ -155,7 +221,9 @@ public abstract class AssetsConverter {
     }
 
     /**
-     * Callback for updates
+     * Callback for updates. Several processes may be running at once, the
+     * progress is always the progress of the given process. Calls are never
+     * concurrent, but may come from any thread.
      *
      * @param currentProgress current progress, maybe null if not certain yet
      * @param totalProgress total progress, maybe null if not certain yet
@@ -163,12 +231,39 @@ public abstract class AssetsConverter {
      */
     protected abstract void updateStatus(Integer currentProgress, Integer totalProgress, ConvertProcess process);
 
+    private synchronized void reportStatus(Integer currentProgress, Integer totalProgress, ConvertProcess process) {
+        updateStatus(currentProgress, totalProgress, process);
+    }
+
     public static boolean conversionNeeded(AppSettings settings) {
+        return conversionNeeded(settings, false);
+    }
+
+    /**
+     * See which processes are outdated. A process is outdated if its version
+     * or any of its source files have changed since it was converted.
+     *
+     * @param settings the settings with the converted versions, used for the
+     * processes converted before the conversion manifest
+     * @param onDemand whether the on demand assets are served straight from
+     * the original archives, in which case they don't need converting
+     * @return true if some process needs to be run
+     * @see DKAssetLocator
+     * @see ConversionManifest
+     */
+    public static boolean conversionNeeded(AppSettings settings, boolean onDemand) {
         boolean needConversion = false;
+        ConversionManifest manifest = ConversionManifest.load(getAssetsFolder());
 
         for (ConvertProcess item : ConvertProcess.values()) {
-            String key = item.getSettingName();
-            boolean isOutdated = item.getVersion() > settings.getInteger(key);
+            boolean isOutdated;
+            if (onDemand && item.isOnDemand()) {
+                isOutdated = false;
+            } else if (manifest.contains(item)) {
+                isOutdated = !manifest.isUpToDate(item);
+            } else {
+                isOutdated = item.getVersion() > settings.getInteger(item.getSettingName());
+            }
             item.setOutdated(isOutdated);
             if (isOutdated) {
                 needConversion = true;
@@ -180,13 +275,19 @@ public abstract class AssetsConverter {
 
     public static void setConversionSettings(AppSettings settings) {
         for (ConvertProcess item : ConvertProcess.values()) {
-            settings.putInteger(item.getSettingName(), item.getVersion());
+
+            // The skipped on demand processes stay unconverted
+            if (item.isOutdated()) {
+                settings.putInteger(item.getSettingName(), item.getVersion());
+            }
         }
     }
 
     /**
      * Convert all the original DK II assets to our formats and copy to our
-     * working folder
+     * working folder. The processes and the entries within them are converted
+     * in parallel. Only the entries that have changed since the last
+     * conversion are converted.
      */
     public void convertAssets() {
         long start = System.currentTimeMillis();
@@ -195,41 +296,135 @@ public abstract class AssetsConverter {
         logger.log(Level.INFO, "Current folder set to: {0}", currentFolder);
 
         //Create an assets folder
-        currentFolder = currentFolder.concat(ASSETS_FOLDER).concat(File.separator);
+        final String assetsFolder = currentFolder.concat(ASSETS_FOLDER).concat(File.separator);
+        manifest = ConversionManifest.load(assetsFolder);
 
         //TODO: We need to search the normal assets before extracting do we actually already
         //have a user made asset there
-        //First and foremost, we need the textures
-        convertTextures(dungeonKeeperFolder, currentFolder.concat(TEXTURES_FOLDER).concat(File.separator));
-
-        //And the models, note that these already need to find the textures (our custom resource locator)
-        //In development this works without such
-        convertModels(dungeonKeeperFolder, currentFolder.concat(MODELS_FOLDER).concat(File.separator), assetManager);
-
-        //The mouse cursors
-        convertMouseCursors(dungeonKeeperFolder, currentFolder.concat(MOUSE_CURSORS_FOLDER).concat(File.separator));
-
-        //The sound and music
-        convertSounds(dungeonKeeperFolder, currentFolder.concat(SOUNDS_FOLDER).concat(File.separator));
+        // The processes wait on their entries, the workers never wait
+        AtomicInteger threadIndex = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(WORKER_THREADS, (Runnable r) -> {
+            Thread thread = new Thread(r, "AssetsConverter-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        ExecutorService processes = Executors.newCachedThreadPool((Runnable r) -> {
+            Thread thread = new Thread(r, "AssetsConverterProcess");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Map<ConvertProcess, CompletableFuture<Void>> processFutures = new EnumMap<>(ConvertProcess.class);
+            for (final ConvertProcess process : ConvertProcess.values()) {
+                CompletableFuture<?>[] dependencies = new CompletableFuture<?>[process.getDependencies().size()];
+                for (int i = 0; i < dependencies.length; i++) {
+                    dependencies[i] = processFutures.get(process.getDependencies().get(i));
+                }
+                processFutures.put(process, CompletableFuture.allOf(dependencies).thenRunAsync(() -> {
+                    convert(process, assetsFolder);
+                }, processes));
+            }
+            join(processFutures.values());
+        } finally {
+            processes.shutdownNow();
+            workers.shutdownNow();
 
-        //The texts
-        convertTexts(dungeonKeeperFolder, currentFolder.concat(TEXTS_FOLDER).concat(File.separator));
+            // Save what got converted, even if some process failed
+            try {
+                manifest.save();
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Failed to save the conversion manifest!", e);
+            }
+        }
 
-        //The paths
-        convertPaths(dungeonKeeperFolder, currentFolder.concat(PATHS_FOLDER).concat(File.separator));
+        // Log the time taken
+        long duration = System.currentTimeMillis() - start;
+        logger.log(Level.INFO, "Conversion took {0} seconds!", TimeUnit.SECONDS.convert(duration, TimeUnit.MILLISECONDS));
+    }
 
-        //HiScores
-        convertHiScores(dungeonKeeperFolder);
+    /**
+     * Run a single conversion process
+     *
+     * @param process the process
+     * @param assetsFolder the assets folder
+     */
+    private void convert(ConvertProcess process, String assetsFolder) {
+        switch (process) {
+            case TEXTURES: {
+                convertTextures(dungeonKeeperFolder, assetsFolder.concat(TEXTURES_FOLDER).concat(File.separator));
+                break;
+            }
+            case MODELS: {
 
-        //The fonts
-        convertFonts(dungeonKeeperFolder, currentFolder.concat(FONTS_FOLDER).concat(File.separator));
+                // Note that these already need to find the textures (our custom resource locator)
+                // In development this works without such
+                convertModels(dungeonKeeperFolder, assetsFolder.concat(MODELS_FOLDER).concat(File.separator), assetManager);
+                break;
+            }
+            case MOUSE_CURSORS: {
+                convertMouseCursors(dungeonKeeperFolder, assetsFolder.concat(MOUSE_CURSORS_FOLDER).concat(File.separator));
+                break;
+            }
+            case MUSIC_AND_SOUNDS: {
+                convertSounds(dungeonKeeperFolder, assetsFolder.concat(SOUNDS_FOLDER).concat(File.separator));
+                break;
+            }
+            case INTERFACE_TEXTS: {
+                convertTexts(dungeonKeeperFolder, assetsFolder.concat(TEXTS_FOLDER).concat(File.separator));
+                break;
+            }
+            case PATHS: {
+                convertPaths(dungeonKeeperFolder, assetsFolder.concat(PATHS_FOLDER).concat(File.separator));
+                break;
+            }
+            case HI_SCORES: {
+                convertHiScores(dungeonKeeperFolder);
+                break;
+            }
+            case FONTS: {
+                convertFonts(dungeonKeeperFolder, assetsFolder.concat(FONTS_FOLDER).concat(File.separator));
+                break;
+            }
+            case MAP_THUMBNAILS: {
+                generateMapThumbnails(dungeonKeeperFolder, assetsFolder.concat(MAP_THUMBNAILS_FOLDER).concat(File.separator));
+                break;
+            }
+        }
+    }
 
-        //The map thumbnails
-        generateMapThumbnails(dungeonKeeperFolder, currentFolder.concat(MAP_THUMBNAILS_FOLDER).concat(File.separator));
+    /**
+     * Convert the entries on the worker threads
+     *
+     * @param entries the entries to convert
+     * @param progress the progress to update as the entries are done
+     * @param converter the conversion of a single entry
+     * @return the future that completes when all the entries are done
+     */
+    private <T> CompletableFuture<Void> convertEntries(Collection<T> entries, final Progress progress, final Consumer<T> converter) {
+        List<CompletableFuture<Void>> futures = new ArrayList<>(entries.size());
+        for (final T entry : entries) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                converter.accept(entry);
+                progress.increment();
+            }, workers));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()]));
+    }
 
-        // Log the time taken
-        long duration = System.currentTimeMillis() - start;
-        logger.log(Level.INFO, "Conversion took {0} seconds!", TimeUnit.SECONDS.convert(duration, TimeUnit.MILLISECONDS));
+    /**
+     * Wait for the futures, rethrowing the first conversion failure
+     *
+     * @param futures the futures to wait for
+     */
+    private static void join(Collection<CompletableFuture<Void>> futures) {
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
     }
 
     /**
@@ -243,53 +438,52 @@ public abstract class AssetsConverter {
             return;
         }
         logger.log(Level.INFO, "Extracting textures to: {0}", destination);
-        updateStatus(null, null, ConvertProcess.TEXTURES);
-        EngineTexturesFile etFile = getEngineTexturesFile(dungeonKeeperFolder);
-        Pattern pattern = Pattern.compile("(?<name>\\w+)MM(?<mipmaplevel>\\d{1})");
+        reportStatus(null, null, ConvertProcess.TEXTURES);
+        final ConversionManifest.Conversion conversion = manifest.start(ConvertProcess.TEXTURES);
+        final EngineTexturesFile etFile = getEngineTexturesFile(dungeonKeeperFolder);
         WadFile frontEnd;
         WadFile engineTextures;
         try {
-            frontEnd = new WadFile(new File(ConversionUtils.getRealFileName(dungeonKeeperFolder, PathUtils.DKII_DATA_FOLDER.concat(File.separator).concat("FrontEnd.WAD"))));
-            engineTextures = new WadFile(new File(ConversionUtils.getRealFileName(dungeonKeeperFolder, PathUtils.DKII_DATA_FOLDER.concat(File.separator).concat("EngineTextures.WAD"))));
+            conversion.addSource(new File(ConversionUtils.getRealFileName(dungeonKeeperFolder, ENGINE_TEXTURES_FILE)));
+            conversion.addSource(new File(ConversionUtils.getRealFileName(dungeonKeeperFolder, ENGINE_TEXTURES_FILE.substring(0, ENGINE_TEXTURES_FILE.length() - 3).concat("dir"))));
+            File frontEndFile = new File(ConversionUtils.getRealFileName(dungeonKeeperFolder, PathUtils.DKII_DATA_FOLDER.concat(File.separator).concat("FrontEnd.WAD")));
+            File engineTexturesFile = new File(ConversionUtils.getRealFileName(dungeonKeeperFolder, PathUtils.DKII_DATA_FOLDER.concat(File.separator).concat("EngineTextures.WAD")));
+            conversion.addSource(frontEndFile);
+            conversion.addSource(engineTexturesFile);
+            frontEnd = new WadFile(frontEndFile);
+            engineTextures = new WadFile(engineTexturesFile);
         } catch (IOException e) {
             throw new RuntimeException("Failed to open a WAD file!", e);
         }
 
-        int i = 0;
         int total = etFile.getFileCount() + frontEnd.getWadFileEntries().size() + engineTextures.getWadFileEntries().size();
-
-        for (String textureFile : etFile) {
-            updateStatus(i, total, ConvertProcess.TEXTURES);
-            i++;
-
-            //All are PNG files, and MipMap levels are present, we need only the
-            //highest quality one, so don't bother extracting the other mipmap levels
-            Matcher matcher = pattern.matcher(textureFile);
-            boolean found = matcher.find();
-            if (found && Integer.parseInt(matcher.group("mipmaplevel")) == 0) {
-
-                //Highest resolution, extract and rename
-                File f = etFile.extractFileData(textureFile, destination, OVERWRITE_DATA);
-                File newFile = new File(f.toString().replaceFirst("MM" + matcher.group("mipmaplevel"), ""));
-                if (OVERWRITE_DATA && newFile.exists()) {
-                    newFile.delete();
-                } else if (!OVERWRITE_DATA && newFile.exists()) {
-
-                    // Delete the extracted file
-                    logger.log(Level.INFO, "File {0} already exists, skipping!", newFile);
-                    f.delete();
-                    continue;
+        final Progress progress = new Progress(ConvertProcess.TEXTURES, total);
+
+        // The engine textures are decoded in the fork-join pool, alongside the WAD entries
+        CompletableFuture<Void> engineTexturesFuture = CompletableFuture.runAsync(() -> {
+
+            // Only the highest quality mipmap levels are converted, and only if they have changed
+            final Map<String, String> hashes = new HashMap<>();
+            for (String textureFile : etFile) {
+                if (EngineTexturesFile.getHighestMipMapName(textureFile) != null) {
+                    String hash = ConversionManifest.hash(etFile.getFileBuffer(textureFile));
+                    if (!conversion.skip("EngineTextures.dat/".concat(textureFile), hash)) {
+                        hashes.put(textureFile, hash);
+                        continue;
+                    }
                 }
-                f.renameTo(newFile);
-            } else if (!found) {
-
-                // No mipmap levels, just extract
-                etFile.extractFileData(textureFile, destination, OVERWRITE_DATA);
+                progress.increment();
             }
-        }
+            etFile.extractFileData(hashes.keySet(), destination, true, true, ForkJoinPool.commonPool(), (String textureFile, File file) -> {
+                conversion.record("EngineTextures.dat/".concat(textureFile), hashes.get(textureFile), Collections.singletonList(file));
+                progress.increment();
+            });
+        }, workers);
 
-        extractTextureContainer(i, total, frontEnd, destination);
-        extractTextureContainer(i, total, engineTextures, destination);
+        join(Arrays.asList(engineTexturesFuture,
+                extractTextureContainer(progress, conversion, frontEnd, "FrontEnd.WAD", destination),
+                extractTextureContainer(progress, conversion, engineTextures, "EngineTextures.WAD", destination)));
+        conversion.finish();
     }
 
     /**
@@ -298,107 +492,139 @@ public abstract class AssetsConverter {
      * @param dungeonKeeperFolder DK II main folder
      * @param destination Destination folder
      */
-    private void convertModels(String dungeonKeeperFolder, String destination, AssetManager assetManager) {
+    private void convertModels(String dungeonKeeperFolder, final String destination, final AssetManager assetManager) {
         if (!ConvertProcess.MODELS.isOutdated()) {
             return;
         }
         logger.log(Level.INFO, "Extracting models to: {0}", destination);
-        updateStatus(null, null, ConvertProcess.MODELS);
+        reportStatus(null, null, ConvertProcess.MODELS);
 
         // Create the materials folder or else the material file saving fails
         new File(getAssetsFolder().concat(AssetsConverter.MATERIALS_FOLDER)).mkdirs();
 
         // Get the engine textures catalog
-        EngineTexturesFile engineTexturesFile = getEngineTexturesFile(dungeonKeeperFolder);
+        final EngineTexturesFile engineTexturesFile = getEngineTexturesFile(dungeonKeeperFolder);
 
         //Meshes are in the data folder, access the packed file
-        WadFile wad = new WadFile(new File(dungeonKeeperFolder.concat(PathUtils.DKII_DATA_FOLDER).concat(File.separator).concat("Meshes.WAD")));
-        HashMap<String, KmfFile> kmfs = new HashMap<>();
-        File tmpdir = new File(System.getProperty("java.io.tmpdir"));
+        final ConversionManifest.Conversion conversion = manifest.start(ConvertProcess.MODELS);
+        File meshes = new File(dungeonKeeperFolder.concat(PathUtils.DKII_DATA_FOLDER).concat(File.separator).concat("Meshes.WAD"));
+        conversion.addSource(meshes);
+        final WadFile wad = new WadFile(meshes);
+        final Progress progress = new Progress(ConvertProcess.MODELS, wad.getWadFileEntryCount());
+        final Map<String, String> hashes = new ConcurrentHashMap<>();
+
+        // Every model gets a future, the groups wait for the models they link to
+        final Map<String, CompletableFuture<Void>> models = new HashMap<>(wad.getWadFileEntryCount());
+        List<CompletableFuture<Void>> futures = new ArrayList<>(wad.getWadFileEntryCount());
+        for (String entry : wad.getWadFileEntries()) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            models.putIfAbsent(getModelName(entry), future);
+            futures.add(future);
+        }
         int i = 0;
-        int total = wad.getWadFileEntryCount();
         for (final String entry : wad.getWadFileEntries()) {
-            try {
-                updateStatus(i, total, ConvertProcess.MODELS);
-
-                // See if we already have this model
-                if (!OVERWRITE_DATA && new File(destination.concat(entry.substring(0, entry.length() - 4)).concat(".j3o")).exists()) {
-                    logger.log(Level.INFO, "File {0} already exists, skipping!", entry);
-                    i++;
-                    continue;
-                }
-
-                // Extract each file to temp
-                File f = wad.extractFileData(entry, tmpdir.toString());
-                f.deleteOnExit();
-
-                // Parse
-                final KmfFile kmfFile = new KmfFile(f);
+            final CompletableFuture<Void> model = futures.get(i++);
+            CompletableFuture.supplyAsync(() -> {
+                return extractModel(wad, entry, conversion, hashes);
+            }, workers).thenCompose((KmfFile kmfFile) -> {
 
                 // If it is a regular model or animation, process it straight away
-                // Leave groups for later (since linking)
+                if (kmfFile == null) {
+                    return CompletableFuture.completedFuture(null);
+                }
                 if (kmfFile.getType() == KmfFile.Type.MESH || kmfFile.getType() == KmfFile.Type.ANIM) {
-                    convertModel(assetManager, new Entry<String, KmfFile>() {
-                        @Override
-                        public String getKey() {
-                            return entry;
-                        }
-
-                        @Override
-                        public KmfFile getValue() {
-                            return kmfFile;
-                        }
-
-                        @Override
-                        public KmfFile setValue(KmfFile value) {
-                            throw new UnsupportedOperationException("Plz, don't do this!");
-                        }
-                    }, destination, engineTexturesFile);
-
-                    // We can delete the file straight
-                    f.delete();
-                    i++;
-                } else {
+                    File file = convertModel(assetManager, entry, kmfFile, destination, engineTexturesFile);
+                    conversion.record(entry, hashes.get(entry), Collections.singletonList(file));
+                    return CompletableFuture.completedFuture(null);
+                }
 
-                    // For later processing
-                    kmfs.put(entry, kmfFile);
+                // Groups are converted once the linked models are
+                List<CompletableFuture<Void>> links = new ArrayList<>(kmfFile.getGrops().size());
+                for (Grop grop : kmfFile.getGrops()) {
+                    CompletableFuture<Void> link = models.get(grop.getName().toLowerCase());
+                    if (link != null && link != model) {
+                        links.add(link);
+                    }
                 }
-            } catch (Exception ex) {
-                logger.log(Level.SEVERE, "Failed to create a file for WAD entry " + entry + "!", ex);
-                throw ex;
-            }
+                return CompletableFuture.allOf(links.toArray(new CompletableFuture<?>[links.size()])).thenRunAsync(() -> {
+                    File file = convertModel(assetManager, entry, kmfFile, destination, engineTexturesFile);
+                    conversion.record(entry, hashes.get(entry), Collections.singletonList(file));
+                }, workers);
+            }).whenComplete((Void result, Throwable ex) -> {
+                if (ex != null) {
+                    model.completeExceptionally(ex);
+                } else {
+                    progress.increment();
+                    model.complete(null);
+                }
+            });
         }
+        join(futures);
+        conversion.finish();
+    }
 
-        // And the groups (now they can be linked)
-        for (Entry<String, KmfFile> entry : kmfs.entrySet()) {
-            updateStatus(i, total, ConvertProcess.MODELS);
-            convertModel(assetManager, entry, destination, engineTexturesFile);
-            i++;
+    /**
+     * Parse a single KMF straight from the WAD
+     *
+     * @param wad the meshes WAD
+     * @param entry the WAD entry
+     * @param conversion the models conversion
+     * @param hashes the hashes of the models to convert are put here
+     * @return the KMF, or {@code null} if the model is already converted
+     */
+    private KmfFile extractModel(WadFile wad, String entry, ConversionManifest.Conversion conversion, Map<String, String> hashes) {
+        try {
+
+            // See if we already have this model
+            String hash = wad.readFileData(entry, ConversionManifest::hash);
+            if (conversion.skip(entry, hash)) {
+                return null;
+            }
+            hashes.put(entry, hash);
+
+            // Parse in memory, no need to extract
+            return wad.readFileData(entry, KmfFile::new);
+        } catch (Exception ex) {
+            logger.log(Level.SEVERE, "Failed to create a file for WAD entry " + entry + "!", ex);
+            throw ex;
         }
     }
 
+    /**
+     * Get the model name, as referred in the groups, of a WAD entry
+     *
+     * @param entry the WAD entry
+     * @return model name
+     */
+    private static String getModelName(String entry) {
+        return entry.substring(0, entry.length() - 4).toLowerCase();
+    }
+
     /**
      * Convert a single KMF to JME object
      *
      * @param assetManager assetManager, for finding stuff
-     * @param entry KMF / name entry
+     * @param entry the WAD entry name
+     * @param kmfFile the KMF
      * @param destination destination directory
+     * @return the converted model file
      * @throws RuntimeException May fail
      */
-    private void convertModel(AssetManager assetManager, Entry<String, KmfFile> entry, String destination, EngineTexturesFile engineTexturesFile) throws RuntimeException {
+    private File convertModel(AssetManager assetManager, String entry, KmfFile kmfFile, String destination, EngineTexturesFile engineTexturesFile) throws RuntimeException {
 
         //Remove the file extension from the file
-        KmfAssetInfo ai = new KmfAssetInfo(assetManager, new AssetKey(entry.getKey()), entry.getValue(), engineTexturesFile, true);
+        KmfAssetInfo ai = new KmfAssetInfo(assetManager, new AssetKey(entry), kmfFile, engineTexturesFile, true);
         KmfModelLoader kmfModelLoader = new KmfModelLoader();
         try {
             Node n = (Node) kmfModelLoader.load(ai);
 
             // Export
             BinaryExporter exporter = BinaryExporter.getInstance();
-            File file = new File(destination.concat(entry.getKey().substring(0, entry.getKey().length() - 4)).concat(".j3o"));
+            File file = new File(destination.concat(entry.substring(0, entry.length() - 4)).concat(".j3o"));
             exporter.save(n, file);
+            return file;
         } catch (Exception ex) {
-            String msg = "Failed to convert KMF entry " + entry.getKey() + "!";
+            String msg = "Failed to convert KMF entry " + entry + "!";
             logger.log(Level.SEVERE, msg, ex);
             throw new RuntimeException(msg, ex);
         }
@@ -410,37 +636,45 @@ public abstract class AssetsConverter {
      * @param dungeonKeeperFolder DK II main folder
      * @param destination Destination folder
      */
-    private void convertMouseCursors(String dungeonKeeperFolder, String destination) {
+    private void convertMouseCursors(String dungeonKeeperFolder, final String destination) {
         if (!ConvertProcess.MOUSE_CURSORS.isOutdated()) {
             return;
         }
         logger.log(Level.INFO, "Extracting mouse cursors to: {0}", destination);
-        updateStatus(null, null, ConvertProcess.MOUSE_CURSORS);
+        reportStatus(null, null, ConvertProcess.MOUSE_CURSORS);
 
         //Mouse cursors are PNG files in the Sprite.WAD
-        WadFile wadFile = new WadFile(new File(dungeonKeeperFolder.concat(PathUtils.DKII_DATA_FOLDER).concat(File.separator).concat("Sprite.WAD")));
-        int i = 0;
-        int total = wadFile.getWadFileEntryCount();
-        File destinationFolder = new File(getAssetsFolder().concat(TEXTURES_FOLDER).concat(File.separator).concat("Sprites/"));
+        final ConversionManifest.Conversion conversion = manifest.start(ConvertProcess.MOUSE_CURSORS);
+        File sprites = new File(dungeonKeeperFolder.concat(PathUtils.DKII_DATA_FOLDER).concat(File.separator).concat("Sprite.WAD"));
+        conversion.addSource(sprites);
+        final WadFile wadFile = new WadFile(sprites);
+        final File destinationFolder = new File(getAssetsFolder().concat(TEXTURES_FOLDER).concat(File.separator).concat("Sprites/"));
         destinationFolder.mkdirs();
 
-        for (String fileName : wadFile.getWadFileEntries()) {
-            updateStatus(i, total, ConvertProcess.MOUSE_CURSORS);
-            i++;
+        Progress progress = new Progress(ConvertProcess.MOUSE_CURSORS, wadFile.getWadFileEntryCount());
+        join(Collections.singletonList(convertEntries(wadFile.getWadFileEntries(), progress, (String fileName) -> {
+            String hash = wadFile.readFileData(fileName, ConversionManifest::hash);
+            if (conversion.skip(fileName, hash)) {
+                return;
+            }
+
             //Extract the file
             File extracted = wadFile.extractFileData(fileName, destination);
+            List<File> files = Collections.singletonList(extracted);
 
             if (fileName.toLowerCase().endsWith(".spr")) {
                 // Extract the spr and delete it afterwards
                 SprFile sprFile = new SprFile(extracted);
                 try {
-                    sprFile.extract(destinationFolder.getPath(), fileName.substring(0, fileName.length() - 4));
+                    files = sprFile.extract(destinationFolder.getPath(), fileName.substring(0, fileName.length() - 4));
                     extracted.delete();
                 } catch (Exception ex) {
                     logger.log(Level.SEVERE, "Error Sprite: {0}", ex);
                 }
             }
-        }
+            conversion.record(fileName, hash, files);
+        })));
+        conversion.finish();
     }
 
     /**
@@ -449,26 +683,34 @@ public abstract class AssetsConverter {
      * @param dungeonKeeperFolder DK II main folder
      * @param destination Destination folder
      */
-    private void convertSounds(String dungeonKeeperFolder, String destination) {
+    private void convertSounds(String dungeonKeeperFolder, final String destination) {
         if (!ConvertProcess.MUSIC_AND_SOUNDS.isOutdated()) {
             return;
         }
         logger.log(Level.INFO, "Extracting sounds to: {0}", destination);
-        updateStatus(null, null, ConvertProcess.MUSIC_AND_SOUNDS);
+        reportStatus(null, null, ConvertProcess.MUSIC_AND_SOUNDS);
         String dataDirectory = (PathUtils.DKII_DATA_FOLDER).concat(File.separator).concat(PathUtils.DKII_SOUND_FOLDER).concat(File.separator).concat(PathUtils.DKII_SFX_FOLDER).concat(File.separator);
 
         //Find all the sound files
+        final ConversionManifest.Conversion conversion = manifest.start(ConvertProcess.MUSIC_AND_SOUNDS);
         final List<File> sdtFiles = new ArrayList<>();
         File dataDir = null;
         try {
             dataDir = new File(ConversionUtils.getRealFileName(dungeonKeeperFolder, dataDirectory));
             Files.walkFileTree(dataDir.toPath(), new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    conversion.addSource(dir.toFile());
+                    return FileVisitResult.CONTINUE;
+                }
+
                 @Override
                 public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
 
                     //Get all the SDT files
                     if (attrs.isRegularFile() && file.getFileName().toString().toLowerCase().endsWith(".sdt")) {
                         sdtFiles.add(file.toFile());
+                        conversion.addSource(file.toFile());
                     }
 
                     //Always continue
@@ -483,25 +725,28 @@ public abstract class AssetsConverter {
 
         //Extract the sounds
         // FIXME: We should try to figure out the map files, but at least merge the sound track files
-        int i = 0;
-        int total = sdtFiles.size();
-        for (File file : sdtFiles) {
-            updateStatus(i, total, ConvertProcess.MUSIC_AND_SOUNDS);
-            i++;
-
-            SdtFile sdt = new SdtFile(file);
+        final File soundsDir = dataDir;
+        Progress progress = new Progress(ConvertProcess.MUSIC_AND_SOUNDS, sdtFiles.size());
+        join(Collections.singletonList(convertEntries(sdtFiles, progress, (File file) -> {
 
             //Get a relative path
-            Path relative = dataDir.toPath().relativize(file.toPath());
+            Path relative = soundsDir.toPath().relativize(file.toPath());
+            String key = relative.toString().replace(File.separatorChar, '/');
+            String hash = ConversionManifest.hash(file);
+            if (conversion.skip(key, hash)) {
+                return;
+            }
+            SdtFile sdt = new SdtFile(file);
             String dest = destination;
             dest += relative.toString();
 
             //Remove the actual file name
             dest = dest.substring(0, dest.length() - file.toPath().getFileName().toString().length());
 
-            //Extract
-            sdt.extractFileData(dest);
-        }
+            //Extract, the entries of the large speech and music archives are split in the fork-join pool
+            conversion.record(key, hash, sdt.extractFileData(dest, ForkJoinPool.commonPool()));
+        })));
+        conversion.finish();
     }
 
     /**
@@ -533,7 +778,7 @@ public abstract class AssetsConverter {
 
         //Get the engine textures file
         try {
-            EngineTexturesFile etFile = new EngineTexturesFile(new File(ConversionUtils.getRealFileName(dungeonKeeperFolder, "DK2TextureCache".concat(File.separator).concat("EngineTextures.dat"))));
+            EngineTexturesFile etFile = new EngineTexturesFile(new File(ConversionUtils.getRealFileName(dungeonKeeperFolder, ENGINE_TEXTURES_FILE)));
             return etFile;
         } catch (IOException e) {
             throw new RuntimeException("Failed to open the EngineTextures file!", e);
@@ -546,17 +791,19 @@ public abstract class AssetsConverter {
      * @param dungeonKeeperFolder DK II main folder
      * @param destination Destination folder
      */
-    private void convertTexts(String dungeonKeeperFolder, String destination) {
+    private void convertTexts(String dungeonKeeperFolder, final String destination) {
         if (!ConvertProcess.INTERFACE_TEXTS.isOutdated()) {
             return;
         }
         logger.log(Level.INFO, "Extracting texts to: {0}", destination);
-        updateStatus(null, null, ConvertProcess.INTERFACE_TEXTS);
+        reportStatus(null, null, ConvertProcess.INTERFACE_TEXTS);
         String dataDirectory = dungeonKeeperFolder.concat(PathUtils.DKII_DATA_FOLDER).concat(File.separator).concat(PathUtils.DKII_TEXT_FOLDER).concat(File.separator).concat(PathUtils.DKII_DEFAULT_FOLDER).concat(File.separator);
 
         //Find all the STR files
+        final ConversionManifest.Conversion conversion = manifest.start(ConvertProcess.INTERFACE_TEXTS);
         final List<File> srtFiles = new ArrayList<>();
         File dataDir = new File(dataDirectory);
+        conversion.addSource(dataDir);
         try {
             Files.walkFileTree(dataDir.toPath(), EnumSet.noneOf(FileVisitOption.class), 1, new SimpleFileVisitor<Path>() {
                 @Override
@@ -565,6 +812,7 @@ public abstract class AssetsConverter {
                     //Get all the STR files
                     if (attrs.isRegularFile() && file.getFileName().toString().toLowerCase().endsWith(".str")) {
                         srtFiles.add(file.toFile());
+                        conversion.addSource(file.toFile());
                     }
 
                     //Always continue
@@ -579,52 +827,73 @@ public abstract class AssetsConverter {
 
         //Convert the STR files to JAVA native resource bundles
         new File(destination).mkdirs(); // Ensure that the folder exists
-        int i = 0;
-        int total = srtFiles.size();
-        CharBuffer codePage = null;
-        for (File file : srtFiles) {
-            updateStatus(i, total, ConvertProcess.INTERFACE_TEXTS);
-            i++;
-
-            // The code page cache makes processing faster
-            StrFile strFile;
-            if (codePage == null) {
-                strFile = new StrFile(file);
-                codePage = strFile.getCodePage();
-            } else {
-                strFile = new StrFile(codePage, file);
+        if (srtFiles.isEmpty()) {
+            conversion.finish();
+            return;
+        }
+
+        // The code page cache makes processing faster, read it from the first file
+        Progress progress = new Progress(ConvertProcess.INTERFACE_TEXTS, srtFiles.size());
+        final File firstFile = srtFiles.get(0);
+        final StrFile firstStrFile = new StrFile(firstFile);
+        final CharBuffer codePage = firstStrFile.getCodePage();
+        join(Collections.singletonList(convertEntries(srtFiles, progress, (File file) -> {
+            String hash = ConversionManifest.hash(file);
+            if (conversion.skip(file.getName(), hash)) {
+                return;
             }
+            StrFile strFile = (file == firstFile ? firstStrFile : new StrFile(codePage.duplicate(), file));
+            conversion.record(file.getName(), hash, Collections.singletonList(writeTexts(strFile, file, destination)));
+        })));
+        conversion.finish();
+    }
 
-            // Write the properties
-            String fileName = file.getName();
-            fileName = fileName.substring(0, fileName.length() - 3);
-            File dictFile = new File(destination.concat(fileName).concat("properties"));
-            try (PrintWriter pw = new PrintWriter(new OutputStreamWriter(new FileOutputStream(dictFile, false), "UTF-8"))) {
-                for (Map.Entry<Integer, String> entry : strFile.getEntriesAsSet()) {
-                    pw.println(entry.getKey() + "=" + entry.getValue());
-                }
-            } catch (IOException ex) {
-                String msg = "Failed to save the dictionary file to " + dictFile + "!";
-                logger.log(Level.SEVERE, msg, ex);
-                throw new RuntimeException(msg, ex);
+    /**
+     * Write the STR file as a properties file
+     *
+     * @param strFile the STR file
+     * @param file the original file
+     * @param destination destination folder
+     * @return the properties file
+     */
+    private static File writeTexts(StrFile strFile, File file, String destination) {
+
+        // Write the properties
+        String fileName = file.getName();
+        fileName = fileName.substring(0, fileName.length() - 3);
+        File dictFile = new File(destination.concat(fileName).concat("properties"));
+        try (PrintWriter pw = new PrintWriter(new OutputStreamWriter(new FileOutputStream(dictFile, false), "UTF-8"))) {
+            for (Map.Entry<Integer, String> entry : strFile.getEntriesAsSet()) {
+                pw.println(entry.getKey() + "=" + entry.getValue());
             }
+            return dictFile;
+        } catch (IOException ex) {
+            String msg = "Failed to save the dictionary file to " + dictFile + "!";
+            logger.log(Level.SEVERE, msg, ex);
+            throw new RuntimeException(msg, ex);
         }
     }
 
     /**
      * Extracts the wad files and updates the progress bar
      *
-     * @param i current entry number
-     * @param total total entry number
+     * @param progress the texture progress
+     * @param conversion the textures conversion
      * @param wad wad file
+     * @param wadName the wad file name, the entries are recorded by it
      * @param destination destination directory
+     * @return the future that completes when all the entries are done
      */
-    private void extractTextureContainer(int i, int total, WadFile wad, String destination) {
-        for (final String entry : wad.getWadFileEntries()) {
-            updateStatus(i, total, ConvertProcess.TEXTURES);
-            i++;
+    private CompletableFuture<Void> extractTextureContainer(Progress progress, final ConversionManifest.Conversion conversion, final WadFile wad, final String wadName, final String destination) {
+        return convertEntries(wad.getWadFileEntries(), progress, (String entry) -> {
+            String key = wadName.concat("/").concat(entry);
+            String hash = wad.readFileData(entry, ConversionManifest::hash);
+            if (conversion.skip(key, hash)) {
+                return;
+            }
 
             // Some of these archives contain .444 files, convert these to PNGs
+            File file;
             if (entry.endsWith(".444")) {
                 LoadingScreenFile lsf = new LoadingScreenFile(wad.getFileData(entry));
                 try {
@@ -632,14 +901,16 @@ public abstract class AssetsConverter {
                     // Simulate the extraction of the WAD entry, do this because of the funny subdir logic
                     File dest = wad.extractFileData(entry, destination, true);
                     String destFilename = dest.getCanonicalPath();
-                    ImageIO.write(lsf.getImage(), "png", new File(destFilename.substring(0, destFilename.length() - 3).concat("png")));
+                    file = new File(destFilename.substring(0, destFilename.length() - 3).concat("png"));
+                    ImageIO.write(lsf.getImage(), "png", file);
                 } catch (IOException ex) {
                     throw new RuntimeException("Failed to save the wad entry " + entry + "!", ex);
                 }
             } else {
-                wad.extractFileData(entry, destination);
+                file = wad.extractFileData(entry, destination);
             }
-        }
+            conversion.record(key, hash, Collections.singletonList(file));
+        });
     }
 
     /**
@@ -648,25 +919,29 @@ public abstract class AssetsConverter {
      * @param dungeonKeeperFolder DK II main folder
      * @param destination Destination folder
      */
-    private void convertPaths(String dungeonKeeperFolder, String destination) {
+    private void convertPaths(String dungeonKeeperFolder, final String destination) {
         if (!ConvertProcess.PATHS.isOutdated()) {
             return;
         }
         logger.log(Level.INFO, "Extracting paths to: {0}", destination);
-        updateStatus(null, null, ConvertProcess.PATHS);
+        reportStatus(null, null, ConvertProcess.PATHS);
 
         //Paths are in the data folder, access the packed file
-        WadFile wad = new WadFile(new File(dungeonKeeperFolder.concat(PathUtils.DKII_DATA_FOLDER).concat(File.separator).concat("Paths.WAD")));
-        int i = 0;
-        int total = wad.getWadFileEntryCount();
-        File tmpdir = new File(System.getProperty("java.io.tmpdir"));
-        BinaryExporter exporter = BinaryExporter.getInstance();
-        for (final String entry : wad.getWadFileEntries()) {
+        final ConversionManifest.Conversion conversion = manifest.start(ConvertProcess.PATHS);
+        File paths = new File(dungeonKeeperFolder.concat(PathUtils.DKII_DATA_FOLDER).concat(File.separator).concat("Paths.WAD"));
+        conversion.addSource(paths);
+        final WadFile wad = new WadFile(paths);
+        final File tmpdir = new File(System.getProperty("java.io.tmpdir"));
+        Progress progress = new Progress(ConvertProcess.PATHS, wad.getWadFileEntryCount());
+        join(Collections.singletonList(convertEntries(wad.getWadFileEntries(), progress, (String entry) -> {
+            String hash = wad.readFileData(entry, ConversionManifest::hash);
+            if (conversion.skip(entry, hash)) {
+                return;
+            }
             try {
-                updateStatus(i, total, ConvertProcess.PATHS);
-                i++;
 
                 // Convert all the KCS entries
+                List<File> files = Collections.emptyList();
                 if (entry.toLowerCase().endsWith(".kcs")) {
 
                     // Extract each file to temp
@@ -696,19 +971,24 @@ public abstract class AssetsConverter {
                     CameraSweepData cameraSweepData = new CameraSweepData(entries);
 
                     // Save it
-                    exporter.save(cameraSweepData, new File(destination.concat(entry.substring(0, entry.length() - 3)).concat(CameraSweepDataLoader.CAMERA_SWEEP_DATA_FILE_EXTENSION)));
+                    BinaryExporter exporter = BinaryExporter.getInstance();
+                    File file = new File(destination.concat(entry.substring(0, entry.length() - 3)).concat(CameraSweepDataLoader.CAMERA_SWEEP_DATA_FILE_EXTENSION));
+                    exporter.save(cameraSweepData, file);
+                    files = Collections.singletonList(file);
                 } else if (entry.toLowerCase().endsWith(".txt")) {
 
                     // The text file is nice to have, it is an info text
-                    wad.extractFileData(entry.toString(), destination);
+                    files = Collections.singletonList(wad.extractFileData(entry.toString(), destination));
                 }
+                conversion.record(entry, hash, files);
 
             } catch (Exception ex) {
                 String msg = "Failed to save the path file to " + destination + "!";
                 logger.log(Level.SEVERE, msg, ex);
                 throw new RuntimeException(msg, ex);
             }
-        }
+        })));
+        conversion.finish();
     }
 
     /**
@@ -721,11 +1001,13 @@ public abstract class AssetsConverter {
             return;
         }
         logger.log(Level.INFO, "Converting hiscores");
-        updateStatus(0, 1, ConvertProcess.HI_SCORES);
+        reportStatus(0, 1, ConvertProcess.HI_SCORES);
         try {
 
             // Load the original
+            ConversionManifest.Conversion conversion = manifest.start(ConvertProcess.HI_SCORES);
             File file = new File(dungeonKeeperFolder + "Data/Settings/HiScores.dat");
+            conversion.addSource(file);
             HiScoresFile originalHiScores = new HiScoresFile(file);
 
             // Convert it!
@@ -733,7 +1015,8 @@ public abstract class AssetsConverter {
             for (HiScoresEntry entry : originalHiScores.getHiScoresEntries()) {
                 hiScores.add(entry.getScore(), entry.getName(), entry.getLevel());
             }
-            updateStatus(1, 1, ConvertProcess.HI_SCORES);
+            conversion.finish();
+            reportStatus(1, 1, ConvertProcess.HI_SCORES);
         } catch (Exception ex) {
             logger.log(Level.WARNING, "Can not convert HiScores!", ex);
 
@@ -752,7 +1035,7 @@ public abstract class AssetsConverter {
             return;
         }
         logger.log(Level.INFO, "Extracting fonts to: {0}", destination);
-        updateStatus(null, null, ConvertProcess.FONTS);
+        reportStatus(null, null, ConvertProcess.FONTS);
 
         try {
 
@@ -760,14 +1043,22 @@ public abstract class AssetsConverter {
             new File(destination).mkdirs();
 
             // Find all the font files
+            final ConversionManifest.Conversion conversion = manifest.start(ConvertProcess.FONTS);
             final List<File> bf4Files = new ArrayList<>();
             Files.walkFileTree(new File(dungeonKeeperFolder.concat(PathUtils.DKII_DATA_FOLDER).concat(File.separator).concat(PathUtils.DKII_TEXT_FOLDER).concat(File.separator).concat(PathUtils.DKII_DEFAULT_FOLDER).concat(File.separator)).toPath(), new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                    conversion.addSource(dir.toFile());
+                    return FileVisitResult.CONTINUE;
+                }
+
                 @Override
                 public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
 
                     //Get all the BF4 files
                     if (attrs.isRegularFile() && file.getFileName().toString().toLowerCase().endsWith(".bf4")) {
                         bf4Files.add(file.toFile());
+                        conversion.addSource(file.toFile());
                     }
 
                     //Always continue
@@ -776,52 +1067,71 @@ public abstract class AssetsConverter {
             });
 
             // Go through the font files
-            int i = 0;
-            int total = bf4Files.size();
-            Pattern pattern = Pattern.compile("FONT_(?<name>\\D+)(?<size>\\d+)", Pattern.CASE_INSENSITIVE);
-            for (File file : bf4Files) {
-                updateStatus(i, total, ConvertProcess.FONTS);
-
-                // The file names
-                final int fontSize;
-
-                final String imageFileName;
-                final String descriptionFileName;
-                Matcher matcher = pattern.matcher(file.getName());
-                boolean found = matcher.find();
-                if (!found) {
-                    logger.log(Level.SEVERE, "Font name {0} not recognized!", file.getName());
-                    throw new RuntimeException("Unknown font name!");
-                } else {
-                    fontSize = Integer.parseInt(matcher.group("size"));
-                    String baseFileName = matcher.group("name");
-                    baseFileName = destination.concat(Character.toUpperCase(baseFileName.charAt(0)) + baseFileName.substring(1).toLowerCase() + fontSize);
-                    imageFileName = baseFileName.concat(".png");
-                    descriptionFileName = baseFileName.concat(".fnt");
+            final Pattern pattern = Pattern.compile("FONT_(?<name>\\D+)(?<size>\\d+)", Pattern.CASE_INSENSITIVE);
+            Progress progress = new Progress(ConvertProcess.FONTS, bf4Files.size());
+            join(Collections.singletonList(convertEntries(bf4Files, progress, (File file) -> {
+                String hash = ConversionManifest.hash(file);
+                if (!conversion.skip(file.getName(), hash)) {
+                    conversion.record(file.getName(), hash, convertFont(file, pattern, destination));
                 }
+            })));
+            conversion.finish();
 
-                // Convert & save the font file
-                FontCreator fc = new FontCreator(new Bf4File(file)) {
-                    @Override
-                    protected int getFontSize() {
-                        return fontSize;
-                    }
+        } catch (Exception ex) {
+            String msg = "Failed to save the font file to " + destination + "!";
+            logger.log(Level.SEVERE, msg, ex);
+            throw new RuntimeException(msg, ex);
+        }
+    }
 
-                    @Override
-                    protected String getFileName() {
-                        return imageFileName.substring(destination.length());
-                    }
-                };
-                ImageIO.write(fc.getFontImage(), "png", new File(imageFileName));
-                try (OutputStreamWriter out = new OutputStreamWriter(new FileOutputStream(descriptionFileName))) {
-                    out.write(fc.getDescription());
+    /**
+     * Convert a single font file
+     *
+     * @param file the BF4 file
+     * @param pattern the font name pattern
+     * @param destination Destination folder
+     * @return the font image and description files
+     */
+    private static List<File> convertFont(File file, Pattern pattern, final String destination) {
+
+        // The file names
+        final int fontSize;
+
+        final String imageFileName;
+        final String descriptionFileName;
+        Matcher matcher = pattern.matcher(file.getName());
+        boolean found = matcher.find();
+        if (!found) {
+            logger.log(Level.SEVERE, "Font name {0} not recognized!", file.getName());
+            throw new RuntimeException("Unknown font name!");
+        } else {
+            fontSize = Integer.parseInt(matcher.group("size"));
+            String baseFileName = matcher.group("name");
+            baseFileName = destination.concat(Character.toUpperCase(baseFileName.charAt(0)) + baseFileName.substring(1).toLowerCase() + fontSize);
+            imageFileName = baseFileName.concat(".png");
+            descriptionFileName = baseFileName.concat(".fnt");
+        }
+
+        // Convert & save the font file
+        try {
+            FontCreator fc = new FontCreator(new Bf4File(file)) {
+                @Override
+                protected int getFontSize() {
+                    return fontSize;
                 }
 
-                i++;
+                @Override
+                protected String getFileName() {
+                    return imageFileName.substring(destination.length());
+                }
+            };
+            ImageIO.write(fc.getFontImage(), "png", new File(imageFileName));
+            try (OutputStreamWriter out = new OutputStreamWriter(new FileOutputStream(descriptionFileName))) {
+                out.write(fc.getDescription());
             }
-
-        } catch (Exception ex) {
-            String msg = "Failed to save the font file to " + destination + "!";
+            return Arrays.asList(new File(imageFileName), new File(descriptionFileName));
+        } catch (IOException ex) {
+            String msg = "Failed to save the font file to " + imageFileName + "!";
             logger.log(Level.SEVERE, msg, ex);
             throw new RuntimeException(msg, ex);
         }
@@ -833,16 +1143,19 @@ public abstract class AssetsConverter {
      * @param dungeonKeeperFolder DK II main folder
      * @param destination Destination folder
      */
-    private void generateMapThumbnails(String dungeonKeeperFolder, String destination) {
+    private void generateMapThumbnails(final String dungeonKeeperFolder, final String destination) {
         if (!ConvertProcess.MAP_THUMBNAILS.isOutdated()) {
             return;
         }
         logger.log(Level.INFO, "Generating map thumbnails to: {0}", destination);
-        updateStatus(null, null, ConvertProcess.MAP_THUMBNAILS);
+        reportStatus(null, null, ConvertProcess.MAP_THUMBNAILS);
         try {
 
             // Get the skirmish/mp maps
+            final ConversionManifest.Conversion conversion = manifest.start(ConvertProcess.MAP_THUMBNAILS);
             File f = new File(dungeonKeeperFolder.concat(AssetsConverter.MAPS_FOLDER));
+            conversion.addSource(f);
+            final File[] mapFiles = f.listFiles();
             File[] files = f.listFiles(new FilenameFilter() {
                 @Override
                 public boolean accept(File dir, String name) {
@@ -850,24 +1163,37 @@ public abstract class AssetsConverter {
                 }
             });
 
-            // Read them
-            List<KwdFile> maps = new ArrayList<>(files.length);
-            for (File file : files) {
+            // Read them & go through the skirmish/mp map files
+            Progress progress = new Progress(ConvertProcess.MAP_THUMBNAILS, files.length);
+            join(Collections.singletonList(convertEntries(Arrays.asList(files), progress, (File file) -> {
+
+                // The level consists of the KWD and the files named after it
+                String level = file.getName().substring(0, file.getName().length() - 4).toLowerCase();
+                List<File> levelFiles = new ArrayList<>();
+                for (File mapFile : mapFiles) {
+                    if (mapFile.getName().toLowerCase().startsWith(level)) {
+                        levelFiles.add(mapFile);
+                        conversion.addSource(mapFile);
+                    }
+                }
+                String hash = ConversionManifest.hash(levelFiles.toArray(new File[levelFiles.size()]));
+                if (conversion.skip(file.getName(), hash)) {
+                    return;
+                }
+
+                List<File> thumbnails = Collections.emptyList();
                 KwdFile kwd = new KwdFile(dungeonKeeperFolder, file, false);
                 if (kwd.getGameLevel().getLvlFlags().contains(LevFlag.IS_SKIRMISH_LEVEL)
                         || kwd.getGameLevel().getLvlFlags().contains(LevFlag.IS_MULTIPLAYER_LEVEL)) {
-                    maps.add(kwd);
+                    try {
+                        thumbnails = Collections.singletonList(genererateMapThumbnail(kwd, destination));
+                    } catch (IOException ex) {
+                        throw new RuntimeException("Failed to save the map thumbnail of " + file + "!", ex);
+                    }
                 }
-            }
-
-            // Go through the map files
-            int i = 0;
-            int total = maps.size();
-            for (KwdFile kwd : maps) {
-                updateStatus(i, total, ConvertProcess.MAP_THUMBNAILS);
-                genererateMapThumbnail(kwd, destination);
-                i++;
-            }
+                conversion.record(file.getName(), hash, thumbnails);
+            })));
+            conversion.finish();
         } catch (Exception ex) {
             String msg = "Failed to process the map thumbnails to " + destination + "!";
             logger.log(Level.WARNING, msg, ex); // Not fatal
@@ -879,13 +1205,16 @@ public abstract class AssetsConverter {
      *
      * @param kwd map file
      * @param destination the folder to save to
+     * @return the thumbnail file
      * @throws IOException may fail
      */
-    public static void genererateMapThumbnail(KwdFile kwd, String destination) throws IOException {
+    public static File genererateMapThumbnail(KwdFile kwd, String destination) throws IOException {
 
         // Create the thumbnail & save it
         // TODO maybe image size in Settings ???
         BufferedImage thumbnail = MapThumbnailGenerator.generateMap(kwd, 144, 144, false);
-        ImageIO.write(thumbnail, "png", new File(destination + ConversionUtils.stripFileName(kwd.getGameLevel().getName()) + ".png"));
+        File file = new File(destination + ConversionUtils.stripFileName(kwd.getGameLevel().getName()) + ".png");
+        ImageIO.write(thumbnail, "png", file);
+        return file;
     }
 }
@@ -0,0 +1,437 @@
+/*
+ * Copyright (C) 2014-2016 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.tools.convert;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import toniarts.openkeeper.tools.convert.AssetsConverter.ConvertProcess;
+
+/**
+ * Keeps track of the converted assets. For every converted source entry the
+ * manifest records the hash of the entry, the version of the conversion
+ * process and the hashes of the files the entry was converted to. So only the
+ * entries that changed, or whose conversion changed, need to be converted
+ * again.<br>
+ * The source files of the processes are fingerprinted by their size and
+ * modification time, to see quickly whether a process needs to be run at all.
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public class ConversionManifest {
+
+    public static final String MANIFEST_FILE = "conversion.manifest";
+    private static final String HASH_ALGORITHM = "SHA-1";
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
+
+    private final Path assetsFolder;
+    private final Map<ConvertProcess, ProcessRecord> processes = new EnumMap<>(ConvertProcess.class);
+    private static final Logger logger = Logger.getLogger(ConversionManifest.class.getName());
+
+    private ConversionManifest(Path assetsFolder) {
+        this.assetsFolder = assetsFolder;
+    }
+
+    /**
+     * Load the manifest of the given assets folder. A missing or broken
+     * manifest is just empty, everything gets converted.
+     *
+     * @param assetsFolder the converted assets folder
+     * @return the manifest
+     */
+    public static ConversionManifest load(String assetsFolder) {
+        ConversionManifest manifest = new ConversionManifest(Paths.get(assetsFolder).toAbsolutePath().normalize());
+        Path file = manifest.assetsFolder.resolve(MANIFEST_FILE);
+        if (!Files.exists(file)) {
+            return manifest;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            manifest.read(reader);
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "Failed to read the conversion manifest " + file + "!", e);
+            manifest.processes.clear();
+        }
+        return manifest;
+    }
+
+    private void read(BufferedReader reader) throws IOException {
+
+        // Every line is a tab separated record, the sources and entries belong to the process above them and the outputs to the entry
+        ProcessRecord process = null;
+        EntryRecord entry = null;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\t");
+            switch (fields[0]) {
+                case "process": {
+                    process = new ProcessRecord(Integer.parseInt(fields[2]));
+                    processes.put(ConvertProcess.valueOf(fields[1]), process);
+                    entry = null;
+                    break;
+                }
+                case "source": {
+                    process.sources.put(fields[1], new SourceFile(fields[1], Long.parseLong(fields[2]), Long.parseLong(fields[3])));
+                    break;
+                }
+                case "entry": {
+                    entry = new EntryRecord(Integer.parseInt(fields[2]), fields[3]);
+                    process.entries.put(fields[1], entry);
+                    break;
+                }
+                case "output": {
+                    entry.outputs.add(new OutputFile(fields[1], Long.parseLong(fields[2]), fields[3]));
+                    break;
+                }
+                default: {
+                    throw new IOException("Unknown record " + fields[0] + "!");
+                }
+            }
+        }
+    }
+
+    /**
+     * Save the manifest. The processes that were not finished keep their old
+     * records.
+     *
+     * @throws IOException if the saving fails
+     */
+    public synchronized void save() throws IOException {
+        Files.createDirectories(assetsFolder);
+        Path file = assetsFolder.resolve(MANIFEST_FILE);
+        Path tmp = assetsFolder.resolve(MANIFEST_FILE.concat(".tmp"));
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8);
+                PrintWriter pw = new PrintWriter(writer)) {
+            pw.println("# OpenKeeper conversion manifest");
+            for (Map.Entry<ConvertProcess, ProcessRecord> process : processes.entrySet()) {
+                pw.println("process\t" + process.getKey().name() + "\t" + process.getValue().version);
+                for (SourceFile source : process.getValue().sources.values()) {
+                    pw.println("source\t" + source.path + "\t" + source.length + "\t" + source.lastModified);
+                }
+                for (Map.Entry<String, EntryRecord> entry : process.getValue().entries.entrySet()) {
+                    pw.println("entry\t" + entry.getKey() + "\t" + entry.getValue().version + "\t" + entry.getValue().sourceHash);
+                    for (OutputFile output : entry.getValue().outputs) {
+                        pw.println("output\t" + output.path + "\t" + output.length + "\t" + output.hash);
+                    }
+                }
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * See if the process has been converted with this manifest
+     *
+     * @param process the process
+     * @return true if the manifest has the process
+     */
+    public synchronized boolean contains(ConvertProcess process) {
+        return processes.containsKey(process);
+    }
+
+    /**
+     * See if the process is converted with the current version, and none of
+     * its source files have changed since
+     *
+     * @param process the process
+     * @return true if the process doesn't need to be run
+     */
+    public synchronized boolean isUpToDate(ConvertProcess process) {
+        ProcessRecord record = processes.get(process);
+        if (record == null || record.version != process.getVersion()) {
+            return false;
+        }
+        for (SourceFile source : record.sources.values()) {
+            if (!source.equals(new SourceFile(new File(source.path)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Start converting a process
+     *
+     * @param process the process
+     * @return the conversion to record the entries to
+     */
+    public synchronized Conversion start(ConvertProcess process) {
+        ProcessRecord previous = processes.get(process);
+        return new Conversion(process, (previous != null ? previous.entries : Collections.<String, EntryRecord>emptyMap()));
+    }
+
+    /**
+     * Hash the given data
+     *
+     * @param data the data, from its position to its limit
+     * @return the hash
+     */
+    public static String hash(ByteBuffer data) {
+        MessageDigest digest = getDigest();
+        digest.update(data.duplicate());
+        return toHex(digest.digest());
+    }
+
+    /**
+     * Hash the given files, as if they were one
+     *
+     * @param files the files
+     * @return the hash
+     */
+    public static String hash(File... files) {
+        MessageDigest digest = getDigest();
+        ByteBuffer buffer = ByteBuffer.allocate(HASH_BUFFER_SIZE);
+        for (File file : files) {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                while (channel.read(buffer) != -1) {
+                    buffer.flip();
+                    digest.update(buffer);
+                    buffer.clear();
+                }
+            } catch (IOException e) {
+
+                //Fug
+                throw new RuntimeException("Failed to read the file " + file + "!", e);
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    private static MessageDigest getDigest() {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+
+            //Fug
+            throw new RuntimeException("No " + HASH_ALGORITHM + " available!", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * A run of a single conversion process. The entries can be recorded from
+     * several threads at once.
+     */
+    public class Conversion {
+
+        private final ConvertProcess process;
+        private final Map<String, EntryRecord> previous;
+        private final Map<String, EntryRecord> entries = new HashMap<>();
+        private final Map<String, SourceFile> sources = new LinkedHashMap<>();
+
+        private Conversion(ConvertProcess process, Map<String, EntryRecord> previous) {
+            this.process = process;
+            this.previous = previous;
+        }
+
+        /**
+         * Add a source file of the process, the process needs to be run again
+         * if a source file changes. Folders can be added too, to notice added
+         * and removed files.
+         *
+         * @param file the source file or folder
+         */
+        public synchronized void addSource(File file) {
+            SourceFile source = new SourceFile(file);
+            sources.put(source.path, source);
+        }
+
+        /**
+         * See if the entry is already converted from the same source data with
+         * the current version, and its converted files are intact. If so, the
+         * entry is kept as is.
+         *
+         * @param entry the entry key, unique within the process
+         * @param sourceHash the hash of the source data
+         * @return true if the entry doesn't need to be converted
+         */
+        public boolean skip(String entry, String sourceHash) {
+            EntryRecord record = previous.get(entry);
+            if (record == null || record.version != process.getVersion() || !record.sourceHash.equals(sourceHash)) {
+                return false;
+            }
+            try {
+                for (OutputFile output : record.outputs) {
+                    File file = assetsFolder.resolve(output.path).toFile();
+                    if (!file.isFile() || file.length() != output.length || !hash(file).equals(output.hash)) {
+                        return false;
+                    }
+                }
+            } catch (RuntimeException e) {
+                return false;
+            }
+            synchronized (this) {
+                entries.put(entry, record);
+            }
+            return true;
+        }
+
+        /**
+         * Record a converted entry
+         *
+         * @param entry the entry key, unique within the process
+         * @param sourceHash the hash of the source data
+         * @param outputs the files the entry was converted to
+         */
+        public void record(String entry, String sourceHash, Collection<File> outputs) {
+            EntryRecord record = new EntryRecord(process.getVersion(), sourceHash);
+            for (File file : outputs) {
+                record.outputs.add(new OutputFile(getOutputPath(file), file.length(), hash(file)));
+            }
+            synchronized (this) {
+                entries.put(entry, record);
+            }
+        }
+
+        private String getOutputPath(File file) {
+            return assetsFolder.relativize(file.toPath().toAbsolutePath().normalize()).toString().replace(File.separatorChar, '/');
+        }
+
+        /**
+         * Finish the process. The files converted from the entries that no
+         * longer exist, or that were converted to different files, are
+         * deleted.
+         */
+        public synchronized void finish() {
+            Set<String> outputs = new HashSet<>();
+            for (EntryRecord record : entries.values()) {
+                for (OutputFile output : record.outputs) {
+                    outputs.add(output.path);
+                }
+            }
+            for (EntryRecord record : previous.values()) {
+                for (OutputFile output : record.outputs) {
+                    if (!outputs.contains(output.path)) {
+                        File file = assetsFolder.resolve(output.path).toFile();
+                        if (file.delete()) {
+                            logger.log(Level.INFO, "Deleted orphaned file {0}", file);
+                        }
+                    }
+                }
+            }
+
+            ProcessRecord record = new ProcessRecord(process.getVersion());
+            record.sources.putAll(sources);
+            record.entries.putAll(entries);
+            synchronized (ConversionManifest.this) {
+                processes.put(process, record);
+            }
+        }
+    }
+
+    private static class ProcessRecord {
+
+        private final int version;
+        private final Map<String, SourceFile> sources = new LinkedHashMap<>();
+        private final Map<String, EntryRecord> entries = new LinkedHashMap<>();
+
+        public ProcessRecord(int version) {
+            this.version = version;
+        }
+    }
+
+    private static class EntryRecord {
+
+        private final int version;
+        private final String sourceHash;
+        private final List<OutputFile> outputs = new ArrayList<>(1);
+
+        public EntryRecord(int version, String sourceHash) {
+            this.version = version;
+            this.sourceHash = sourceHash;
+        }
+    }
+
+    private static class SourceFile {
+
+        private final String path;
+        private final long length;
+        private final long lastModified;
+
+        public SourceFile(File file) {
+            this(file.getAbsolutePath(), (file.isFile() ? file.length() : 0), file.lastModified());
+        }
+
+        public SourceFile(String path, long length, long lastModified) {
+            this.path = path;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof SourceFile)) {
+                return false;
+            }
+            SourceFile other = (SourceFile) obj;
+            return path.equals(other.path) && length == other.length && lastModified == other.lastModified;
+        }
+
+        @Override
+        public int hashCode() {
+            return path.hashCode();
+        }
+    }
+
+    private static class OutputFile {
+
+        private final String path;
+        private final long length;
+        private final String hash;
+
+        public OutputFile(String path, long length, String hash) {
+            this.path = path;
+            this.length = length;
+            this.hash = hash;
+        }
+    }
+
+}
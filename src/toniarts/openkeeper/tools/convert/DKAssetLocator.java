@@ -0,0 +1,617 @@
+/*
+ * Copyright (C) 2014-2016 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.tools.convert;
+
+import com.jme3.asset.AssetInfo;
+import com.jme3.asset.AssetKey;
+import com.jme3.asset.AssetLoadException;
+import com.jme3.asset.AssetLocator;
+import com.jme3.asset.AssetManager;
+import com.jme3.export.binary.BinaryExporter;
+import com.jme3.scene.Node;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import javax.imageio.ImageIO;
+import toniarts.openkeeper.tools.convert.kmf.KmfFile;
+import toniarts.openkeeper.tools.convert.sound.SdtFile;
+import toniarts.openkeeper.tools.convert.textures.enginetextures.EngineTexturesFile;
+import toniarts.openkeeper.tools.convert.textures.loadingscreens.LoadingScreenFile;
+import toniarts.openkeeper.tools.convert.wad.WadFile;
+import toniarts.openkeeper.utils.PathUtils;
+
+/**
+ * Serves the assets straight from the original DK II archives, so that they
+ * don't need to be converted before playing. Textures come from the engine
+ * textures and the texture WADs, models from Meshes.WAD, sounds from the SDT
+ * files and mouse cursors from Sprite.WAD. The assets are decoded when first
+ * asked for, and written to a size limited cache in the background. The
+ * cache is separated by the converter versions and the source archives, so
+ * the assets are converted again when either changes.<br>
+ * Register with the DK II folder as the root path, after the locator of the
+ * converted assets, so that the converted (and user made) assets are
+ * preferred.
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public class DKAssetLocator implements AssetLocator {
+
+    private static final String CACHE_FOLDER = "assets".concat(File.separator).concat("Cache");
+    private static final long MAX_CACHE_SIZE = 1024L * 1024 * 1024;
+    private static final int MAX_PENDING_CACHE_WRITES = 64;
+    private static final String TEXTURES_PREFIX = getPrefix(AssetsConverter.TEXTURES_FOLDER);
+    private static final String MODELS_PREFIX = getPrefix(AssetsConverter.MODELS_FOLDER);
+    private static final String SOUNDS_PREFIX = getPrefix(AssetsConverter.SOUNDS_FOLDER);
+    private static final String MOUSE_CURSORS_PREFIX = getPrefix(AssetsConverter.MOUSE_CURSORS_FOLDER);
+
+    /**
+     * JME creates the locators per thread, so the archives are shared by the
+     * DK II folder
+     */
+    private static final Map<String, Archives> archives = new ConcurrentHashMap<>();
+    private static final Logger logger = Logger.getLogger(DKAssetLocator.class.getName());
+
+    private Archives source;
+
+    @Override
+    public void setRootPath(String rootPath) {
+        source = getArchives(rootPath);
+    }
+
+    @Override
+    public AssetInfo locate(AssetManager manager, AssetKey key) {
+        File cached = source.cache.get(key.getName());
+        if (cached != null) {
+            return new FileAssetInfo(manager, key, cached);
+        }
+
+        byte[] data = source.read(manager, key.getName());
+        if (data == null) {
+            return null;
+        }
+        source.cache.put(key.getName(), data);
+        return new DataAssetInfo(manager, key, data);
+    }
+
+    /**
+     * Open an asset straight from the archives, without an asset manager.
+     * Models can not be opened this way
+     *
+     * @param dkIIFolder the DK II folder
+     * @param assetName the asset name, as in the asset key
+     * @return the asset data, or {@code null} if not found from the archives
+     */
+    public static InputStream openStream(String dkIIFolder, String assetName) {
+        Archives source = getArchives(dkIIFolder);
+        File cached = source.cache.get(assetName);
+        if (cached != null) {
+            try {
+                return new FileInputStream(cached);
+            } catch (FileNotFoundException e) {
+                // Evicted just now, read it from the archives
+            }
+        }
+
+        byte[] data = source.read(null, assetName);
+        if (data == null) {
+            return null;
+        }
+        source.cache.put(assetName, data);
+        return new ByteArrayInputStream(data);
+    }
+
+    private static Archives getArchives(String dkIIFolder) {
+        return archives.computeIfAbsent(PathUtils.fixFilePath(dkIIFolder), Archives::new);
+    }
+
+    private static String getPrefix(String folder) {
+        return getKey(folder).concat("/");
+    }
+
+    /**
+     * Asset names are case insensitive here, as the original file names are
+     *
+     * @param name the asset name or the path
+     * @return the key
+     */
+    private static String getKey(String name) {
+        return name.replace('\\', '/').toLowerCase();
+    }
+
+    private static byte[] toBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * The archives of a DK II installation, the asset indexes are built when a
+     * type of asset is first asked for
+     */
+    private static class Archives {
+
+        private final String dkIIFolder;
+        private final DiskCache cache;
+        private EngineTexturesFile engineTexturesFile;
+        private WadFile meshes;
+        private Map<String, Supplier<byte[]>> textures;
+        private Map<String, String> models;
+        private Map<String, Supplier<byte[]>> sounds;
+        private Map<String, Supplier<byte[]>> mouseCursors;
+
+        public Archives(String dkIIFolder) {
+            this.dkIIFolder = dkIIFolder;
+            this.cache = new DiskCache(new File(AssetsConverter.getCurrentFolder().concat(CACHE_FOLDER)).toPath(), MAX_CACHE_SIZE, getGenerations());
+        }
+
+        /**
+         * Get the cache generations of the asset types. A generation is
+         * identified by the converter version and the size and the
+         * modification time of the source archives
+         *
+         * @return the generations by the asset prefix
+         */
+        private Map<String, String> getGenerations() {
+            File engineTextures = getSourceFile(AssetsConverter.ENGINE_TEXTURES_FILE);
+            List<File> textureSources = new ArrayList<>();
+            textureSources.add(engineTextures);
+            textureSources.add(new File(engineTextures.getPath().substring(0, engineTextures.getPath().length() - 3).concat("dir")));
+            textureSources.add(getSourceFile(PathUtils.DKII_DATA_FOLDER.concat(File.separator).concat("FrontEnd.WAD")));
+            textureSources.add(getSourceFile(PathUtils.DKII_DATA_FOLDER.concat(File.separator).concat("EngineTextures.WAD")));
+
+            // The models have the textures in them
+            List<File> modelSources = new ArrayList<>(textureSources);
+            modelSources.add(getSourceFile(PathUtils.DKII_DATA_FOLDER.concat(File.separator).concat("Meshes.WAD")));
+
+            List<File> soundSources = new ArrayList<>();
+            try {
+                for (Path file : getSdtFiles()) {
+                    soundSources.add(file.toFile());
+                }
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Failed to list the sound files!", e);
+            }
+
+            Map<String, String> generations = new HashMap<>(4);
+            generations.put(TEXTURES_PREFIX, getGeneration(TEXTURES_PREFIX, textureSources, AssetsConverter.ConvertProcess.TEXTURES));
+            generations.put(MODELS_PREFIX, getGeneration(MODELS_PREFIX, modelSources, AssetsConverter.ConvertProcess.TEXTURES, AssetsConverter.ConvertProcess.MODELS));
+            generations.put(SOUNDS_PREFIX, getGeneration(SOUNDS_PREFIX, soundSources, AssetsConverter.ConvertProcess.MUSIC_AND_SOUNDS));
+            generations.put(MOUSE_CURSORS_PREFIX, getGeneration(MOUSE_CURSORS_PREFIX, Arrays.asList(getSourceFile(PathUtils.DKII_DATA_FOLDER.concat(File.separator).concat("Sprite.WAD"))), AssetsConverter.ConvertProcess.MOUSE_CURSORS));
+            return generations;
+        }
+
+        private static String getGeneration(String prefix, List<File> sources, AssetsConverter.ConvertProcess... processes) {
+            StringBuilder sb = new StringBuilder();
+            for (AssetsConverter.ConvertProcess process : processes) {
+                sb.append(process.name()).append(':').append(process.getVersion()).append(';');
+            }
+            for (File source : sources) {
+                sb.append(source.getName()).append(':').append(source.length()).append(':').append(source.lastModified()).append(';');
+            }
+            CRC32 crc = new CRC32();
+            crc.update(sb.toString().getBytes(StandardCharsets.UTF_8));
+            return prefix.substring(0, prefix.length() - 1).concat("-").concat(Long.toHexString(crc.getValue()));
+        }
+
+        private File getSourceFile(String path) {
+            try {
+                return new File(ConversionUtils.getRealFileName(dkIIFolder, path));
+            } catch (IOException e) {
+                return new File(dkIIFolder.concat(path)); // Not there, just fingerprinted as missing
+            }
+        }
+
+        private Path getSoundsFolder() throws IOException {
+            return new File(ConversionUtils.getRealFileName(dkIIFolder, PathUtils.DKII_DATA_FOLDER.concat(File.separator).concat(PathUtils.DKII_SOUND_FOLDER).concat(File.separator).concat(PathUtils.DKII_SFX_FOLDER))).toPath();
+        }
+
+        private List<Path> getSdtFiles() throws IOException {
+            try (Stream<Path> files = Files.walk(getSoundsFolder())) {
+                return files.filter((Path file) -> Files.isRegularFile(file) && file.getFileName().toString().toLowerCase().endsWith(".sdt"))
+                        .sorted()
+                        .collect(Collectors.toList());
+            }
+        }
+
+        /**
+         * Read an asset from the archives
+         *
+         * @param manager the asset manager, needed only for the models
+         * @param name the asset name
+         * @return the asset data, or {@code null} if not found
+         */
+        public byte[] read(AssetManager manager, String name) {
+            String key = getKey(name);
+            try {
+                Supplier<byte[]> asset = null;
+                if (key.startsWith(TEXTURES_PREFIX)) {
+                    asset = getTextures().get(key);
+                } else if (key.startsWith(MODELS_PREFIX) && manager != null) {
+                    String entry = getModels().get(key);
+                    if (entry != null) {
+                        return readModel(manager, entry);
+                    }
+                } else if (key.startsWith(SOUNDS_PREFIX)) {
+                    asset = getSounds().get(key);
+                } else if (key.startsWith(MOUSE_CURSORS_PREFIX)) {
+                    asset = getMouseCursors().get(key);
+                }
+                return (asset != null ? asset.get() : null);
+            } catch (Exception e) {
+                logger.log(Level.WARNING, "Failed to read " + name + " from the DK II archives!", e);
+                return null;
+            }
+        }
+
+        private synchronized EngineTexturesFile getEngineTexturesFile() {
+            if (engineTexturesFile == null) {
+                engineTexturesFile = AssetsConverter.getEngineTexturesFile(dkIIFolder);
+            }
+            return engineTexturesFile;
+        }
+
+        private synchronized Map<String, Supplier<byte[]>> getTextures() throws IOException {
+            if (textures == null) {
+                Map<String, Supplier<byte[]>> index = new HashMap<>();
+
+                // Only the highest quality mipmap level, named without the level, like in the conversion
+                final EngineTexturesFile etFile = getEngineTexturesFile();
+                for (final String textureFile : etFile) {
+                    String name = EngineTexturesFile.getHighestMipMapName(textureFile);
+                    if (name != null) {
+                        index.put(TEXTURES_PREFIX.concat(getKey(name)).concat(".png"), () -> {
+                            return etFile.getFileData(textureFile).toByteArray();
+                        });
+                    }
+                }
+
+                // The texture WADs, the loading screens are converted to PNGs
+                for (String wadName : new String[]{"FrontEnd.WAD", "EngineTextures.WAD"}) {
+                    final WadFile wad = new WadFile(new File(ConversionUtils.getRealFileName(dkIIFolder, PathUtils.DKII_DATA_FOLDER.concat(File.separator).concat(wadName))));
+                    for (final String entry : wad.getWadFileEntries()) {
+                        String path = getKey(wad.getFilePath(entry));
+                        if (path.endsWith(".444")) {
+                            index.put(TEXTURES_PREFIX.concat(path.substring(0, path.length() - 3)).concat("png"), () -> {
+                                LoadingScreenFile lsf = new LoadingScreenFile(wad.getFileData(entry));
+                                ByteArrayOutputStream result = new ByteArrayOutputStream();
+                                try {
+                                    ImageIO.write(lsf.getImage(), "png", result);
+                                } catch (IOException e) {
+                                    throw new RuntimeException("Failed to convert the WAD entry " + entry + "!", e);
+                                }
+                                return result.toByteArray();
+                            });
+                        } else {
+                            index.put(TEXTURES_PREFIX.concat(path), () -> {
+                                return toBytes(wad.getFileBuffer(entry));
+                            });
+                        }
+                    }
+                }
+                textures = index;
+            }
+            return textures;
+        }
+
+        private synchronized Map<String, String> getModels() {
+            if (models == null) {
+                meshes = new WadFile(getSourceFile(PathUtils.DKII_DATA_FOLDER.concat(File.separator).concat("Meshes.WAD")));
+                Map<String, String> index = new HashMap<>(meshes.getWadFileEntryCount());
+                for (String entry : meshes.getWadFileEntries()) {
+                    index.put(MODELS_PREFIX.concat(getKey(entry.substring(0, entry.length() - 4))).concat(".j3o"), entry);
+                }
+                models = index;
+            }
+            return models;
+        }
+
+        /**
+         * Convert a model to J3O, the materials are embedded in the model
+         * instead of writing them to files
+         *
+         * @param manager the asset manager, to find the textures and the
+         * linked models of the groups
+         * @param entry the WAD entry
+         * @return the J3O data
+         */
+        private byte[] readModel(AssetManager manager, String entry) throws IOException {
+            KmfFile kmfFile = meshes.readFileData(entry, KmfFile::new);
+            KmfAssetInfo ai = new KmfAssetInfo(manager, new AssetKey(entry), kmfFile, getEngineTexturesFile(), false);
+            Node node = (Node) new KmfModelLoader().load(ai);
+
+            ByteArrayOutputStream result = new ByteArrayOutputStream();
+            BinaryExporter.getInstance().save(node, result);
+            return result.toByteArray();
+        }
+
+        private synchronized Map<String, Supplier<byte[]>> getSounds() throws IOException {
+            if (sounds == null) {
+                Map<String, Supplier<byte[]>> index = new HashMap<>();
+
+                // The folder structure under the sound effects folder is kept, like in the conversion
+                Path soundsDir = getSoundsFolder();
+                for (Path file : getSdtFiles()) {
+                    final SdtFile sdt = new SdtFile(file.toFile());
+                    String folder = getKey(soundsDir.relativize(file.getParent()).toString());
+                    if (!folder.isEmpty()) {
+                        folder = folder.concat("/");
+                    }
+                    for (final String entry : sdt.getFileNamesList()) {
+                        index.put(SOUNDS_PREFIX.concat(folder).concat(getKey(entry)), () -> {
+                            return sdt.getFileData(entry).toByteArray();
+                        });
+                    }
+                }
+                sounds = index;
+            }
+            return sounds;
+        }
+
+        private synchronized Map<String, Supplier<byte[]>> getMouseCursors() {
+            if (mouseCursors == null) {
+                Map<String, Supplier<byte[]>> index = new HashMap<>();
+                final WadFile wad = new WadFile(getSourceFile(PathUtils.DKII_DATA_FOLDER.concat(File.separator).concat("Sprite.WAD")));
+                for (final String entry : wad.getWadFileEntries()) {
+                    if (!entry.toLowerCase().endsWith(".spr")) {
+                        index.put(MOUSE_CURSORS_PREFIX.concat(getKey(wad.getFilePath(entry))), () -> {
+                            return toBytes(wad.getFileBuffer(entry));
+                        });
+                    }
+                }
+                mouseCursors = index;
+            }
+            return mouseCursors;
+        }
+    }
+
+    /**
+     * The decoded assets on disk. The files are written in the background,
+     * and once the cache grows over its size, the least recently used files
+     * are removed. If the writes pile up, the extra ones are dropped, those
+     * assets are just decoded again the next time.<br>
+     * The assets are stored under their generation folder, the outdated
+     * generations are removed.
+     */
+    private static class DiskCache {
+
+        private final Path folder;
+        private final long maxSize;
+        private final Map<String, String> generations;
+        private final Map<String, Long> sizes = new ConcurrentHashMap<>();
+        private final AtomicLong size = new AtomicLong();
+        private final ExecutorService writer;
+
+        public DiskCache(Path folder, long maxSize, Map<String, String> generations) {
+            this.folder = folder;
+            this.maxSize = maxSize;
+            this.generations = generations;
+            writer = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(MAX_PENDING_CACHE_WRITES), (Runnable r) -> {
+                Thread thread = new Thread(r, "DKAssetLocator-Cache");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.DiscardPolicy());
+
+            // See what we already have, the writes are queued after this
+            writer.execute(this::scan);
+        }
+
+        /**
+         * Get a cached asset
+         *
+         * @param name the asset name
+         * @return the file, or {@code null} if not cached
+         */
+        public File get(String name) {
+            String key = getCacheKey(name);
+            if (key == null) {
+                return null;
+            }
+            File file = folder.resolve(key).toFile();
+            if (!file.isFile()) {
+                return null;
+            }
+            file.setLastModified(System.currentTimeMillis());
+            return file;
+        }
+
+        /**
+         * Cache an asset, the file is written in the background
+         *
+         * @param name the asset name
+         * @param data the asset data
+         */
+        public void put(String name, final byte[] data) {
+            final String key = getCacheKey(name);
+            if (key == null) {
+                return;
+            }
+            writer.execute(() -> {
+                try {
+                    Path file = folder.resolve(key);
+                    Files.createDirectories(file.getParent());
+                    Path tmp = Files.createTempFile(file.getParent(), null, ".tmp");
+                    Files.write(tmp, data);
+                    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    Long previous = sizes.put(key, (long) data.length);
+                    size.addAndGet(data.length - (previous != null ? previous : 0));
+                    if (size.get() > maxSize) {
+                        evict();
+                    }
+                } catch (IOException e) {
+                    logger.log(Level.WARNING, "Failed to cache " + key + "!", e);
+                }
+            });
+        }
+
+        /**
+         * Get the path of the asset in the cache
+         *
+         * @param name the asset name
+         * @return the relative path, or {@code null} if the asset is not
+         * cached
+         */
+        private String getCacheKey(String name) {
+            String key = getKey(name);
+            for (Map.Entry<String, String> generation : generations.entrySet()) {
+                if (key.startsWith(generation.getKey())) {
+                    return generation.getValue().concat("/").concat(key);
+                }
+            }
+            return null;
+        }
+
+        private void scan() {
+            if (!Files.isDirectory(folder)) {
+                return;
+            }
+
+            // Remove the outdated generations
+            try (Stream<Path> files = Files.list(folder)) {
+                for (Path file : files.collect(Collectors.toList())) {
+                    if (!generations.containsValue(file.getFileName().toString())) {
+                        delete(file);
+                    }
+                }
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Failed to remove the outdated assets from the cache!", e);
+            }
+
+            try (Stream<Path> files = Files.walk(folder)) {
+                files.filter(Files::isRegularFile).forEach((Path file) -> {
+                    try {
+                        if (file.getFileName().toString().endsWith(".tmp")) {
+                            Files.delete(file); // Left over from a crash
+                        } else {
+                            long fileSize = Files.size(file);
+                            sizes.put(getKey(folder.relativize(file).toString()), fileSize);
+                            size.addAndGet(fileSize);
+                        }
+                    } catch (IOException e) {
+                        logger.log(Level.WARNING, "Failed to scan the cached file " + file + "!", e);
+                    }
+                });
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Failed to scan the asset cache!", e);
+            }
+        }
+
+        private void delete(Path path) throws IOException {
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> files = Files.list(path)) {
+                    for (Path file : files.collect(Collectors.toList())) {
+                        delete(file);
+                    }
+                }
+            }
+            Files.delete(path);
+        }
+
+        /**
+         * Remove the least recently used files, until there is some room
+         */
+        private void evict() {
+            List<File> files = new ArrayList<>(sizes.size());
+            for (String key : sizes.keySet()) {
+                files.add(folder.resolve(key).toFile());
+            }
+            Map<File, Long> lastUsed = new HashMap<>(files.size());
+            for (File file : files) {
+                lastUsed.put(file, file.lastModified());
+            }
+            files.sort((File f1, File f2) -> Long.compare(lastUsed.get(f1), lastUsed.get(f2)));
+
+            long target = maxSize * 3 / 4;
+            for (File file : files) {
+                if (size.get() <= target) {
+                    break;
+                }
+                if (file.delete() || !file.exists()) {
+                    Long fileSize = sizes.remove(getKey(folder.relativize(file.toPath()).toString()));
+                    if (fileSize != null) {
+                        size.addAndGet(-fileSize);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Asset from the cache
+     */
+    private static class FileAssetInfo extends AssetInfo {
+
+        private final File file;
+
+        public FileAssetInfo(AssetManager manager, AssetKey key, File file) {
+            super(manager, key);
+            this.file = file;
+        }
+
+        @Override
+        public InputStream openStream() {
+            try {
+                return new FileInputStream(file);
+            } catch (FileNotFoundException e) {
+                throw new AssetLoadException("Failed to open the cached file " + file + "!", e);
+            }
+        }
+    }
+
+    /**
+     * Asset decoded in memory
+     */
+    private static class DataAssetInfo extends AssetInfo {
+
+        private final byte[] data;
+
+        public DataAssetInfo(AssetManager manager, AssetKey key, byte[] data) {
+            super(manager, key);
+            this.data = data;
+        }
+
+        @Override
+        public InputStream openStream() {
+            return new ByteArrayInputStream(data);
+        }
+    }
+}
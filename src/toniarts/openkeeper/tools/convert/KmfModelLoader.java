@@ -17,16 +17,21 @@
 package toniarts.openkeeper.tools.convert;
 
 import com.jme3.animation.AnimControl;
+import com.jme3.animation.Track;
 import com.jme3.asset.AssetInfo;
 import com.jme3.asset.AssetKey;
 import com.jme3.asset.AssetLoader;
 import com.jme3.asset.MaterialKey;
 import com.jme3.asset.ModelKey;
 import com.jme3.asset.TextureKey;
+import com.jme3.bounding.BoundingBox;
+import com.jme3.material.MatParam;
+import com.jme3.material.MatParamOverride;
 import com.jme3.material.Material;
 import com.jme3.material.RenderState;
 import com.jme3.material.plugin.export.material.J3MExporter;
 import com.jme3.math.ColorRGBA;
+import com.jme3.math.FastMath;
 import com.jme3.math.Vector2f;
 import com.jme3.math.Vector3f;
 import com.jme3.renderer.queue.RenderQueue;
@@ -37,26 +42,34 @@ import com.jme3.scene.Node;
 import com.jme3.scene.VertexBuffer;
 import com.jme3.scene.VertexBuffer.Type;
 import com.jme3.scene.control.LodControl;
+import com.jme3.shader.VarType;
+import com.jme3.texture.Image;
 import com.jme3.texture.Texture;
+import com.jme3.texture.Texture2D;
+import com.jme3.texture.image.ColorSpace;
 import com.jme3.util.BufferUtils;
-import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import toniarts.openkeeper.animation.MorphTrack;
 import toniarts.openkeeper.animation.Pose;
 import toniarts.openkeeper.animation.PoseTrack;
 import toniarts.openkeeper.animation.PoseTrack.PoseFrame;
-import static toniarts.openkeeper.tools.convert.KmfModelLoader.inputStreamToFile;
+import static toniarts.openkeeper.tools.convert.KmfModelLoader.inputStreamToBuffer;
 import toniarts.openkeeper.tools.convert.kmf.Anim;
 import toniarts.openkeeper.tools.convert.kmf.AnimSprite;
 import toniarts.openkeeper.tools.convert.kmf.AnimVertex;
@@ -101,10 +114,23 @@ public class KmfModelLoader implements AssetLoader {
      * material possibilities
      */
     public static final String MATERIAL_ALTERNATIVE_TEXTURES_COUNT = "AlternativeTextureCount";
+    /**
+     * The diffuse textures of the alternative materials, when the materials
+     * are embedded in the model and there are no material files to load
+     */
+    public static final String MATERIAL_ALTERNATIVE_TEXTURES = "AlternativeTextures";
     public static final String FRAME_FACTOR_FUNCTION = "FrameFactorFunction";
+    /**
+     * The material definition of the models, the animated models are morphed
+     * on the GPU with it
+     */
+    public static final String MATERIAL_DEFINITION = "MatDefs/LightingMorph.j3md";
+    /* Maximum width & height of the baked animation frames */
+    private static final int MORPH_MAP_MAX_SIZE = 2048;
     private static final Logger logger = Logger.getLogger(KmfModelLoader.class.getName());
     /* Already saved materials are stored here */
-    private static final HashMap<toniarts.openkeeper.tools.convert.kmf.Material, String> materialCache = new HashMap<>();
+    private static final Map<toniarts.openkeeper.tools.convert.kmf.Material, String> materialCache = new ConcurrentHashMap<>();
+    private static final Map<toniarts.openkeeper.tools.convert.kmf.Material, Object> materialLocks = new ConcurrentHashMap<>();
 
     public static void main(final String[] args) throws IOException {
 
@@ -153,7 +179,7 @@ public class KmfModelLoader implements AssetLoader {
             engineTextureFile = ((KmfAssetInfo) assetInfo).getEngineTexturesFile();
             generateMaterialFile = ((KmfAssetInfo) assetInfo).isGenerateMaterialFile();
         } else {
-            kmfFile = new KmfFile(inputStreamToFile(assetInfo.openStream(), assetInfo.getKey().getName()));
+            kmfFile = new KmfFile(inputStreamToBuffer(assetInfo.openStream()));
         }
 
         //Create a root
@@ -198,30 +224,24 @@ public class KmfModelLoader implements AssetLoader {
     }
 
     /**
-     * Converts input stream to a file by writing it to a temp file (yeah...)
+     * Reads the whole input stream to a buffer
      *
      * @param is the InputStream
-     * @param prefix temp file prefix
-     * @return random access file
+     * @return the stream contents
      * @throws IOException
      */
-    public static File inputStreamToFile(InputStream is, String prefix) throws IOException {
-        File tempFile = File.createTempFile(prefix, "kmf");
-        tempFile.deleteOnExit();
-
-        //Write the file
-        try (BufferedOutputStream output = new BufferedOutputStream(new FileOutputStream(tempFile))) {
+    public static ByteBuffer inputStreamToBuffer(InputStream is) throws IOException {
+        try (ByteArrayOutputStream output = new ByteArrayOutputStream()) {
 
-            //Write in blocks
+            //Read in blocks
             byte[] buffer = new byte[2048];
             int tmp;
 
             while ((tmp = is.read(buffer)) != -1) {
                 output.write(buffer, 0, tmp);
             }
+            return ByteBuffer.wrap(output.toByteArray());
         }
-
-        return tempFile;
     }
 
     /**
@@ -302,8 +322,8 @@ public class KmfModelLoader implements AssetLoader {
         node.setUserData(FRAME_FACTOR_FUNCTION, anim.getFrameFactorFunction().name());
         node.setLocalTranslation(new Vector3f(anim.getPos().x, -anim.getPos().z, anim.getPos().y));
 
-        // Create pose tracks for each mesh index
-        List<PoseTrack> poseTracks = new ArrayList<>(anim.getSprites().size());
+        // Create tracks for each mesh index
+        List<Track> tracks = new ArrayList<>(anim.getSprites().size());
 
         // Create times (same for each pose track)
         float[] times = new float[anim.getFrames()];
@@ -491,25 +511,52 @@ public class KmfModelLoader implements AssetLoader {
                 frameList.add(f);
             }
 
-            // Create a pose track for this mesh
-            PoseTrack poseTrack = new PoseTrack(index, times, frameList.toArray(new PoseFrame[frameList.size()]));
-            poseTracks.add(poseTrack);
+            PoseFrame[] poseFrames = frameList.toArray(new PoseFrame[frameList.size()]);
 
             // Create lod levels
             VertexBuffer[] lodLevels = createIndices(animSprite.getTriangles());
 
             //Set the buffers
             mesh.setBuffer(Type.Position, 3, BufferUtils.createFloatBuffer(vertices));
-            mesh.setBuffer(Type.BindPosePosition, 3, BufferUtils.createFloatBuffer(vertices));
             mesh.setBuffer(lodLevels[0]);
             mesh.setLodLevels(lodLevels);
             mesh.setBuffer(Type.TexCoord, 2, BufferUtils.createFloatBuffer(texCoord));
             mesh.setBuffer(Type.Normal, 3, BufferUtils.createFloatBuffer(normals));
-            mesh.setBuffer(Type.BindPoseNormal, 3, BufferUtils.createFloatBuffer(normals));
-            mesh.setStreamed();
+
+            // Bake the frames for the GPU, the mesh stays static
+            // Only if the frames fit to a texture, otherwise the poses are applied to the mesh
+            Vector3f[][] framePositions = bakeFrames(vertices, poseFrames);
+            Texture morphMap = createMorphMap(framePositions);
+            if (morphMap != null) {
+
+                // The vertex index is needed to find the vertex from the frames
+                float[] vertexIndices = new float[vertices.length];
+                for (int k = 0; k < vertexIndices.length; k++) {
+                    vertexIndices[k] = k;
+                }
+                mesh.setBuffer(Type.TexCoord3, 1, BufferUtils.createFloatBuffer(vertexIndices));
+                mesh.setStatic();
+
+                tracks.add(new MorphTrack(index, times[0], 1 / 30f, anim.getFrames()));
+            } else {
+                mesh.setBuffer(Type.BindPosePosition, 3, BufferUtils.createFloatBuffer(vertices));
+                mesh.setBuffer(Type.BindPoseNormal, 3, BufferUtils.createFloatBuffer(normals));
+                mesh.setStreamed();
+
+                tracks.add(new PoseTrack(index, times, poseFrames));
+            }
 
             // Create geometry
             Geometry geom = createGeometry(index, anim.getName(), mesh, materials, animSprite.getMaterialIndex());
+            if (morphMap != null) {
+                Image image = morphMap.getImage();
+                geom.addMatParamOverride(new MatParamOverride(VarType.Texture2D, MorphTrack.MORPH_MAP, morphMap));
+                geom.addMatParamOverride(new MatParamOverride(VarType.Vector2, MorphTrack.MORPH_MAP_SIZE, new Vector2f(image.getWidth(), image.getHeight())));
+                geom.addMatParamOverride(new MatParamOverride(VarType.Int, MorphTrack.MORPH_VERTEX_COUNT, vertices.length));
+
+                // The bounds must hold every frame, the mesh itself is just the first frame
+                geom.setModelBound(createBound(framePositions));
+            }
 
             //Attach the geometry to the node
             node.attachChild(geom);
@@ -518,7 +565,7 @@ public class KmfModelLoader implements AssetLoader {
 
         // Create the animation itself and attach the animation
         com.jme3.animation.Animation animation = new com.jme3.animation.Animation("anim", (anim.getFrames() - 1) / 30f);
-        animation.setTracks(poseTracks.toArray(new PoseTrack[poseTracks.size()]));
+        animation.setTracks(tracks.toArray(new Track[tracks.size()]));
         AnimControl control = new AnimControl();
         control.addAnim(animation);
         node.addControl(control);
@@ -527,6 +574,106 @@ public class KmfModelLoader implements AssetLoader {
         root.attachChild(node);
     }
 
+    /**
+     * Applies the pose frames to the bind pose, like the pose track does
+     *
+     * @param bindPose the bind pose vertices
+     * @param poseFrames the pose frames
+     * @return vertex positions of each frame
+     */
+    private Vector3f[][] bakeFrames(Vector3f[] bindPose, PoseFrame[] poseFrames) {
+        Vector3f[][] framePositions = new Vector3f[poseFrames.length][];
+        for (int frame = 0; frame < poseFrames.length; frame++) {
+            Vector3f[] positions = new Vector3f[bindPose.length];
+            for (int i = 0; i < bindPose.length; i++) {
+                positions[i] = bindPose[i].clone();
+            }
+
+            // Poses come in pairs of two [startPose] + [endPose], weight tells us how close we are to the end
+            Pose[] poses = poseFrames[frame].getPoses();
+            float[] weights = poseFrames[frame].getWeights();
+            for (int i = 0; i < poses.length / 2; i++) {
+                Pose startPose = poses[i * 2];
+                Pose endPose = poses[i * 2 + 1];
+                if (startPose == null || endPose == null) {
+                    continue;
+                }
+                int[] indices = startPose.getIndices();
+                float[] startOffsets = startPose.getOffsets();
+                float[] endOffsets = endPose.getOffsets();
+                for (int k = 0; k < indices.length; k++) {
+                    int o = k * 3;
+                    positions[indices[k]].set((endOffsets[o] - startOffsets[o]) * weights[i] + startOffsets[o],
+                            (endOffsets[o + 1] - startOffsets[o + 1]) * weights[i] + startOffsets[o + 1],
+                            (endOffsets[o + 2] - startOffsets[o + 2]) * weights[i] + startOffsets[o + 2]);
+                }
+            }
+            framePositions[frame] = positions;
+        }
+        return framePositions;
+    }
+
+    /**
+     * Creates a float texture of the frame vertex positions, vertex after
+     * vertex and frame after frame. The last frame is repeated so that the
+     * shader can always blend to the next frame.
+     *
+     * @param framePositions vertex positions of each frame
+     * @return the morph map, or {@code null} if the frames don't fit to a
+     * texture
+     */
+    private Texture createMorphMap(Vector3f[][] framePositions) {
+        if (framePositions.length == 0 || framePositions[0].length == 0) {
+            return null;
+        }
+
+        // The width is a power of two so that the shader can locate the texels exactly
+        int texels = (framePositions.length + 1) * framePositions[0].length;
+        int width = Math.min(FastMath.nearestPowerOfTwo(texels), MORPH_MAP_MAX_SIZE);
+        int height = (texels + width - 1) / width;
+        if (height > MORPH_MAP_MAX_SIZE) {
+            logger.log(Level.WARNING, "Animation frames don't fit to a morph map, {0} texels!", texels);
+            return null;
+        }
+
+        FloatBuffer data = BufferUtils.createFloatBuffer(width * height * 3);
+        for (Vector3f[] positions : framePositions) {
+            for (Vector3f position : positions) {
+                data.put(position.x).put(position.y).put(position.z);
+            }
+        }
+        for (Vector3f position : framePositions[framePositions.length - 1]) {
+            data.put(position.x).put(position.y).put(position.z);
+        }
+        data.clear();
+
+        ByteBuffer buffer = BufferUtils.createByteBuffer(data.capacity() * 4);
+        buffer.asFloatBuffer().put(data);
+        Texture2D texture = new Texture2D(new Image(Image.Format.RGB32F, width, height, buffer, ColorSpace.Linear));
+        texture.setMinFilter(Texture.MinFilter.NearestNoMipMaps);
+        texture.setMagFilter(Texture.MagFilter.Nearest);
+        texture.setWrap(Texture.WrapMode.EdgeClamp);
+        return texture;
+    }
+
+    /**
+     * Creates a bounding box that holds the vertices of every frame
+     *
+     * @param framePositions vertex positions of each frame
+     * @return the bounds
+     */
+    private BoundingBox createBound(Vector3f[][] framePositions) {
+        Vector3f min = new Vector3f(Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY);
+        Vector3f max = new Vector3f(Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY);
+        for (Vector3f[] positions : framePositions) {
+            for (Vector3f position : positions) {
+                min.minLocal(position);
+                max.maxLocal(position);
+            }
+        }
+        return new BoundingBox(min, max);
+    }
+
     private VertexBuffer[] createIndices(final HashMap<Integer, List<Triangle>> trianglesMap) {
 
         // Triangles are not in order, sometimes they are very random, many missing etc.
@@ -597,6 +744,15 @@ public class KmfModelLoader implements AssetLoader {
         // If we have multiple materials to choose from, tag them to the geometry
         if (materials.get(materialIndex).size() > 1) {
             geom.setUserData(MATERIAL_ALTERNATIVE_TEXTURES_COUNT, materials.get(materialIndex).size());
+
+            // Embedded materials can't be loaded by the name, so list the textures
+            if (geom.getMaterial().getAssetName() == null) {
+                ArrayList<String> textures = new ArrayList<>(materials.get(materialIndex).size());
+                for (Material material : materials.get(materialIndex)) {
+                    textures.add(((Texture) material.getParam("DiffuseMap").getValue()).getKey().getName());
+                }
+                geom.setUserData(MATERIAL_ALTERNATIVE_TEXTURES, textures);
+            }
         }
 
         // Update bounds
@@ -655,154 +811,184 @@ public class KmfModelLoader implements AssetLoader {
         HashMap<Integer, List<Material>> materials = new HashMap(kmfFile.getMaterials().size());
         int i = 0;
         for (toniarts.openkeeper.tools.convert.kmf.Material mat : kmfFile.getMaterials()) {
-            Material material = null;
+            // The same material is shared by many models, generate it only once even if converting several models at once
+            synchronized (getMaterialLock(mat)) {
+                Material material = null;
 
-            // Get the texture, the first one
-            // There is a list of possible alternative textures
-            String texture = mat.getTextures().get(0);
-            if (textureFixes.containsKey(texture)) {
+                // Get the texture, the first one
+                // There is a list of possible alternative textures
+                String texture = mat.getTextures().get(0);
+                if (textureFixes.containsKey(texture)) {
 
-                //Fix the texture entry
-                texture = textureFixes.get(texture);
-            }
+                    //Fix the texture entry
+                    texture = textureFixes.get(texture);
+                }
 
-            // See if the material is found already on the cache
-            String materialLocation = null;
-            String materialKey = null;
-            String fileName;
-            if (generateMaterialFile) {
-                materialKey = materialCache.get(mat);
-                if (materialKey != null) {
-                    material = assetInfo.getManager().loadMaterial(materialKey);
-                    setMaterialFlags(material, engineTextureFile, texture);
-                    List<Material> materialList = new ArrayList<>(mat.getTextures().size());
-                    materialList.add(material);
-
-                    // If we have multiple textures, we can just fake them, we just need the count really
-                    if (mat.getTextures().size() > 1) {
-                        materialList.add(material); // Fake it
-                    }
+                // See if the material is found already on the cache
+                String materialLocation = null;
+                String materialKey = null;
+                String fileName;
+                if (generateMaterialFile) {
+                    materialKey = materialCache.get(mat);
+                    if (materialKey != null) {
+                        material = assetInfo.getManager().loadMaterial(materialKey);
+                        setMaterialFlags(material, engineTextureFile, texture);
+                        List<Material> materialList = new ArrayList<>(mat.getTextures().size());
+                        materialList.add(material);
 
-                    materials.put(i, materialList);
-                    i++;
-                    continue;
-                } else {
+                        // If we have multiple textures, we can just fake them, we just need the count really
+                        if (mat.getTextures().size() > 1) {
+                            materialList.add(material); // Fake it
+                        }
 
-                    // Ok, it it not in the cache yet, but maybe it has been already generated, so use it and update the defaults in it
-                    fileName = ConversionUtils.stripFileName(mat.getName());
+                        materials.put(i, materialList);
+                        i++;
+                        continue;
+                    } else {
 
-                    // If there are multiple texture options, add a suffix to the material file name
-                    if (mat.getTextures().size() > 1) {
-                        fileName = fileName.concat(MATERIAL_ALTERNATIVE_TEXTURE_SUFFIX_SEPARATOR).concat("0");
-                    }
+                        // Ok, it it not in the cache yet, but maybe it has been already generated, so use it and update the defaults in it
+                        fileName = ConversionUtils.stripFileName(mat.getName());
+
+                        // If there are multiple texture options, add a suffix to the material file name
+                        if (mat.getTextures().size() > 1) {
+                            fileName = fileName.concat(MATERIAL_ALTERNATIVE_TEXTURE_SUFFIX_SEPARATOR).concat("0");
+                        }
 
-                    materialKey = AssetsConverter.MATERIALS_FOLDER.concat("/").concat(fileName).concat(".j3m");
-                    materialLocation = AssetsConverter.getAssetsFolder().concat(AssetsConverter.MATERIALS_FOLDER.concat(File.separator).concat(fileName).concat(".j3m"));
+                        materialKey = AssetsConverter.MATERIALS_FOLDER.concat("/").concat(fileName).concat(".j3m");
+                        materialLocation = AssetsConverter.getAssetsFolder().concat(AssetsConverter.MATERIALS_FOLDER.concat(File.separator).concat(fileName).concat(".j3m"));
 
-                    // See if it exists
-                    File file = new File(materialLocation).getCanonicalFile();
-                    if (file.exists()) {
-                        if (!file.getName().equals(fileName.concat(".j3m"))) {
+                        // See if it exists
+                        File file = new File(materialLocation).getCanonicalFile();
+                        if (file.exists()) {
+                            if (!file.getName().equals(fileName.concat(".j3m"))) {
 
-                            // Case sensitivity issue
-                            materialKey = AssetsConverter.MATERIALS_FOLDER.concat("/").concat(file.getName());
-                            materialLocation = AssetsConverter.getAssetsFolder().concat(AssetsConverter.MATERIALS_FOLDER.concat(File.separator).concat(file.getName()));
+                                // Case sensitivity issue
+                                materialKey = AssetsConverter.MATERIALS_FOLDER.concat("/").concat(file.getName());
+                                materialLocation = AssetsConverter.getAssetsFolder().concat(AssetsConverter.MATERIALS_FOLDER.concat(File.separator).concat(file.getName()));
+                            }
+                            material = assetInfo.getManager().loadMaterial(materialKey);
+
+                            // Materials from the earlier conversions may have another definition
+                            if (!MATERIAL_DEFINITION.equals(material.getMaterialDef().getAssetName())) {
+                                material = changeMaterialDefinition(material, assetInfo);
+                            }
                         }
-                        material = assetInfo.getManager().loadMaterial(materialKey);
                     }
                 }
-            }
 
-            // Create the material
-            if (material == null) {
-                material = new Material(assetInfo.getManager(), "Common/MatDefs/Light/Lighting.j3md");
-            }
+                // Create the material
+                if (material == null) {
+                    material = new Material(assetInfo.getManager(), MATERIAL_DEFINITION);
+                }
 
-            //Load up the texture and create the material
-            Texture tex = loadTexture(texture, assetInfo);
-            material.setTexture("DiffuseMap", tex);
-            material.setColor("Specular", ColorRGBA.Orange); // Dungeons are lit only with fire...? Experimental
-            material.setColor("Diffuse", ColorRGBA.White); // Experimental
-            material.setFloat("Shininess", 128 * mat.getBrightness()); // Use the brightness as shininess... Experimental
-
-            // Set some flags
-            setMaterialFlags(material, engineTextureFile, texture);
-
-            // If we have an instance of engine texture file, check the alpha
-            if (engineTextureFile != null) {
-                String textureEntry = texture.concat("MM0");
-                EngineTextureEntry engineTextureEntry = engineTextureFile.getEntry(textureEntry);
-                if (engineTextureEntry != null && engineTextureEntry.isAlphaFlag()) {
-                    material.setFloat("AlphaDiscardThreshold", 0.1f);
-                    material.getAdditionalRenderState().setBlendMode(RenderState.BlendMode.Alpha);
-
-                    // There are some hints on the rendering on the texture names (ie. #add#FalloffMM0)
-                    if (textureEntry.toLowerCase().contains("#add#")) {
-                        material.getAdditionalRenderState().setDepthWrite(false);
-                        material.getAdditionalRenderState().setBlendMode(RenderState.BlendMode.AlphaAdditive);
-                    }
-                    logger.log(Level.INFO, "Texture entry {0} has alpha!", textureEntry);
-                } else if (engineTextureEntry == null) {
+                //Load up the texture and create the material
+                Texture tex = loadTexture(texture, assetInfo);
+                material.setTexture("DiffuseMap", tex);
+                material.setColor("Specular", ColorRGBA.Orange); // Dungeons are lit only with fire...? Experimental
+                material.setColor("Diffuse", ColorRGBA.White); // Experimental
+                material.setFloat("Shininess", 128 * mat.getBrightness()); // Use the brightness as shininess... Experimental
+
+                // Set some flags
+                setMaterialFlags(material, engineTextureFile, texture);
+
+                // If we have an instance of engine texture file, check the alpha
+                if (engineTextureFile != null) {
+                    String textureEntry = texture.concat("MM0");
+                    EngineTextureEntry engineTextureEntry = engineTextureFile.getEntry(textureEntry);
+                    if (engineTextureEntry != null && engineTextureEntry.isAlphaFlag()) {
+                        material.setFloat("AlphaDiscardThreshold", 0.1f);
+                        material.getAdditionalRenderState().setBlendMode(RenderState.BlendMode.Alpha);
+
+                        // There are some hints on the rendering on the texture names (ie. #add#FalloffMM0)
+                        if (textureEntry.toLowerCase().contains("#add#")) {
+                            material.getAdditionalRenderState().setDepthWrite(false);
+                            material.getAdditionalRenderState().setBlendMode(RenderState.BlendMode.AlphaAdditive);
+                        }
+                        logger.log(Level.INFO, "Texture entry {0} has alpha!", textureEntry);
+                    } else if (engineTextureEntry == null) {
 
-                    // Just log
-                    logger.log(Level.WARNING, "Texture entry {0} not found from the engine textures!", textureEntry);
+                        // Just log
+                        logger.log(Level.WARNING, "Texture entry {0} not found from the engine textures!", textureEntry);
+                    }
                 }
-            }
 
-            // Add material to list and create the possible alternatives
-            List<Material> materialList = new ArrayList<>(mat.getTextures().size());
-            materialList.add(material);
-            for (int k = 1; k < mat.getTextures().size(); k++) {
+                // Add material to list and create the possible alternatives
+                List<Material> materialList = new ArrayList<>(mat.getTextures().size());
+                materialList.add(material);
+                for (int k = 1; k < mat.getTextures().size(); k++) {
 
-                // Get the texture
-                String alternativeTexture = mat.getTextures().get(k);
-                if (textureFixes.containsKey(alternativeTexture)) {
+                    // Get the texture
+                    String alternativeTexture = mat.getTextures().get(k);
+                    if (textureFixes.containsKey(alternativeTexture)) {
 
-                    //Fix the texture entry
-                    alternativeTexture = textureFixes.get(alternativeTexture);
-                }
-                Texture alternativeTex = loadTexture(alternativeTexture, assetInfo);
+                        //Fix the texture entry
+                        alternativeTexture = textureFixes.get(alternativeTexture);
+                    }
+                    Texture alternativeTex = loadTexture(alternativeTexture, assetInfo);
 
-                // Clone the original material, set texture and add to list
-                Material alternativeMaterial = material.clone();
-                alternativeMaterial.setTexture("DiffuseMap", alternativeTex);
-                materialList.add(alternativeMaterial);
-            }
+                    // Clone the original material, set texture and add to list
+                    Material alternativeMaterial = material.clone();
+                    alternativeMaterial.setTexture("DiffuseMap", alternativeTex);
+                    materialList.add(alternativeMaterial);
+                }
 
-            // See if we should save the materials
-            if (generateMaterialFile) {
-                for (int k = 0; k < materialList.size(); k++) {
+                // See if we should save the materials
+                if (generateMaterialFile) {
+                    for (int k = 0; k < materialList.size(); k++) {
 
-                    Material m = materialList.get(k);
+                        Material m = materialList.get(k);
 
-                    // If there are multiple textures / material options, alter the key and location
-                    if (materialList.size() > 1) {
-                        materialKey = materialKey.substring(0, materialKey.lastIndexOf(MATERIAL_ALTERNATIVE_TEXTURE_SUFFIX_SEPARATOR) + 1).concat(k + "").concat(materialKey.substring(materialKey.lastIndexOf(".")));
-                        materialLocation = materialLocation.substring(0, materialLocation.lastIndexOf(MATERIAL_ALTERNATIVE_TEXTURE_SUFFIX_SEPARATOR) + 1).concat(k + "").concat(materialLocation.substring(materialLocation.lastIndexOf(".")));
-                    }
+                        // If there are multiple textures / material options, alter the key and location
+                        if (materialList.size() > 1) {
+                            materialKey = materialKey.substring(0, materialKey.lastIndexOf(MATERIAL_ALTERNATIVE_TEXTURE_SUFFIX_SEPARATOR) + 1).concat(k + "").concat(materialKey.substring(materialKey.lastIndexOf(".")));
+                            materialLocation = materialLocation.substring(0, materialLocation.lastIndexOf(MATERIAL_ALTERNATIVE_TEXTURE_SUFFIX_SEPARATOR) + 1).concat(k + "").concat(materialLocation.substring(materialLocation.lastIndexOf(".")));
+                        }
 
-                    // Set the material so that it realizes that it is a J3M file
-                    m.setName(mat.getName());
-                    m.setKey(new MaterialKey(materialKey));
+                        // Set the material so that it realizes that it is a J3M file
+                        m.setName(mat.getName());
+                        m.setKey(new MaterialKey(materialKey));
 
-                    // Save
-                    File materialFile = new File(materialLocation);
-                    J3MExporter exporter = new J3MExporter();
-                    exporter.save(m, materialFile);
+                        // Save
+                        File materialFile = new File(materialLocation);
+                        J3MExporter exporter = new J3MExporter();
+                        exporter.save(m, materialFile);
 
-                    // Put the first one to the cache
-                    if (k == 0) {
-                        materialCache.put(mat, materialKey);
+                        // Put the first one to the cache
+                        if (k == 0) {
+                            materialCache.put(mat, materialKey);
+                        }
                     }
                 }
-            }
 
-            materials.put(i, materialList);
-            i++;
+                materials.put(i, materialList);
+                i++;
+            }
         }
         return materials;
     }
 
+    /**
+     * Copies the material to the model material definition
+     *
+     * @param material the material
+     * @param assetInfo the asset info
+     * @return the material with the model material definition
+     */
+    private static Material changeMaterialDefinition(Material material, AssetInfo assetInfo) {
+        Material result = new Material(assetInfo.getManager(), MATERIAL_DEFINITION);
+        for (MatParam param : material.getParams()) {
+            if (result.getMaterialDef().getMaterialParam(param.getName()) != null) {
+                result.setParam(param.getName(), param.getVarType(), param.getValue());
+            }
+        }
+        result.getAdditionalRenderState().set(material.getAdditionalRenderState());
+        return result;
+    }
+
+    private static Object getMaterialLock(toniarts.openkeeper.tools.convert.kmf.Material mat) {
+        return materialLocks.computeIfAbsent(mat, (toniarts.openkeeper.tools.convert.kmf.Material k) -> new Object());
+    }
+
     /**
      * Loads a JME texture of the texture name
      *
@@ -0,0 +1,359 @@
+/*
+ * Copyright (C) 2014-2016 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.tools.convert;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reads the LITTLE ENDIAN values of the original game files. Works like the
+ * RandomAccessFile, but the whole file is read to memory at once (or mapped if
+ * the file is large), so reading a field doesn't cost a system call.<br>
+ * Not thread safe, but the underlying data can be shared by creating readers
+ * for the same buffer.
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public class ResourceReader implements AutoCloseable {
+
+    /**
+     * Files larger than this are mapped to memory instead of reading them
+     */
+    private static final long MAP_THRESHOLD = 4 * 1024 * 1024;
+
+    private final ByteBuffer buffer;
+    private static final Logger logger = Logger.getLogger(ResourceReader.class.getName());
+
+    /**
+     * Opens a file for reading
+     *
+     * @param file the file
+     * @throws IOException if the file can not be read
+     */
+    public ResourceReader(File file) throws IOException {
+        this(readFile(file));
+    }
+
+    /**
+     * Opens a file for reading
+     *
+     * @param fileName the file name
+     * @throws IOException if the file can not be read
+     */
+    public ResourceReader(String fileName) throws IOException {
+        this(new File(fileName));
+    }
+
+    /**
+     * Reads from the given buffer, from its current position to its limit. The
+     * buffer itself is not altered.
+     *
+     * @param buffer the data
+     */
+    public ResourceReader(ByteBuffer buffer) {
+        this.buffer = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static ByteBuffer readFile(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > MAP_THRESHOLD) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+
+            ByteBuffer result = ByteBuffer.allocate((int) size);
+            while (result.hasRemaining() && channel.read(result) != -1) {
+                // Read until full
+            }
+            result.flip();
+            return result;
+        }
+    }
+
+    /**
+     * Reads 4 bytes and converts it to JAVA int from LITTLE ENDIAN int
+     *
+     * @return JAVA native int
+     */
+    public int readInteger() {
+        return buffer.getInt();
+    }
+
+    /**
+     * Reads 4 bytes and converts it to JAVA int from LITTLE ENDIAN unsigned int
+     *
+     * @return JAVA native int
+     * @see #readUnsignedIntegerAsLong()
+     */
+    public int readUnsignedInteger() {
+        int result = buffer.getInt();
+        if (result < 0) {
+
+            // Yes, this should be long, however, in our purpose this might be sufficient as int
+            // Safety measure
+            logger.warning("This unsigned integer doesn't fit to JAVA integer! Use a different method!");
+        }
+        return result;
+    }
+
+    /**
+     * Reads 4 bytes and converts it to JAVA int from LITTLE ENDIAN unsigned
+     * int<br>
+     * This method returns long, which means the value is sure to fit
+     *
+     * @return JAVA native long
+     */
+    public long readUnsignedIntegerAsLong() {
+        return buffer.getInt() & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Reads 2 bytes and converts it to JAVA short from LITTLE ENDIAN signed
+     * short
+     *
+     * @return JAVA native short
+     */
+    public short readShort() {
+        return buffer.getShort();
+    }
+
+    /**
+     * Reads 2 bytes and converts it to JAVA short from LITTLE ENDIAN unsigned
+     * short (needs to be int in JAVA)
+     *
+     * @return JAVA native int
+     */
+    public int readUnsignedShort() {
+        return buffer.getShort() & 0xFFFF;
+    }
+
+    /**
+     * Reads a signed byte
+     *
+     * @return the byte
+     */
+    public byte readByte() {
+        return buffer.get();
+    }
+
+    /**
+     * Reads an unsigned byte
+     *
+     * @return the byte (needs to be int in JAVA)
+     */
+    public int readUnsignedByte() {
+        return buffer.get() & 0xFF;
+    }
+
+    /**
+     * Reads 4 bytes and converts it to JAVA float from LITTLE ENDIAN float
+     *
+     * @return JAVA native float
+     */
+    public float readFloat() {
+        return buffer.getFloat();
+    }
+
+    /**
+     * Reads bytes and converts them to a string
+     *
+     * @param length string length
+     * @return fresh String
+     */
+    public String readString(int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return ConversionUtils.toString(bytes);
+    }
+
+    /**
+     * Reads bytes and converts them to a string, the string is assumed UTF16
+     * (wide strings in C), LITTLE ENDIAN
+     *
+     * @param length string length
+     * @return fresh String
+     */
+    public String readStringUtf16(int length) {
+        byte[] bytes = new byte[length * 2];
+        buffer.get(bytes);
+        return ConversionUtils.toStringUtf16(bytes);
+    }
+
+    /**
+     * Reads string of varying length (ASCII NULL terminated)
+     *
+     * @param length bytes to read
+     * @return string read
+     */
+    public String readVaryingLengthString(int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        int end = 0;
+        while (end < bytes.length && bytes[end] != 0) {
+            end++;
+        }
+        return ConversionUtils.toString(Arrays.copyOf(bytes, end));
+    }
+
+    /**
+     * Reads strings of varying length (UTF16 NULL terminated)
+     *
+     * @param length max length of string
+     * @return string read
+     */
+    public String readVaryingLengthStringUtf16(int length) {
+        byte[] bytes = new byte[length * 2];
+        buffer.get(bytes);
+        int end = 0;
+        while (end < bytes.length && (bytes[end] != 0 || bytes[end + 1] != 0)) {
+            end += 2;
+        }
+        return ConversionUtils.toStringUtf16(Arrays.copyOf(bytes, end));
+    }
+
+    /**
+     * Reads strings of varying length (ASCII NULL terminated)
+     *
+     * @param numberOfStrings number of Strings to read
+     * @return list of strings read
+     */
+    public List<String> readVaryingLengthStrings(int numberOfStrings) {
+        List<String> strings = new ArrayList<>(numberOfStrings);
+
+        for (int i = 0; i < numberOfStrings; i++) {
+
+            // Find the 0 byte and read up to it
+            int start = buffer.position();
+            int end = start;
+            while (buffer.get(end) != 0) {
+                end++;
+            }
+            byte[] bytes = new byte[end - start];
+            buffer.get(bytes);
+            buffer.get(); // The 0
+            strings.add(ConversionUtils.toString(bytes));
+        }
+        return strings;
+    }
+
+    /**
+     * Reads a DK2 style timestamp
+     *
+     * @return the date in current locale
+     */
+    public Date readTimestamp() {
+
+        // Dates are in UTC
+        Calendar cal = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        cal.set(Calendar.YEAR, readUnsignedShort());
+        cal.set(Calendar.DAY_OF_MONTH, readUnsignedByte());
+        cal.set(Calendar.MONTH, readUnsignedByte());
+        skipBytes(2);
+        cal.set(Calendar.HOUR_OF_DAY, readUnsignedByte());
+        cal.set(Calendar.MINUTE, readUnsignedByte());
+        cal.set(Calendar.SECOND, readUnsignedByte());
+        skipBytes(1);
+        return cal.getTime();
+    }
+
+    @Deprecated
+    public void checkNull(int size) {
+        for (int i = 0; i < size; i++) {
+            byte b = buffer.get();
+            if (b != 0) {
+                logger.log(Level.WARNING, "Value not 0! Was {0}!", b);
+            }
+        }
+    }
+
+    /**
+     * Reads bytes to the given array, as many as there are left
+     *
+     * @param bytes the array to fill
+     * @return the number of bytes read, -1 if at the end
+     */
+    public int read(byte[] bytes) {
+        if (!buffer.hasRemaining()) {
+            return -1;
+        }
+        int count = Math.min(bytes.length, buffer.remaining());
+        buffer.get(bytes, 0, count);
+        return count;
+    }
+
+    /**
+     * Reads exactly the given amount of bytes to the array
+     *
+     * @param bytes the array to fill
+     * @throws BufferUnderflowException if there are not enough bytes
+     */
+    public void readFully(byte[] bytes) {
+        buffer.get(bytes);
+    }
+
+    /**
+     * Get a view to the next bytes without copying them, and skip over them
+     *
+     * @param length the amount of bytes
+     * @return the bytes, in LITTLE ENDIAN order
+     */
+    public ByteBuffer readBuffer(int length) {
+        ByteBuffer result = buffer.slice();
+        result.limit(length);
+        skipBytes(length);
+        return result.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public void skipBytes(int count) {
+        buffer.position(buffer.position() + count);
+    }
+
+    public void seek(long position) {
+        buffer.position((int) position);
+    }
+
+    public long getFilePointer() {
+        return buffer.position();
+    }
+
+    public long length() {
+        return buffer.limit();
+    }
+
+    public boolean hasRemaining() {
+        return buffer.hasRemaining();
+    }
+
+    @Override
+    public void close() {
+        // Nothing to close, the file was closed after reading / mapping
+    }
+
+}
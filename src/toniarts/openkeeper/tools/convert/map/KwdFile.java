@@ -19,7 +19,6 @@ package toniarts.openkeeper.tools.convert.map;
 import java.awt.Color;
 import java.io.File;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -33,6 +32,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.vecmath.Vector3f;
 import toniarts.openkeeper.tools.convert.ConversionUtils;
+import toniarts.openkeeper.tools.convert.ResourceReader;
 import toniarts.openkeeper.tools.convert.map.ArtResource.Animation;
 import toniarts.openkeeper.tools.convert.map.ArtResource.Image;
 import toniarts.openkeeper.tools.convert.map.ArtResource.Mesh;
@@ -154,7 +154,7 @@ public final class KwdFile {
         } else {
 
             // We need map width & height if not loaded fully, I couldn't figure out where, except the map data
-            try (RandomAccessFile data = new RandomAccessFile(ConversionUtils.getRealFileName(basePath, gameLevel.getFile(MAP)), "r")) {
+            try (ResourceReader data = new ResourceReader(ConversionUtils.getRealFileName(basePath, gameLevel.getFile(MAP)))) {
                 KwdHeader header = readKwdHeader(data);
                 map = new Map(header.getWidth(), header.getHeight());
             } catch (Exception e) {
@@ -165,8 +165,22 @@ public final class KwdFile {
         }
     }
 
+    /**
+     * Constructs a level from data generated in code, i.e. for benchmarks.
+     * Only the map and the terrain catalog are available
+     *
+     * @param map the map
+     * @param terrainTiles the terrains by their IDs
+     */
+    public KwdFile(Map map, java.util.Map<Short, Terrain> terrainTiles) {
+        this.basePath = null;
+        this.map = map;
+        this.terrainTiles = terrainTiles;
+        this.loaded = true;
+    }
+
     private void readFileContents(File file) throws IOException {
-        try (RandomAccessFile data = new RandomAccessFile(file, "r")) {
+        try (ResourceReader data = new ResourceReader(file)) {
             while (data.getFilePointer() < data.length()) {
 
                 // Read header (and put the file pointer to the data start)
@@ -227,51 +241,51 @@ public final class KwdFile {
      * @return the header
      * @throws IOException may fail reading
      */
-    private KwdHeader readKwdHeader(RandomAccessFile data) throws IOException {
+    private KwdHeader readKwdHeader(ResourceReader data) throws IOException {
 
         KwdHeader header = new KwdHeader();
-        header.setId(ConversionUtils.parseEnum(ConversionUtils.readUnsignedInteger(data), MapDataTypeEnum.class));
-        int size = ConversionUtils.readUnsignedInteger(data); // Bytes in the real size indicator, well seems to be 4 always
+        header.setId(ConversionUtils.parseEnum(data.readUnsignedInteger(), MapDataTypeEnum.class));
+        int size = data.readUnsignedInteger(); // Bytes in the real size indicator, well seems to be 4 always
         if (size == 2) {
-            header.setSize(ConversionUtils.readUnsignedShort(data));
+            header.setSize(data.readUnsignedShort());
         } else if (size == 4) {
-            header.setSize(ConversionUtils.readUnsignedInteger(data));
+            header.setSize(data.readUnsignedInteger());
         }
-        header.setCheckOne(ConversionUtils.readUnsignedInteger(data));
-        header.setHeaderEndOffset(ConversionUtils.readUnsignedInteger(data));
+        header.setCheckOne(data.readUnsignedInteger());
+        header.setHeaderEndOffset(data.readUnsignedInteger());
         //Mark the position
         long offset = data.getFilePointer();
 
         switch (header.getId()) {
             case MAP:
                 header.setHeaderSize(36);
-                header.setWidth(ConversionUtils.readUnsignedInteger(data));
-                header.setHeight(ConversionUtils.readUnsignedInteger(data));
+                header.setWidth(data.readUnsignedInteger());
+                header.setHeight(data.readUnsignedInteger());
                 break;
 
             case TRIGGERS:
                 header.setHeaderSize(60);
-                header.setItemCount(ConversionUtils.readUnsignedInteger(data) + ConversionUtils.readUnsignedInteger(data));
-                header.setUnknown(ConversionUtils.readUnsignedInteger(data));
+                header.setItemCount(data.readUnsignedInteger() + data.readUnsignedInteger());
+                header.setUnknown(data.readUnsignedInteger());
 
-                header.setDateCreated(ConversionUtils.readTimestamp(data));
-                header.setDateModified(ConversionUtils.readTimestamp(data));
+                header.setDateCreated(data.readTimestamp());
+                header.setDateModified(data.readTimestamp());
                 break;
 
             case LEVEL:
-                header.setItemCount(ConversionUtils.readUnsignedShort(data));
-                header.setHeight(ConversionUtils.readUnsignedShort(data));
-                header.setUnknown(ConversionUtils.readUnsignedInteger(data));
+                header.setItemCount(data.readUnsignedShort());
+                header.setHeight(data.readUnsignedShort());
+                header.setUnknown(data.readUnsignedInteger());
 
-                header.setDateCreated(ConversionUtils.readTimestamp(data));
-                header.setDateModified(ConversionUtils.readTimestamp(data));
+                header.setDateCreated(data.readTimestamp());
+                header.setDateModified(data.readTimestamp());
                 break;
             default:
-                header.setItemCount(ConversionUtils.readUnsignedInteger(data));
-                header.setUnknown(ConversionUtils.readUnsignedInteger(data));
+                header.setItemCount(data.readUnsignedInteger());
+                header.setUnknown(data.readUnsignedInteger());
 
-                header.setDateCreated(ConversionUtils.readTimestamp(data));
-                header.setDateModified(ConversionUtils.readTimestamp(data));
+                header.setDateCreated(data.readTimestamp());
+                header.setDateModified(data.readTimestamp());
                 break;
         }
 
@@ -279,13 +293,13 @@ public final class KwdFile {
             logger.warning("Incorrect parsing of file header");
         }
         //header.setHeaderSize(28 + header.getHeaderEndOffset());
-        header.setCheckTwo(ConversionUtils.readUnsignedInteger(data));
-        header.setDataSize(ConversionUtils.readUnsignedInteger(data));
+        header.setCheckTwo(data.readUnsignedInteger());
+        header.setDataSize(data.readUnsignedInteger());
 
         return header;
     }
 
-    private void readFileContents(KwdHeader header, RandomAccessFile data) throws IOException {
+    private void readFileContents(KwdHeader header, ResourceReader data) throws IOException {
         // Handle all the cases (we kinda skip the globals with this logic, so no need)
         // All readers must read the whole data they intend to read
         switch (header.getId()) {
@@ -389,7 +403,7 @@ public final class KwdFile {
      * @param file the file data, rewind to data position
      * @throws IOException the reading may fail
      */
-    private void readMap(KwdHeader header, RandomAccessFile file) throws IOException {
+    private void readMap(KwdHeader header, ResourceReader file) throws IOException {
 
         // Read the requested MAP file
         logger.info("Reading map!");
@@ -415,7 +429,7 @@ public final class KwdFile {
      * @param file the file data, rewind to data position
      * @throws IOException the reading may fail
      */
-    private void readPlayers(KwdHeader header, RandomAccessFile file) throws IOException {
+    private void readPlayers(KwdHeader header, ResourceReader file) throws IOException {
 
         // Read the requested PLAYER file
         if (players == null) {
@@ -428,8 +442,8 @@ public final class KwdFile {
         for (int playerIndex = 0; playerIndex < header.getItemCount(); playerIndex++) {
             long offset = file.getFilePointer();
             Player player = new Player();
-            player.setStartingGold(ConversionUtils.readInteger(file));
-            player.setAi(ConversionUtils.readInteger(file) == 1);
+            player.setStartingGold(file.readInteger());
+            player.setAi(file.readInteger() == 1);
 
             AI ai = new AI();
             ai.setAiType(ConversionUtils.parseEnum((short) file.readUnsignedByte(), AI.AIType.class));
@@ -442,9 +456,9 @@ public final class KwdFile {
                 unknown1[i] = (short) file.readUnsignedByte();
             }
             ai.setUnknown1(unknown1);
-            ai.setCreateEmptyAreasWhenIdle(ConversionUtils.readInteger(file) == 1);
-            ai.setBuildBiggerLairAfterClaimingPortal(ConversionUtils.readInteger(file) == 1);
-            ai.setSellCapturedRoomsIfLowOnGold(ConversionUtils.readInteger(file) == 1);
+            ai.setCreateEmptyAreasWhenIdle(file.readInteger() == 1);
+            ai.setBuildBiggerLairAfterClaimingPortal(file.readInteger() == 1);
+            ai.setSellCapturedRoomsIfLowOnGold(file.readInteger() == 1);
             ai.setMinTimeBeforePlacingResearchedRoom((short) file.readUnsignedByte());
             ai.setDefaultSize((short) file.readUnsignedByte());
             ai.setTilesLeftBetweenRooms((short) file.readUnsignedByte());
@@ -461,44 +475,44 @@ public final class KwdFile {
             ai.setBuildOrder(buildOrder);
             ai.setFlexibility((short) file.readUnsignedByte());
             ai.setDigToNeutralRoomsWithinTilesOfClaimedArea((short) file.readUnsignedByte());
-            ai.setRemoveCallToArmsAfterSeconds(ConversionUtils.readUnsignedShort(file));
-            ai.setBoulderTrapsOnLongCorridors(ConversionUtils.readInteger(file) == 1);
-            ai.setBoulderTrapsOnRouteToBreachPoints(ConversionUtils.readInteger(file) == 1);
+            ai.setRemoveCallToArmsAfterSeconds(file.readUnsignedShort());
+            ai.setBoulderTrapsOnLongCorridors(file.readInteger() == 1);
+            ai.setBoulderTrapsOnRouteToBreachPoints(file.readInteger() == 1);
             ai.setTrapUseStyle((short) file.readUnsignedByte());
             ai.setDoorTrapPreference((short) file.readUnsignedByte());
             ai.setDoorUsage(ConversionUtils.parseEnum((short) file.readUnsignedByte(), AI.DoorUsagePolicy.class));
             ai.setChanceOfLookingToUseTrapsAndDoors((short) file.readUnsignedByte());
-            ai.setRequireMinLevelForCreatures(ConversionUtils.readInteger(file) == 1);
-            ai.setRequireTotalThreatGreaterThanTheEnemy(ConversionUtils.readInteger(file) == 1);
-            ai.setRequireAllRoomTypesPlaced(ConversionUtils.readInteger(file) == 1);
-            ai.setRequireAllKeeperSpellsResearched(ConversionUtils.readInteger(file) == 1);
-            ai.setOnlyAttackAttackers(ConversionUtils.readInteger(file) == 1);
-            ai.setNeverAttack(ConversionUtils.readInteger(file) == 1);
+            ai.setRequireMinLevelForCreatures(file.readInteger() == 1);
+            ai.setRequireTotalThreatGreaterThanTheEnemy(file.readInteger() == 1);
+            ai.setRequireAllRoomTypesPlaced(file.readInteger() == 1);
+            ai.setRequireAllKeeperSpellsResearched(file.readInteger() == 1);
+            ai.setOnlyAttackAttackers(file.readInteger() == 1);
+            ai.setNeverAttack(file.readInteger() == 1);
             ai.setMinLevelForCreatures((short) file.readUnsignedByte());
             ai.setTotalThreatGreaterThanTheEnemy((short) file.readUnsignedByte());
             ai.setFirstAttemptToBreachRoom(ConversionUtils.parseEnum((short) file.readUnsignedByte(), AI.BreachRoomPolicy.class));
             ai.setFirstDigToEnemyPoint(ConversionUtils.parseEnum((short) file.readUnsignedByte(), AI.DigToPolicy.class));
             ai.setBreachAtPointsSimultaneously((short) file.readUnsignedByte());
             ai.setUsePercentageOfTotalCreaturesInFirstFightAfterBreach((short) file.readUnsignedByte());
-            ai.setManaValue(ConversionUtils.readUnsignedShort(file));
-            ai.setPlaceCallToArmsWhereThreatValueIsGreaterThan(ConversionUtils.readUnsignedShort(file));
+            ai.setManaValue(file.readUnsignedShort());
+            ai.setPlaceCallToArmsWhereThreatValueIsGreaterThan(file.readUnsignedShort());
             ai.setRemoveCallToArmsIfLessThanEnemyCreatures((short) file.readUnsignedByte());
             ai.setRemoveCallToArmsIfLessThanEnemyCreaturesWithinTiles((short) file.readUnsignedByte());
-            ai.setPullCreaturesFromFightIfOutnumberedAndUnableToDropReinforcements(ConversionUtils.readInteger(file) == 1);
+            ai.setPullCreaturesFromFightIfOutnumberedAndUnableToDropReinforcements(file.readInteger() == 1);
             ai.setThreatValueOfDroppedCreaturesIsPercentageOfEnemyThreatValue((short) file.readUnsignedByte());
             ai.setSpellStyle((short) file.readUnsignedByte());
             ai.setAttemptToImprisonPercentageOfEnemyCreatures((short) file.readUnsignedByte());
             ai.setIfCreatureHealthIsPercentageAndNotInOwnRoomMoveToLairOrTemple((short) file.readUnsignedByte());
-            ai.setGoldValue(ConversionUtils.readUnsignedShort(file));
-            ai.setTryToMakeUnhappyOnesHappy(ConversionUtils.readInteger(file) == 1);
-            ai.setTryToMakeAngryOnesHappy(ConversionUtils.readInteger(file) == 1);
-            ai.setDisposeOfAngryCreatures(ConversionUtils.readInteger(file) == 1);
-            ai.setDisposeOfRubbishCreaturesIfBetterOnesComeAlong(ConversionUtils.readInteger(file) == 1);
+            ai.setGoldValue(file.readUnsignedShort());
+            ai.setTryToMakeUnhappyOnesHappy(file.readInteger() == 1);
+            ai.setTryToMakeAngryOnesHappy(file.readInteger() == 1);
+            ai.setDisposeOfAngryCreatures(file.readInteger() == 1);
+            ai.setDisposeOfRubbishCreaturesIfBetterOnesComeAlong(file.readInteger() == 1);
             ai.setDisposalMethod(ConversionUtils.parseEnum((short) file.readUnsignedByte(), AI.CreatureDisposalPolicy.class));
             ai.setMaximumNumberOfImps((short) file.readUnsignedByte());
             ai.setWillNotSlapCreatures((short) file.readUnsignedByte() == 0);
             ai.setAttackWhenNumberOfCreaturesIsAtLeast((short) file.readUnsignedByte());
-            ai.setUseLightningIfEnemyIsInWater(ConversionUtils.readInteger(file) == 1);
+            ai.setUseLightningIfEnemyIsInWater(file.readInteger() == 1);
             ai.setUseSightOfEvil(ConversionUtils.parseEnum((short) file.readUnsignedByte(), AI.SightOfEvilUsagePolicy.class));
             ai.setUseSpellsInBattle((short) file.readUnsignedByte());
             ai.setSpellsPowerPreference((short) file.readUnsignedByte());
@@ -508,15 +522,15 @@ public final class KwdFile {
                 unknown2[i] = (short) file.readUnsignedByte();
             }
             ai.setUnknown2(unknown2);
-            ai.setMineGoldUntilGoldHeldIsGreaterThan(ConversionUtils.readUnsignedShort(file));
-            ai.setWaitSecondsAfterPreviousAttackBeforeAttackingAgain(ConversionUtils.readUnsignedShort(file));
-            ai.setStartingMana(ConversionUtils.readUnsignedInteger(file));
-            ai.setExploreUpToTilesToFindSpecials(ConversionUtils.readUnsignedShort(file));
-            ai.setImpsToTilesRatio(ConversionUtils.readUnsignedShort(file));
-            ai.setBuildAreaStartX(ConversionUtils.readUnsignedShort(file));
-            ai.setBuildAreaStartY(ConversionUtils.readUnsignedShort(file));
-            ai.setBuildAreaEndX(ConversionUtils.readUnsignedShort(file));
-            ai.setBuildAreaEndY(ConversionUtils.readUnsignedShort(file));
+            ai.setMineGoldUntilGoldHeldIsGreaterThan(file.readUnsignedShort());
+            ai.setWaitSecondsAfterPreviousAttackBeforeAttackingAgain(file.readUnsignedShort());
+            ai.setStartingMana(file.readUnsignedInteger());
+            ai.setExploreUpToTilesToFindSpecials(file.readUnsignedShort());
+            ai.setImpsToTilesRatio(file.readUnsignedShort());
+            ai.setBuildAreaStartX(file.readUnsignedShort());
+            ai.setBuildAreaStartY(file.readUnsignedShort());
+            ai.setBuildAreaEndX(file.readUnsignedShort());
+            ai.setBuildAreaEndY(file.readUnsignedShort());
             ai.setLikelyhoodToMovingCreaturesToLibraryForResearching(ConversionUtils.parseEnum((short) file.readUnsignedByte(),
                     AI.MoveToResearchPolicy.class));
             ai.setChanceOfExploringToFindSpecials((short) file.readUnsignedByte());
@@ -524,12 +538,12 @@ public final class KwdFile {
             ai.setFateOfImprisonedCreatures(ConversionUtils.parseEnum((short) file.readUnsignedByte(), AI.ImprisonedCreatureFatePolicy.class));
             player.setAiAttributes(ai);
 
-            player.setTriggerId(ConversionUtils.readUnsignedShort(file));
+            player.setTriggerId(file.readUnsignedShort());
             player.setPlayerId((short) file.readUnsignedByte());
-            player.setStartingCameraX(ConversionUtils.readUnsignedShort(file));
-            player.setStartingCameraY(ConversionUtils.readUnsignedShort(file));
+            player.setStartingCameraX(file.readUnsignedShort());
+            player.setStartingCameraY(file.readUnsignedShort());
 
-            player.setName(ConversionUtils.readString(file, 32).trim());
+            player.setName(file.readString(32).trim());
 
             // Add to the hash by the player ID
             players.put(player.getPlayerId(), player);
@@ -546,7 +560,7 @@ public final class KwdFile {
      * @param file the file data, rewind to data position
      * @throws IOException the reading may fail
      */
-    private void readTerrain(KwdHeader header, RandomAccessFile file) throws RuntimeException, IOException {
+    private void readTerrain(KwdHeader header, ResourceReader file) throws RuntimeException, IOException {
 
         // Read the terrain catalog
         if (terrainTiles == null) {
@@ -560,31 +574,31 @@ public final class KwdFile {
             long offset = file.getFilePointer();
             Terrain terrain = new Terrain();
 
-            terrain.setName(ConversionUtils.readString(file, 32).trim());
+            terrain.setName(file.readString(32).trim());
             terrain.setCompleteResource(readArtResource(file));
             terrain.setSideResource(readArtResource(file));
             terrain.setTopResource(readArtResource(file));
             terrain.setTaggedTopResource(readArtResource(file));
             terrain.setStringIds(readStringId(file));
-            terrain.setDepth(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.FLOAT);
-            terrain.setLightHeight(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.FLOAT);
-            terrain.setFlags(ConversionUtils.parseFlagValue(ConversionUtils.readUnsignedIntegerAsLong(file), Terrain.TerrainFlag.class));
-            terrain.setDamage(ConversionUtils.readUnsignedShort(file));
-            terrain.setUnk196(ConversionUtils.readUnsignedShort(file));
-            terrain.setUnk198(ConversionUtils.readUnsignedShort(file));
-            terrain.setGoldValue(ConversionUtils.readUnsignedShort(file));
-            terrain.setManaGain(ConversionUtils.readUnsignedShort(file));
-            terrain.setMaxManaGain(ConversionUtils.readUnsignedShort(file));
-            terrain.setTooltipStringId(ConversionUtils.readUnsignedShort(file));
-            terrain.setNameStringId(ConversionUtils.readUnsignedShort(file));
-            terrain.setMaxHealthEffectId(ConversionUtils.readUnsignedShort(file));
-            terrain.setDestroyedEffectId(ConversionUtils.readUnsignedShort(file));
-            terrain.setGeneralDescriptionStringId(ConversionUtils.readUnsignedShort(file));
-            terrain.setStrengthStringId(ConversionUtils.readUnsignedShort(file));
-            terrain.setWeaknessStringId(ConversionUtils.readUnsignedShort(file));
+            terrain.setDepth(file.readUnsignedInteger() / ConversionUtils.FLOAT);
+            terrain.setLightHeight(file.readUnsignedInteger() / ConversionUtils.FLOAT);
+            terrain.setFlags(ConversionUtils.parseFlagValue(file.readUnsignedIntegerAsLong(), Terrain.TerrainFlag.class));
+            terrain.setDamage(file.readUnsignedShort());
+            terrain.setUnk196(file.readUnsignedShort());
+            terrain.setUnk198(file.readUnsignedShort());
+            terrain.setGoldValue(file.readUnsignedShort());
+            terrain.setManaGain(file.readUnsignedShort());
+            terrain.setMaxManaGain(file.readUnsignedShort());
+            terrain.setTooltipStringId(file.readUnsignedShort());
+            terrain.setNameStringId(file.readUnsignedShort());
+            terrain.setMaxHealthEffectId(file.readUnsignedShort());
+            terrain.setDestroyedEffectId(file.readUnsignedShort());
+            terrain.setGeneralDescriptionStringId(file.readUnsignedShort());
+            terrain.setStrengthStringId(file.readUnsignedShort());
+            terrain.setWeaknessStringId(file.readUnsignedShort());
             int[] unk1ae = new int[16];
             for (int x = 0; x < unk1ae.length; x++) {
-                unk1ae[x] = ConversionUtils.readUnsignedShort(file);
+                unk1ae[x] = file.readUnsignedShort();
             }
             terrain.setUnk1ae(unk1ae);
             terrain.setWibbleH((short) file.readUnsignedByte());
@@ -600,18 +614,18 @@ public final class KwdFile {
             }
             terrain.setLeanV(leanV);
             terrain.setTerrainId((short) file.readUnsignedByte());
-            terrain.setStartingHealth(ConversionUtils.readUnsignedShort(file));
+            terrain.setStartingHealth(file.readUnsignedShort());
             terrain.setMaxHealthTypeTerrainId((short) file.readUnsignedByte());
             terrain.setDestroyedTypeTerrainId((short) file.readUnsignedByte());
             terrain.setTerrainLight(new Color(file.readUnsignedByte(), file.readUnsignedByte(), file.readUnsignedByte()));
             terrain.setTextureFrames((short) file.readUnsignedByte());
 
-            terrain.setSoundCategory(ConversionUtils.readString(file, 32).trim());
-            terrain.setMaxHealth(ConversionUtils.readUnsignedShort(file));
+            terrain.setSoundCategory(file.readString(32).trim());
+            terrain.setMaxHealth(file.readUnsignedShort());
             terrain.setAmbientLight(new Color(file.readUnsignedByte(), file.readUnsignedByte(), file.readUnsignedByte()));
 
-            terrain.setSoundCategoryFirstPerson(ConversionUtils.readString(file, 32).trim());
-            terrain.setUnk224(ConversionUtils.readUnsignedInteger(file));
+            terrain.setSoundCategoryFirstPerson(file.readString(32).trim());
+            terrain.setUnk224(file.readUnsignedInteger());
 
             // Add to the hash by the terrain ID
             terrainTiles.put(terrain.getTerrainId(), terrain);
@@ -636,12 +650,12 @@ public final class KwdFile {
      * @param file the file stream to parse from
      * @return an ArtResource
      */
-    private ArtResource readArtResource(RandomAccessFile file) throws IOException {
+    private ArtResource readArtResource(ResourceReader file) throws IOException {
         ArtResource artResource = new ArtResource();
 
         // Read the data
-        artResource.setName(ConversionUtils.readString(file, 64).trim());
-        long flags = ConversionUtils.readUnsignedIntegerAsLong(file);
+        artResource.setName(file.readString(64).trim());
+        long flags = file.readUnsignedIntegerAsLong();
         byte[] bytes = new byte[12];
         file.read(bytes); // Depends on the type how these are interpreted?
         short type = (short) file.readUnsignedByte();
@@ -730,12 +744,12 @@ public final class KwdFile {
      * @param file the file stream to parse from
      * @return an StringId
      */
-    private StringId readStringId(RandomAccessFile file) throws IOException {
+    private StringId readStringId(ResourceReader file) throws IOException {
 
         // Read the IDs
         int[] ids = new int[5];
         for (int i = 0; i < ids.length; i++) {
-            ids[i] = ConversionUtils.readUnsignedInteger(file);
+            ids[i] = file.readUnsignedInteger();
         }
 
         // And the unknowns
@@ -754,7 +768,7 @@ public final class KwdFile {
      * @param file the file data, rewind to data position
      * @throws IOException the reading may fail
      */
-    private void readDoors(KwdHeader header, RandomAccessFile file) throws IOException {
+    private void readDoors(KwdHeader header, ResourceReader file) throws IOException {
 
         // Read the doors catalog
         if (doors == null) {
@@ -768,15 +782,15 @@ public final class KwdFile {
             long offset = file.getFilePointer();
             Door door = new Door();
 
-            door.setName(ConversionUtils.readString(file, 32).trim());
+            door.setName(file.readString(32).trim());
             door.setMesh(readArtResource(file));
             door.setGuiIcon(readArtResource(file));
             door.setEditorIcon(readArtResource(file));
             door.setFlowerIcon(readArtResource(file));
             door.setOpenResource(readArtResource(file));
             door.setCloseResource(readArtResource(file));
-            door.setHeight(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.FLOAT);
-            door.setHealthGain(ConversionUtils.readUnsignedShort(file));
+            door.setHeight(file.readUnsignedInteger() / ConversionUtils.FLOAT);
+            door.setHealthGain(file.readUnsignedShort());
             short[] unknown2 = new short[8];
             for (int x = 0; x < unknown2.length; x++) {
                 unknown2[x] = (short) file.readUnsignedByte();
@@ -784,29 +798,29 @@ public final class KwdFile {
             door.setUnknown2(unknown2);
             door.setMaterial(ConversionUtils.parseEnum(file.readUnsignedByte(), Material.class));
             door.setTrapTypeId((short) file.readUnsignedByte());
-            int flag = ConversionUtils.readUnsignedInteger(file);
+            int flag = file.readUnsignedInteger();
             door.setFlags(ConversionUtils.parseFlagValue(flag, DoorFlag.class));
-            door.setHealth(ConversionUtils.readUnsignedShort(file));
-            door.setGoldCost(ConversionUtils.readUnsignedShort(file));
+            door.setHealth(file.readUnsignedShort());
+            door.setGoldCost(file.readUnsignedShort());
             short[] unknown3 = new short[2];
             for (int x = 0; x < unknown3.length; x++) {
                 unknown3[x] = (short) file.readUnsignedByte();
             }
             door.setUnknown3(unknown3);
-            door.setDeathEffectId(ConversionUtils.readUnsignedShort(file));
-            door.setManufToBuild(ConversionUtils.readUnsignedInteger(file));
-            door.setManaCost(ConversionUtils.readUnsignedShort(file));
-            door.setTooltipStringId(ConversionUtils.readUnsignedShort(file));
-            door.setNameStringId(ConversionUtils.readUnsignedShort(file));
-            door.setGeneralDescriptionStringId(ConversionUtils.readUnsignedShort(file));
-            door.setStrengthStringId(ConversionUtils.readUnsignedShort(file));
-            door.setWeaknessStringId(ConversionUtils.readUnsignedShort(file));
+            door.setDeathEffectId(file.readUnsignedShort());
+            door.setManufToBuild(file.readUnsignedInteger());
+            door.setManaCost(file.readUnsignedShort());
+            door.setTooltipStringId(file.readUnsignedShort());
+            door.setNameStringId(file.readUnsignedShort());
+            door.setGeneralDescriptionStringId(file.readUnsignedShort());
+            door.setStrengthStringId(file.readUnsignedShort());
+            door.setWeaknessStringId(file.readUnsignedShort());
             door.setDoorId((short) file.readUnsignedByte());
             door.setOrderInEditor((short) file.readUnsignedByte());
             door.setManufCrateObjectId((short) file.readUnsignedByte());
             door.setKeyObjectId((short) file.readUnsignedByte());
 
-            door.setSoundGategory(ConversionUtils.readString(file, 32).trim());
+            door.setSoundGategory(file.readString(32).trim());
 
             doors.put(door.getDoorId(), door);
 
@@ -822,7 +836,7 @@ public final class KwdFile {
      * @param file the file data, rewind to data position
      * @throws IOException the reading may fail
      */
-    private void readTraps(KwdHeader header, RandomAccessFile file) throws IOException {
+    private void readTraps(KwdHeader header, ResourceReader file) throws IOException {
 
         // Read the traps catalog
         if (traps == null) {
@@ -836,60 +850,60 @@ public final class KwdFile {
             long offset = file.getFilePointer();
             Trap trap = new Trap();
 
-            trap.setName(ConversionUtils.readString(file, 32).trim());
+            trap.setName(file.readString(32).trim());
             trap.setMeshResource(readArtResource(file));
             trap.setGuiIcon(readArtResource(file));
             trap.setEditorIcon(readArtResource(file));
             trap.setFlowerIcon(readArtResource(file));
             trap.setFireResource(readArtResource(file));
-            trap.setHeight(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.FLOAT);
-            trap.setRechargeTime(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.FLOAT);
-            trap.setChargeTime(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.FLOAT);
-            trap.setThreatDuration(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.FLOAT);
-            trap.setManaCostToFire(ConversionUtils.readUnsignedInteger(file));
-            trap.setIdleEffectDelay(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.FLOAT);
-            trap.setTriggerData(ConversionUtils.readUnsignedInteger(file));
-            trap.setShotData1(ConversionUtils.readUnsignedInteger(file));
-            trap.setShotData2(ConversionUtils.readUnsignedInteger(file));
+            trap.setHeight(file.readUnsignedInteger() / ConversionUtils.FLOAT);
+            trap.setRechargeTime(file.readUnsignedInteger() / ConversionUtils.FLOAT);
+            trap.setChargeTime(file.readUnsignedInteger() / ConversionUtils.FLOAT);
+            trap.setThreatDuration(file.readUnsignedInteger() / ConversionUtils.FLOAT);
+            trap.setManaCostToFire(file.readUnsignedInteger());
+            trap.setIdleEffectDelay(file.readUnsignedInteger() / ConversionUtils.FLOAT);
+            trap.setTriggerData(file.readUnsignedInteger());
+            trap.setShotData1(file.readUnsignedInteger());
+            trap.setShotData2(file.readUnsignedInteger());
             short[] unknown3 = new short[2];
             for (int x = 0; x < unknown3.length; x++) {
                 unknown3[x] = (short) file.readUnsignedByte();
             }
             trap.setUnknown3(unknown3);
-            trap.setThreat(ConversionUtils.readUnsignedShort(file));
-            trap.setFlags(ConversionUtils.parseFlagValue(ConversionUtils.readUnsignedInteger(file), Trap.TrapFlag.class));
-            trap.setHealth(ConversionUtils.readUnsignedShort(file));
-            trap.setManaCost(ConversionUtils.readUnsignedShort(file));
-            trap.setPowerlessEffectId(ConversionUtils.readUnsignedShort(file));
-            trap.setIdleEffectId(ConversionUtils.readUnsignedShort(file));
-            trap.setDeathEffectId(ConversionUtils.readUnsignedShort(file));
-            trap.setManufToBuild(ConversionUtils.readUnsignedShort(file));
-            trap.setGeneralDescriptionStringId(ConversionUtils.readUnsignedShort(file));
-            trap.setStrengthStringId(ConversionUtils.readUnsignedShort(file));
-            trap.setWeaknessStringId(ConversionUtils.readUnsignedShort(file));
-            trap.setManaUsage(ConversionUtils.readUnsignedShort(file));
+            trap.setThreat(file.readUnsignedShort());
+            trap.setFlags(ConversionUtils.parseFlagValue(file.readUnsignedInteger(), Trap.TrapFlag.class));
+            trap.setHealth(file.readUnsignedShort());
+            trap.setManaCost(file.readUnsignedShort());
+            trap.setPowerlessEffectId(file.readUnsignedShort());
+            trap.setIdleEffectId(file.readUnsignedShort());
+            trap.setDeathEffectId(file.readUnsignedShort());
+            trap.setManufToBuild(file.readUnsignedShort());
+            trap.setGeneralDescriptionStringId(file.readUnsignedShort());
+            trap.setStrengthStringId(file.readUnsignedShort());
+            trap.setWeaknessStringId(file.readUnsignedShort());
+            trap.setManaUsage(file.readUnsignedShort());
             short[] unknown4 = new short[2];
             for (int x = 0; x < unknown4.length; x++) {
                 unknown4[x] = (short) file.readUnsignedByte();
             }
             trap.setUnknown4(unknown4);
-            trap.setTooltipStringId(ConversionUtils.readUnsignedShort(file));
-            trap.setNameStringId(ConversionUtils.readUnsignedShort(file));
+            trap.setTooltipStringId(file.readUnsignedShort());
+            trap.setNameStringId(file.readUnsignedShort());
             trap.setUnknown5((short) file.readUnsignedByte());
             trap.setTriggerType(ConversionUtils.parseEnum((short) file.readUnsignedByte(), Trap.TriggerType.class));
             trap.setTrapId((short) file.readUnsignedByte());
             trap.setShotTypeId((short) file.readUnsignedByte());
             trap.setManufCrateObjectId((short) file.readUnsignedByte());
 
-            trap.setSoundCategory(ConversionUtils.readString(file, 32).trim());
+            trap.setSoundCategory(file.readString(32).trim());
             trap.setMaterial(ConversionUtils.parseEnum((short) file.readUnsignedByte(), Material.class));
             trap.setOrderInEditor((short) file.readUnsignedByte());
-            trap.setShotOffset(new Vector3f(ConversionUtils.readInteger(file) / ConversionUtils.FLOAT,
-                    ConversionUtils.readInteger(file) / ConversionUtils.FLOAT,
-                    ConversionUtils.readInteger(file) / ConversionUtils.FLOAT));
-            trap.setShotDelay(ConversionUtils.readUnsignedShort(file) / ConversionUtils.FLOAT);
+            trap.setShotOffset(new Vector3f(file.readInteger() / ConversionUtils.FLOAT,
+                    file.readInteger() / ConversionUtils.FLOAT,
+                    file.readInteger() / ConversionUtils.FLOAT));
+            trap.setShotDelay(file.readUnsignedShort() / ConversionUtils.FLOAT);
             trap.setUnknown2(file.readUnsignedShort());
-            trap.setHealthGain(ConversionUtils.readUnsignedShort(file));
+            trap.setHealthGain(file.readUnsignedShort());
 
             traps.put(trap.getTrapId(), trap);
 
@@ -905,7 +919,7 @@ public final class KwdFile {
      * @param file the file data, rewind to data position
      * @throws IOException the reading may fail
      */
-    private void readRooms(KwdHeader header, RandomAccessFile file) throws RuntimeException, IOException {
+    private void readRooms(KwdHeader header, ResourceReader file) throws RuntimeException, IOException {
 
         // Read the rooms catalog
         if (rooms == null) {
@@ -920,7 +934,7 @@ public final class KwdFile {
             long offset = file.getFilePointer();
             Room room = new Room();
 
-            room.setName(ConversionUtils.readString(file, 32).trim());
+            room.setName(file.readString(32).trim());
             room.setGuiIcon(readArtResource(file));
             room.setEditorIcon(readArtResource(file));
             room.setCompleteResource(readArtResource(file));
@@ -931,20 +945,20 @@ public final class KwdFile {
             room.setWallResource(readArtResource(file));
             room.setCapResource(readArtResource(file));
             room.setCeilingResource(readArtResource(file));
-            room.setCeilingHeight(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.FLOAT);
-            room.setUnknown2(ConversionUtils.readUnsignedShort(file));
-            room.setTorchIntensity(ConversionUtils.readUnsignedShort(file));
-            room.setFlags(ConversionUtils.parseFlagValue(ConversionUtils.readUnsignedInteger(file), Room.RoomFlag.class));
-            room.setTooltipStringId(ConversionUtils.readUnsignedShort(file));
-            room.setNameStringId(ConversionUtils.readUnsignedShort(file));
-            room.setCost(ConversionUtils.readUnsignedShort(file));
-            room.setFightEffectId(ConversionUtils.readUnsignedShort(file));
-            room.setGeneralDescriptionStringId(ConversionUtils.readUnsignedShort(file));
-            room.setStrengthStringId(ConversionUtils.readUnsignedShort(file));
-            room.setTorchRadius(ConversionUtils.readUnsignedShort(file) / ConversionUtils.FLOAT);
+            room.setCeilingHeight(file.readUnsignedInteger() / ConversionUtils.FLOAT);
+            room.setUnknown2(file.readUnsignedShort());
+            room.setTorchIntensity(file.readUnsignedShort());
+            room.setFlags(ConversionUtils.parseFlagValue(file.readUnsignedInteger(), Room.RoomFlag.class));
+            room.setTooltipStringId(file.readUnsignedShort());
+            room.setNameStringId(file.readUnsignedShort());
+            room.setCost(file.readUnsignedShort());
+            room.setFightEffectId(file.readUnsignedShort());
+            room.setGeneralDescriptionStringId(file.readUnsignedShort());
+            room.setStrengthStringId(file.readUnsignedShort());
+            room.setTorchRadius(file.readUnsignedShort() / ConversionUtils.FLOAT);
             List<Integer> roomEffects = new ArrayList<>(8);
             for (int x = 0; x < 8; x++) {
-                int effectId = ConversionUtils.readUnsignedShort(file);
+                int effectId = file.readUnsignedShort();
                 roomEffects.add(effectId);
             }
             room.setEffects(roomEffects);
@@ -961,15 +975,15 @@ public final class KwdFile {
             }
             room.setObjects(roomObjects);
 
-            room.setSoundCategory(ConversionUtils.readString(file, 32).trim());
+            room.setSoundCategory(file.readString(32).trim());
             room.setOrderInEditor((short) file.readUnsignedByte());
             room.setX3c3((short) file.readUnsignedByte());
-            room.setUnknown10(ConversionUtils.readUnsignedShort(file));
+            room.setUnknown10(file.readUnsignedShort());
             room.setUnknown11((short) file.readUnsignedByte());
             room.setTorch(readArtResource(file));
             room.setRecommendedSizeX((short) file.readUnsignedByte());
             room.setRecommendedSizeY((short) file.readUnsignedByte());
-            room.setHealthGain(ConversionUtils.readShort(file));
+            room.setHealthGain(file.readShort());
 
             // Add to the hash by the room ID
             rooms.put(room.getRoomId(), room);
@@ -988,7 +1002,7 @@ public final class KwdFile {
      * @param file the original map KWD file
      * @throws RuntimeException reading may fail
      */
-    private void readMapInfo(KwdHeader header, RandomAccessFile data) throws IOException {
+    private void readMapInfo(KwdHeader header, ResourceReader data) throws IOException {
 
         //Additional header data
         if (gameLevel == null) {
@@ -999,18 +1013,18 @@ public final class KwdFile {
         }
 
         //Property data
-        String name = ConversionUtils.readStringUtf16(data, 64).trim();
+        String name = data.readStringUtf16(64).trim();
         if (name != null && !name.isEmpty() && name.toLowerCase().endsWith(".kwd")) {
             name = name.substring(0, name.length() - 4);
         }
         gameLevel.setName(name);
-        gameLevel.setDescription(ConversionUtils.readStringUtf16(data, 1024).trim());
-        gameLevel.setAuthor(ConversionUtils.readStringUtf16(data, 64).trim());
-        gameLevel.setEmail(ConversionUtils.readStringUtf16(data, 64).trim());
-        gameLevel.setInformation(ConversionUtils.readStringUtf16(data, 1024).trim());
+        gameLevel.setDescription(data.readStringUtf16(1024).trim());
+        gameLevel.setAuthor(data.readStringUtf16(64).trim());
+        gameLevel.setEmail(data.readStringUtf16(64).trim());
+        gameLevel.setInformation(data.readStringUtf16(1024).trim());
 
-        gameLevel.setTriggerId(ConversionUtils.readUnsignedShort(data));
-        gameLevel.setTicksPerSec(ConversionUtils.readUnsignedShort(data));
+        gameLevel.setTriggerId(data.readUnsignedShort());
+        gameLevel.setTicksPerSec(data.readUnsignedShort());
         short[] x01184 = new short[520];
         for (int x = 0; x < x01184.length; x++) {
             x01184[x] = (short) data.readUnsignedByte();
@@ -1018,15 +1032,15 @@ public final class KwdFile {
         gameLevel.setX01184(x01184);
         List<String> messages = new ArrayList<>(); // I don't know if we need the index, level 19 & 3 has messages, but they are rare
         for (int x = 0; x < 512; x++) {
-            String message = ConversionUtils.readStringUtf16(data, 20).trim();
+            String message = data.readStringUtf16(20).trim();
             if (!message.isEmpty()) {
                 messages.add(message);
             }
         }
         gameLevel.setMessages(messages);
 
-        gameLevel.setLvlFlags(ConversionUtils.parseFlagValue(ConversionUtils.readUnsignedShort(data), LevFlag.class));
-        gameLevel.setSpeechStr(ConversionUtils.readString(data, 32).trim());
+        gameLevel.setLvlFlags(ConversionUtils.parseFlagValue(data.readUnsignedShort(), LevFlag.class));
+        gameLevel.setSpeechStr(data.readString(32).trim());
         gameLevel.setTalismanPieces((short) data.readUnsignedByte());
         List<LevelReward> rewardPrev = new ArrayList<>(4);
         for (int x = 0; x < 4; x++) {
@@ -1047,15 +1061,15 @@ public final class KwdFile {
         gameLevel.setRewardNext(rewardNext);
         gameLevel.setSoundTrack((short) data.readUnsignedByte());
         gameLevel.setTextTableId(ConversionUtils.parseEnum((short) data.readUnsignedByte(), TextTable.class));
-        gameLevel.setTextTitleId(ConversionUtils.readUnsignedShort(data));
-        gameLevel.setTextPlotId(ConversionUtils.readUnsignedShort(data));
-        gameLevel.setTextDebriefId(ConversionUtils.readUnsignedShort(data));
-        gameLevel.setTextObjectvId(ConversionUtils.readUnsignedShort(data));
-        gameLevel.setX063c3(ConversionUtils.readUnsignedShort(data));
-        gameLevel.setTextSubobjctvId1(ConversionUtils.readUnsignedShort(data));
-        gameLevel.setTextSubobjctvId2(ConversionUtils.readUnsignedShort(data));
-        gameLevel.setTextSubobjctvId3(ConversionUtils.readUnsignedShort(data));
-        gameLevel.setSpeclvlIdx(ConversionUtils.readUnsignedShort(data));
+        gameLevel.setTextTitleId(data.readUnsignedShort());
+        gameLevel.setTextPlotId(data.readUnsignedShort());
+        gameLevel.setTextDebriefId(data.readUnsignedShort());
+        gameLevel.setTextObjectvId(data.readUnsignedShort());
+        gameLevel.setX063c3(data.readUnsignedShort());
+        gameLevel.setTextSubobjctvId1(data.readUnsignedShort());
+        gameLevel.setTextSubobjctvId2(data.readUnsignedShort());
+        gameLevel.setTextSubobjctvId3(data.readUnsignedShort());
+        gameLevel.setSpeclvlIdx(data.readUnsignedShort());
 
         // Swap the arrays for more convenient data format
         short[] textIntrdcOverrdObj = new short[8];
@@ -1064,7 +1078,7 @@ public final class KwdFile {
         }
         int[] textIntrdcOverrdId = new int[8];
         for (int x = 0; x < textIntrdcOverrdId.length; x++) {
-            textIntrdcOverrdId[x] = ConversionUtils.readUnsignedShort(data);
+            textIntrdcOverrdId[x] = data.readUnsignedShort();
         }
         java.util.Map<Short, Integer> introductionOverrideTextIds = new HashMap<>(8);
         for (int x = 0; x < textIntrdcOverrdObj.length; x++) {
@@ -1076,19 +1090,19 @@ public final class KwdFile {
         }
         gameLevel.setIntroductionOverrideTextIds(introductionOverrideTextIds);
 
-        gameLevel.setTerrainPath(ConversionUtils.readString(data, 32).trim());
+        gameLevel.setTerrainPath(data.readString(32).trim());
         if (header.dataSize > 25603) { // Some very old files are smaller, namely the FrontEnd3DLevel map in some version
             gameLevel.setOneShotHornyLev((short) data.readUnsignedByte());
             gameLevel.setPlayerCount((short) data.readUnsignedByte());
             gameLevel.setX06405((short) data.readUnsignedByte());
             gameLevel.setX06406((short) data.readUnsignedByte());
-            gameLevel.setSpeechHornyId(ConversionUtils.readUnsignedShort(data));
-            gameLevel.setSpeechPrelvlId(ConversionUtils.readUnsignedShort(data));
-            gameLevel.setSpeechPostlvlWin(ConversionUtils.readUnsignedShort(data));
-            gameLevel.setSpeechPostlvlLost(ConversionUtils.readUnsignedShort(data));
-            gameLevel.setSpeechPostlvlNews(ConversionUtils.readUnsignedShort(data));
-            gameLevel.setSpeechPrelvlGenr(ConversionUtils.readUnsignedShort(data));
-            gameLevel.setHeroName(ConversionUtils.readStringUtf16(data, 32).trim());
+            gameLevel.setSpeechHornyId(data.readUnsignedShort());
+            gameLevel.setSpeechPrelvlId(data.readUnsignedShort());
+            gameLevel.setSpeechPostlvlWin(data.readUnsignedShort());
+            gameLevel.setSpeechPostlvlLost(data.readUnsignedShort());
+            gameLevel.setSpeechPostlvlNews(data.readUnsignedShort());
+            gameLevel.setSpeechPrelvlGenr(data.readUnsignedShort());
+            gameLevel.setHeroName(data.readStringUtf16(32).trim());
         }
 
         // Paths and the unknown array
@@ -1099,9 +1113,9 @@ public final class KwdFile {
         List<FilePath> paths = new ArrayList<>(header.getItemCount());
         for (int x = 0; x < header.getItemCount(); x++) {
             FilePath filePath = new FilePath();
-            filePath.setId(ConversionUtils.parseEnum(ConversionUtils.readUnsignedInteger(data), MapDataTypeEnum.class));
-            filePath.setUnknown2(ConversionUtils.readInteger(data));
-            String path = ConversionUtils.readString(data, 64).trim();
+            filePath.setId(ConversionUtils.parseEnum(data.readUnsignedInteger(), MapDataTypeEnum.class));
+            filePath.setUnknown2(data.readInteger());
+            String path = data.readString(64).trim();
 
             // Tweak the paths
             // Paths are relative to the base path, may or may not have an extension (assume kwd if none found)
@@ -1137,7 +1151,7 @@ public final class KwdFile {
 
         int[] unknown = new int[header.getHeight()];
         for (int x = 0; x < unknown.length; x++) {
-            unknown[x] = ConversionUtils.readUnsignedInteger(data);
+            unknown[x] = data.readUnsignedInteger();
         }
         gameLevel.setUnknown(unknown);
     }
@@ -1149,7 +1163,7 @@ public final class KwdFile {
      * @param file the file data, rewind to data position
      * @throws IOException the reading may fail
      */
-    private void readCreatures(KwdHeader header, RandomAccessFile file) throws IOException {
+    private void readCreatures(KwdHeader header, ResourceReader file) throws IOException {
 
         // Read the creatures catalog
         if (creatures == null) {
@@ -1163,7 +1177,7 @@ public final class KwdFile {
             long offset = file.getFilePointer();
             Creature creature = new Creature();
 
-            creature.setName(ConversionUtils.readString(file, 32).trim());
+            creature.setName(file.readString(32).trim());
             // 39 ArtResources (with IMPs these are not 100% same)
             byte[] bytes = new byte[84];
             file.read(bytes);
@@ -1207,27 +1221,27 @@ public final class KwdFile {
             creature.setIcon1Resource(readArtResource(file));
             creature.setIcon2Resource(readArtResource(file));
             //
-            creature.setUnkcec(ConversionUtils.readUnsignedShort(file));
-            creature.setUnkcee(ConversionUtils.readUnsignedInteger(file));
-            creature.setUnkcf2(ConversionUtils.readUnsignedInteger(file));
+            creature.setUnkcec(file.readUnsignedShort());
+            creature.setUnkcee(file.readUnsignedInteger());
+            creature.setUnkcf2(file.readUnsignedInteger());
             creature.setOrderInEditor((short) file.readUnsignedByte());
-            creature.setAngerStringIdGeneral(ConversionUtils.readUnsignedShort(file));
-            creature.setShotDelay(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.FLOAT);
-            creature.setOlhiEffectId(ConversionUtils.readUnsignedShort(file));
-            creature.setIntroductionStringId(ConversionUtils.readUnsignedShort(file));
-            creature.setPerceptionRange(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.FLOAT);
-            creature.setAngerStringIdLair(ConversionUtils.readUnsignedShort(file));
-            creature.setAngerStringIdFood(ConversionUtils.readUnsignedShort(file));
-            creature.setAngerStringIdPay(ConversionUtils.readUnsignedShort(file));
-            creature.setAngerStringIdWork(ConversionUtils.readUnsignedShort(file));
-            creature.setAngerStringIdSlap(ConversionUtils.readUnsignedShort(file));
-            creature.setAngerStringIdHeld(ConversionUtils.readUnsignedShort(file));
-            creature.setAngerStringIdLonely(ConversionUtils.readUnsignedShort(file));
-            creature.setAngerStringIdHatred(ConversionUtils.readUnsignedShort(file));
-            creature.setAngerStringIdTorture(ConversionUtils.readUnsignedShort(file));
-
-            creature.setTranslationSoundGategory(ConversionUtils.readString(file, 32).trim());
-            creature.setShuffleSpeed(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.FLOAT);
+            creature.setAngerStringIdGeneral(file.readUnsignedShort());
+            creature.setShotDelay(file.readUnsignedInteger() / ConversionUtils.FLOAT);
+            creature.setOlhiEffectId(file.readUnsignedShort());
+            creature.setIntroductionStringId(file.readUnsignedShort());
+            creature.setPerceptionRange(file.readUnsignedInteger() / ConversionUtils.FLOAT);
+            creature.setAngerStringIdLair(file.readUnsignedShort());
+            creature.setAngerStringIdFood(file.readUnsignedShort());
+            creature.setAngerStringIdPay(file.readUnsignedShort());
+            creature.setAngerStringIdWork(file.readUnsignedShort());
+            creature.setAngerStringIdSlap(file.readUnsignedShort());
+            creature.setAngerStringIdHeld(file.readUnsignedShort());
+            creature.setAngerStringIdLonely(file.readUnsignedShort());
+            creature.setAngerStringIdHatred(file.readUnsignedShort());
+            creature.setAngerStringIdTorture(file.readUnsignedShort());
+
+            creature.setTranslationSoundGategory(file.readString(32).trim());
+            creature.setShuffleSpeed(file.readUnsignedInteger() / ConversionUtils.FLOAT);
             creature.setCloneCreatureId((short) file.readUnsignedByte());
             creature.setFirstPersonGammaEffect(ConversionUtils.parseEnum(file.readUnsignedByte(), Creature.GammaEffect.class));
             creature.setFirstPersonWalkCycleScale((short) file.readUnsignedByte());
@@ -1238,25 +1252,25 @@ public final class KwdFile {
             Attraction[] attractions = new Attraction[2];
             for (int x = 0; x < attractions.length; x++) {
                 Attraction attraction = creature.new Attraction();
-                attraction.setPresent(ConversionUtils.readUnsignedInteger(file));
-                attraction.setRoomId(ConversionUtils.readUnsignedShort(file));
-                attraction.setRoomSize(ConversionUtils.readUnsignedShort(file));
+                attraction.setPresent(file.readUnsignedInteger());
+                attraction.setRoomId(file.readUnsignedShort());
+                attraction.setRoomSize(file.readUnsignedShort());
                 attractions[x] = attraction;
             }
             creature.setAttractions(attractions);
-            creature.setFirstPersonWaddleScale(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.FLOAT);
-            creature.setFirstPersonOscillateScale(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.FLOAT);
+            creature.setFirstPersonWaddleScale(file.readUnsignedInteger() / ConversionUtils.FLOAT);
+            creature.setFirstPersonOscillateScale(file.readUnsignedInteger() / ConversionUtils.FLOAT);
             Spell[] spells = new Spell[3];
             for (int x = 0; x < spells.length; x++) {
                 Spell spell = creature.new Spell();
-                spell.setShotOffset(new Vector3f(ConversionUtils.readUnsignedIntegerAsLong(file) / ConversionUtils.FLOAT,
-                        ConversionUtils.readUnsignedIntegerAsLong(file) / ConversionUtils.FLOAT,
-                        ConversionUtils.readUnsignedIntegerAsLong(file) / ConversionUtils.FLOAT));
+                spell.setShotOffset(new Vector3f(file.readUnsignedIntegerAsLong() / ConversionUtils.FLOAT,
+                        file.readUnsignedIntegerAsLong() / ConversionUtils.FLOAT,
+                        file.readUnsignedIntegerAsLong() / ConversionUtils.FLOAT));
                 spell.setX0c((short) file.readUnsignedByte());
                 spell.setPlayAnimation((short) file.readUnsignedByte() == 1 ? true : false);
                 spell.setX0e((short) file.readUnsignedByte()); // This value can changed when you not change anything on map, only save it
                 spell.setX0f((short) file.readUnsignedByte());
-                spell.setShotDelay(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.FLOAT);
+                spell.setShotDelay(file.readUnsignedInteger() / ConversionUtils.FLOAT);
                 spell.setX14((short) file.readUnsignedByte());
                 spell.setX15((short) file.readUnsignedByte());
                 spell.setCreatureSpellId((short) file.readUnsignedByte());
@@ -1277,82 +1291,82 @@ public final class KwdFile {
             creature.setAngryJobs(readJobPreferences(3, creature, file));
             Creature.JobType[] hateJobs = new Creature.JobType[2];
             for (int x = 0; x < hateJobs.length; x++) {
-                hateJobs[x] = ConversionUtils.parseEnum(ConversionUtils.readUnsignedInteger(file), Creature.JobType.class);
+                hateJobs[x] = ConversionUtils.parseEnum(file.readUnsignedInteger(), Creature.JobType.class);
             }
             creature.setHateJobs(hateJobs);
             JobAlternative[] alternatives = new JobAlternative[3];
             for (int x = 0; x < alternatives.length; x++) {
                 JobAlternative alternative = creature.new JobAlternative();
-                alternative.setJobType(ConversionUtils.parseEnum(ConversionUtils.readUnsignedInteger(file), Creature.JobType.class));
-                alternative.setMoodChange(ConversionUtils.readUnsignedShort(file));
-                alternative.setManaChange(ConversionUtils.readUnsignedShort(file));
+                alternative.setJobType(ConversionUtils.parseEnum(file.readUnsignedInteger(), Creature.JobType.class));
+                alternative.setMoodChange(file.readUnsignedShort());
+                alternative.setManaChange(file.readUnsignedShort());
             }
             creature.setAlternativeJobs(alternatives);
             Xe94 xe94 = creature.new Xe94();
-            xe94.setX00(ConversionUtils.readUnsignedIntegerAsLong(file));
-            xe94.setX04(ConversionUtils.readUnsignedInteger(file));
-            xe94.setX08(ConversionUtils.readUnsignedInteger(file));
+            xe94.setX00(file.readUnsignedIntegerAsLong());
+            xe94.setX04(file.readUnsignedInteger());
+            xe94.setX08(file.readUnsignedInteger());
             creature.setXe94(xe94);
-            creature.setUnkea0(ConversionUtils.readInteger(file));
-            creature.setHeight(ConversionUtils.readInteger(file) / ConversionUtils.FLOAT);
-            creature.setUnkea8(ConversionUtils.readUnsignedInteger(file));
-            creature.setUnk3ab(ConversionUtils.readUnsignedInteger(file));
-            creature.setEyeHeight(ConversionUtils.readInteger(file) / ConversionUtils.FLOAT);
-            creature.setSpeed(ConversionUtils.readInteger(file) / ConversionUtils.FLOAT);
-            creature.setRunSpeed(ConversionUtils.readInteger(file) / ConversionUtils.FLOAT);
-            creature.setHungerRate(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.FLOAT);
-            creature.setTimeAwake(ConversionUtils.readUnsignedInteger(file));
-            creature.setTimeSleep(ConversionUtils.readUnsignedInteger(file));
-            creature.setDistanceCanSee(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.FLOAT);
-            creature.setDistanceCanHear(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.FLOAT);
-            creature.setStunDuration(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.FLOAT);
-            creature.setGuardDuration(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.FLOAT);
-            creature.setIdleDuration(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.FLOAT);
-            creature.setSlapFearlessDuration(ConversionUtils.readInteger(file) / ConversionUtils.FLOAT);
-            creature.setUnkee0(ConversionUtils.readInteger(file));
-            creature.setUnkee4(ConversionUtils.readInteger(file));
-            creature.setPossessionManaCost(ConversionUtils.readShort(file));
-            creature.setOwnLandHealthIncrease(ConversionUtils.readShort(file));
-            creature.setMeleeRange(ConversionUtils.readInteger(file) / ConversionUtils.FLOAT);
-            creature.setUnkef0(ConversionUtils.readUnsignedInteger(file));
-            creature.setTortureTimeToConvert(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.FLOAT);
-            creature.setMeleeRecharge(ConversionUtils.readInteger(file) / ConversionUtils.FLOAT);
+            creature.setUnkea0(file.readInteger());
+            creature.setHeight(file.readInteger() / ConversionUtils.FLOAT);
+            creature.setUnkea8(file.readUnsignedInteger());
+            creature.setUnk3ab(file.readUnsignedInteger());
+            creature.setEyeHeight(file.readInteger() / ConversionUtils.FLOAT);
+            creature.setSpeed(file.readInteger() / ConversionUtils.FLOAT);
+            creature.setRunSpeed(file.readInteger() / ConversionUtils.FLOAT);
+            creature.setHungerRate(file.readUnsignedInteger() / ConversionUtils.FLOAT);
+            creature.setTimeAwake(file.readUnsignedInteger());
+            creature.setTimeSleep(file.readUnsignedInteger());
+            creature.setDistanceCanSee(file.readUnsignedInteger() / ConversionUtils.FLOAT);
+            creature.setDistanceCanHear(file.readUnsignedInteger() / ConversionUtils.FLOAT);
+            creature.setStunDuration(file.readUnsignedInteger() / ConversionUtils.FLOAT);
+            creature.setGuardDuration(file.readUnsignedInteger() / ConversionUtils.FLOAT);
+            creature.setIdleDuration(file.readUnsignedInteger() / ConversionUtils.FLOAT);
+            creature.setSlapFearlessDuration(file.readInteger() / ConversionUtils.FLOAT);
+            creature.setUnkee0(file.readInteger());
+            creature.setUnkee4(file.readInteger());
+            creature.setPossessionManaCost(file.readShort());
+            creature.setOwnLandHealthIncrease(file.readShort());
+            creature.setMeleeRange(file.readInteger() / ConversionUtils.FLOAT);
+            creature.setUnkef0(file.readUnsignedInteger());
+            creature.setTortureTimeToConvert(file.readUnsignedInteger() / ConversionUtils.FLOAT);
+            creature.setMeleeRecharge(file.readInteger() / ConversionUtils.FLOAT);
             // The flags is actually very big, pushing the boundaries, a true uint32, need to -> long
-            creature.setFlags(ConversionUtils.parseFlagValue(ConversionUtils.readUnsignedIntegerAsLong(file), Creature.CreatureFlag.class));
-            creature.setExpForNextLevel(ConversionUtils.readUnsignedShort(file));
+            creature.setFlags(ConversionUtils.parseFlagValue(file.readUnsignedIntegerAsLong(), Creature.CreatureFlag.class));
+            creature.setExpForNextLevel(file.readUnsignedShort());
             creature.setJobClass(ConversionUtils.parseEnum(file.readUnsignedByte(), Creature.JobClass.class));
             creature.setFightStyle(ConversionUtils.parseEnum(file.readUnsignedByte(), Creature.FightStyle.class));
-            creature.setExpPerSecond(ConversionUtils.readUnsignedShort(file));
-            creature.setExpPerSecondTraining(ConversionUtils.readUnsignedShort(file));
-            creature.setResearchPerSecond(ConversionUtils.readUnsignedShort(file));
-            creature.setManufacturePerSecond(ConversionUtils.readUnsignedShort(file));
-            creature.setHp(ConversionUtils.readUnsignedShort(file));
-            creature.setHpFromChicken(ConversionUtils.readUnsignedShort(file));
-            creature.setFear(ConversionUtils.readUnsignedShort(file));
-            creature.setThreat(ConversionUtils.readUnsignedShort(file));
-            creature.setMeleeDamage(ConversionUtils.readUnsignedShort(file));
-            creature.setSlapDamage(ConversionUtils.readUnsignedShort(file));
-            creature.setManaGenPrayer(ConversionUtils.readUnsignedShort(file));
-            creature.setUnk3cb(ConversionUtils.readUnsignedShort(file));
-            creature.setPay(ConversionUtils.readUnsignedShort(file));
-            creature.setMaxGoldHeld(ConversionUtils.readUnsignedShort(file));
-            creature.setUnk3cc(ConversionUtils.readUnsignedShort(file));
-            creature.setDecomposeValue(ConversionUtils.readUnsignedShort(file));
-            creature.setNameStringId(ConversionUtils.readUnsignedShort(file));
-            creature.setTooltipStringId(ConversionUtils.readUnsignedShort(file));
-            creature.setAngerNoLair(ConversionUtils.readShort(file));
-            creature.setAngerNoFood(ConversionUtils.readShort(file));
-            creature.setAngerNoPay(ConversionUtils.readShort(file));
-            creature.setAngerNoWork(ConversionUtils.readShort(file));
-            creature.setAngerSlap(ConversionUtils.readShort(file));
-            creature.setAngerInHand(ConversionUtils.readShort(file));
-            creature.setInitialGoldHeld(ConversionUtils.readShort(file));
-            creature.setEntranceEffectId(ConversionUtils.readUnsignedShort(file));
-            creature.setGeneralDescriptionStringId(ConversionUtils.readUnsignedShort(file));
-            creature.setStrengthStringId(ConversionUtils.readUnsignedShort(file));
-            creature.setWeaknessStringId(ConversionUtils.readUnsignedShort(file));
-            creature.setSlapEffectId(ConversionUtils.readUnsignedShort(file));
-            creature.setDeathEffectId(ConversionUtils.readUnsignedShort(file));
+            creature.setExpPerSecond(file.readUnsignedShort());
+            creature.setExpPerSecondTraining(file.readUnsignedShort());
+            creature.setResearchPerSecond(file.readUnsignedShort());
+            creature.setManufacturePerSecond(file.readUnsignedShort());
+            creature.setHp(file.readUnsignedShort());
+            creature.setHpFromChicken(file.readUnsignedShort());
+            creature.setFear(file.readUnsignedShort());
+            creature.setThreat(file.readUnsignedShort());
+            creature.setMeleeDamage(file.readUnsignedShort());
+            creature.setSlapDamage(file.readUnsignedShort());
+            creature.setManaGenPrayer(file.readUnsignedShort());
+            creature.setUnk3cb(file.readUnsignedShort());
+            creature.setPay(file.readUnsignedShort());
+            creature.setMaxGoldHeld(file.readUnsignedShort());
+            creature.setUnk3cc(file.readUnsignedShort());
+            creature.setDecomposeValue(file.readUnsignedShort());
+            creature.setNameStringId(file.readUnsignedShort());
+            creature.setTooltipStringId(file.readUnsignedShort());
+            creature.setAngerNoLair(file.readShort());
+            creature.setAngerNoFood(file.readShort());
+            creature.setAngerNoPay(file.readShort());
+            creature.setAngerNoWork(file.readShort());
+            creature.setAngerSlap(file.readShort());
+            creature.setAngerInHand(file.readShort());
+            creature.setInitialGoldHeld(file.readShort());
+            creature.setEntranceEffectId(file.readUnsignedShort());
+            creature.setGeneralDescriptionStringId(file.readUnsignedShort());
+            creature.setStrengthStringId(file.readUnsignedShort());
+            creature.setWeaknessStringId(file.readUnsignedShort());
+            creature.setSlapEffectId(file.readUnsignedShort());
+            creature.setDeathEffectId(file.readUnsignedShort());
             creature.setMelee1Swipe(ConversionUtils.parseEnum(file.readUnsignedByte(), Creature.Swipe.class));
             creature.setMelee2Swipe(ConversionUtils.parseEnum(file.readUnsignedByte(), Creature.Swipe.class));
             creature.setUnk3d3((short) file.readUnsignedByte());
@@ -1379,18 +1393,18 @@ public final class KwdFile {
             creature.setDeathFallDirection(ConversionUtils.parseEnum(file.readUnsignedByte(), Creature.DeathFallDirection.class));
             creature.setUnk3f2((short) file.readUnsignedByte());
 
-            creature.setSoundGategory(ConversionUtils.readString(file, 32).trim());
+            creature.setSoundGategory(file.readString(32).trim());
             creature.setMaterial(ConversionUtils.parseEnum(file.readUnsignedByte(), Material.class));
             creature.setFirstPersonFilterResource(readArtResource(file));
-            creature.setUnkfcb(ConversionUtils.readUnsignedShort(file));
-            creature.setUnk4(ConversionUtils.readUnsignedInteger(file));
+            creature.setUnkfcb(file.readUnsignedShort());
+            creature.setUnk4(file.readUnsignedInteger());
             creature.setDrunkIdle(readArtResource(file));
             creature.setSpecial1Swipe(ConversionUtils.parseEnum(file.readUnsignedByte(), Creature.Swipe.class));
             creature.setSpecial2Swipe(ConversionUtils.parseEnum(file.readUnsignedByte(), Creature.Swipe.class));
             creature.setFirstPersonMeleeResource(readArtResource(file));
-            creature.setUnk6(ConversionUtils.readUnsignedInteger(file));
-            creature.setTortureHpChange(ConversionUtils.readShort(file));
-            creature.setTortureMoodChange(ConversionUtils.readShort(file));
+            creature.setUnk6(file.readUnsignedInteger());
+            creature.setTortureHpChange(file.readShort());
+            creature.setTortureMoodChange(file.readShort());
             creature.setAnimMelee2Resource(readArtResource(file));
             creature.setUnknown9Resource(readArtResource(file));
             creature.setUnknown10Resource(readArtResource(file));
@@ -1400,9 +1414,9 @@ public final class KwdFile {
             Unk7[] unk7s = new Unk7[7];
             for (int x = 0; x < unk7s.length; x++) {
                 Unk7 unk7 = creature.new Unk7();
-                unk7.setX00(ConversionUtils.readUnsignedInteger(file));
-                unk7.setX04(ConversionUtils.readUnsignedIntegerAsLong(file));
-                unk7.setX08(ConversionUtils.readUnsignedInteger(file));
+                unk7.setX00(file.readUnsignedInteger());
+                unk7.setX04(file.readUnsignedIntegerAsLong());
+                unk7.setX08(file.readUnsignedInteger());
                 unk7s[x] = unk7;
             }
             creature.setUnk7(unk7s);
@@ -1410,24 +1424,24 @@ public final class KwdFile {
             X1323[] x1323s = new X1323[48];
             for (int x = 0; x < x1323s.length; x++) {
                 X1323 x1323 = creature.new X1323();
-                x1323.setX00(ConversionUtils.readUnsignedShort(file));
-                x1323.setX02(ConversionUtils.readUnsignedShort(file));
+                x1323.setX00(file.readUnsignedShort());
+                x1323.setX02(file.readUnsignedShort());
                 x1323s[x] = x1323;
             }
             creature.setX1323(x1323s);
             creature.setAnimPoseFrameResource(readArtResource(file));
             creature.setAnimWalk2Resource(readArtResource(file));
             creature.setAnimDiePoseResource(readArtResource(file));
-            creature.setUniqueNameTextId(ConversionUtils.readUnsignedShort(file));
+            creature.setUniqueNameTextId(file.readUnsignedShort());
             int[] x14e1 = new int[2];
             for (int x = 0; x < x14e1.length; x++) {
-                x14e1[x] = ConversionUtils.readUnsignedInteger(file);
+                x14e1[x] = file.readUnsignedInteger();
             }
             creature.setX14e1(x14e1);
-            creature.setFirstPersonSpecialAbility1Count(ConversionUtils.readUnsignedInteger(file));
-            creature.setFirstPersonSpecialAbility2Count(ConversionUtils.readUnsignedInteger(file));
+            creature.setFirstPersonSpecialAbility1Count(file.readUnsignedInteger());
+            creature.setFirstPersonSpecialAbility2Count(file.readUnsignedInteger());
             creature.setUniqueResource(readArtResource(file));
-            creature.setUnk1545(ConversionUtils.readUnsignedInteger(file));
+            creature.setUnk1545(file.readUnsignedInteger());
 
             // The normal file stops here, but if it is the bigger one, continue
             if (header.getItemSize() >= 5537l) {
@@ -1436,8 +1450,8 @@ public final class KwdFile {
                     unknownExtraBytes[x] = (short) file.readUnsignedByte();
                 }
                 creature.setUnknownExtraBytes(unknownExtraBytes);
-                creature.setFlags2(ConversionUtils.parseFlagValue(ConversionUtils.readUnsignedIntegerAsLong(file), Creature.CreatureFlag2.class));
-                creature.setUnknown(ConversionUtils.readUnsignedInteger(file));
+                creature.setFlags2(ConversionUtils.parseFlagValue(file.readUnsignedIntegerAsLong(), Creature.CreatureFlag2.class));
+                creature.setUnknown(file.readUnsignedInteger());
             }
 
             // Add to the hash by the creature ID
@@ -1463,13 +1477,13 @@ public final class KwdFile {
      * @return job preferences
      * @throws IOException may fail
      */
-    private Creature.JobPreference[] readJobPreferences(int count, Creature creature, RandomAccessFile file) throws IOException {
+    private Creature.JobPreference[] readJobPreferences(int count, Creature creature, ResourceReader file) throws IOException {
         Creature.JobPreference[] preferences = new Creature.JobPreference[count];
         for (int x = 0; x < preferences.length; x++) {
             Creature.JobPreference jobPreference = creature.new JobPreference();
-            jobPreference.setJobType(ConversionUtils.parseEnum(ConversionUtils.readUnsignedInteger(file), Creature.JobType.class));
-            jobPreference.setMoodChange(ConversionUtils.readUnsignedShort(file));
-            jobPreference.setManaChange(ConversionUtils.readUnsignedShort(file));
+            jobPreference.setJobType(ConversionUtils.parseEnum(file.readUnsignedInteger(), Creature.JobType.class));
+            jobPreference.setMoodChange(file.readUnsignedShort());
+            jobPreference.setManaChange(file.readUnsignedShort());
             jobPreference.setChance((short) file.readUnsignedByte());
             jobPreference.setX09((short) file.readUnsignedByte());
             jobPreference.setX0a((short) file.readUnsignedByte());
@@ -1486,15 +1500,15 @@ public final class KwdFile {
      * @param file the file stream to parse from
      * @return a Light
      */
-    private Light readLight(RandomAccessFile file) throws IOException {
+    private Light readLight(ResourceReader file) throws IOException {
         Light light = new Light();
 
         // Read the data
-        light.setmKPos(new Vector3f(ConversionUtils.readInteger(file) / ConversionUtils.FLOAT,
-                ConversionUtils.readInteger(file) / ConversionUtils.FLOAT,
-                ConversionUtils.readInteger(file) / ConversionUtils.FLOAT));
-        light.setRadius(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.FLOAT);
-        light.setFlags(ConversionUtils.parseFlagValue(ConversionUtils.readUnsignedInteger(file), Light.LightFlag.class));
+        light.setmKPos(new Vector3f(file.readInteger() / ConversionUtils.FLOAT,
+                file.readInteger() / ConversionUtils.FLOAT,
+                file.readInteger() / ConversionUtils.FLOAT));
+        light.setRadius(file.readUnsignedInteger() / ConversionUtils.FLOAT);
+        light.setFlags(ConversionUtils.parseFlagValue(file.readUnsignedInteger(), Light.LightFlag.class));
         light.setColor(new Color(file.readUnsignedByte(), file.readUnsignedByte(), file.readUnsignedByte(), file.readUnsignedByte()));
 
         return light;
@@ -1507,7 +1521,7 @@ public final class KwdFile {
      * @param file the file data, rewind to data position
      * @throws IOException the reading may fail
      */
-    private void readObjects(KwdHeader header, RandomAccessFile file) throws IOException {
+    private void readObjects(KwdHeader header, ResourceReader file) throws IOException {
 
         // Read the objects catalog
         if (objects == null) {
@@ -1521,7 +1535,7 @@ public final class KwdFile {
             long offset = file.getFilePointer();
             Object object = new Object();
 
-            object.setName(ConversionUtils.readString(file, 32).trim());
+            object.setName(file.readString(32).trim());
             object.setMeshResource(readArtResource(file));
             object.setGuiIconResource(readArtResource(file));
             object.setInHandIconResource(readArtResource(file));
@@ -1536,33 +1550,33 @@ public final class KwdFile {
             }
             object.setAdditionalResources(additionalResources);
             object.setLight(readLight(file));
-            object.setWidth(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.FLOAT);
-            object.setHeight(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.FLOAT);
-            object.setMass(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.FLOAT);
-            object.setSpeed(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.FLOAT);
-            object.setAirFriction(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.DOUBLE);
+            object.setWidth(file.readUnsignedInteger() / ConversionUtils.FLOAT);
+            object.setHeight(file.readUnsignedInteger() / ConversionUtils.FLOAT);
+            object.setMass(file.readUnsignedInteger() / ConversionUtils.FLOAT);
+            object.setSpeed(file.readUnsignedInteger() / ConversionUtils.FLOAT);
+            object.setAirFriction(file.readUnsignedInteger() / ConversionUtils.DOUBLE);
             object.setMaterial(ConversionUtils.parseEnum(file.readUnsignedByte(), Material.class));
             short[] unknown3 = new short[3];
             for (int x = 0; x < unknown3.length; x++) {
                 unknown3[x] = (short) file.readUnsignedByte();
             }
             object.setUnknown3(unknown3);
-            object.setFlags(ConversionUtils.parseFlagValue(ConversionUtils.readUnsignedIntegerAsLong(file), Object.ObjectFlag.class));
-            object.setHp(ConversionUtils.readUnsignedShort(file));
-            object.setMaxAngle(ConversionUtils.readUnsignedShort(file));
-            object.setX34c(ConversionUtils.readUnsignedShort(file));
-            object.setX34e(ConversionUtils.readUnsignedShort(file));
-            object.setTooltipStringId(ConversionUtils.readUnsignedShort(file));
-            object.setNameStringId(ConversionUtils.readUnsignedShort(file));
-            object.setSlapEffectId(ConversionUtils.readUnsignedShort(file));
-            object.setDeathEffectId(ConversionUtils.readUnsignedShort(file));
-            object.setMiscEffectId(ConversionUtils.readUnsignedShort(file));
+            object.setFlags(ConversionUtils.parseFlagValue(file.readUnsignedIntegerAsLong(), Object.ObjectFlag.class));
+            object.setHp(file.readUnsignedShort());
+            object.setMaxAngle(file.readUnsignedShort());
+            object.setX34c(file.readUnsignedShort());
+            object.setX34e(file.readUnsignedShort());
+            object.setTooltipStringId(file.readUnsignedShort());
+            object.setNameStringId(file.readUnsignedShort());
+            object.setSlapEffectId(file.readUnsignedShort());
+            object.setDeathEffectId(file.readUnsignedShort());
+            object.setMiscEffectId(file.readUnsignedShort());
             object.setObjectId((short) file.readUnsignedByte());
             object.setStartState(ConversionUtils.parseEnum((short) file.readUnsignedByte(), Object.State.class));
             object.setRoomCapacity((short) file.readUnsignedByte());
             object.setPickUpPriority((short) file.readUnsignedByte());
 
-            object.setSoundCategory(ConversionUtils.readString(file, 32).trim());
+            object.setSoundCategory(file.readString(32).trim());
 
             // Add to the hash by the object ID
             objects.put(object.getObjectId(), object);
@@ -1579,7 +1593,7 @@ public final class KwdFile {
      * @param file the file data, rewind to data position
      * @throws IOException the reading may fail
      */
-    private void readCreatureSpells(KwdHeader header, RandomAccessFile file) throws IOException {
+    private void readCreatureSpells(KwdHeader header, ResourceReader file) throws IOException {
 
         // Read the creature spells catalog
         if (creatureSpells == null) {
@@ -1593,29 +1607,29 @@ public final class KwdFile {
             long offset = file.getFilePointer();
             CreatureSpell creatureSpell = new CreatureSpell();
 
-            creatureSpell.setName(ConversionUtils.readString(file, 32).trim());
+            creatureSpell.setName(file.readString(32).trim());
             creatureSpell.setEditorIcon(readArtResource(file));
             creatureSpell.setGuiIcon(readArtResource(file));
-            creatureSpell.setShotData1(ConversionUtils.readUnsignedInteger(file));
-            creatureSpell.setShotData2(ConversionUtils.readUnsignedInteger(file));
-            creatureSpell.setRange(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.FLOAT);
-            creatureSpell.setFlags(ConversionUtils.parseFlagValue(ConversionUtils.readUnsignedInteger(file), CreatureSpell.CreatureSpellFlag.class));
+            creatureSpell.setShotData1(file.readUnsignedInteger());
+            creatureSpell.setShotData2(file.readUnsignedInteger());
+            creatureSpell.setRange(file.readUnsignedInteger() / ConversionUtils.FLOAT);
+            creatureSpell.setFlags(ConversionUtils.parseFlagValue(file.readUnsignedInteger(), CreatureSpell.CreatureSpellFlag.class));
             short[] data2 = new short[2];
             for (int x = 0; x < data2.length; x++) {
                 data2[x] = (short) file.readUnsignedByte();
             }
             creatureSpell.setData2(data2);
-            creatureSpell.setSoundEvent(ConversionUtils.readUnsignedShort(file));
-            creatureSpell.setNameStringId(ConversionUtils.readUnsignedShort(file));
-            creatureSpell.setTooltipStringId(ConversionUtils.readUnsignedShort(file));
-            creatureSpell.setGeneralDescriptionStringId(ConversionUtils.readUnsignedShort(file));
-            creatureSpell.setStrengthStringId(ConversionUtils.readUnsignedShort(file));
-            creatureSpell.setWeaknessStringId(ConversionUtils.readUnsignedShort(file));
+            creatureSpell.setSoundEvent(file.readUnsignedShort());
+            creatureSpell.setNameStringId(file.readUnsignedShort());
+            creatureSpell.setTooltipStringId(file.readUnsignedShort());
+            creatureSpell.setGeneralDescriptionStringId(file.readUnsignedShort());
+            creatureSpell.setStrengthStringId(file.readUnsignedShort());
+            creatureSpell.setWeaknessStringId(file.readUnsignedShort());
             creatureSpell.setCreatureSpellId((short) file.readUnsignedByte());
             creatureSpell.setShotTypeId((short) file.readUnsignedByte());
             creatureSpell.setAlternativeShotId((short) file.readUnsignedByte());
             creatureSpell.setAlternativeRoomId((short) file.readUnsignedByte());
-            creatureSpell.setRechargeTime(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.FLOAT);
+            creatureSpell.setRechargeTime(file.readUnsignedInteger() / ConversionUtils.FLOAT);
             creatureSpell.setAlternativeShot(ConversionUtils.parseEnum(file.readUnsignedByte(), CreatureSpell.AlternativeShot.class));
             short[] data3 = new short[27];
             for (int x = 0; x < data3.length; x++) {
@@ -1638,7 +1652,7 @@ public final class KwdFile {
      * @param file the file data, rewind to data position
      * @throws IOException the reading may fail
      */
-    private void readEffectElements(KwdHeader header, RandomAccessFile file) throws IOException {
+    private void readEffectElements(KwdHeader header, ResourceReader file) throws IOException {
 
         // Read the effect elements catalog
         if (effectElements == null) {
@@ -1652,31 +1666,31 @@ public final class KwdFile {
             long offset = file.getFilePointer();
             EffectElement effectElement = new EffectElement();
 
-            effectElement.setName(ConversionUtils.readString(file, 32).trim());
+            effectElement.setName(file.readString(32).trim());
             effectElement.setArtResource(readArtResource(file));
-            effectElement.setMass(ConversionUtils.readInteger(file) / ConversionUtils.FLOAT);
-            effectElement.setAirFriction(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.DOUBLE);
-            effectElement.setElasticity(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.DOUBLE);
-            effectElement.setMinSpeedXy(ConversionUtils.readInteger(file) / ConversionUtils.FLOAT);
-            effectElement.setMaxSpeedXy(ConversionUtils.readInteger(file) / ConversionUtils.FLOAT);
-            effectElement.setMinSpeedYz(ConversionUtils.readInteger(file) / ConversionUtils.FLOAT);
-            effectElement.setMaxSpeedYz(ConversionUtils.readInteger(file) / ConversionUtils.FLOAT);
-            effectElement.setMinScale(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.FLOAT);
-            effectElement.setMaxScale(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.FLOAT);
-            effectElement.setScaleRatio(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.FLOAT);
-            effectElement.setFlags(ConversionUtils.parseFlagValue(ConversionUtils.readUnsignedInteger(file), EffectElement.EffectElementFlag.class));
-            effectElement.setEffectElementId(ConversionUtils.readUnsignedShort(file));
-            effectElement.setMinHp(ConversionUtils.readUnsignedShort(file));
-            effectElement.setMaxHp(ConversionUtils.readUnsignedShort(file));
-            effectElement.setDeathElementId(ConversionUtils.readUnsignedShort(file));
-            effectElement.setHitSolidElementId(ConversionUtils.readUnsignedShort(file));
-            effectElement.setHitWaterElementId(ConversionUtils.readUnsignedShort(file));
-            effectElement.setHitLavaElementId(ConversionUtils.readUnsignedShort(file));
+            effectElement.setMass(file.readInteger() / ConversionUtils.FLOAT);
+            effectElement.setAirFriction(file.readUnsignedInteger() / ConversionUtils.DOUBLE);
+            effectElement.setElasticity(file.readUnsignedInteger() / ConversionUtils.DOUBLE);
+            effectElement.setMinSpeedXy(file.readInteger() / ConversionUtils.FLOAT);
+            effectElement.setMaxSpeedXy(file.readInteger() / ConversionUtils.FLOAT);
+            effectElement.setMinSpeedYz(file.readInteger() / ConversionUtils.FLOAT);
+            effectElement.setMaxSpeedYz(file.readInteger() / ConversionUtils.FLOAT);
+            effectElement.setMinScale(file.readUnsignedInteger() / ConversionUtils.FLOAT);
+            effectElement.setMaxScale(file.readUnsignedInteger() / ConversionUtils.FLOAT);
+            effectElement.setScaleRatio(file.readUnsignedInteger() / ConversionUtils.FLOAT);
+            effectElement.setFlags(ConversionUtils.parseFlagValue(file.readUnsignedInteger(), EffectElement.EffectElementFlag.class));
+            effectElement.setEffectElementId(file.readUnsignedShort());
+            effectElement.setMinHp(file.readUnsignedShort());
+            effectElement.setMaxHp(file.readUnsignedShort());
+            effectElement.setDeathElementId(file.readUnsignedShort());
+            effectElement.setHitSolidElementId(file.readUnsignedShort());
+            effectElement.setHitWaterElementId(file.readUnsignedShort());
+            effectElement.setHitLavaElementId(file.readUnsignedShort());
             effectElement.setColor(new Color(file.readUnsignedByte(), file.readUnsignedByte(), file.readUnsignedByte()));
             effectElement.setRandomColorIndex((short) file.readUnsignedByte());
             effectElement.setTableColorIndex((short) file.readUnsignedByte());
             effectElement.setFadePercentage((short) file.readUnsignedByte());
-            effectElement.setNextEffectId(ConversionUtils.readUnsignedShort(file));
+            effectElement.setNextEffectId(file.readUnsignedShort());
 
             // Add to the hash by the effect element ID
             effectElements.put(effectElement.getEffectElementId(), effectElement);
@@ -1693,7 +1707,7 @@ public final class KwdFile {
      * @param file the file data, rewind to data position
      * @throws IOException the reading may fail
      */
-    private void readEffects(KwdHeader header, RandomAccessFile file) throws IOException {
+    private void readEffects(KwdHeader header, ResourceReader file) throws IOException {
 
         // Read the effects catalog
         if (effects == null) {
@@ -1707,52 +1721,52 @@ public final class KwdFile {
             long offset = file.getFilePointer();
             Effect effect = new Effect();
 
-            effect.setName(ConversionUtils.readString(file, 32).trim());
+            effect.setName(file.readString(32).trim());
             effect.setArtResource(readArtResource(file));
             effect.setLight(readLight(file));
-            effect.setMass(ConversionUtils.readInteger(file) / ConversionUtils.FLOAT);
-            effect.setAirFriction(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.DOUBLE);
-            effect.setElasticity(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.DOUBLE);
-            effect.setRadius(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.FLOAT);
-            effect.setMinSpeedXy(ConversionUtils.readInteger(file) / ConversionUtils.FLOAT);
-            effect.setMaxSpeedXy(ConversionUtils.readInteger(file) / ConversionUtils.FLOAT);
-            effect.setMinSpeedYz(ConversionUtils.readInteger(file) / ConversionUtils.FLOAT);
-            effect.setMaxSpeedYz(ConversionUtils.readInteger(file) / ConversionUtils.FLOAT);
-            effect.setMinScale(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.FLOAT);
-            effect.setMaxScale(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.FLOAT);
-            effect.setFlags(ConversionUtils.parseFlagValue(ConversionUtils.readUnsignedInteger(file), Effect.EffectFlag.class));
-            effect.setEffectId(ConversionUtils.readUnsignedShort(file));
-            effect.setMinHp(ConversionUtils.readUnsignedShort(file));
-            effect.setMaxHp(ConversionUtils.readUnsignedShort(file));
-            effect.setFadeDuration(ConversionUtils.readUnsignedShort(file));
-            effect.setNextEffectId(ConversionUtils.readUnsignedShort(file));
-            effect.setDeathEffectId(ConversionUtils.readUnsignedShort(file));
-            effect.setHitSolidEffectId(ConversionUtils.readUnsignedShort(file));
-            effect.setHitWaterEffectId(ConversionUtils.readUnsignedShort(file));
-            effect.setHitLavaEffectId(ConversionUtils.readUnsignedShort(file));
+            effect.setMass(file.readInteger() / ConversionUtils.FLOAT);
+            effect.setAirFriction(file.readUnsignedInteger() / ConversionUtils.DOUBLE);
+            effect.setElasticity(file.readUnsignedInteger() / ConversionUtils.DOUBLE);
+            effect.setRadius(file.readUnsignedInteger() / ConversionUtils.FLOAT);
+            effect.setMinSpeedXy(file.readInteger() / ConversionUtils.FLOAT);
+            effect.setMaxSpeedXy(file.readInteger() / ConversionUtils.FLOAT);
+            effect.setMinSpeedYz(file.readInteger() / ConversionUtils.FLOAT);
+            effect.setMaxSpeedYz(file.readInteger() / ConversionUtils.FLOAT);
+            effect.setMinScale(file.readUnsignedInteger() / ConversionUtils.FLOAT);
+            effect.setMaxScale(file.readUnsignedInteger() / ConversionUtils.FLOAT);
+            effect.setFlags(ConversionUtils.parseFlagValue(file.readUnsignedInteger(), Effect.EffectFlag.class));
+            effect.setEffectId(file.readUnsignedShort());
+            effect.setMinHp(file.readUnsignedShort());
+            effect.setMaxHp(file.readUnsignedShort());
+            effect.setFadeDuration(file.readUnsignedShort());
+            effect.setNextEffectId(file.readUnsignedShort());
+            effect.setDeathEffectId(file.readUnsignedShort());
+            effect.setHitSolidEffectId(file.readUnsignedShort());
+            effect.setHitWaterEffectId(file.readUnsignedShort());
+            effect.setHitLavaEffectId(file.readUnsignedShort());
             List<Integer> generateIds = new ArrayList<>(8);
             for (int x = 0; x < 8; x++) {
-                int id = ConversionUtils.readUnsignedShort(file);
+                int id = file.readUnsignedShort();
                 if (id > 0) {
                     generateIds.add(id);
                 }
             }
             effect.setGenerateIds(generateIds);
-            effect.setOuterOriginRange(ConversionUtils.readUnsignedShort(file));
-            effect.setLowerHeightLimit(ConversionUtils.readUnsignedShort(file));
-            effect.setUpperHeightLimit(ConversionUtils.readUnsignedShort(file));
-            effect.setOrientationRange(ConversionUtils.readUnsignedShort(file));
-            effect.setSpriteSpinRateRange(ConversionUtils.readUnsignedShort(file));
-            effect.setWhirlpoolRate(ConversionUtils.readUnsignedShort(file));
-            effect.setDirectionalSpread(ConversionUtils.readUnsignedShort(file));
-            effect.setCircularPathRate(ConversionUtils.readUnsignedShort(file));
-            effect.setInnerOriginRange(ConversionUtils.readUnsignedShort(file));
-            effect.setGenerateRandomness(ConversionUtils.readUnsignedShort(file));
-            effect.setMisc2(ConversionUtils.readUnsignedShort(file));
-            effect.setMisc3(ConversionUtils.readUnsignedShort(file));
+            effect.setOuterOriginRange(file.readUnsignedShort());
+            effect.setLowerHeightLimit(file.readUnsignedShort());
+            effect.setUpperHeightLimit(file.readUnsignedShort());
+            effect.setOrientationRange(file.readUnsignedShort());
+            effect.setSpriteSpinRateRange(file.readUnsignedShort());
+            effect.setWhirlpoolRate(file.readUnsignedShort());
+            effect.setDirectionalSpread(file.readUnsignedShort());
+            effect.setCircularPathRate(file.readUnsignedShort());
+            effect.setInnerOriginRange(file.readUnsignedShort());
+            effect.setGenerateRandomness(file.readUnsignedShort());
+            effect.setMisc2(file.readUnsignedShort());
+            effect.setMisc3(file.readUnsignedShort());
             effect.setGenerationType(ConversionUtils.parseEnum((short) file.readUnsignedByte(), Effect.GenerationType.class));
             effect.setElementsPerTurn((short) file.readUnsignedByte());
-            effect.setUnknown3(ConversionUtils.readUnsignedShort(file));
+            effect.setUnknown3(file.readUnsignedShort());
 
             // Add to the hash by the effect ID
             effects.put(effect.getEffectId(), effect);
@@ -1769,7 +1783,7 @@ public final class KwdFile {
      * @param file the file data, rewind to data position
      * @throws IOException the reading may fail
      */
-    private void readKeeperSpells(KwdHeader header, RandomAccessFile file) throws IOException {
+    private void readKeeperSpells(KwdHeader header, ResourceReader file) throws IOException {
 
         // Read the keeper spells catalog
         if (keeperSpells == null) {
@@ -1783,37 +1797,37 @@ public final class KwdFile {
             long offset = file.getFilePointer();
             KeeperSpell keeperSpell = new KeeperSpell();
 
-            keeperSpell.setName(ConversionUtils.readString(file, 32).trim());
+            keeperSpell.setName(file.readString(32).trim());
             keeperSpell.setGuiIcon(readArtResource(file));
             keeperSpell.setEditorIcon(readArtResource(file));
-            keeperSpell.setXc8(ConversionUtils.readInteger(file));
-            keeperSpell.setRechargeTime(ConversionUtils.readInteger(file) / ConversionUtils.FLOAT);
-            keeperSpell.setShotData1(ConversionUtils.readInteger(file));
-            keeperSpell.setShotData2(ConversionUtils.readInteger(file));
-            keeperSpell.setResearchTime(ConversionUtils.readUnsignedShort(file));
+            keeperSpell.setXc8(file.readInteger());
+            keeperSpell.setRechargeTime(file.readInteger() / ConversionUtils.FLOAT);
+            keeperSpell.setShotData1(file.readInteger());
+            keeperSpell.setShotData2(file.readInteger());
+            keeperSpell.setResearchTime(file.readUnsignedShort());
             keeperSpell.setTargetRule(ConversionUtils.parseEnum((short) file.readUnsignedByte(), KeeperSpell.TargetRule.class));
             keeperSpell.setOrderInEditor((short) file.readUnsignedByte());
-            keeperSpell.setFlags(ConversionUtils.parseFlagValue(ConversionUtils.readUnsignedInteger(file), KeeperSpell.KeeperSpellFlag.class));
-            keeperSpell.setXe0Unreferenced(ConversionUtils.readUnsignedShort(file));
-            keeperSpell.setManaDrain(ConversionUtils.readUnsignedShort(file));
-            keeperSpell.setTooltipStringId(ConversionUtils.readUnsignedShort(file));
-            keeperSpell.setNameStringId(ConversionUtils.readUnsignedShort(file));
-            keeperSpell.setGeneralDescriptionStringId(ConversionUtils.readUnsignedShort(file));
-            keeperSpell.setStrengthStringId(ConversionUtils.readUnsignedShort(file));
-            keeperSpell.setWeaknessStringId(ConversionUtils.readUnsignedShort(file));
+            keeperSpell.setFlags(ConversionUtils.parseFlagValue(file.readUnsignedInteger(), KeeperSpell.KeeperSpellFlag.class));
+            keeperSpell.setXe0Unreferenced(file.readUnsignedShort());
+            keeperSpell.setManaDrain(file.readUnsignedShort());
+            keeperSpell.setTooltipStringId(file.readUnsignedShort());
+            keeperSpell.setNameStringId(file.readUnsignedShort());
+            keeperSpell.setGeneralDescriptionStringId(file.readUnsignedShort());
+            keeperSpell.setStrengthStringId(file.readUnsignedShort());
+            keeperSpell.setWeaknessStringId(file.readUnsignedShort());
             keeperSpell.setKeeperSpellId((short) file.readUnsignedByte());
             keeperSpell.setCastRule(ConversionUtils.parseEnum((short) file.readUnsignedByte(), KeeperSpell.CastRule.class));
             keeperSpell.setShotTypeId((short) file.readUnsignedByte());
 
-            keeperSpell.setSoundGategory(ConversionUtils.readString(file, 32).trim());
-            keeperSpell.setBonusRTime(ConversionUtils.readUnsignedShort(file));
+            keeperSpell.setSoundGategory(file.readString(32).trim());
+            keeperSpell.setBonusRTime(file.readUnsignedShort());
             keeperSpell.setBonusShotTypeId((short) file.readUnsignedByte());
-            keeperSpell.setBonusShotData1(ConversionUtils.readInteger(file));
-            keeperSpell.setBonusShotData2(ConversionUtils.readInteger(file));
-            keeperSpell.setManaCost(ConversionUtils.readInteger(file));
+            keeperSpell.setBonusShotData1(file.readInteger());
+            keeperSpell.setBonusShotData2(file.readInteger());
+            keeperSpell.setManaCost(file.readInteger());
             keeperSpell.setBonusIcon(readArtResource(file));
 
-            keeperSpell.setSoundGategoryGui(ConversionUtils.readString(file, 32).trim());
+            keeperSpell.setSoundGategoryGui(file.readString(32).trim());
             keeperSpell.setHandAnimId(ConversionUtils.parseEnum((short) file.readUnsignedByte(), KeeperSpell.HandAnimId.class));
             keeperSpell.setNoGoHandAnimId(ConversionUtils.parseEnum((short) file.readUnsignedByte(), KeeperSpell.HandAnimId.class));
 
@@ -1832,7 +1846,7 @@ public final class KwdFile {
      * @param file the file data, rewind to data position
      * @throws IOException the reading may fail
      */
-    private void readThings(KwdHeader header, RandomAccessFile file) throws IOException {
+    private void readThings(KwdHeader header, ResourceReader file) throws IOException {
 
         // Read the requested Things file
         if (things == null) {
@@ -1846,7 +1860,7 @@ public final class KwdFile {
             Thing thing = null;
             int[] thingTag = new int[2];
             for (int x = 0; x < thingTag.length; x++) {
-                thingTag[x] = ConversionUtils.readUnsignedInteger(file);
+                thingTag[x] = file.readUnsignedInteger();
             }
             long offset = file.getFilePointer();
 
@@ -1856,16 +1870,16 @@ public final class KwdFile {
 
                     // Object (door & trap crates, objects...)
                     thing = new Thing.Object();
-                    ((Thing.Object) thing).setPosX(ConversionUtils.readInteger(file));
-                    ((Thing.Object) thing).setPosY(ConversionUtils.readInteger(file));
+                    ((Thing.Object) thing).setPosX(file.readInteger());
+                    ((Thing.Object) thing).setPosY(file.readInteger());
                     short unknown1[] = new short[4];
                     for (int x = 0; x < unknown1.length; x++) {
                         unknown1[x] = (short) file.readUnsignedByte();
                     }
                     ((Thing.Object) thing).setUnknown1(unknown1);
-                    ((Thing.Object) thing).setKeeperSpellId(ConversionUtils.readInteger(file));
-                    ((Thing.Object) thing).setMoneyAmount(ConversionUtils.readInteger(file));
-                    ((Thing.Object) thing).setTriggerId(ConversionUtils.readUnsignedShort(file));
+                    ((Thing.Object) thing).setKeeperSpellId(file.readInteger());
+                    ((Thing.Object) thing).setMoneyAmount(file.readInteger());
+                    ((Thing.Object) thing).setTriggerId(file.readUnsignedShort());
                     ((Thing.Object) thing).setObjectId((short) file.readUnsignedByte());
                     ((Thing.Object) thing).setPlayerId((short) file.readUnsignedByte());
                     break;
@@ -1874,9 +1888,9 @@ public final class KwdFile {
 
                     // Trap
                     thing = new Thing.Trap();
-                    ((Thing.Trap) thing).setPosX(ConversionUtils.readInteger(file));
-                    ((Thing.Trap) thing).setPosY(ConversionUtils.readInteger(file));
-                    ((Thing.Trap) thing).setUnknown1(ConversionUtils.readInteger(file));
+                    ((Thing.Trap) thing).setPosX(file.readInteger());
+                    ((Thing.Trap) thing).setPosY(file.readInteger());
+                    ((Thing.Trap) thing).setUnknown1(file.readInteger());
                     ((Thing.Trap) thing).setNumberOfShots((short) file.readUnsignedByte());
                     ((Thing.Trap) thing).setTrapId((short) file.readUnsignedByte());
                     ((Thing.Trap) thing).setPlayerId((short) file.readUnsignedByte());
@@ -1887,10 +1901,10 @@ public final class KwdFile {
 
                     // Door
                     thing = new Thing.Door();
-                    ((Thing.Door) thing).setPosX(ConversionUtils.readInteger(file));
-                    ((Thing.Door) thing).setPosY(ConversionUtils.readInteger(file));
-                    ((Thing.Door) thing).setUnknown1(ConversionUtils.readInteger(file));
-                    ((Thing.Door) thing).setTriggerId(ConversionUtils.readUnsignedShort(file));
+                    ((Thing.Door) thing).setPosX(file.readInteger());
+                    ((Thing.Door) thing).setPosY(file.readInteger());
+                    ((Thing.Door) thing).setUnknown1(file.readInteger());
+                    ((Thing.Door) thing).setTriggerId(file.readUnsignedShort());
                     ((Thing.Door) thing).setDoorId((short) file.readUnsignedByte());
                     ((Thing.Door) thing).setPlayerId((short) file.readUnsignedByte());
                     ((Thing.Door) thing).setFlag(ConversionUtils.parseEnum(file.readUnsignedByte(), Thing.Door.DoorFlag.class));
@@ -1905,31 +1919,31 @@ public final class KwdFile {
 
                     // ActionPoint
                     thing = new ActionPoint();
-                    ((ActionPoint) thing).setStartX(ConversionUtils.readInteger(file));
-                    ((ActionPoint) thing).setStartY(ConversionUtils.readInteger(file));
-                    ((ActionPoint) thing).setEndX(ConversionUtils.readInteger(file));
-                    ((ActionPoint) thing).setEndY(ConversionUtils.readInteger(file));
-                    ((ActionPoint) thing).setWaitDelay(ConversionUtils.readUnsignedShort(file));
-                    ((ActionPoint) thing).setFlags(ConversionUtils.parseFlagValue(ConversionUtils.readUnsignedShort(file), ActionPointFlag.class));
-                    ((ActionPoint) thing).setTriggerId(ConversionUtils.readUnsignedShort(file));
+                    ((ActionPoint) thing).setStartX(file.readInteger());
+                    ((ActionPoint) thing).setStartY(file.readInteger());
+                    ((ActionPoint) thing).setEndX(file.readInteger());
+                    ((ActionPoint) thing).setEndY(file.readInteger());
+                    ((ActionPoint) thing).setWaitDelay(file.readUnsignedShort());
+                    ((ActionPoint) thing).setFlags(ConversionUtils.parseFlagValue(file.readUnsignedShort(), ActionPointFlag.class));
+                    ((ActionPoint) thing).setTriggerId(file.readUnsignedShort());
                     ((ActionPoint) thing).setId((short) file.readUnsignedByte());
                     ((ActionPoint) thing).setNextWaypointId((short) file.readUnsignedByte());
 
-                    ((ActionPoint) thing).setName(ConversionUtils.readString(file, 32).trim());
+                    ((ActionPoint) thing).setName(file.readString(32).trim());
                     break;
                 }
                 case 198: {
 
                     // Neutral creature
                     thing = new Thing.NeutralCreature();
-                    ((NeutralCreature) thing).setPosX(ConversionUtils.readInteger(file));
-                    ((NeutralCreature) thing).setPosY(ConversionUtils.readInteger(file));
-                    ((NeutralCreature) thing).setPosZ(ConversionUtils.readInteger(file));
-                    ((NeutralCreature) thing).setGoldHeld(ConversionUtils.readUnsignedShort(file));
+                    ((NeutralCreature) thing).setPosX(file.readInteger());
+                    ((NeutralCreature) thing).setPosY(file.readInteger());
+                    ((NeutralCreature) thing).setPosZ(file.readInteger());
+                    ((NeutralCreature) thing).setGoldHeld(file.readUnsignedShort());
                     ((NeutralCreature) thing).setLevel((short) file.readUnsignedByte());
                     ((NeutralCreature) thing).setFlags(ConversionUtils.parseFlagValue((short) file.readUnsignedByte(), Thing.Creature.CreatureFlag.class));
-                    ((NeutralCreature) thing).setInitialHealth(ConversionUtils.readInteger(file));
-                    ((NeutralCreature) thing).setTriggerId(ConversionUtils.readUnsignedShort(file));
+                    ((NeutralCreature) thing).setInitialHealth(file.readInteger());
+                    ((NeutralCreature) thing).setTriggerId(file.readUnsignedShort());
                     ((NeutralCreature) thing).setCreatureId((short) file.readUnsignedByte());
                     ((NeutralCreature) thing).setUnknown1((short) file.readUnsignedByte());
                     break;
@@ -1938,15 +1952,15 @@ public final class KwdFile {
 
                     // Good creature
                     thing = new Thing.GoodCreature();
-                    ((GoodCreature) thing).setPosX(ConversionUtils.readInteger(file));
-                    ((GoodCreature) thing).setPosY(ConversionUtils.readInteger(file));
-                    ((GoodCreature) thing).setPosZ(ConversionUtils.readInteger(file));
-                    ((GoodCreature) thing).setGoldHeld(ConversionUtils.readUnsignedShort(file));
+                    ((GoodCreature) thing).setPosX(file.readInteger());
+                    ((GoodCreature) thing).setPosY(file.readInteger());
+                    ((GoodCreature) thing).setPosZ(file.readInteger());
+                    ((GoodCreature) thing).setGoldHeld(file.readUnsignedShort());
                     ((GoodCreature) thing).setLevel((short) file.readUnsignedByte());
                     ((GoodCreature) thing).setFlags(ConversionUtils.parseFlagValue((short) file.readUnsignedByte(), Thing.Creature.CreatureFlag.class));
-                    ((GoodCreature) thing).setObjectiveTargetActionPointId(ConversionUtils.readInteger(file));
-                    ((GoodCreature) thing).setInitialHealth(ConversionUtils.readInteger(file));
-                    ((GoodCreature) thing).setTriggerId(ConversionUtils.readUnsignedShort(file));
+                    ((GoodCreature) thing).setObjectiveTargetActionPointId(file.readInteger());
+                    ((GoodCreature) thing).setInitialHealth(file.readInteger());
+                    ((GoodCreature) thing).setTriggerId(file.readUnsignedShort());
                     ((GoodCreature) thing).setObjectiveTargetPlayerId((short) file.readUnsignedByte());
                     ((GoodCreature) thing).setObjective(ConversionUtils.parseEnum((short) file.readUnsignedByte(), Thing.HeroParty.Objective.class));
                     ((GoodCreature) thing).setCreatureId((short) file.readUnsignedByte());
@@ -1962,15 +1976,15 @@ public final class KwdFile {
 
                     // Creature
                     thing = new Thing.KeeperCreature();
-                    ((KeeperCreature) thing).setPosX(ConversionUtils.readInteger(file));
-                    ((KeeperCreature) thing).setPosY(ConversionUtils.readInteger(file));
-                    ((KeeperCreature) thing).setPosZ(ConversionUtils.readInteger(file));
-                    ((KeeperCreature) thing).setGoldHeld(ConversionUtils.readUnsignedShort(file));
+                    ((KeeperCreature) thing).setPosX(file.readInteger());
+                    ((KeeperCreature) thing).setPosY(file.readInteger());
+                    ((KeeperCreature) thing).setPosZ(file.readInteger());
+                    ((KeeperCreature) thing).setGoldHeld(file.readUnsignedShort());
                     ((KeeperCreature) thing).setLevel((short) file.readUnsignedByte());
                     ((KeeperCreature) thing).setFlags(ConversionUtils.parseFlagValue((short) file.readUnsignedByte(), KeeperCreature.CreatureFlag.class));
-                    ((KeeperCreature) thing).setInitialHealth(ConversionUtils.readInteger(file));
-                    ((KeeperCreature) thing).setObjectiveTargetActionPointId(ConversionUtils.readInteger(file));
-                    ((KeeperCreature) thing).setTriggerId(ConversionUtils.readUnsignedShort(file));
+                    ((KeeperCreature) thing).setInitialHealth(file.readInteger());
+                    ((KeeperCreature) thing).setObjectiveTargetActionPointId(file.readInteger());
+                    ((KeeperCreature) thing).setTriggerId(file.readUnsignedShort());
                     ((KeeperCreature) thing).setCreatureId((short) file.readUnsignedByte());
                     ((KeeperCreature) thing).setPlayerId((short) file.readUnsignedByte());
                     break;
@@ -1980,23 +1994,23 @@ public final class KwdFile {
                     // HeroParty
                     thing = new HeroParty();
 
-                    ((HeroParty) thing).setName(ConversionUtils.readString(file, 32).trim());
-                    ((HeroParty) thing).setTriggerId(ConversionUtils.readUnsignedShort(file));
+                    ((HeroParty) thing).setName(file.readString(32).trim());
+                    ((HeroParty) thing).setTriggerId(file.readUnsignedShort());
                     ((HeroParty) thing).setId((short) file.readUnsignedByte());
-                    ((HeroParty) thing).setX23(ConversionUtils.readInteger(file));
-                    ((HeroParty) thing).setX27(ConversionUtils.readInteger(file));
+                    ((HeroParty) thing).setX23(file.readInteger());
+                    ((HeroParty) thing).setX27(file.readInteger());
                     List<GoodCreature> heroPartyMembers = new ArrayList<>(16);
                     for (int x = 0; x < 16; x++) {
                         GoodCreature creature = new GoodCreature();
-                        creature.setPosX(ConversionUtils.readInteger(file));
-                        creature.setPosY(ConversionUtils.readInteger(file));
-                        creature.setPosZ(ConversionUtils.readInteger(file));
-                        creature.setGoldHeld(ConversionUtils.readUnsignedShort(file));
+                        creature.setPosX(file.readInteger());
+                        creature.setPosY(file.readInteger());
+                        creature.setPosZ(file.readInteger());
+                        creature.setGoldHeld(file.readUnsignedShort());
                         creature.setLevel((short) file.readUnsignedByte());
                         creature.setFlags(ConversionUtils.parseFlagValue((short) file.readUnsignedByte(), KeeperCreature.CreatureFlag.class));
-                        creature.setObjectiveTargetActionPointId(ConversionUtils.readInteger(file));
-                        creature.setInitialHealth(ConversionUtils.readInteger(file));
-                        creature.setTriggerId(ConversionUtils.readUnsignedShort(file));
+                        creature.setObjectiveTargetActionPointId(file.readInteger());
+                        creature.setInitialHealth(file.readInteger());
+                        creature.setTriggerId(file.readUnsignedShort());
                         creature.setObjectiveTargetPlayerId((short) file.readUnsignedByte());
                         creature.setObjective(ConversionUtils.parseEnum((short) file.readUnsignedByte(), Thing.HeroParty.Objective.class));
                         creature.setCreatureId((short) file.readUnsignedByte());
@@ -2019,10 +2033,10 @@ public final class KwdFile {
 
                     // Dead body
                     thing = new Thing.DeadBody();
-                    ((Thing.DeadBody) thing).setPosX(ConversionUtils.readInteger(file));
-                    ((Thing.DeadBody) thing).setPosY(ConversionUtils.readInteger(file));
-                    ((Thing.DeadBody) thing).setPosZ(ConversionUtils.readInteger(file));
-                    ((Thing.DeadBody) thing).setGoldHeld(ConversionUtils.readUnsignedShort(file));
+                    ((Thing.DeadBody) thing).setPosX(file.readInteger());
+                    ((Thing.DeadBody) thing).setPosY(file.readInteger());
+                    ((Thing.DeadBody) thing).setPosZ(file.readInteger());
+                    ((Thing.DeadBody) thing).setGoldHeld(file.readUnsignedShort());
                     ((Thing.DeadBody) thing).setCreatureId((short) file.readUnsignedByte());
                     ((Thing.DeadBody) thing).setPlayerId((short) file.readUnsignedByte());
                     break;
@@ -2031,15 +2045,15 @@ public final class KwdFile {
 
                     // Effect generator
                     thing = new Thing.EffectGenerator();
-                    ((Thing.EffectGenerator) thing).setPosX(ConversionUtils.readInteger(file));
-                    ((Thing.EffectGenerator) thing).setPosY(ConversionUtils.readInteger(file));
-                    ((Thing.EffectGenerator) thing).setX08(ConversionUtils.readInteger(file));
-                    ((Thing.EffectGenerator) thing).setX0c(ConversionUtils.readInteger(file));
-                    ((Thing.EffectGenerator) thing).setX10(ConversionUtils.readUnsignedShort(file));
-                    ((Thing.EffectGenerator) thing).setX12(ConversionUtils.readUnsignedShort(file));
+                    ((Thing.EffectGenerator) thing).setPosX(file.readInteger());
+                    ((Thing.EffectGenerator) thing).setPosY(file.readInteger());
+                    ((Thing.EffectGenerator) thing).setX08(file.readInteger());
+                    ((Thing.EffectGenerator) thing).setX0c(file.readInteger());
+                    ((Thing.EffectGenerator) thing).setX10(file.readUnsignedShort());
+                    ((Thing.EffectGenerator) thing).setX12(file.readUnsignedShort());
                     List<Integer> effectIds = new ArrayList<>(4);
                     for (int x = 0; x < 4; x++) {
-                        int effectId = ConversionUtils.readUnsignedShort(file);
+                        int effectId = file.readUnsignedShort();
                         if (effectId > 0) {
                             effectIds.add(effectId);
                         }
@@ -2058,13 +2072,13 @@ public final class KwdFile {
 
                     // Room
                     thing = new Thing.Room();
-                    ((Thing.Room) thing).setPosX(ConversionUtils.readInteger(file));
-                    ((Thing.Room) thing).setPosY(ConversionUtils.readInteger(file));
-                    ((Thing.Room) thing).setX08(ConversionUtils.readInteger(file));
-                    ((Thing.Room) thing).setX0c(ConversionUtils.readUnsignedShort(file));
+                    ((Thing.Room) thing).setPosX(file.readInteger());
+                    ((Thing.Room) thing).setPosY(file.readInteger());
+                    ((Thing.Room) thing).setX08(file.readInteger());
+                    ((Thing.Room) thing).setX0c(file.readUnsignedShort());
                     ((Thing.Room) thing).setDirection(ConversionUtils.parseEnum((short) file.readUnsignedByte(), Thing.Room.Direction.class));
                     ((Thing.Room) thing).setX0f((short) file.readUnsignedByte());
-                    ((Thing.Room) thing).setInitialHealth(ConversionUtils.readUnsignedShort(file));
+                    ((Thing.Room) thing).setInitialHealth(file.readUnsignedShort());
                     ((Thing.Room) thing).setRoomType(ConversionUtils.parseEnum((short) file.readUnsignedByte(), Thing.Room.RoomType.class));
                     ((Thing.Room) thing).setPlayerId((short) file.readUnsignedByte());
                     break;
@@ -2073,30 +2087,30 @@ public final class KwdFile {
 
                     // TODO: decode values
                     thing = new Thing.Camera();
-                    ((Thing.Camera) thing).setX00(new Vector3f(ConversionUtils.readInteger(file) / ConversionUtils.FLOAT,
-                            ConversionUtils.readInteger(file) / ConversionUtils.FLOAT,
-                            ConversionUtils.readInteger(file) / ConversionUtils.FLOAT));
-                    ((Thing.Camera) thing).setX0c(new Vector3f(ConversionUtils.readInteger(file) / ConversionUtils.FLOAT,
-                            ConversionUtils.readInteger(file) / ConversionUtils.FLOAT,
-                            ConversionUtils.readInteger(file) / ConversionUtils.FLOAT));
-                    ((Thing.Camera) thing).setX18(new Vector3f(ConversionUtils.readInteger(file) / ConversionUtils.FLOAT,
-                            ConversionUtils.readInteger(file) / ConversionUtils.FLOAT,
-                            ConversionUtils.readInteger(file) / ConversionUtils.FLOAT));
-                    ((Thing.Camera) thing).setFog(ConversionUtils.readInteger(file) / ConversionUtils.FLOAT);
-                    ((Thing.Camera) thing).setFogMin(ConversionUtils.readInteger(file) / ConversionUtils.FLOAT);
-                    ((Thing.Camera) thing).setFogMax(ConversionUtils.readInteger(file) / ConversionUtils.FLOAT);
-                    ((Thing.Camera) thing).setHeight(ConversionUtils.readInteger(file) / ConversionUtils.FLOAT);
-                    ((Thing.Camera) thing).setHeightMin(ConversionUtils.readInteger(file) / ConversionUtils.FLOAT);
-                    ((Thing.Camera) thing).setHeightMax(ConversionUtils.readInteger(file) / ConversionUtils.FLOAT);
-                    ((Thing.Camera) thing).setFov(ConversionUtils.readInteger(file) / ConversionUtils.FLOAT);
-                    ((Thing.Camera) thing).setFovMin(ConversionUtils.readInteger(file) / ConversionUtils.FLOAT);
-                    ((Thing.Camera) thing).setFovMax(ConversionUtils.readInteger(file) / ConversionUtils.FLOAT);
-                    ((Thing.Camera) thing).setFlags(ConversionUtils.parseFlagValue(ConversionUtils.readInteger(file),
+                    ((Thing.Camera) thing).setX00(new Vector3f(file.readInteger() / ConversionUtils.FLOAT,
+                            file.readInteger() / ConversionUtils.FLOAT,
+                            file.readInteger() / ConversionUtils.FLOAT));
+                    ((Thing.Camera) thing).setX0c(new Vector3f(file.readInteger() / ConversionUtils.FLOAT,
+                            file.readInteger() / ConversionUtils.FLOAT,
+                            file.readInteger() / ConversionUtils.FLOAT));
+                    ((Thing.Camera) thing).setX18(new Vector3f(file.readInteger() / ConversionUtils.FLOAT,
+                            file.readInteger() / ConversionUtils.FLOAT,
+                            file.readInteger() / ConversionUtils.FLOAT));
+                    ((Thing.Camera) thing).setFog(file.readInteger() / ConversionUtils.FLOAT);
+                    ((Thing.Camera) thing).setFogMin(file.readInteger() / ConversionUtils.FLOAT);
+                    ((Thing.Camera) thing).setFogMax(file.readInteger() / ConversionUtils.FLOAT);
+                    ((Thing.Camera) thing).setHeight(file.readInteger() / ConversionUtils.FLOAT);
+                    ((Thing.Camera) thing).setHeightMin(file.readInteger() / ConversionUtils.FLOAT);
+                    ((Thing.Camera) thing).setHeightMax(file.readInteger() / ConversionUtils.FLOAT);
+                    ((Thing.Camera) thing).setFov(file.readInteger() / ConversionUtils.FLOAT);
+                    ((Thing.Camera) thing).setFovMin(file.readInteger() / ConversionUtils.FLOAT);
+                    ((Thing.Camera) thing).setFovMax(file.readInteger() / ConversionUtils.FLOAT);
+                    ((Thing.Camera) thing).setFlags(ConversionUtils.parseFlagValue(file.readInteger(),
                             Thing.Camera.CameraFlag.class));
-                    ((Thing.Camera) thing).setAngleYaw(ConversionUtils.readUnsignedShort(file));
-                    ((Thing.Camera) thing).setAngleRoll(ConversionUtils.readUnsignedShort(file));
-                    ((Thing.Camera) thing).setAnglePitch(ConversionUtils.readUnsignedShort(file));
-                    ((Thing.Camera) thing).setId((short) ConversionUtils.readUnsignedShort(file));
+                    ((Thing.Camera) thing).setAngleYaw(file.readUnsignedShort());
+                    ((Thing.Camera) thing).setAngleRoll(file.readUnsignedShort());
+                    ((Thing.Camera) thing).setAnglePitch(file.readUnsignedShort());
+                    ((Thing.Camera) thing).setId((short) file.readUnsignedShort());
                     break;
                 }
                 default: {
@@ -2122,7 +2136,7 @@ public final class KwdFile {
      * @param file the file data, rewind to data position
      * @throws IOException the reading may fail
      */
-    private void readShots(KwdHeader header, RandomAccessFile file) throws IOException {
+    private void readShots(KwdHeader header, ResourceReader file) throws IOException {
 
         // Read the shots catalog
         if (shots == null) {
@@ -2138,26 +2152,26 @@ public final class KwdFile {
             // One shot is 239 bytes
             Shot shot = new Shot();
 
-            shot.setName(ConversionUtils.readString(file, 32).trim());
+            shot.setName(file.readString(32).trim());
             shot.setMeshResource(readArtResource(file));
             shot.setLight(readLight(file));
-            shot.setAirFriction(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.DOUBLE);
-            shot.setMass(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.FLOAT);
-            shot.setSpeed(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.FLOAT);
-            shot.setData1(ConversionUtils.readUnsignedInteger(file));
-            shot.setData2(ConversionUtils.readUnsignedInteger(file));
-            shot.setShotProcessFlags(ConversionUtils.parseFlagValue(ConversionUtils.readUnsignedInteger(file), Shot.ShotProcessFlag.class));
-            shot.setRadius(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.FLOAT);
-            shot.setFlags(ConversionUtils.parseFlagValue(ConversionUtils.readUnsignedInteger(file), Shot.ShotFlag.class));
-            shot.setGeneralEffectId(ConversionUtils.readUnsignedShort(file));
-            shot.setCreationEffectId(ConversionUtils.readUnsignedShort(file));
-            shot.setDeathEffectId(ConversionUtils.readUnsignedShort(file));
-            shot.setTimedEffectId(ConversionUtils.readUnsignedShort(file));
-            shot.setHitSolidEffectId(ConversionUtils.readUnsignedShort(file));
-            shot.setHitLavaEffectId(ConversionUtils.readUnsignedShort(file));
-            shot.setHitWaterEffect(ConversionUtils.readUnsignedShort(file));
-            shot.setHitThingEffectId(ConversionUtils.readUnsignedShort(file));
-            shot.setHealth(ConversionUtils.readUnsignedShort(file));
+            shot.setAirFriction(file.readUnsignedInteger() / ConversionUtils.DOUBLE);
+            shot.setMass(file.readUnsignedInteger() / ConversionUtils.FLOAT);
+            shot.setSpeed(file.readUnsignedInteger() / ConversionUtils.FLOAT);
+            shot.setData1(file.readUnsignedInteger());
+            shot.setData2(file.readUnsignedInteger());
+            shot.setShotProcessFlags(ConversionUtils.parseFlagValue(file.readUnsignedInteger(), Shot.ShotProcessFlag.class));
+            shot.setRadius(file.readUnsignedInteger() / ConversionUtils.FLOAT);
+            shot.setFlags(ConversionUtils.parseFlagValue(file.readUnsignedInteger(), Shot.ShotFlag.class));
+            shot.setGeneralEffectId(file.readUnsignedShort());
+            shot.setCreationEffectId(file.readUnsignedShort());
+            shot.setDeathEffectId(file.readUnsignedShort());
+            shot.setTimedEffectId(file.readUnsignedShort());
+            shot.setHitSolidEffectId(file.readUnsignedShort());
+            shot.setHitLavaEffectId(file.readUnsignedShort());
+            shot.setHitWaterEffect(file.readUnsignedShort());
+            shot.setHitThingEffectId(file.readUnsignedShort());
+            shot.setHealth(file.readUnsignedShort());
             shot.setShotId((short) file.readUnsignedByte());
             shot.setDeathShotId((short) file.readUnsignedByte());
             shot.setTimedDelay((short) file.readUnsignedByte());
@@ -2170,9 +2184,9 @@ public final class KwdFile {
             shot.setProcessType(ConversionUtils.parseEnum((short) file.readUnsignedByte(), Shot.ProcessType.class));
             shot.setAttackCategory(ConversionUtils.parseEnum((short) file.readUnsignedByte(), Shot.AttackCategory.class));
 
-            shot.setSoundCategory(ConversionUtils.readString(file, 32).trim());
-            shot.setThreat(ConversionUtils.readUnsignedShort(file));
-            shot.setBurnDuration(ConversionUtils.readUnsignedInteger(file) / ConversionUtils.FLOAT);
+            shot.setSoundCategory(file.readString(32).trim());
+            shot.setThreat(file.readUnsignedShort());
+            shot.setBurnDuration(file.readUnsignedInteger() / ConversionUtils.FLOAT);
 
             // Add to the hash by the shot ID
             shots.put(shot.getShotId(), shot);
@@ -2189,7 +2203,7 @@ public final class KwdFile {
      * @param file the file data, rewind to data position
      * @throws IOException the reading may fail
      */
-    private void readTriggers(KwdHeader header, RandomAccessFile file) throws IOException {
+    private void readTriggers(KwdHeader header, ResourceReader file) throws IOException {
 
         // Read the requested Triggers file
         if (triggers == null) {
@@ -2203,7 +2217,7 @@ public final class KwdFile {
             Trigger trigger = null;
             int[] triggerTag = new int[2];
             for (int x = 0; x < triggerTag.length; x++) {
-                triggerTag[x] = ConversionUtils.readUnsignedInteger(file);
+                triggerTag[x] = file.readUnsignedInteger();
             }
             long offset = file.getFilePointer();
 
@@ -2226,15 +2240,15 @@ public final class KwdFile {
                             trigger.setUserData("playerId", (short) file.readUnsignedByte());
                             trigger.setUserData("targetId", (short) file.readUnsignedByte()); // creatureId, objectId
                             trigger.setUserData("targetType", (short) file.readUnsignedByte()); // 3 = Creature, 6 = Object
-                            trigger.setUserData("value", ConversionUtils.readUnsignedInteger(file));
+                            trigger.setUserData("value", file.readUnsignedInteger());
                             break;
 
                         case AP_SLAB_TYPES:
                             ((TriggerGeneric) trigger).setTargetValueComparison(ConversionUtils.parseEnum((short) file.readUnsignedByte(), TriggerGeneric.ComparisonType.class));
                             trigger.setUserData("playerId", (short) file.readUnsignedByte());
                             trigger.setUserData("terrainId", (short) file.readUnsignedByte());
-                            ConversionUtils.checkNull(file, 1); // file.skipBytes(1); // 0 = None
-                            trigger.setUserData("value", ConversionUtils.readUnsignedInteger(file));
+                            file.checkNull(1); // file.skipBytes(1); // 0 = None
+                            trigger.setUserData("value", file.readUnsignedInteger());
                             break;
 
                         case AP_TAG_PART_OF:
@@ -2243,35 +2257,35 @@ public final class KwdFile {
                         case AP_CLAIM_ALL_OF:
                             ((TriggerGeneric) trigger).setTargetValueComparison(ConversionUtils.parseEnum((short) file.readUnsignedByte(), TriggerGeneric.ComparisonType.class));
                             trigger.setUserData("playerId", (short) file.readUnsignedByte());
-                            ConversionUtils.checkNull(file, 2); // file.skipBytes(2);
+                            file.checkNull(2); // file.skipBytes(2);
                             // trigger.setUserData("targetId", (short) file.readUnsignedByte()); // 0 = None
                             // trigger.setUserData("targetType", (short) file.readUnsignedByte()); // 0 = None
-                            trigger.setUserData("value", ConversionUtils.readUnsignedInteger(file));
+                            trigger.setUserData("value", file.readUnsignedInteger());
                             break;
 
                         case PLAYER_DUNGEON_BREACHED:
                         case PLAYER_ENEMY_BREACHED:
                             trigger.setUserData("playerId", (short) file.readUnsignedByte()); // 0 = Any
-                            ConversionUtils.checkNull(file, 7); // file.skipBytes(7);
+                            file.checkNull(7); // file.skipBytes(7);
                             break;
 
                         case PLAYER_KILLED:
                             trigger.setUserData("playerId", (short) file.readUnsignedByte()); // 0 = Any
-                            ConversionUtils.checkNull(file, 3); // file.skipBytes(7);
-                            trigger.setUserData("value", ConversionUtils.readUnsignedInteger(file)); // FIXME unknown value
+                            file.checkNull(3); // file.skipBytes(7);
+                            trigger.setUserData("value", file.readUnsignedInteger()); // FIXME unknown value
                             break;
 
                         case PLAYER_CREATURE_PICKED_UP:
                         case PLAYER_CREATURE_SLAPPED:
                         case PLAYER_CREATURE_SACKED:
                             trigger.setUserData("creatureId", (short) file.readUnsignedByte()); // 0 = Any
-                            ConversionUtils.checkNull(file, 7); // file.skipBytes(7);
+                            file.checkNull(7); // file.skipBytes(7);
                             break;
 
                         case PLAYER_CREATURE_DROPPED:
                             trigger.setUserData("creatureId", (short) file.readUnsignedByte()); // 0 = Any
                             trigger.setUserData("roomId", (short) file.readUnsignedByte()); // 0 = Any
-                            ConversionUtils.checkNull(file, 6); // file.skipBytes(6);
+                            file.checkNull(6); // file.skipBytes(6);
                             break;
 
                         case PLAYER_CREATURES:
@@ -2281,7 +2295,7 @@ public final class KwdFile {
                             trigger.setUserData("creatureId", (short) file.readUnsignedByte());
                             trigger.setUserData("flag", (short) file.readUnsignedByte()); // 0x1 = Value, !0x1 = Player
                             trigger.setUserData("playerId", (short) file.readUnsignedByte());
-                            trigger.setUserData("value", ConversionUtils.readUnsignedInteger(file));
+                            trigger.setUserData("value", file.readUnsignedInteger());
                             break;
 
                         case PLAYER_CREATURES_KILLED:
@@ -2290,7 +2304,7 @@ public final class KwdFile {
                             trigger.setUserData("targetId", (short) file.readUnsignedByte()); // playerId
                             trigger.setUserData("flag", (short) file.readUnsignedByte()); // 0x1 = Value, !0x1 = Player
                             trigger.setUserData("playerId", (short) file.readUnsignedByte());
-                            trigger.setUserData("value", ConversionUtils.readUnsignedInteger(file));
+                            trigger.setUserData("value", file.readUnsignedInteger());
                             break;
 
                         case PLAYER_ROOMS:
@@ -2301,7 +2315,7 @@ public final class KwdFile {
                             trigger.setUserData("roomId", (short) file.readUnsignedByte());
                             trigger.setUserData("flag", (short) file.readUnsignedByte()); // 0x1 = Value, !0x1 = Player
                             trigger.setUserData("playerId", (short) file.readUnsignedByte());
-                            trigger.setUserData("value", ConversionUtils.readUnsignedInteger(file));
+                            trigger.setUserData("value", file.readUnsignedInteger());
                             break;
 
                         case PLAYER_DOORS:
@@ -2312,7 +2326,7 @@ public final class KwdFile {
                             trigger.setUserData("targetId", (short) file.readUnsignedByte()); // doorId, trapId, keeperSpellId,
                             trigger.setUserData("flag", (short) file.readUnsignedByte()); // 0x1 = Value, !0x1 = Player
                             trigger.setUserData("playerId", (short) file.readUnsignedByte());
-                            trigger.setUserData("value", ConversionUtils.readUnsignedInteger(file));
+                            trigger.setUserData("value", file.readUnsignedInteger());
                             break;
 
                         case PLAYER_SLAPS:
@@ -2322,11 +2336,11 @@ public final class KwdFile {
                         case PLAYER_CREATURES_GROUPED:
                         case PLAYER_CREATURES_DYING:
                             ((TriggerGeneric) trigger).setTargetValueComparison(ConversionUtils.parseEnum((short) file.readUnsignedByte(), TriggerGeneric.ComparisonType.class));
-                            ConversionUtils.checkNull(file, 1); // file.skipBytes(1);
+                            file.checkNull(1); // file.skipBytes(1);
                             // trigger.setUserData("targetId", (short) file.readUnsignedByte()); // = 0
                             trigger.setUserData("flag", (short) file.readUnsignedByte()); // 0x1 = Value, !0x1 = Player
                             trigger.setUserData("playerId", (short) file.readUnsignedByte());
-                            trigger.setUserData("value", ConversionUtils.readUnsignedInteger(file));
+                            trigger.setUserData("value", file.readUnsignedInteger());
                             break;
 
                         case PLAYER_CREATURES_AT_LEVEL:
@@ -2335,7 +2349,7 @@ public final class KwdFile {
                             trigger.setUserData("targetId", (short) file.readUnsignedByte()); // = 0, must be a level
                             trigger.setUserData("flag", (short) file.readUnsignedByte()); // 0x1 = Value, !0x1 = Player
                             trigger.setUserData("playerId", (short) file.readUnsignedByte()); // level also
-                            trigger.setUserData("value", ConversionUtils.readUnsignedInteger(file));
+                            trigger.setUserData("value", file.readUnsignedInteger());
                             break;
 
                         case LEVEL_PAY_DAY:
@@ -2358,12 +2372,12 @@ public final class KwdFile {
                         case CREATURE_PICKS_UP_PORTAL_GEM:
                         case CREATURE_HUNGER_SATED:
                         case PARTY_CREATED:
-                            ConversionUtils.checkNull(file, 8); // file.skipBytes(8);
+                            file.checkNull(8); // file.skipBytes(8);
                             break;
 
                         case CREATURE_CREATED:
-                            ConversionUtils.checkNull(file, 4); // file.skipBytes(4);
-                            trigger.setUserData("value", ConversionUtils.readUnsignedInteger(file)); // FIXME unknown value
+                            file.checkNull(4); // file.skipBytes(4);
+                            trigger.setUserData("value", file.readUnsignedInteger()); // FIXME unknown value
                             break;
 
                         case LEVEL_PLAYED:
@@ -2374,24 +2388,24 @@ public final class KwdFile {
                         case LEVEL_TIME:
                         case LEVEL_CREATURES:
                             ((TriggerGeneric) trigger).setTargetValueComparison(ConversionUtils.parseEnum((short) file.readUnsignedByte(), TriggerGeneric.ComparisonType.class));
-                            ConversionUtils.checkNull(file, 3); // file.skipBytes(3);
-                            trigger.setUserData("value", ConversionUtils.readUnsignedInteger(file));
+                            file.checkNull(3); // file.skipBytes(3);
+                            trigger.setUserData("value", file.readUnsignedInteger());
                             break;
 
                         case PARTY_MEMBERS_KILLED:
                         case PARTY_MEMBERS_INCAPACITATED:
                             ((TriggerGeneric) trigger).setTargetValueComparison(ConversionUtils.parseEnum((short) file.readUnsignedByte(), TriggerGeneric.ComparisonType.class));
                             trigger.setUserData("unknown", (short) file.readUnsignedByte()); // FIXME unknown value
-                            ConversionUtils.checkNull(file, 2); // file.skipBytes(2);
-                            trigger.setUserData("value", ConversionUtils.readUnsignedInteger(file));
+                            file.checkNull(2); // file.skipBytes(2);
+                            trigger.setUserData("value", file.readUnsignedInteger());
                             break;
 
                         case GUI_BUTTON_PRESSED:
                             // Misc Button = 0, Room = 1, Creature = 2, Door = 3, Trap = 4, Keeper Spell = 5
                             trigger.setUserData("targetType", (short) file.readUnsignedByte());
                             trigger.setUserData("targetId", (short) file.readUnsignedByte()); // buttonId, roomId, creatureId ...
-                            ConversionUtils.checkNull(file, 2); // file.skipBytes(2);
-                            trigger.setUserData("value", ConversionUtils.readUnsignedInteger(file)); // FIXME unknown value
+                            file.checkNull(2); // file.skipBytes(2);
+                            trigger.setUserData("value", file.readUnsignedInteger()); // FIXME unknown value
                             break;
 
                         case FLAG:
@@ -2399,7 +2413,7 @@ public final class KwdFile {
                             trigger.setUserData("targetId", (short) file.readUnsignedByte()); // flagId
                             trigger.setUserData("flag", (short) file.readUnsignedByte()); // 0x1 = Value, !0x1 = Flag
                             trigger.setUserData("flagId", (short) file.readUnsignedByte());
-                            trigger.setUserData("value", ConversionUtils.readUnsignedInteger(file));
+                            trigger.setUserData("value", file.readUnsignedInteger());
                             break;
 
                         case TIMER:
@@ -2407,19 +2421,19 @@ public final class KwdFile {
                             trigger.setUserData("targetId", (short) file.readUnsignedByte()); // timerId
                             trigger.setUserData("flag", (short) file.readUnsignedByte()); // 0x1 = Value, !0x1 = Flag
                             trigger.setUserData("timerId", (short) file.readUnsignedByte());
-                            trigger.setUserData("value", ConversionUtils.readUnsignedInteger(file));
+                            trigger.setUserData("value", file.readUnsignedInteger());
                             break;
 
                         default:
-                            ConversionUtils.checkNull(file, 8); // file.skipBytes(8);
+                            file.checkNull(8); // file.skipBytes(8);
                             logger.warning("Unsupported Type of TriggerGeneric");
                             break;
 
                     }
 
-                    trigger.setId(ConversionUtils.readUnsignedShort(file));
-                    trigger.setIdNext(ConversionUtils.readUnsignedShort(file)); // SiblingID
-                    trigger.setIdChild(ConversionUtils.readUnsignedShort(file)); // ChildID
+                    trigger.setId(file.readUnsignedShort());
+                    trigger.setIdNext(file.readUnsignedShort()); // SiblingID
+                    trigger.setIdChild(file.readUnsignedShort()); // ChildID
 
                     file.skipBytes(2);
                     break;
@@ -2439,30 +2453,30 @@ public final class KwdFile {
                         case ALTER_TERRAIN_TYPE:
                             trigger.setUserData("terrainId", (short) file.readUnsignedByte());
                             trigger.setUserData("playerId", (short) file.readUnsignedByte());
-                            ConversionUtils.checkNull(file, 2); // file.skipBytes(2);
-                            trigger.setUserData("posX", ConversionUtils.readUnsignedShort(file));
-                            trigger.setUserData("posY", ConversionUtils.readUnsignedShort(file));
+                            file.checkNull(2); // file.skipBytes(2);
+                            trigger.setUserData("posX", file.readUnsignedShort());
+                            trigger.setUserData("posY", file.readUnsignedShort());
                             break;
 
                         case COLLAPSE_HERO_GATE:
-                            ConversionUtils.checkNull(file, 4); // file.skipBytes(4);
-                            trigger.setUserData("posX", ConversionUtils.readUnsignedShort(file));
-                            trigger.setUserData("posY", ConversionUtils.readUnsignedShort(file));
+                            file.checkNull(4); // file.skipBytes(4);
+                            trigger.setUserData("posX", file.readUnsignedShort());
+                            trigger.setUserData("posY", file.readUnsignedShort());
                             break;
 
                         case CHANGE_ROOM_OWNER:
-                            ConversionUtils.checkNull(file, 1); // file.skipBytes(1);
+                            file.checkNull(1); // file.skipBytes(1);
                             trigger.setUserData("playerId", (short) file.readUnsignedByte());
-                            ConversionUtils.checkNull(file, 2); // file.skipBytes(2);
-                            trigger.setUserData("posX", ConversionUtils.readUnsignedShort(file));
-                            trigger.setUserData("posY", ConversionUtils.readUnsignedShort(file));
+                            file.checkNull(2); // file.skipBytes(2);
+                            trigger.setUserData("posX", file.readUnsignedShort());
+                            trigger.setUserData("posY", file.readUnsignedShort());
                             break;
 
                         case SET_ALLIANCE:
                             trigger.setUserData("playerOneId", (short) file.readUnsignedByte());
                             trigger.setUserData("playerTwoId", file.readUnsignedByte());
                             trigger.setUserData("available", (short) file.readUnsignedByte()); // 0 = Create, !0 = Break
-                            ConversionUtils.checkNull(file, 5); // file.skipBytes(5);
+                            file.checkNull(5); // file.skipBytes(5);
                             break;
 
                         case SET_CREATURE_MOODS:
@@ -2473,25 +2487,25 @@ public final class KwdFile {
                         case SET_FIGHT_FLAG: // 0 = Don`t Fight, !0 = Fight
                         case SET_PORTAL_STATUS: // 0 = Closed, !0 = Open
                             trigger.setUserData("available", (short) file.readUnsignedByte());  // 0 = Off, !0 = On
-                            ConversionUtils.checkNull(file, 7); // file.skipBytes(7);
+                            file.checkNull(7); // file.skipBytes(7);
                             break;
 
                         case SET_SLAPS_LIMIT:
-                            ConversionUtils.checkNull(file, 4); // file.skipBytes(4);
-                            trigger.setUserData("value", ConversionUtils.readUnsignedInteger(file)); // limit 4 bytes, 0 = Off
+                            file.checkNull(4); // file.skipBytes(4);
+                            trigger.setUserData("value", file.readUnsignedInteger()); // limit 4 bytes, 0 = Off
                             break;
 
                         case INITIALIZE_TIMER:
                             trigger.setUserData("timerId", (short) file.readUnsignedByte()); // timerId + 1, 16 - Time Limit
-                            ConversionUtils.checkNull(file, 3); // file.skipBytes(3);
-                            trigger.setUserData("value", ConversionUtils.readUnsignedInteger(file)); // limit 4 bytes, only for Time limit (max 100 s)
+                            file.checkNull(3); // file.skipBytes(3);
+                            trigger.setUserData("value", file.readUnsignedInteger()); // limit 4 bytes, only for Time limit (max 100 s)
                             break;
 
                         case FLAG:
                             trigger.setUserData("flagId", (short) file.readUnsignedByte()); // flagId + 1, 128 - level score
                             trigger.setUserData("flag", (short) file.readUnsignedByte()); // flag = Equal = 12 | Plus = 20 | Minus = 36
-                            ConversionUtils.checkNull(file, 2); // file.skipBytes(2);
-                            trigger.setUserData("value", ConversionUtils.readUnsignedInteger(file)); // limit 4 bytes
+                            file.checkNull(2); // file.skipBytes(2);
+                            trigger.setUserData("value", file.readUnsignedInteger()); // limit 4 bytes
                             break;
 
                         case MAKE:
@@ -2499,7 +2513,7 @@ public final class KwdFile {
                             trigger.setUserData("type", (short) file.readUnsignedByte()); // type = TriggerAction.MakeType.
                             trigger.setUserData("targetId", (short) file.readUnsignedByte());
                             trigger.setUserData("available", (short) file.readUnsignedByte()); // 0 = Unavailable, !0 = Available
-                            ConversionUtils.checkNull(file, 4); // file.skipBytes(4);
+                            file.checkNull(4); // file.skipBytes(4);
                             break;
                         // in player triggers
                         case DISPLAY_SLAB_OWNER:
@@ -2507,33 +2521,33 @@ public final class KwdFile {
                             trigger.setUserData("available", file.readUnsignedByte());  // 0 = Off, !0 = On
                             //((TriggerAction) trigger).setActionTargetValue1(ConversionUtils.toUnsignedInteger(file)); // limit 4 bytes
                             // 1635984
-                            ConversionUtils.checkNull(file, 7); // file.skipBytes(7);
+                            file.checkNull(7); // file.skipBytes(7);
                             break;
 
                         case DISPLAY_NEXT_ROOM_TYPE: // 0 = Off or roomId
                         case MAKE_OBJECTIVE: // 0 = Off, 1 = Kill, 2 = Imprison, 3 = Convert
                         case ZOOM_TO_ACTION_POINT: // actionPointId
                             trigger.setUserData("targetId", (short) file.readUnsignedByte());
-                            ConversionUtils.checkNull(file, 7); // file.skipBytes(7);
+                            file.checkNull(7); // file.skipBytes(7);
                             break;
 
                         case DISPLAY_OBJECTIVE:
-                            trigger.setUserData("objectiveId", ConversionUtils.readUnsignedInteger(file)); // objectiveId, limit 32767
+                            trigger.setUserData("objectiveId", file.readUnsignedInteger()); // objectiveId, limit 32767
                             trigger.setUserData("actionPointId", (short) file.readUnsignedByte()); // if != 0 => Zoom To AP = this
-                            ConversionUtils.checkNull(file, 3); // file.skipBytes(3);
+                            file.checkNull(3); // file.skipBytes(3);
                             break;
 
                         case PLAY_SPEECH:
-                            trigger.setUserData("speechId", ConversionUtils.readUnsignedInteger(file)); // speechId, limit 32767
+                            trigger.setUserData("speechId", file.readUnsignedInteger()); // speechId, limit 32767
                             trigger.setUserData("text", (short) file.readUnsignedByte()); // 0 = Show Text, !0 = Without text
                             trigger.setUserData("introduction", (short) file.readUnsignedByte()); // 0 = No Introduction, !0 = Introduction
-                            trigger.setUserData("pathId", ConversionUtils.readUnsignedShort(file)); // pathId
+                            trigger.setUserData("pathId", file.readUnsignedShort()); // pathId
                             break;
 
                         case DISPLAY_TEXT_STRING:
-                            trigger.setUserData("textId", ConversionUtils.readUnsignedInteger(file)); // textId, limit 32767
+                            trigger.setUserData("textId", file.readUnsignedInteger()); // textId, limit 32767
                             // FIXME Maybe Zoom to AP X
-                            ConversionUtils.checkNull(file, 4); // file.skipBytes(4);
+                            file.checkNull(4); // file.skipBytes(4);
                             break;
                         // creature triggers
                         case ATTACH_PORTAL_GEM:
@@ -2545,54 +2559,54 @@ public final class KwdFile {
                         case FORCE_FIRST_PERSON:
                         case LOSE_SUBOBJECTIVE:
                         case WIN_SUBOBJECTIVE:
-                            ConversionUtils.checkNull(file, 8); // file.skipBytes(8); // no other parameters
+                            file.checkNull(8); // file.skipBytes(8); // no other parameters
                             break;
 
                         case SET_MUSIC_LEVEL: // level
                         case SHOW_HEALTH_FLOWER: // limit Seconds
-                            trigger.setUserData("value", ConversionUtils.readUnsignedInteger(file));
-                            ConversionUtils.checkNull(file, 4); // file.skipBytes(4);
+                            trigger.setUserData("value", file.readUnsignedInteger());
+                            file.checkNull(4); // file.skipBytes(4);
                             break;
 
                         case SET_TIME_LIMIT:
                             trigger.setUserData("timerId", (short) file.readUnsignedByte()); // timerId + 1, 16 - Time Limit
-                            ConversionUtils.checkNull(file, 3); // file.skipBytes(3);
-                            trigger.setUserData("value", ConversionUtils.readUnsignedInteger(file)); // Seconds
+                            file.checkNull(3); // file.skipBytes(3);
+                            trigger.setUserData("value", file.readUnsignedInteger()); // Seconds
                             break;
 
                         case FOLLOW_CAMERA_PATH:
                             trigger.setUserData("pathId", (short) file.readUnsignedByte());
                             trigger.setUserData("actionPointId", (short) file.readUnsignedByte());
                             trigger.setUserData("available", (short) file.readUnsignedByte()); // 0 = Show Ceiling, !0 = Hide Ceiling
-                            ConversionUtils.checkNull(file, 5); // file.skipBytes(5);
+                            file.checkNull(5); // file.skipBytes(5);
                             break;
 
                         case FLASH_BUTTON:
                             trigger.setUserData("type", (short) file.readUnsignedByte()); // TriggerAction.MakeType.
                             trigger.setUserData("targetId", (short) file.readUnsignedByte());
                             trigger.setUserData("available", (short) file.readUnsignedByte()); // 0 = Off, !0 & !time = Until selected
-                            ConversionUtils.checkNull(file, 1); // file.skipBytes(1);
-                            trigger.setUserData("value", ConversionUtils.readUnsignedInteger(file)); // Seconds
+                            file.checkNull(1); // file.skipBytes(1);
+                            trigger.setUserData("value", file.readUnsignedInteger()); // Seconds
                             break;
 
                         case FLASH_ACTION_POINT:
                             trigger.setUserData("actionPointId", (short) file.readUnsignedByte());
                             trigger.setUserData("available", (short) file.readUnsignedByte()); // 0 = Off, !0 & !time = Until switched off
-                            ConversionUtils.checkNull(file, 2); // file.skipBytes(2);
-                            trigger.setUserData("value", ConversionUtils.readUnsignedInteger(file)); // Seconds
+                            file.checkNull(2); // file.skipBytes(2);
+                            trigger.setUserData("value", file.readUnsignedInteger()); // Seconds
                             break;
 
                         case REVEAL_ACTION_POINT:
                             trigger.setUserData("actionPointId", (short) file.readUnsignedByte());
                             trigger.setUserData("available", (short) file.readUnsignedByte()); // 0 = Reveal, !0 = Conceal
-                            ConversionUtils.checkNull(file, 6); // file.skipBytes(6);
+                            file.checkNull(6); // file.skipBytes(6);
                             break;
 
                         case ROTATE_AROUND_ACTION_POINT:
                             trigger.setUserData("actionPointId", (short) file.readUnsignedByte());
                             trigger.setUserData("available", (short) file.readUnsignedByte()); // 0 = Relative, !0 = Absolute
-                            trigger.setUserData("angle", ConversionUtils.readUnsignedShort(file)); // degrees
-                            trigger.setUserData("time", ConversionUtils.readUnsignedInteger(file)); // seconds
+                            trigger.setUserData("angle", file.readUnsignedShort()); // degrees
+                            trigger.setUserData("time", file.readUnsignedInteger()); // seconds
                             break;
 
                         case CREATE_CREATURE:
@@ -2600,66 +2614,66 @@ public final class KwdFile {
                             trigger.setUserData("playerId", (short) file.readUnsignedByte());
                             trigger.setUserData("level", (short) file.readUnsignedByte());
                             trigger.setUserData("flag", (short) file.readUnsignedByte()); // TriggerAction.CreatureFlag.
-                            trigger.setUserData("posX", ConversionUtils.readUnsignedShort(file));
-                            trigger.setUserData("posY", ConversionUtils.readUnsignedShort(file));
+                            trigger.setUserData("posX", file.readUnsignedShort());
+                            trigger.setUserData("posY", file.readUnsignedShort());
                             break;
 
                         case SET_OBJECTIVE:
                             trigger.setUserData("playerId", (short) file.readUnsignedByte());
                             trigger.setUserData("type", (short) file.readUnsignedByte()); // Creature.JobType
-                            ConversionUtils.checkNull(file, 2); // file.skipBytes(2);
-                            trigger.setUserData("actionPointId", ConversionUtils.readUnsignedInteger(file)); // for type = SEND_TO_ACTION_POINT
+                            file.checkNull(2); // file.skipBytes(2);
+                            trigger.setUserData("actionPointId", file.readUnsignedInteger()); // for type = SEND_TO_ACTION_POINT
                             break;
 
                         case CREATE_HERO_PARTY:
                             trigger.setUserData("partyId", (short) file.readUnsignedByte()); // partyId + 1
                             trigger.setUserData("type", (short) file.readUnsignedByte()); // 0 = None, 1 = IP, 2 = IP Random
-                            ConversionUtils.checkNull(file, 2); // file.skipBytes(2);
+                            file.checkNull(2); // file.skipBytes(2);
                             trigger.setUserData("actionPointId", (short) file.readUnsignedByte()); //
-                            ConversionUtils.checkNull(file, 3); // file.skipBytes(3);
+                            file.checkNull(3); // file.skipBytes(3);
                             break;
 
                         case TOGGLE_EFFECT_GENERATOR:
                             trigger.setUserData("generatorId", (short) file.readUnsignedByte()); // generatorId + 1
                             trigger.setUserData("available", (short) file.readUnsignedByte()); // 0 = Off, !0 = On
-                            ConversionUtils.checkNull(file, 6); // file.skipBytes(6);
+                            file.checkNull(6); // file.skipBytes(6);
                             break;
 
                         case GENERATE_CREATURE:
                             trigger.setUserData("creatureId", (short) file.readUnsignedByte()); // creatureId + 1
                             trigger.setUserData("level", (short) file.readUnsignedByte());
-                            ConversionUtils.checkNull(file, 6); // file.skipBytes(6);
+                            file.checkNull(6); // file.skipBytes(6);
                             break;
 
                         case INFORMATION:
-                            trigger.setUserData("informationId", ConversionUtils.readUnsignedInteger(file));
+                            trigger.setUserData("informationId", file.readUnsignedInteger());
                             trigger.setUserData("actionPointId", (short) file.readUnsignedByte());
-                            ConversionUtils.checkNull(file, 3); // file.skipBytes(3);
+                            file.checkNull(3); // file.skipBytes(3);
                             break;
 
                         case SEND_TO_AP:
-                            ConversionUtils.checkNull(file, 4); // file.skipBytes(4);
+                            file.checkNull(4); // file.skipBytes(4);
                             trigger.setUserData("actionPointId", (short) file.readUnsignedByte());
-                            ConversionUtils.checkNull(file, 3); // file.skipBytes(3);
+                            file.checkNull(3); // file.skipBytes(3);
                             break;
 
                         case CREATE_PORTAL_GEM:
                             trigger.setUserData("objectId", (short) file.readUnsignedByte());
                             trigger.setUserData("playerId", (short) file.readUnsignedByte());
-                            ConversionUtils.checkNull(file, 2); // file.skipBytes(2);
-                            trigger.setUserData("posX", ConversionUtils.readUnsignedShort(file)); // posX + 1
-                            trigger.setUserData("posY", ConversionUtils.readUnsignedShort(file)); // posY + 1
+                            file.checkNull(2); // file.skipBytes(2);
+                            trigger.setUserData("posX", file.readUnsignedShort()); // posX + 1
+                            trigger.setUserData("posY", file.readUnsignedShort()); // posY + 1
                             break;
 
                         default:
-                            ConversionUtils.checkNull(file, 8); // file.skipBytes(8);
+                            file.checkNull(8); // file.skipBytes(8);
                             logger.warning("Unsupported Type of TriggerAction");
                             break;
                     }
 
-                    trigger.setId(ConversionUtils.readUnsignedShort(file)); // ID
-                    trigger.setIdNext(ConversionUtils.readUnsignedShort(file)); // SiblingID
-                    trigger.setIdChild(ConversionUtils.readUnsignedShort(file)); // ChildID
+                    trigger.setId(file.readUnsignedShort()); // ID
+                    trigger.setIdNext(file.readUnsignedShort()); // SiblingID
+                    trigger.setIdChild(file.readUnsignedShort()); // ChildID
 
                     file.skipBytes(2);
                     break;
@@ -2689,7 +2703,7 @@ public final class KwdFile {
      * @param file the file data, rewind to data position
      * @throws IOException the reading may fail
      */
-    private void readVariables(KwdHeader header, RandomAccessFile file) throws IOException {
+    private void readVariables(KwdHeader header, ResourceReader file) throws IOException {
 
         // Read the requested VARIABLES file
         // Should be the GlobalVariables first, then the level's own
@@ -2707,14 +2721,14 @@ public final class KwdFile {
         }
 
         for (int i = 0; i < header.getItemCount(); i++) {
-            int id = ConversionUtils.readInteger(file);
+            int id = file.readInteger();
 
             switch (id) {
                 case Variable.CREATURE_POOL:
                     Variable.CreaturePool creaturePool = new Variable.CreaturePool();
-                    creaturePool.setCreatureId(ConversionUtils.readInteger(file));
-                    creaturePool.setValue(ConversionUtils.readInteger(file));
-                    creaturePool.setPlayerId(ConversionUtils.readInteger(file));
+                    creaturePool.setCreatureId(file.readInteger());
+                    creaturePool.setValue(file.readInteger());
+                    creaturePool.setPlayerId(file.readInteger());
 
                     // Add
                     java.util.Map<Integer, CreaturePool> playerCreaturePool = creaturePools.get(creaturePool.getPlayerId());
@@ -2727,11 +2741,11 @@ public final class KwdFile {
 
                 case Variable.AVAILABILITY:
                     Variable.Availability availability = new Variable.Availability();
-                    availability.setType(ConversionUtils.parseEnum(ConversionUtils.readUnsignedShort(file),
+                    availability.setType(ConversionUtils.parseEnum(file.readUnsignedShort(),
                             Variable.Availability.AvailabilityType.class));
-                    availability.setPlayerId(ConversionUtils.readUnsignedShort(file));
-                    availability.setTypeId(ConversionUtils.readInteger(file));
-                    availability.setValue(ConversionUtils.parseEnum(ConversionUtils.readInteger(file),
+                    availability.setPlayerId(file.readUnsignedShort());
+                    availability.setTypeId(file.readInteger());
+                    availability.setValue(ConversionUtils.parseEnum(file.readInteger(),
                             Variable.Availability.AvailabilityValue.class));
 
                     // Add
@@ -2753,7 +2767,7 @@ public final class KwdFile {
                     sacrifice.setRewardType(ConversionUtils.parseEnum((short) file.readUnsignedByte(),
                             Variable.SacrificeRewardType.class));
                     sacrifice.setSpeechId((short) file.readUnsignedByte());
-                    sacrifice.setRewardValue(ConversionUtils.readInteger(file));
+                    sacrifice.setRewardValue(file.readInteger());
 
                     // Add
                     sacrifices.add(sacrifice);
@@ -2761,10 +2775,10 @@ public final class KwdFile {
 
                 case Variable.CREATURE_STATS_ID:
                     Variable.CreatureStats creatureStats = new Variable.CreatureStats();
-                    creatureStats.setStatId(ConversionUtils.parseEnum(ConversionUtils.readInteger(file),
+                    creatureStats.setStatId(ConversionUtils.parseEnum(file.readInteger(),
                             Variable.CreatureStats.StatType.class));
-                    creatureStats.setValue(ConversionUtils.readInteger(file));
-                    creatureStats.setLevel(ConversionUtils.readInteger(file));
+                    creatureStats.setValue(file.readInteger());
+                    creatureStats.setLevel(file.readInteger());
 
                     // Add
                     java.util.Map<StatType, CreatureStats> stats = creatureStatistics.get(creatureStats.getLevel());
@@ -2777,10 +2791,10 @@ public final class KwdFile {
 
                 case Variable.CREATURE_FIRST_PERSON_ID:
                     Variable.CreatureFirstPerson creatureFirstPerson = new Variable.CreatureFirstPerson();
-                    creatureFirstPerson.setStatId(ConversionUtils.parseEnum(ConversionUtils.readInteger(file),
+                    creatureFirstPerson.setStatId(ConversionUtils.parseEnum(file.readInteger(),
                             Variable.CreatureStats.StatType.class));
-                    creatureFirstPerson.setValue(ConversionUtils.readInteger(file));
-                    creatureFirstPerson.setLevel(ConversionUtils.readInteger(file));
+                    creatureFirstPerson.setValue(file.readInteger());
+                    creatureFirstPerson.setLevel(file.readInteger());
 
                     // Add
                     java.util.Map<StatType, CreatureFirstPerson> firstPersonStats = creatureFirstPersonStatistics.get(creatureFirstPerson.getLevel());
@@ -2797,9 +2811,9 @@ public final class KwdFile {
                 case Variable.UNKNOWN_77: // FIXME unknownn value
                     Variable.Unknown unknown = new Variable.Unknown();
                     unknown.setVariableId(id);
-                    unknown.setValue(ConversionUtils.readInteger(file));
-                    unknown.setUnknown1(ConversionUtils.readInteger(file));
-                    unknown.setUnknown2(ConversionUtils.readInteger(file));
+                    unknown.setValue(file.readInteger());
+                    unknown.setUnknown1(file.readInteger());
+                    unknown.setUnknown2(file.readInteger());
 
                     // Add
                     unknownVariables.add(unknown);
@@ -2809,9 +2823,9 @@ public final class KwdFile {
                     Variable.MiscVariable miscVariable = new Variable.MiscVariable();
                     miscVariable.setVariableId(ConversionUtils.parseEnum(id,
                             Variable.MiscVariable.MiscType.class));
-                    miscVariable.setValue(ConversionUtils.readInteger(file));
-                    miscVariable.setUnknown1(ConversionUtils.readInteger(file));
-                    miscVariable.setUnknown2(ConversionUtils.readInteger(file));
+                    miscVariable.setValue(file.readInteger());
+                    miscVariable.setUnknown1(file.readInteger());
+                    miscVariable.setUnknown2(file.readInteger());
 
                     // Add
                     variables.put(miscVariable.getVariableId(), miscVariable);
@@ -3112,12 +3126,12 @@ public final class KwdFile {
      * Skips the file to the correct position after an item is read<br>
      * <b>Use this with the common types!</b>
      *
-     * @see #checkOffset(long, java.io.RandomAccessFile, long)
+     * @see #checkOffset(long, toniarts.openkeeper.tools.convert.ResourceReader, long)
      * @param header the header
      * @param file the file
      * @param offset the file offset before the last item was read
      */
-    private void checkOffset(KwdHeader header, RandomAccessFile file, long offset) throws IOException {
+    private void checkOffset(KwdHeader header, ResourceReader file, long offset) throws IOException {
         checkOffset(header.getItemSize(), file, offset);
     }
 
@@ -3129,12 +3143,12 @@ public final class KwdFile {
      *
      * @see
      * #checkOffset(toniarts.opendungeonkeeper.tools.convert.map.KwdFile.KwdHeader,
-     * java.io.RandomAccessFile, long)
+     * toniarts.openkeeper.tools.convert.ResourceReader, long)
      * @param itemSize the item size
      * @param file the file
      * @param offset the file offset before the last item was read
      */
-    private void checkOffset(long itemSize, RandomAccessFile file, long offset) throws IOException {
+    private void checkOffset(long itemSize, ResourceReader file, long offset) throws IOException {
         long wantedOffset = offset + itemSize;
         if (file.getFilePointer() != wantedOffset) {
             logger.log(Level.WARNING, "Record size differs from expected! File offset is {0} and should be {1}!",
@@ -18,17 +18,24 @@ package toniarts.openkeeper.tools.convert.sound;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
-import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import toniarts.openkeeper.tools.convert.ConversionUtils;
+import toniarts.openkeeper.tools.convert.ResourceReader;
 import toniarts.openkeeper.utils.PathUtils;
 
 /**
@@ -36,13 +43,16 @@ import toniarts.openkeeper.utils.PathUtils;
  * archive<br>
  * SDT files contain the Dungeon Keeper II sounds as MP2 and WAV files<br>
  * The file is LITTLE ENDIAN I might say<br>
- * The file structure definition is extracted from Dragon UnPACKer
+ * The file structure definition is extracted from Dragon UnPACKer<br>
+ * The sounds are stored as is, so they are streamed straight from the archive
+ * to the extracted files
  *
  * @author Toni Helenius <helenius.toni@gmail.com>
  */
 public class SdtFile {
 
     private static final Pattern fileExtensionPattern = Pattern.compile("([^\\s]+(\\.(?i)(mp2|wav))$)");
+    private static final int WAV_HEADER_SIZE = 44;
 
     private final File file;
     private final int count;
@@ -59,31 +69,31 @@ public class SdtFile {
         this.file = file;
 
         //Read the file
-        try (RandomAccessFile rawSdt = new RandomAccessFile(file, "r")) {
+        try (ResourceReader rawSdt = new ResourceReader(file)) {
 
             //Header
-            count = ConversionUtils.readUnsignedInteger(rawSdt);
+            count = rawSdt.readUnsignedInteger();
 
             //Read the files
             entriesOffsets = new int[count];
             for (int i = 0; i < entriesOffsets.length; i++) {
-                entriesOffsets[i] = ConversionUtils.readUnsignedInteger(rawSdt);
+                entriesOffsets[i] = rawSdt.readUnsignedInteger();
             }
 
             entries = new HashMap<>(count);
             for (int i = 0; i < count; i++) {
 
                 SdtFileEntry entry = new SdtFileEntry();
-                entry.setHeaderSize(ConversionUtils.readUnsignedInteger(rawSdt));
-                entry.setDataSize(ConversionUtils.readUnsignedInteger(rawSdt));
-                entry.setName(ConversionUtils.readString(rawSdt, 16).trim());
-                entry.setSampleRate(ConversionUtils.readUnsignedShort(rawSdt));
+                entry.setHeaderSize(rawSdt.readUnsignedInteger());
+                entry.setDataSize(rawSdt.readUnsignedInteger());
+                entry.setName(rawSdt.readString(16).trim());
+                entry.setSampleRate(rawSdt.readUnsignedShort());
                 entry.setBitsPerSample(ConversionUtils.toUnsignedByte(rawSdt.readByte()));
                 entry.setType(ConversionUtils.parseEnum(ConversionUtils.toUnsignedByte(rawSdt.readByte()),
                         SdtFileEntry.SoundType.class));
-                entry.setUnknown3(ConversionUtils.readUnsignedInteger(rawSdt));
-                entry.setnSamples(ConversionUtils.readUnsignedInteger(rawSdt));
-                entry.setUnknown4(ConversionUtils.readUnsignedInteger(rawSdt));
+                entry.setUnknown3(rawSdt.readUnsignedInteger());
+                entry.setnSamples(rawSdt.readUnsignedInteger());
+                entry.setUnknown4(rawSdt.readUnsignedInteger());
                 entry.setDataOffset(rawSdt.getFilePointer());
 
                 //Skip entries of size 0, there seems to be these BLANKs
@@ -111,19 +121,43 @@ public class SdtFile {
      * Extract all the files to a given location
      *
      * @param destination destination directory
+     * @return the extracted files
      */
-    public void extractFileData(String destination) {
+    public List<File> extractFileData(String destination) {
+        return extractFileData(destination, null);
+    }
 
-        //Open the SDT for extraction
-        try (RandomAccessFile rawSdt = new RandomAccessFile(file, "r")) {
+    /**
+     * Extract all the files to a given location, the files are extracted in
+     * parallel
+     *
+     * @param destination destination directory
+     * @param pool the pool to extract the files in, {@code null} to extract
+     * them in the calling thread
+     * @return the extracted files
+     */
+    public List<File> extractFileData(String destination, ForkJoinPool pool) {
 
-            for (String fileName : entries.keySet()) {
-                extractFileData(fileName, destination, rawSdt);
+        //See that the destination is formatted correctly and create it if it does not exist
+        String dest = PathUtils.fixFilePath(destination);
+        new File(dest).mkdirs();
+
+        //Open the SDT for extraction, the reads are positional so the channel can be shared
+        try (FileChannel rawSdt = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            String[] fileNames = entries.keySet().toArray(new String[entries.size()]);
+            File[] files = new File[fileNames.length];
+            if (pool != null) {
+                pool.invoke(new ExtractTask(fileNames, files, 0, fileNames.length, dest, rawSdt));
+            } else {
+                for (int i = 0; i < fileNames.length; i++) {
+                    files[i] = extractFileData(fileNames[i], dest, rawSdt);
+                }
             }
-        } catch (Exception e) {
+            return Arrays.asList(files);
+        } catch (IOException e) {
 
             //Fug
-            throw new RuntimeException("Faile to read the WAD file!", e);
+            throw new RuntimeException("Failed to open the file " + file + "!", e);
         }
     }
 
@@ -131,22 +165,23 @@ public class SdtFile {
      * Extract a single file to a given location
      *
      * @param fileName file to extract
-     * @param destination destination directory
+     * @param destination destination directory, must exist
      * @param rawSdt the opened SDT file
+     * @return the extracted file
      */
-    private void extractFileData(String fileName, String destination, RandomAccessFile rawSdt) {
-
-        //See that the destination is formatted correctly and create it if it does not exist
-        String dest = PathUtils.fixFilePath(destination);
-        File destinationFolder = new File(dest);
-        destinationFolder.mkdirs();
-        dest = dest.concat(fileName);
+    private File extractFileData(String fileName, String destination, FileChannel rawSdt) {
+        SdtFileEntry fileEntry = getEntry(fileName);
+        File destinationFile = new File(destination.concat(fileName));
 
-        //Write to the file
-        try (OutputStream outputStream = new FileOutputStream(dest)) {
-            getFileData(fileName, rawSdt).writeTo(outputStream);
+        //Write to the file, the header first and then the data straight from the archive
+        try (FileChannel output = FileChannel.open(destinationFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            if (fileEntry.getType() == SdtFileEntry.SoundType.WAV) {
+                write(getWavHeader(fileEntry), output);
+            }
+            transfer(rawSdt, fileEntry, output);
+            return destinationFile;
         } catch (IOException e) {
-            throw new RuntimeException("Failed to write to " + dest + "!", e);
+            throw new RuntimeException("Failed to write to " + destinationFile + "!", e);
         }
     }
 
@@ -154,40 +189,58 @@ public class SdtFile {
      * Extract a single file
      *
      * @param fileName the file to extract
-     * @param rawSdt the opened SDT file
      * @return the file data
      */
-    private ByteArrayOutputStream getFileData(String fileName, RandomAccessFile rawSdt) {
-        ByteArrayOutputStream result = null;
-
-        //Get the file
-        SdtFileEntry fileEntry = entries.get(fileName);
-        if (fileEntry == null) {
-            throw new RuntimeException("File " + fileName + " not found from the SDT archive!");
-        }
+    public ByteArrayOutputStream getFileData(String fileName) {
+        SdtFileEntry fileEntry = getEntry(fileName);
+        boolean wav = fileEntry.getType() == SdtFileEntry.SoundType.WAV;
+        ByteArrayOutputStream result = new ByteArrayOutputStream((wav ? WAV_HEADER_SIZE : 0) + fileEntry.getDataSize());
 
-        try {
-            result = new ByteArrayOutputStream();
-
-            if (fileEntry.getType() == SdtFileEntry.SoundType.WAV) {
-                addWavHeader(result, fileEntry);
+        //Open the SDT for extraction
+        try (FileChannel rawSdt = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            WritableByteChannel output = Channels.newChannel(result);
+            if (wav) {
+                write(getWavHeader(fileEntry), output);
             }
-
-            //Seek to the file we want and read it
-            rawSdt.seek(fileEntry.getDataOffset());
-            byte[] bytes = new byte[fileEntry.getDataSize()];
-            rawSdt.read(bytes);
-            result.write(bytes);
-
-        } catch (Exception e) {
+            transfer(rawSdt, fileEntry, output);
+        } catch (IOException e) {
 
             //Fug
-            throw new RuntimeException("Faile to read the SDT file!", e);
+            throw new RuntimeException("Failed to read the file " + file + "!", e);
         }
 
         return result;
     }
 
+    /**
+     * Copy the entry data from the archive, without reading it to memory when
+     * writing to a file
+     *
+     * @param rawSdt the opened SDT file
+     * @param fileEntry the entry to copy
+     * @param output where to copy
+     * @throws IOException may fail
+     */
+    private void transfer(FileChannel rawSdt, SdtFileEntry fileEntry, WritableByteChannel output) throws IOException {
+        long position = fileEntry.getDataOffset();
+        long end = position + fileEntry.getDataSize();
+        while (position < end) {
+            long transferred = rawSdt.transferTo(position, end - position, output);
+            if (transferred <= 0) {
+                throw new IOException("Unexpected end of file " + file + "!");
+            }
+            position += transferred;
+        }
+    }
+
+    private SdtFileEntry getEntry(String fileName) {
+        SdtFileEntry fileEntry = entries.get(fileName);
+        if (fileEntry == null) {
+            throw new RuntimeException("File " + fileName + " not found from the SDT archive!");
+        }
+        return fileEntry;
+    }
+
     /**
      * Fix the file extensions, since the 16 char limit, it seems that there are
      * broken extensions
@@ -216,36 +269,35 @@ public class SdtFile {
         return filename;
     }
 
-    private byte[] getBytes(int value, int size) {
-        byte[] result = new byte[size];
-
-        for (int i = 0; i < result.length; i++) {
-            result[i] = (byte) ((value >> (i * Byte.SIZE)) & 0xFF);
-        }
-
-        return result;
-    }
-
-    private void addWavHeader(ByteArrayOutputStream stream, SdtFileEntry entry) throws IOException {
+    private static ByteBuffer getWavHeader(SdtFileEntry entry) {
 
         short numChannels = 1; // 1 = Mono, 2 = Stereo
         short audioFormat = 1; // 1 = PCM
-        int chunkSize = 44 - 8 + entry.getDataSize(); //chunkSize
+        int chunkSize = WAV_HEADER_SIZE - 8 + entry.getDataSize(); //chunkSize
         int subchunkFmtSize = 16; // subchunk1Size. For format PCM
 
-        stream.write("RIFF".getBytes()); // chunkId
-        stream.write(getBytes(chunkSize, 4));
-        stream.write("WAVE".getBytes()); // format
-        stream.write("fmt ".getBytes()); // subchunk1Id
-        stream.write(getBytes(subchunkFmtSize, 4));
-        stream.write(getBytes(audioFormat, 2));
-        stream.write(getBytes(numChannels, 2));
-        stream.write(getBytes(entry.getSampleRate(), 4)); // sampleRate
-        stream.write(getBytes(entry.getSampleRate() * numChannels * entry.getBitsPerSample() / Byte.SIZE, 4)); // byteRate
-        stream.write(getBytes(numChannels * entry.getBitsPerSample() / Byte.SIZE, 2)); // blockAlign
-        stream.write(getBytes(entry.getBitsPerSample(), 2)); // bitsPerSample
-        stream.write("data".getBytes()); // subchunk2Id
-        stream.write(getBytes(entry.getDataSize(), 4)); // subchunk2Size
+        ByteBuffer header = ByteBuffer.allocate(WAV_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.put("RIFF".getBytes(StandardCharsets.US_ASCII)); // chunkId
+        header.putInt(chunkSize);
+        header.put("WAVE".getBytes(StandardCharsets.US_ASCII)); // format
+        header.put("fmt ".getBytes(StandardCharsets.US_ASCII)); // subchunk1Id
+        header.putInt(subchunkFmtSize);
+        header.putShort(audioFormat);
+        header.putShort(numChannels);
+        header.putInt(entry.getSampleRate()); // sampleRate
+        header.putInt(entry.getSampleRate() * numChannels * entry.getBitsPerSample() / Byte.SIZE); // byteRate
+        header.putShort((short) (numChannels * entry.getBitsPerSample() / Byte.SIZE)); // blockAlign
+        header.putShort(entry.getBitsPerSample()); // bitsPerSample
+        header.put("data".getBytes(StandardCharsets.US_ASCII)); // subchunk2Id
+        header.putInt(entry.getDataSize()); // subchunk2Size
+        header.flip();
+        return header;
+    }
+
+    private static void write(ByteBuffer data, WritableByteChannel channel) throws IOException {
+        while (data.hasRemaining()) {
+            channel.write(data);
+        }
     }
 
     /**
@@ -261,4 +313,42 @@ public class SdtFile {
     public String toString() {
         return file.getName();
     }
+
+    /**
+     * Extracts a range of the entries, splitting the range in halves until
+     * there is a single entry left
+     */
+    private class ExtractTask extends RecursiveAction {
+
+        private final String[] fileNames;
+        private final File[] files;
+        private final int start;
+        private final int end;
+        private final String destination;
+        private final FileChannel rawSdt;
+
+        public ExtractTask(String[] fileNames, File[] files, int start, int end, String destination, FileChannel rawSdt) {
+            this.fileNames = fileNames;
+            this.files = files;
+            this.start = start;
+            this.end = end;
+            this.destination = destination;
+            this.rawSdt = rawSdt;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > 1) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new ExtractTask(fileNames, files, start, middle, destination, rawSdt),
+                        new ExtractTask(fileNames, files, middle, end, destination, rawSdt));
+                return;
+            }
+            if (start == end) {
+                return;
+            }
+
+            files[start] = extractFileData(fileNames[start], destination, rawSdt);
+        }
+    }
 }
@@ -23,6 +23,8 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -121,11 +123,16 @@ public class SprFile {
         return result;
     }
 
-    public void extract(String destination, String fileName) throws FileNotFoundException, IOException {
+    public List<File> extract(String destination, String fileName) throws FileNotFoundException, IOException {
         int i = 0;
+        List<File> files = new ArrayList<>(sprites.length);
         for (SprEntry sprite : sprites) {
-            OutputStream outputStream = new FileOutputStream(destination + File.separator + fileName + "#" + i++ + ".png");
-            sprite.buffer.writeTo(outputStream);
+            File file = new File(destination + File.separator + fileName + "#" + i++ + ".png");
+            try (OutputStream outputStream = new FileOutputStream(file)) {
+                sprite.buffer.writeTo(outputStream);
+            }
+            files.add(file);
         }
+        return files;
     }
 }
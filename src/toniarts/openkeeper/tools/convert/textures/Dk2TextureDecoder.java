@@ -18,12 +18,12 @@ package toniarts.openkeeper.tools.convert.textures;
 
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.nio.IntBuffer;
-import java.util.Arrays;
 
 /**
  * Base class for some Dungeon Keeper II textures decoding.<br>
  * Texture extraction code by George Gensure
+ * The decoders keep scratch buffers, so an instance must not be used from
+ * several threads at once.
  *
  * @author Toni Helenius <helenius.toni@gmail.com>
  */
@@ -126,10 +126,10 @@ public abstract class Dk2TextureDecoder {
     protected long bs_green = 0;//Unsigned
     protected long bs_blue = 0;//Unsigned
     protected long bs_alpha = 0;//Unsigned
-    protected int[] decompress2_chunk = new int[256]; /* buffers */
-
-    protected int[] decompress3_chunk = new int[288];
-    protected int[] decompress4_chunk = new int[512];
+    private final int[] decompress2_chunk = new int[64]; /* dequantized coefficients */
+    private long decompress2_mask = 0; /* the coefficients set by the previous block */
+    private final int[] decompress3_chunk = new int[72]; /* the rows transformed, 8 x 9 */
+    protected int[] decompress4_chunk = new int[512]; /* the channels transformed, channel offsets 0, 9, 18 & 27 */
     private static final int norm_7af038 = 0x5A82799A;
     private static final float float_7af03c = 5.4119611e-1f;
     private static final float float_7af040 = 1.306563f;
@@ -144,162 +144,100 @@ public abstract class Dk2TextureDecoder {
         bs_alpha = 0;
     }
 
-    protected void decompress_func1(IntBuffer in, IntBuffer out) {
-        long rx;
-        int sa;
-        int b, a, c, d, i, p, s;
-        long sc, sd, si;
-        int ra, rb;
-        double rxf, rxg, rxs;
-        double xf, xg;
-
-        if ((in.get(in.position() + 1) | in.get(in.position() + 2) | in.get(in.position() + 3) | in.get(in.position() + 4) | in.get(in.position() + 6) | in.get(in.position() + 7)) == 0) {
-            a = in.get();
-            out.put(out.position() + 0, a);
-            out.put(out.position() + 9, a);
-            out.put(out.position() + 18, a);
-            out.put(out.position() + 27, a);
-            out.put(out.position() + 36, a);
-            out.put(out.position() + 45, a);
-            out.put(out.position() + 54, a);
-            out.put(out.position() + 63, a);
-            return;
+    /**
+     * Decodes the coefficients of a single channel of the current block and
+     * transforms them to the channel values in decompress4_chunk
+     *
+     * @param value the DC value of the channel
+     * @param pos bitstream position of the coefficients
+     * @param channel the channel offset in decompress4_chunk
+     * @return bitstream position after the coefficients
+     */
+    protected int decompress_channel(int value, int pos, int channel) {
+        int result = prepare_decompress(value, pos);
+        int[] in = decompress2_chunk;
+        int[] out = decompress3_chunk;
+        for (int i = 0; i < 8; i++) {
+            int offset = i * 8;
+
+            // Only DC in the row, note that the original doesn't look at the coefficient 5
+            if ((in[offset + 1] | in[offset + 2] | in[offset + 3] | in[offset + 4] | in[offset + 6] | in[offset + 7]) == 0) {
+                int a = in[offset];
+                for (int j = 0; j < 72; j += 9) {
+                    out[i + j] = a;
+                }
+            } else {
+                decompress_func(in, offset, out, i, 9);
+            }
         }
-
-        b = in.get(in.position() + 5) - in.get(in.position() + 3);
-        c = in.get(in.position() + 1) - in.get(in.position() + 7);
-        i = in.get(in.position() + 3) + in.get(in.position() + 5);
-        a = in.get(in.position() + 7) + in.get(in.position() + 1);
-        xf = b;
-        xg = c;
-        p = i + a;
-        a -= i;
-
-        rxs = xg + xf;
-        rxf = xf * float_7af03c + float_7af044 * rxs;
-        rxg = xg * float_7af040 - float_7af044 * rxs;
-        ra = (int) (rxf + (rxf > 0 ? 0.5f : -0.5f));
-        rb = (int) (rxg + (rxg > 0 ? 0.5f : -0.5f));
-
-        sa = a;
-        rx = sa;
-        rx *= norm_7af038;
-        d = (int) (rx >> 32);
-
-        b = in.get(in.position() + 6);
-        d += d;
-        a = in.get(in.position() + 2);
-
-        c = ra;
-        i = rb;
-        c += d;
-        d += i;
-        i += p;
-        sc = c & 0xFFFFFFFFL;
-        sd = d & 0xFFFFFFFFL;
-        si = i & 0xFFFFFFFFL;
-        c = in.get(in.position() + 0);
-        d = in.get(in.position() + 4);
-        s = b + a;
-        a -= b;
-        b = d + c;
-        c -= d;
-
-        sa = a;
-        rx = sa;
-        rx *= norm_7af038;
-        d = (int) (rx >> 32);
-
-        d += d;
-        out.put(out.position() + 18, (int) ((c - d) + sc));
-        out.put(out.position() + 45, (int) ((c - d) - sc));
-        out.put(out.position() + 27, (b - (s + d)) + ra);
-        out.put(out.position() + 36, (b - (s + d)) - ra);
-        out.put(out.position() + 0, (int) ((s + d) + b + si));
-        out.put(out.position() + 9, (int) (sd + d + c));
-        out.put(out.position() + 54, (int) (d + c - sd));
-        out.put(out.position() + 63, (int) ((s + d) + b - si));
+        for (int i = 0; i < 8; i++) {
+            decompress_func(out, i * 9, decompress4_chunk, i * 64 + channel, 1);
+        }
+        return result;
     }
 
-    protected void decompress_func2(IntBuffer in, IntBuffer out) {
-        long rx;
-        int sa;
-        int b, a, c, d, i, p, s;
-        long sc, sd, si;
-        int ra, rb;
-        double rxf, rxg, rxs;
-        double xf, xg;
-
-        b = in.get(in.position() + 5) - in.get(in.position() + 3);
-        c = in.get(in.position() + 1) - in.get(in.position() + 7);
-        i = in.get(in.position() + 3) + in.get(in.position() + 5);
-        a = in.get(in.position() + 7) + in.get(in.position() + 1);
-        xf = b;
-        xg = c;
-        p = i + a;
+    /**
+     * One dimensional inverse DCT of 8 values
+     *
+     * @param in the input values
+     * @param inOffset offset of the first input value
+     * @param out the output values
+     * @param outOffset offset of the first output value
+     * @param stride distance of the output values
+     */
+    private static void decompress_func(int[] in, int inOffset, int[] out, int outOffset, int stride) {
+        int in0 = in[inOffset];
+        int in1 = in[inOffset + 1];
+        int in2 = in[inOffset + 2];
+        int in3 = in[inOffset + 3];
+        int in4 = in[inOffset + 4];
+        int in5 = in[inOffset + 5];
+        int in6 = in[inOffset + 6];
+        int in7 = in[inOffset + 7];
+
+        // Odd part
+        int b = in5 - in3;
+        int c = in1 - in7;
+        int i = in3 + in5;
+        int a = in7 + in1;
+        double xf = b;
+        double xg = c;
+        int p = i + a;
         a -= i;
 
-        rxs = xg + xf;
-        rxf = xf * float_7af03c + float_7af044 * rxs;
-        rxg = xg * float_7af040 - float_7af044 * rxs;
-        ra = (int) (rxf + (rxf > 0 ? 0.5f : -0.5f));
-        rb = (int) (rxg + (rxg > 0 ? 0.5f : -0.5f));
-
-        sa = a;
-        rx = sa;
-        rx *= norm_7af038;
-        d = (int) (rx >> 32);
+        double rxs = xg + xf;
+        double rxf = xf * float_7af03c + float_7af044 * rxs;
+        double rxg = xg * float_7af040 - float_7af044 * rxs;
+        int ra = (int) (rxf + (rxf > 0 ? 0.5f : -0.5f));
+        int rb = (int) (rxg + (rxg > 0 ? 0.5f : -0.5f));
 
-        b = in.get(in.position() + 6);
+        int d = (int) (((long) a * norm_7af038) >> 32);
         d += d;
-        a = in.get(in.position() + 2);
-
-        c = ra;
-        i = rb;
-        c += d;
-        d += i;
-        i += p;
-        sc = c & 0xFFFFFFFFL;
-        sd = d & 0xFFFFFFFFL;
-        si = i & 0xFFFFFFFFL;
-        c = in.get(in.position() + 0);
-        d = in.get(in.position() + 4);
-        s = b + a;
-        a -= b;
-        b = d + c;
-        c -= d;
-
-        sa = a;
-        rx = sa;
-        rx *= norm_7af038;
-        d = (int) (rx >> 32);
-
+        int sc = ra + d;
+        int sd = d + rb;
+        int si = rb + p;
+
+        // Even part
+        int s = in6 + in2;
+        a = in2 - in6;
+        b = in4 + in0;
+        c = in0 - in4;
+        d = (int) (((long) a * norm_7af038) >> 32);
         d += d;
-        p = (int) sc;
         s += d;
         a = d + c;
         c -= d;
         d = s + b;
         b -= s;
-        s = c + p;
-        c -= p;
-        p = ra;
-        out.put(out.position() + 2, s);
-        s = (int) sd;
-        out.put(out.position() + 5, c);
-        c = b + p;
-        b -= p;
-        p = (int) si;
-        out.put(out.position() + 3, c);
-        out.put(out.position() + 4, b);
-        b = s + a;
-        a -= s;
-        c = d + p;
-        d -= p;
-        out.put(out.position() + 0, c);
-        out.put(out.position() + 1, b);
-        out.put(out.position() + 6, a);
-        out.put(out.position() + 7, d);
+
+        out[outOffset] = d + si;
+        out[outOffset + stride] = a + sd;
+        out[outOffset + 2 * stride] = c + sc;
+        out[outOffset + 3 * stride] = b + ra;
+        out[outOffset + 4 * stride] = b - ra;
+        out[outOffset + 5 * stride] = c - sc;
+        out[outOffset + 6 * stride] = a - sd;
+        out[outOffset + 7 * stride] = d - si;
     }
 
     protected long bs_read(int pos, int bits) {
@@ -317,13 +255,17 @@ public abstract class Dk2TextureDecoder {
         return w1;
     }
 
-    protected long prepare_decompress(int value, int pos) {
+    private int prepare_decompress(int value, int pos) {
         int xindex = 0, index = 0, control_word = 0;
         short magic_index = 0x3f;
         boolean areWeDone = false;
 
+        // Clear only what the previous block set, most of the coefficients stay zero
+        while (decompress2_mask != 0) {
+            decompress2_chunk[Long.numberOfTrailingZeros(decompress2_mask)] = 0;
+            decompress2_mask &= decompress2_mask - 1;
+        }
         decompress2_chunk[0] = value * magic_output_table[0];
-        Arrays.fill(decompress2_chunk, 1, decompress2_chunk.length, 0);
 
         while (true) {
             if (!areWeDone) {
@@ -383,6 +325,7 @@ public abstract class Dk2TextureDecoder {
                     }
                     out_index = dc_control_table_7af0e0[magic_index + 1];
                     decompress2_chunk[out_index] = ((short) control_word) * magic_output_table[out_index];
+                    decompress2_mask |= 1L << out_index;
                     continue;
                 }
             } else if (index >= 0x800) {
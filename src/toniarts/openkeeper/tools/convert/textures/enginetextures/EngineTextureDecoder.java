@@ -17,7 +17,6 @@
 package toniarts.openkeeper.tools.convert.textures.enginetextures;
 
 import java.nio.ByteBuffer;
-import java.nio.IntBuffer;
 import toniarts.openkeeper.tools.convert.textures.Dk2TextureDecoder;
 
 /**
@@ -63,7 +62,6 @@ public class EngineTextureDecoder extends Dk2TextureDecoder {
 
     @Override
     protected void decompress_block(ByteBuffer out, int stride, boolean alphaFlag) {
-        IntBuffer inp;
         double d;
         long xr, xg, xb;
         int ir, ig, ib;
@@ -74,14 +72,15 @@ public class EngineTextureDecoder extends Dk2TextureDecoder {
 
         decompress(alphaFlag);
 
-        inp = IntBuffer.wrap(decompress4_chunk);
+        int[] inp = decompress4_chunk;
+        int row = 0;
         for (j = 0; j < 8; j++) {
             for (i = 0; i < 8; i++) {
                 int value;
-                r = inp.get(inp.position() + i + 0);
-                g = inp.get(inp.position() + i + 18);
-                b = inp.get(inp.position() + i + 9);
-                a = inp.get(inp.position() + i + 27);
+                r = inp[row + i + 0];
+                g = inp[row + i + 18];
+                b = inp[row + i + 9];
+                a = inp[row + i + 27];
                 d = float_7af014 * (g - float_7af004) + float_7af008 * (r - float_7af000) + double_7af048;
                 xr = (long) (d + (d > 0 ? 0.5f : -0.5f)) & 0xFFFFFFFFL;
                 ir = (int) xr;
@@ -103,7 +102,7 @@ public class EngineTextureDecoder extends Dk2TextureDecoder {
                 out.putInt(out.position() + i * 4, value);
             }
             out.position(Math.min(out.limit(), out.position() + stride));
-            inp.position(inp.position() + 64);
+            row += 64;
         }
     }
 
@@ -142,14 +141,7 @@ public class EngineTextureDecoder extends Dk2TextureDecoder {
             }
             bs_index = bs_pos;
         } else {
-            int i;
-            bs_index = prepare_decompress((int) bs_red, bs_pos);
-            for (i = 0; i < 8; i++) {
-                decompress_func1(IntBuffer.wrap(decompress2_chunk, i * 8, decompress2_chunk.length - i * 8), IntBuffer.wrap(decompress3_chunk, i, decompress3_chunk.length - i));
-            }
-            for (i = 0; i < 8; i++) {
-                decompress_func2(IntBuffer.wrap(decompress3_chunk, i * 9, decompress3_chunk.length - i * 9), IntBuffer.wrap(decompress4_chunk, i * 64, decompress4_chunk.length - i * 64));
-            }
+            bs_index = decompress_channel((int) bs_red, bs_pos, 0);
         }
 
         bs_pos = (int) bs_index;
@@ -183,14 +175,7 @@ public class EngineTextureDecoder extends Dk2TextureDecoder {
             }
             bs_index = bs_pos;
         } else {
-            int i;
-            bs_index = prepare_decompress((int) bs_green, bs_pos);
-            for (i = 0; i < 8; i++) {
-                decompress_func1(IntBuffer.wrap(decompress2_chunk, i * 8, decompress2_chunk.length - i * 8), IntBuffer.wrap(decompress3_chunk, i, decompress3_chunk.length - i));
-            }
-            for (i = 0; i < 8; i++) {
-                decompress_func2(IntBuffer.wrap(decompress3_chunk, i * 9, decompress3_chunk.length - i * 9), IntBuffer.wrap(decompress4_chunk, i * 64 + 9, decompress4_chunk.length - (i * 64 + 9)));
-            }
+            bs_index = decompress_channel((int) bs_green, bs_pos, 9);
         }
 
         bs_pos = (int) bs_index;
@@ -224,14 +209,7 @@ public class EngineTextureDecoder extends Dk2TextureDecoder {
             }
             bs_index = bs_pos;
         } else {
-            int i;
-            bs_index = prepare_decompress((int) bs_blue, bs_pos);
-            for (i = 0; i < 8; i++) {
-                decompress_func1(IntBuffer.wrap(decompress2_chunk, i * 8, decompress2_chunk.length - i * 8), IntBuffer.wrap(decompress3_chunk, i, decompress3_chunk.length - i));
-            }
-            for (i = 0; i < 8; i++) {
-                decompress_func2(IntBuffer.wrap(decompress3_chunk, i * 9, decompress3_chunk.length - i * 9), IntBuffer.wrap(decompress4_chunk, i * 64 + 18, decompress4_chunk.length - (i * 64 + 18)));
-            }
+            bs_index = decompress_channel((int) bs_blue, bs_pos, 18);
         }
 
         bs_pos = (int) bs_index;
@@ -268,14 +246,7 @@ public class EngineTextureDecoder extends Dk2TextureDecoder {
             }
             bs_index = bs_pos;
         } else {
-            int i;
-            bs_index = prepare_decompress((int) bs_alpha, bs_pos);
-            for (i = 0; i < 8; i++) {
-                decompress_func1(IntBuffer.wrap(decompress2_chunk, i * 8, decompress2_chunk.length - i * 8), IntBuffer.wrap(decompress3_chunk, i, decompress3_chunk.length - i));
-            }
-            for (i = 0; i < 8; i++) {
-                decompress_func2(IntBuffer.wrap(decompress3_chunk, i * 9, decompress3_chunk.length - i * 9), IntBuffer.wrap(decompress4_chunk, i * 64 + 27, decompress4_chunk.length - (i * 64 + 27)));
-            }
+            bs_index = decompress_channel((int) bs_alpha, bs_pos, 27);
         }
     }
 }
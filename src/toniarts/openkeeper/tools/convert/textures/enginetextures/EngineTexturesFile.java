@@ -19,25 +19,37 @@ package toniarts.openkeeper.tools.convert.textures.enginetextures;
 import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.RandomAccessFile;
-import java.nio.file.Path;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiConsumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import javax.imageio.ImageIO;
 import toniarts.openkeeper.tools.convert.ConversionUtils;
+import toniarts.openkeeper.tools.convert.ResourceReader;
 import toniarts.openkeeper.utils.PathUtils;
 
 /**
  * Reads Dungeon Keeper II EngineTextures.dat file to a structure<br>
  * Also reads EngineTextures.dir for the texture names<br>
- * The file is LITTLE ENDIAN I might say
+ * The file is LITTLE ENDIAN I might say<br>
+ * The textures can be decoded from several threads at once, each thread uses
+ * its own decoder.
  *
  *
  * @author Toni Helenius <helenius.toni@gmail.com>
@@ -47,16 +59,31 @@ public class EngineTexturesFile implements Iterable<String> {
     private static final Logger logger = Logger.getLogger(EngineTexturesFile.class.getName());
     private static final boolean DECOMPRESSION_ENABLED = true;
     private static final int CHESS_BOARD_GRID_SIZE = 8;
+    private static final Pattern MIPMAP_PATTERN = Pattern.compile("(?<name>\\w+)MM(?<mipmaplevel>\\d{1})");
+
+    /**
+     * The decoders have scratch buffers, so each thread gets its own
+     */
+    private static final ThreadLocal<EngineTextureDecoder> decoder = ThreadLocal.withInitial(EngineTextureDecoder::new);
     private final File file;
-    private EngineTextureDecoder decoder;
+    private final ByteBuffer textures;
     private final HashMap<String, EngineTextureEntry> engineTextureEntries;
 
     public EngineTexturesFile(File file) {
         this.file = file;
 
+        //Map the DAT file, the textures are read from the shared mapping
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            textures = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+
+            //Fug
+            throw new RuntimeException("Failed to open the file " + file + "!", e);
+        }
+
         //Read the names from the DIR file in the same folder
         File dirFile = new File(file.toString().substring(0, file.toString().length() - 3).concat("dir"));
-        try (RandomAccessFile rawDir = new RandomAccessFile(dirFile, "r")) {
+        try (ResourceReader rawDir = new ResourceReader(dirFile)) {
 
             // File format:
             // HEADER:
@@ -70,35 +97,30 @@ public class EngineTexturesFile implements Iterable<String> {
 
             //Read the entries
             rawDir.skipBytes(12);
-            int numberOfEntries = ConversionUtils.readUnsignedInteger(rawDir);
+            int numberOfEntries = rawDir.readUnsignedInteger();
             engineTextureEntries = new HashMap<>(numberOfEntries);
 
-            try (RandomAccessFile rawTextures = new RandomAccessFile(file, "r")) {
-                do {
-                    String name = ConversionUtils.convertFileSeparators(ConversionUtils.readVaryingLengthStrings(rawDir, 1).get(0));
-                    int offset = ConversionUtils.readUnsignedInteger(rawDir);
-
-                    //Read the actual data from the DAT file from the offset specified by the DIR file
-                    rawTextures.seek(offset);
-
-                    //Read the header
-                    EngineTextureEntry entry = new EngineTextureEntry();
-                    entry.setResX(ConversionUtils.readUnsignedInteger(rawTextures));
-                    entry.setResY(ConversionUtils.readUnsignedInteger(rawTextures));
-                    entry.setSize(ConversionUtils.readUnsignedInteger(rawTextures) - 8); // - 8 since the size is from here now on
-                    entry.setsResX(ConversionUtils.readUnsignedShort(rawTextures));
-                    entry.setsResY(ConversionUtils.readUnsignedShort(rawTextures));
-                    entry.setAlphaFlag(ConversionUtils.readUnsignedInteger(rawTextures) >> 7 != 0);
-                    entry.setDataStartLocation(rawTextures.getFilePointer());
-
-                    //Put the entry to the hash
-                    engineTextureEntries.put(name, entry);
-                } while (rawDir.getFilePointer() != rawDir.length());
-            } catch (IOException e) {
-
-                //Fug
-                throw new RuntimeException("Failed to open the file " + file + "!", e);
-            }
+            ResourceReader rawTextures = new ResourceReader(textures);
+            do {
+                String name = ConversionUtils.convertFileSeparators(rawDir.readVaryingLengthStrings(1).get(0));
+                int offset = rawDir.readUnsignedInteger();
+
+                //Read the actual data from the DAT file from the offset specified by the DIR file
+                rawTextures.seek(offset);
+
+                //Read the header
+                EngineTextureEntry entry = new EngineTextureEntry();
+                entry.setResX(rawTextures.readUnsignedInteger());
+                entry.setResY(rawTextures.readUnsignedInteger());
+                entry.setSize(rawTextures.readUnsignedInteger() - 8); // - 8 since the size is from here now on
+                entry.setsResX(rawTextures.readUnsignedShort());
+                entry.setsResY(rawTextures.readUnsignedShort());
+                entry.setAlphaFlag(rawTextures.readUnsignedInteger() >> 7 != 0);
+                entry.setDataStartLocation(rawTextures.getFilePointer());
+
+                //Put the entry to the hash
+                engineTextureEntries.put(name, entry);
+            } while (rawDir.getFilePointer() != rawDir.length());
         } catch (IOException e) {
 
             //Fug
@@ -115,28 +137,57 @@ public class EngineTexturesFile implements Iterable<String> {
         return engineTextureEntries.size();
     }
 
+    /**
+     * Get the name the texture is extracted with when only the highest quality
+     * mipmap levels are extracted
+     *
+     * @param textureEntry the texture entry
+     * @return the name without the mipmap level, or {@code null} if the entry
+     * is a lower quality mipmap level
+     */
+    public static String getHighestMipMapName(String textureEntry) {
+        Matcher matcher = MIPMAP_PATTERN.matcher(textureEntry);
+        if (!matcher.find()) {
+            return textureEntry;
+        }
+        if (Integer.parseInt(matcher.group("mipmaplevel")) != 0) {
+            return null;
+        }
+        return textureEntry.replaceFirst("MM" + matcher.group("mipmaplevel"), "");
+    }
+
     /**
      * Extract all the files to a given location
      *
      * @param destination destination directory
      */
     public void extractFileData(String destination) {
+        extractFileData(engineTextureEntries.keySet(), destination, false, true, ForkJoinPool.commonPool(), null);
+    }
 
-        //Open the Texture file for extraction
-        try (RandomAccessFile rawTextures = new RandomAccessFile(file, "r")) {
-
-            for (String textureEntry : engineTextureEntries.keySet()) {
-                extractFileData(textureEntry, destination, rawTextures, true);
-            }
-        } catch (IOException e) {
-
-            //Fug
-            throw new RuntimeException("Failed to open the file " + file + "!", e);
-        }
+    /**
+     * Extract the given files to a given location. The textures are decoded
+     * in parallel in the given pool and each one is written to disk as soon as
+     * it is decoded. Returns when all the textures are done.
+     *
+     * @param textureEntries the textures to extract
+     * @param destination destination directory
+     * @param highestMipMapOnly extract only the highest quality mipmap level
+     * of the textures, named without the level
+     * @param overwrite overwrite destination files
+     * @param pool the pool to decode the textures in
+     * @param listener notified of each texture entry done with the extracted
+     * file, {@code null} for the skipped mipmap levels. Called from the
+     * decoding threads. May be {@code null}
+     */
+    public void extractFileData(Collection<String> textureEntries, String destination, boolean highestMipMapOnly, boolean overwrite, ForkJoinPool pool, BiConsumer<String, File> listener) {
+        String[] entries = textureEntries.toArray(new String[textureEntries.size()]);
+        pool.invoke(new ExtractTask(entries, 0, entries.length, destination, highestMipMapOnly, overwrite, listener));
     }
 
     /**
-     * Extract a single to a given location
+     * Extract a single to a given location. Can be called from several threads
+     * at once.
      *
      * @param textureEntry entry to extract
      * @param destination destination directory
@@ -144,44 +195,36 @@ public class EngineTexturesFile implements Iterable<String> {
      * @return returns the extracted file
      */
     public File extractFileData(String textureEntry, String destination, boolean overwrite) {
-
-        //Open the Texture file for extraction
-        try (RandomAccessFile rawTextures = new RandomAccessFile(file, "r")) {
-            return extractFileData(textureEntry, destination, rawTextures, overwrite);
-        } catch (IOException e) {
-
-            //Fug
-            throw new RuntimeException("Failed to open the file " + file + "!", e);
-        }
+        return extractFileData(textureEntry, textureEntry, destination, overwrite);
     }
 
     /**
      * Extract a single file to a given location
      *
      * @param textureEntry texture to extract
+     * @param name the file name to extract to, without the extension
      * @param destination destination directory
-     * @param rawTextures the opened EngineTextures file
      * @param overwrite overwrite destination file
      *
      */
-    private File extractFileData(String textureEntry, String destination, RandomAccessFile rawTextures, boolean overwrite) {
+    private File extractFileData(String textureEntry, String name, String destination, boolean overwrite) {
 
         //See that the destination is formatted correctly and create it if it does not exist
         String dest = PathUtils.fixFilePath(destination);
 
-        File destinationFile = new File(dest.concat(textureEntry).concat(".png"));
+        File destinationFile = new File(dest.concat(name).concat(".png"));
         if (!overwrite && destinationFile.exists()) {
 
             //Skip
             logger.log(Level.INFO, "File {0} already exists, skipping!", destinationFile);
             return destinationFile;
         }
-        Path destinationFolder = destinationFile.toPath();
-        destinationFolder.getParent().toFile().mkdirs();
+        destinationFile.getParentFile().mkdirs();
 
         //Write to the file
-        try (OutputStream outputStream = new FileOutputStream(destinationFile)) {
-            getFileData(textureEntry, rawTextures).writeTo(outputStream);
+        BufferedImage image = getImage(textureEntry);
+        try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(destinationFile))) {
+            ImageIO.write(image, "png", outputStream);
             return destinationFile;
         } catch (IOException e) {
             throw new RuntimeException("Failed to write to " + destinationFile + "!", e);
@@ -189,51 +232,75 @@ public class EngineTexturesFile implements Iterable<String> {
     }
 
     /**
-     * Extract a single file
+     * Decode a single texture to PNG. Can be called from several threads at
+     * once.
      *
-     * @param textureEntry the texture to extract
-     * @param rawTextures the opened EngineTextures file
-     * @return the file data
+     * @param textureEntry the texture to decode
+     * @return the PNG image data
      */
-    private ByteArrayOutputStream getFileData(String textureEntry, RandomAccessFile rawTextures) {
-        ByteArrayOutputStream result = null;
+    public ByteArrayOutputStream getFileData(String textureEntry) {
+        BufferedImage image = getImage(textureEntry);
+        try {
+            ByteArrayOutputStream result = new ByteArrayOutputStream();
+            ImageIO.write(image, "png", result);
+            return result;
+        } catch (IOException e) {
 
-        //Get the file
+            //Fug
+            throw new RuntimeException("Failed to encode the engine texture " + textureEntry + "!", e);
+        }
+    }
+
+    /**
+     * Get the compressed data of a single texture, without copying it. Can be
+     * called from several threads at once.
+     *
+     * @param textureEntry the texture
+     * @return the compressed texture data, in LITTLE ENDIAN order
+     */
+    public ByteBuffer getFileBuffer(String textureEntry) {
         EngineTextureEntry engineTextureEntry = engineTextureEntries.get(textureEntry);
         if (engineTextureEntry == null) {
             throw new RuntimeException("File " + textureEntry + " not found from the texture archive!");
         }
+        ByteBuffer data = textures.duplicate();
+        data.position((int) engineTextureEntry.getDataStartLocation());
+        data.limit(data.position() + engineTextureEntry.getSize());
+        return data.slice().asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    }
 
-        try {
-
-            //We should decompress the texture
-            BufferedImage image;
-            if (DECOMPRESSION_ENABLED) {
+    /**
+     * Decode a single texture
+     *
+     * @param textureEntry the texture to decode
+     * @return the texture image
+     */
+    private BufferedImage getImage(String textureEntry) {
 
-                //Seek to the file we want and read it
-                rawTextures.seek(engineTextureEntry.getDataStartLocation());
-                int count = (engineTextureEntry.getSize()) / 4;
-                long[] buf = new long[count];
-                for (int i = 0; i < count; i++) {
-                    buf[i] = ConversionUtils.readUnsignedIntegerAsLong(rawTextures);
-                }
+        //Get the file
+        EngineTextureEntry engineTextureEntry = engineTextureEntries.get(textureEntry);
+        if (engineTextureEntry == null) {
+            throw new RuntimeException("File " + textureEntry + " not found from the texture archive!");
+        }
 
-                // Use the monstrous decompression routine
-                image = decompressTexture(buf, engineTextureEntry);
-            } else {
+        //We should decompress the texture
+        if (DECOMPRESSION_ENABLED) {
 
-                //Use our chess board texture
-                image = generateChessBoard(engineTextureEntry);
+            //Seek to the file we want and read it
+            ResourceReader rawTextures = new ResourceReader(textures);
+            rawTextures.seek(engineTextureEntry.getDataStartLocation());
+            int count = (engineTextureEntry.getSize()) / 4;
+            long[] buf = new long[count];
+            for (int i = 0; i < count; i++) {
+                buf[i] = rawTextures.readUnsignedIntegerAsLong();
             }
-            result = new ByteArrayOutputStream();
-            ImageIO.write(image, "png", result);
-        } catch (Exception e) {
 
-            //Fug
-            throw new RuntimeException("Faile to read the engine texture file!", e);
+            // Use the monstrous decompression routine
+            return decompressTexture(buf, engineTextureEntry);
         }
 
-        return result;
+        //Use our chess board texture
+        return generateChessBoard(engineTextureEntry);
     }
 
     /**
@@ -280,10 +347,7 @@ public class EngineTexturesFile implements Iterable<String> {
         BufferedImage img = new BufferedImage(engineTextureEntry.getResX(), engineTextureEntry.getResY(), BufferedImage.TYPE_INT_ARGB);
 
         // Decompress the texture
-        if (decoder == null) {
-            decoder = new EngineTextureDecoder();
-        }
-        byte[] pixels = decoder.dd_texture(buf, engineTextureEntry.getResX() * (32 / 8)/*(bpp / 8 = bytes per pixel)*/, engineTextureEntry.getResX(), engineTextureEntry.getResY(), engineTextureEntry.isAlphaFlag());
+        byte[] pixels = decoder.get().dd_texture(buf, engineTextureEntry.getResX() * (32 / 8)/*(bpp / 8 = bytes per pixel)*/, engineTextureEntry.getResX(), engineTextureEntry.getResY(), engineTextureEntry.isAlphaFlag());
 
         // Draw the image, pixel by pixel
         for (int x = 0; x < engineTextureEntry.getResX(); x++) {
@@ -314,4 +378,52 @@ public class EngineTexturesFile implements Iterable<String> {
     public EngineTextureEntry getEntry(String texture) {
         return engineTextureEntries.get(texture);
     }
+
+    /**
+     * Extracts a range of the texture entries, splitting the range in halves
+     * until there is a single texture left
+     */
+    private class ExtractTask extends RecursiveAction {
+
+        private final String[] entries;
+        private final int start;
+        private final int end;
+        private final String destination;
+        private final boolean highestMipMapOnly;
+        private final boolean overwrite;
+        private final BiConsumer<String, File> listener;
+
+        public ExtractTask(String[] entries, int start, int end, String destination, boolean highestMipMapOnly, boolean overwrite, BiConsumer<String, File> listener) {
+            this.entries = entries;
+            this.start = start;
+            this.end = end;
+            this.destination = destination;
+            this.highestMipMapOnly = highestMipMapOnly;
+            this.overwrite = overwrite;
+            this.listener = listener;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > 1) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new ExtractTask(entries, start, middle, destination, highestMipMapOnly, overwrite, listener),
+                        new ExtractTask(entries, middle, end, destination, highestMipMapOnly, overwrite, listener));
+                return;
+            }
+            if (start == end) {
+                return;
+            }
+
+            String textureEntry = entries[start];
+            String name = (highestMipMapOnly ? getHighestMipMapName(textureEntry) : textureEntry);
+            File file = null;
+            if (name != null) {
+                file = extractFileData(textureEntry, name, destination, overwrite);
+            }
+            if (listener != null) {
+                listener.accept(textureEntry, file);
+            }
+        }
+    }
 }
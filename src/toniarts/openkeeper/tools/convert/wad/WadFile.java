@@ -18,15 +18,22 @@ package toniarts.openkeeper.tools.convert.wad;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
-import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import toniarts.openkeeper.tools.convert.ConversionUtils;
+import toniarts.openkeeper.tools.convert.ResourceReader;
 import toniarts.openkeeper.utils.PathUtils;
 
 /**
@@ -36,16 +43,23 @@ import toniarts.openkeeper.utils.PathUtils;
  * Converted to JAVA from C code, C code by:
  * <li>Tomasz Lis</li>
  * <li>Anonymous</li>
+ * The archive is mapped to memory once, and the entries are read straight from
+ * it, so the same WadFile can be used from several threads at once.
  *
  * @author Toni Helenius <helenius.toni@gmail.com>
  */
 public class WadFile {
 
-    private final File file;
+    private final ByteBuffer wad;
     private final LinkedHashMap<String, WadFileEntry> wadFileEntries;
+    private final Map<String, String> subdirs;
     private static final String WAD_HEADER_IDENTIFIER = "DWFB";
     private static final int WAD_HEADER_VERSION = 2;
-    private String subdir = "";
+
+    /**
+     * Decompression buffers, one per thread, grown as needed
+     */
+    private static final ThreadLocal<byte[]> decompressionBuffer = ThreadLocal.withInitial(() -> new byte[0]);
 
     /**
      * Constructs a new Wad file reader<br>
@@ -54,79 +68,89 @@ public class WadFile {
      * @param file the wad file to read
      */
     public WadFile(File file) {
-        this.file = file;
+        //Map the file, the mapping stays valid after closing the channel
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            wad = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+
+            //Fug
+            throw new RuntimeException("Failed to open the file " + file + "!", e);
+        }
 
         //Read the file
-        try (RandomAccessFile rawWad = new RandomAccessFile(file, "r")) {
+        ResourceReader rawWad = new ResourceReader(wad);
 
-            //Check the header
-            byte[] header = new byte[4];
-            rawWad.read(header);
-            if (!WAD_HEADER_IDENTIFIER.equals(ConversionUtils.toString(header))) {
-                throw new RuntimeException("Header should be " + WAD_HEADER_IDENTIFIER + " and it was " + header + "! Cancelling!");
-            }
+        //Check the header
+        byte[] header = new byte[4];
+        rawWad.read(header);
+        if (!WAD_HEADER_IDENTIFIER.equals(ConversionUtils.toString(header))) {
+            throw new RuntimeException("Header should be " + WAD_HEADER_IDENTIFIER + " and it was " + header + "! Cancelling!");
+        }
 
-            //See the version
-            int version = ConversionUtils.readUnsignedInteger(rawWad);
-            if (WAD_HEADER_VERSION != version) {
-                throw new RuntimeException("Version header should be " + WAD_HEADER_VERSION + " and it was " + version + "! Cancelling!");
-            }
+        //See the version
+        int version = rawWad.readUnsignedInteger();
+        if (WAD_HEADER_VERSION != version) {
+            throw new RuntimeException("Version header should be " + WAD_HEADER_VERSION + " and it was " + version + "! Cancelling!");
+        }
 
-            //Seek
-            rawWad.seek(0x48);
-
-            int files = ConversionUtils.readUnsignedInteger(rawWad);
-            int nameOffset = ConversionUtils.readUnsignedInteger(rawWad);
-            int nameSize = ConversionUtils.readUnsignedInteger(rawWad);
-            int unknown = ConversionUtils.readUnsignedInteger(rawWad);
-
-            //Loop through the file count
-            List<WadFileEntry> entries = new ArrayList<>(files);
-            for (int i = 0; i < files; i++) {
-                WadFileEntry wadInfo = new WadFileEntry();
-                wadInfo.setUnk1(ConversionUtils.readUnsignedInteger(rawWad));
-                wadInfo.setNameOffset(ConversionUtils.readUnsignedInteger(rawWad));
-                wadInfo.setNameSize(ConversionUtils.readUnsignedInteger(rawWad));
-                wadInfo.setOffset(ConversionUtils.readUnsignedInteger(rawWad));
-                wadInfo.setCompressedSize(ConversionUtils.readUnsignedInteger(rawWad));
-                int typeIndex = ConversionUtils.readUnsignedInteger(rawWad);
-                switch (typeIndex) {
-                    case 0: {
-                        wadInfo.setType(WadFileEntry.WadFileEntryType.NOT_COMPRESSED);
-                        break;
-                    }
-                    case 4: {
-                        wadInfo.setType(WadFileEntry.WadFileEntryType.COMPRESSED);
-                        break;
-                    }
-                    default: {
-                        wadInfo.setType(WadFileEntry.WadFileEntryType.UNKOWN);
-                    }
+        //Seek
+        rawWad.seek(0x48);
+
+        int files = rawWad.readUnsignedInteger();
+        int nameOffset = rawWad.readUnsignedInteger();
+        int nameSize = rawWad.readUnsignedInteger();
+        int unknown = rawWad.readUnsignedInteger();
+
+        //Loop through the file count
+        List<WadFileEntry> entries = new ArrayList<>(files);
+        for (int i = 0; i < files; i++) {
+            WadFileEntry wadInfo = new WadFileEntry();
+            wadInfo.setUnk1(rawWad.readUnsignedInteger());
+            wadInfo.setNameOffset(rawWad.readUnsignedInteger());
+            wadInfo.setNameSize(rawWad.readUnsignedInteger());
+            wadInfo.setOffset(rawWad.readUnsignedInteger());
+            wadInfo.setCompressedSize(rawWad.readUnsignedInteger());
+            int typeIndex = rawWad.readUnsignedInteger();
+            switch (typeIndex) {
+                case 0: {
+                    wadInfo.setType(WadFileEntry.WadFileEntryType.NOT_COMPRESSED);
+                    break;
+                }
+                case 4: {
+                    wadInfo.setType(WadFileEntry.WadFileEntryType.COMPRESSED);
+                    break;
+                }
+                default: {
+                    wadInfo.setType(WadFileEntry.WadFileEntryType.UNKOWN);
                 }
-                wadInfo.setSize(ConversionUtils.readUnsignedInteger(rawWad));
-                int[] unknown2 = new int[3];
-                unknown2[0] = ConversionUtils.readUnsignedInteger(rawWad);
-                unknown2[1] = ConversionUtils.readUnsignedInteger(rawWad);
-                unknown2[2] = ConversionUtils.readUnsignedInteger(rawWad);
-                wadInfo.setUnknown2(unknown2);
-                entries.add(wadInfo);
             }
+            wadInfo.setSize(rawWad.readUnsignedInteger());
+            int[] unknown2 = new int[3];
+            unknown2[0] = rawWad.readUnsignedInteger();
+            unknown2[1] = rawWad.readUnsignedInteger();
+            unknown2[2] = rawWad.readUnsignedInteger();
+            wadInfo.setUnknown2(unknown2);
+            entries.add(wadInfo);
+        }
 
-            //Read the file names and put them to a hashmap
-            rawWad.seek(nameOffset);
-            byte[] nameArray = new byte[nameSize];
-            rawWad.read(nameArray);
-            int offset = 0;
-            wadFileEntries = new LinkedHashMap<>(files);
-            for (WadFileEntry entry : entries) {
-                String name = ConversionUtils.toString(Arrays.copyOfRange(nameArray, offset, offset + entry.getNameSize())).trim();
-                wadFileEntries.put(ConversionUtils.convertFileSeparators(name), entry);
-                offset += entry.getNameSize();
+        //Read the file names and put them to a hashmap
+        rawWad.seek(nameOffset);
+        byte[] nameArray = new byte[nameSize];
+        rawWad.readFully(nameArray);
+        int offset = 0;
+        wadFileEntries = new LinkedHashMap<>(files);
+        subdirs = new HashMap<>(files);
+        String subdir = "";
+        for (WadFileEntry entry : entries) {
+            String name = ConversionUtils.convertFileSeparators(ConversionUtils.toString(Arrays.copyOfRange(nameArray, offset, offset + entry.getNameSize())).trim());
+            wadFileEntries.put(name, entry);
+            offset += entry.getNameSize();
+
+            // Entries without a path go to the folder of the previous entry that had one
+            if (name.contains(File.separator)) {
+                subdir = name.substring(0, name.lastIndexOf(File.separator) + 1);
             }
-        } catch (IOException e) {
-
-            //Fug
-            throw new RuntimeException("Failed to open the file " + file + "!", e);
+            subdirs.put(name, subdir);
         }
     }
 
@@ -148,44 +172,61 @@ public class WadFile {
         return wadFileEntries.size();
     }
 
+    /**
+     * Get the path of the file, relative to the destination folder it would be
+     * extracted to
+     *
+     * @param fileName the file
+     * @return the relative path
+     */
+    public String getFilePath(String fileName) {
+        if (fileName.contains(File.separator)) {
+            return fileName;
+        }
+        return subdirs.getOrDefault(fileName, "").concat(fileName);
+    }
+
     /**
      * Extract all the files to a given location
      *
      * @param destination destination directory
      */
     public void extractFileData(String destination) {
-
-        //Open the WAD for extraction
-        try (RandomAccessFile rawWad = new RandomAccessFile(file, "r")) {
-
-            for (String fileName : wadFileEntries.keySet()) {
-                extractFileData(fileName, destination, rawWad, false);
-            }
-        } catch (Exception e) {
-
-            //Fug
-            throw new RuntimeException("Failed to read the WAD file!", e);
+        for (String fileName : wadFileEntries.keySet()) {
+            extractFileData(fileName, destination, false);
         }
     }
 
+    /**
+     * Extract a single file to a given location. Can be called from several
+     * threads at once.
+     *
+     * @param fileName file to extract
+     * @param destination destination directory
+     */
+    public File extractFileData(String fileName, String destination) {
+        return extractFileData(fileName, destination, false);
+    }
+
     /**
      * Extract a single file to a given location
      *
      * @param fileName file to extract
      * @param destination destination directory
-     * @param rawWad the opened WAD file
+     * @param simulation simulate only, no extraction is done, but the
+     * directories get made
      */
-    private File extractFileData(String fileName, String destination, RandomAccessFile rawWad, boolean simulation) {
+    public File extractFileData(String fileName, String destination, boolean simulation) {
 
         //See that the destination is formatted correctly and create it if it does not exist
         String dest = PathUtils.fixFilePath(destination);
 
         String mkdir = dest;
+        String subdir = subdirs.getOrDefault(fileName, "");
         if (fileName.contains(File.separator)) {
-            this.subdir = fileName.substring(0, fileName.lastIndexOf(File.separator) + 1);
-            mkdir += this.subdir;
+            mkdir += subdir;
         } else {
-            dest += this.subdir;
+            dest += subdir;
         }
 
         File destinationFolder = new File(mkdir);
@@ -198,8 +239,9 @@ public class WadFile {
         }
 
         //Write to the file
-        try (OutputStream outputStream = new FileOutputStream(dest)) {
-            getFileData(fileName, rawWad).writeTo(outputStream);
+        ByteBuffer data = getFileBuffer(fileName, true);
+        try (FileChannel output = FileChannel.open(new File(dest).toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(data, output);
             return new File(dest);
         } catch (IOException e) {
             throw new RuntimeException("Failed to write to " + dest + "!", e);
@@ -207,44 +249,52 @@ public class WadFile {
     }
 
     /**
-     * Extract a single file to a given location
+     * Extract a single file
      *
-     * @param fileName file to extract
-     * @param destination destination directory
+     * @param fileName the file to extract
+     * @return the file data
      */
-    public File extractFileData(String fileName, String destination) {
-        return extractFileData(fileName, destination, false);
+    public ByteArrayOutputStream getFileData(String fileName) {
+        ByteBuffer data = getFileBuffer(fileName, true);
+        ByteArrayOutputStream result = new ByteArrayOutputStream(data.remaining());
+        try {
+            write(data, Channels.newChannel(result));
+        } catch (IOException e) {
+
+            //Fug
+            throw new RuntimeException("Failed to read the WAD file!", e);
+        }
+        return result;
     }
 
     /**
-     * Extract a single file to a given location
+     * Get a single file without copying it. Uncompressed files are read-only
+     * views to the mapped archive, compressed files are decompressed to a new
+     * buffer. Can be called from several threads at once.
      *
-     * @param fileName file to extract
-     * @param destination destination directory
-     * @param simulation simulate only, no extraction is done, but set subdir
-     * scheming gets preserved and the directoried get made
+     * @param fileName the file to get
+     * @return the file data, in LITTLE ENDIAN order
      */
-    public File extractFileData(String fileName, String destination, boolean simulation) {
-
-        //Open the WAD for extraction
-        try (RandomAccessFile rawWad = new RandomAccessFile(file, "r")) {
-            return extractFileData(fileName, destination, rawWad, simulation);
-        } catch (Exception e) {
-
-            //Fug
-            throw new RuntimeException("Failed to read the WAD file!", e);
-        }
+    public ByteBuffer getFileBuffer(String fileName) {
+        return getFileBuffer(fileName, false);
     }
 
     /**
-     * Extract a single file
+     * Read a single file. Compressed files are decompressed to a buffer that
+     * is reused by the calling thread, so the data is only valid during the
+     * call and the reader must not read other files of the archive. Can be
+     * called from several threads at once.
      *
-     * @param fileName the file to extract
-     * @param rawWad the opened WAD file
-     * @return the file data
+     * @param <T> the result type
+     * @param fileName the file to read
+     * @param reader reads the file data, given in LITTLE ENDIAN order
+     * @return what the reader returned
      */
-    private ByteArrayOutputStream getFileData(String fileName, RandomAccessFile rawWad) {
-        ByteArrayOutputStream result = null;
+    public <T> T readFileData(String fileName, Function<ByteBuffer, T> reader) {
+        return reader.apply(getFileBuffer(fileName, true));
+    }
+
+    private ByteBuffer getFileBuffer(String fileName, boolean pooled) {
 
         //Get the file
         WadFileEntry fileEntry = wadFileEntries.get(fileName);
@@ -252,82 +302,80 @@ public class WadFile {
             throw new RuntimeException("File " + fileName + " not found from the WAD archive!");
         }
 
-        try {
-
-            //Seek to the file we want and read it
-            rawWad.seek(fileEntry.getOffset());
-            byte[] bytes = new byte[fileEntry.getCompressedSize()];
-            rawWad.read(bytes);
-
-            result = new ByteArrayOutputStream();
-
-            //See if the file is compressed
-            if (fileEntry.isCompressed()) {
-                result.write(decompressFileData(bytes, fileName));
+        ByteBuffer data = wad.duplicate();
+        data.position(fileEntry.getOffset());
+        data.limit(fileEntry.getOffset() + fileEntry.getCompressedSize());
+        data = data.slice();
+
+        //See if the file is compressed
+        if (fileEntry.isCompressed()) {
+            int size = getDecompressedSize(data);
+            byte[] dest;
+            if (pooled) {
+                dest = decompressionBuffer.get();
+                if (dest.length < size) {
+                    dest = new byte[size];
+                    decompressionBuffer.set(dest);
+                }
             } else {
-                result.write(bytes);
+                dest = new byte[size];
             }
+            decompressFileData(data, dest, fileName);
+            data = ByteBuffer.wrap(dest, 0, size).slice();
+        }
 
-        } catch (Exception e) {
+        return data.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    }
 
-            //Fug
-            throw new RuntimeException("Failed to read the WAD file!", e);
+    private static void write(ByteBuffer data, WritableByteChannel channel) throws IOException {
+        while (data.hasRemaining()) {
+            channel.write(data);
         }
-
-        return result;
     }
 
     /**
-     * Extract a single file
+     * Get the decompressed size of a compressed file entry
      *
-     * @param fileName the file to extract
-     * @return the file data
+     * @param src the compressed bytes
+     * @return the decompressed size
      */
-    public ByteArrayOutputStream getFileData(String fileName) {
+    private static int getDecompressedSize(ByteBuffer src) {
+        int i = ((src.get(0) & 1) != 0 ? 5 : 2);
 
-        //Open the WAD for extraction
-        try (RandomAccessFile rawWad = new RandomAccessFile(file, "r")) {
-            return getFileData(fileName, rawWad);
-        } catch (Exception e) {
-
-            //Fug
-            throw new RuntimeException("Failed to read the WAD file!", e);
-        }
+        // Decompressed size packed into 3 bytes
+        return (ConversionUtils.toUnsignedByte(src.get(i)) << 16) + (ConversionUtils.toUnsignedByte(src.get(i + 1)) << 8) + ConversionUtils.toUnsignedByte(src.get(i + 2));
     }
 
     /**
      * Some file entries in the WAD are compressed (type 4?), this decompresses
      * the file data
      *
-     * @param bytes the compressed bytes
+     * @param src the compressed bytes
+     * @param dest the buffer to decompress to, at least the decompressed size
      * @param fileName just for logging
-     * @return the decompressed bytes
+     * @see #getDecompressedSize(java.nio.ByteBuffer)
      */
-    private byte[] decompressFileData(byte[] src, String fileName) {
+    private static void decompressFileData(ByteBuffer src, byte[] dest, String fileName) {
         int i = 0, j = 0;
-        if ((src[i++] & 1) != 0) {
+        if ((src.get(i++) & 1) != 0) {
             i += 3;
         }
         i++; // <<skip second byte
-        // <decompressed size packed into 3 bytes
-
-        int decsize = (ConversionUtils.toUnsignedByte(src[i]) << 16) + (ConversionUtils.toUnsignedByte(src[i + 1]) << 8) + ConversionUtils.toUnsignedByte(src[i + 2]);
-        byte[] dest = new byte[decsize];
-        i += 3;
+        i += 3; // <<skip the decompressed size
         byte flag; // The flag byte read at the beginning of each main loop iteration
         int counter; // Counter for all loops
         boolean finished = false;
         while (!finished) {
-            if (i >= src.length) {
+            if (i >= src.limit()) {
                 break;
             }
-            flag = src[i++]; // Get flag byte
+            flag = src.get(i++); // Get flag byte
             if ((ConversionUtils.toUnsignedByte(flag) & 0x80) == 0) {
-                byte tmp = src[i++];
+                byte tmp = src.get(i++);
                 counter = ConversionUtils.toUnsignedByte(flag) & 3; // mod 4
                 while (counter-- != 0) // Copy literally
                 {
-                    dest[j] = src[i++];
+                    dest[j] = src.get(i++);
                     j++;
                 }
                 int k = j; // Get the destbuf position
@@ -341,12 +389,12 @@ public class WadFile {
                     j++;
                 } while (counter-- != 0); // Correct decrement
             } else if ((ConversionUtils.toUnsignedByte(flag) & 0x40) == 0) {
-                byte tmp = src[i++];
-                byte tmp2 = src[i++];
+                byte tmp = src.get(i++);
+                byte tmp2 = src.get(i++);
                 counter = (ConversionUtils.toUnsignedByte(tmp)) >> 6;
                 while (counter-- != 0) // Copy literally
                 {
-                    dest[j] = src[i++];
+                    dest[j] = src.get(i++);
                     j++;
                 }
                 int k = j;
@@ -359,13 +407,13 @@ public class WadFile {
                     j++;
                 } while (counter-- != 0); // Correct postfix decrement
             } else if ((ConversionUtils.toUnsignedByte(flag) & 0x20) == 0) {
-                byte localtemp = src[i++];
-                byte tmp2 = src[i++];
-                byte tmp3 = src[i++];
+                byte localtemp = src.get(i++);
+                byte tmp2 = src.get(i++);
+                byte tmp3 = src.get(i++);
                 counter = ConversionUtils.toUnsignedByte(flag) & 3;
                 while (counter-- != 0) // Copy literally
                 {
-                    dest[j] = src[i++];
+                    dest[j] = src.get(i++);
                     j++;
                 }
                 int k = j;
@@ -388,7 +436,7 @@ public class WadFile {
                 }
                 while (counter-- != 0) // Copy literally
                 {
-                    dest[j] = src[i++];
+                    dest[j] = src.get(i++);
                     j++;
                 }
             }
@@ -396,6 +444,5 @@ public class WadFile {
         if (!finished) {
             System.err.println("File " + fileName + " might not be successfully extracted!");
         }
-        return dest;
     }
 }
@@ -41,9 +41,9 @@ import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.imageio.ImageIO;
@@ -66,7 +66,7 @@ public class AssetUtils {
     private final static Object assetLock = new Object();
     private final static AssetCache assetCache = new SimpleAssetCache();
     private final static AssetCache weakAssetCache = new WeakRefAssetCache();
-    private final static Map<String, Boolean> textureMapCache = new HashMap<>();
+    private final static Map<String, Boolean> textureMapCache = new ConcurrentHashMap<>();
     private static final Logger logger = Logger.getLogger(AssetUtils.class.getName());
 
     private AssetUtils() {
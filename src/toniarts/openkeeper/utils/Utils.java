@@ -130,6 +130,15 @@ public class Utils {
         return BLOOD_TYPES[random.nextInt(BLOOD_TYPES.length)];
     }
 
+    /**
+     * Seed the random generator, for repeatable simulations
+     *
+     * @param seed the seed
+     */
+    public static void setRandomSeed(long seed) {
+        random.setSeed(seed);
+    }
+
     /**
      * Get a random item from a list
      *
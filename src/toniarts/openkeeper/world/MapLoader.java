@@ -29,22 +29,22 @@ import com.jme3.scene.Geometry;
 import com.jme3.scene.Node;
 import com.jme3.scene.SceneGraphVisitor;
 import com.jme3.scene.Spatial;
-import com.jme3.texture.Texture;
 import java.awt.Color;
 import java.awt.Point;
 import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import toniarts.openkeeper.game.logic.ParallelTick;
 import toniarts.openkeeper.tools.convert.AssetsConverter;
-import toniarts.openkeeper.tools.convert.ConversionUtils;
 import toniarts.openkeeper.tools.convert.KmfModelLoader;
 import toniarts.openkeeper.tools.convert.map.ArtResource;
 import toniarts.openkeeper.tools.convert.map.KwdFile;
@@ -72,10 +72,11 @@ public abstract class MapLoader implements ILoader<KwdFile> {
     public final static float TILE_HEIGHT = 1;
     public final static ColorRGBA COLOR_FLASH = new ColorRGBA(0.8f, 0, 0, 1);
     public final static ColorRGBA COLOR_TAG = new ColorRGBA(0, 0, 0.8f, 1);
-    private final static int PAGE_SQUARE_SIZE = 8; // Divide the terrain to square "pages"
+    public final static int PAGE_SQUARE_SIZE = 8; // Divide the terrain to square "pages"
     private final static int FLOOR_INDEX = 0;
     private final static int WALL_INDEX = 1;
     private final static int TOP_INDEX = 2;
+    private final static int[] LAYER_INDEXES = {FLOOR_INDEX, WALL_INDEX, TOP_INDEX};
     private List<Node> pages;
     private final KwdFile kwdFile;
     private Node map;
@@ -92,6 +93,9 @@ public abstract class MapLoader implements ILoader<KwdFile> {
     private final HashMap<RoomInstance, Spatial> roomNodes = new HashMap<>(); // Room instances by node
     private final Map<RoomInstance, GenericRoom> roomActuals = new LinkedHashMap<>(); // Rooms by room instance
     private final HashMap<Point, EntityInstance<Terrain>> terrainBatchCoordinates = new HashMap<>(); // A quick glimpse whether terrain batch at specific coordinates is already "found"
+    private final Map<BatchNode, List<Node>> dirtyBatches = new LinkedHashMap<>(); // Terrain batches waiting to be batched, with the hidden new tiles. Render thread only
+    private int tilesHandled; // Tiles constructed while loading, for the progress
+    private final TerrainMaterialCache materialCache; // Shared materials of the decayed, flashed and tagged tiles
     private static final Logger logger = Logger.getLogger(MapLoader.class.getName());
 
     public MapLoader(AssetManager assetManager, KwdFile kwdFile, EffectManagerState effectManager, WorldState worldState, ObjectLoader objectLoader) {
@@ -100,6 +104,7 @@ public abstract class MapLoader implements ILoader<KwdFile> {
         this.effectManager = effectManager;
         this.worldState = worldState;
         this.objectLoader = objectLoader;
+        materialCache = new TerrainMaterialCache(assetManager);
 
         // Create modifiable tiles
         mapData = new MapData(kwdFile);
@@ -123,29 +128,28 @@ public abstract class MapLoader implements ILoader<KwdFile> {
             }
         }
 
-        // Go through the map
-        int tilesCount = mapData.getWidth() * object.getMap().getHeight();
-
+        // Go through the map and find the rest of the rooms and the lakes, the tiles only look these up
         for (int y = 0; y < mapData.getHeight(); y++) {
             for (int x = 0; x < mapData.getWidth(); x++) {
-
                 try {
-                    handleTile(mapData.getTile(x, y), terrain);
+                    handleEntities(mapData.getTile(x, y));
                 } catch (Exception e) {
                     logger.log(Level.SEVERE, "Failed to handle tile at " + x + ", " + y + "!", e);
                 }
-
-                // Update progress
-                updateProgress((float) (y * object.getMap().getWidth() + x + 1) / tilesCount);
             }
         }
 
-        // Batch the terrain pages
-        for (Node page : pages) {
-            ((BatchNode) page.getChild(FLOOR_INDEX)).batch();
-            ((BatchNode) page.getChild(WALL_INDEX)).batch();
-            ((BatchNode) page.getChild(TOP_INDEX)).batch();
+        // Construct and batch the terrain pages, the pages are independent so do them in parallel
+        final int tilesCount = mapData.getWidth() * mapData.getHeight();
+        int pagesPerRow = (int) Math.ceil(mapData.getWidth() / (float) PAGE_SQUARE_SIZE);
+        List<Point> pageCoordinates = new ArrayList<>(pages.size());
+        for (int i = 0; i < pages.size(); i++) {
+            pageCoordinates.add(new Point(i % pagesPerRow, i / pagesPerRow));
         }
+        tilesHandled = 0;
+        ParallelTick.forEach(ForkJoinPool.commonPool(), pageCoordinates, (Point page) -> {
+            handlePage(page, terrain, tilesCount);
+        });
         map.attachChild(terrain);
 
         // Create the water
@@ -161,56 +165,120 @@ public abstract class MapLoader implements ILoader<KwdFile> {
         return map;
     }
 
+    /**
+     * Construct and batch a single terrain page
+     *
+     * @param page the page coordinates
+     * @param root the root node
+     * @param tilesCount total tile count, for the progress
+     */
+    private void handlePage(Point page, Node root, int tilesCount) {
+        int tiles = 0;
+        for (int y = page.y * PAGE_SQUARE_SIZE; y < Math.min((page.y + 1) * PAGE_SQUARE_SIZE, mapData.getHeight()); y++) {
+            for (int x = page.x * PAGE_SQUARE_SIZE; x < Math.min((page.x + 1) * PAGE_SQUARE_SIZE, mapData.getWidth()); x++) {
+                try {
+                    handleTile(mapData.getTile(x, y), root);
+                } catch (Exception e) {
+                    logger.log(Level.SEVERE, "Failed to handle tile at " + x + ", " + y + "!", e);
+                }
+                tiles++;
+            }
+        }
+
+        // Batch the page
+        Node pageNode = getPageNode(new Point(page.x * PAGE_SQUARE_SIZE, page.y * PAGE_SQUARE_SIZE), root);
+        for (int layer : LAYER_INDEXES) {
+            ((BatchNode) pageNode.getChild(layer)).batch();
+        }
+
+        // Update progress
+        synchronized (this) {
+            tilesHandled += tiles;
+            updateProgress((float) tilesHandled / tilesCount);
+        }
+    }
+
     public MapData getMapData() {
         return mapData;
     }
 
     /**
-     * Update the selected tiles (and neighbouring tiles if needed)
+     * Update the selected tiles (and neighbouring tiles if needed). Changes the
+     * scene graph, so call only from the render thread, other threads need to
+     * enqueue the update
      *
      * @param points tile coordinates to update
      */
     protected void updateTiles(Point... points) {
 
         // Reconstruct all tiles in the area
-        Set<BatchNode> nodesNeedBatching = new HashSet<>();
         Node terrainNode = (Node) map.getChild(0);
+        boolean[] replaced = new boolean[LAYER_INDEXES.length];
         for (Point point : points) {
             TileData tile = mapData.getTile(point);
             // Reconstruct and mark for patching
             // The tile node needs to created anew, somehow the BatchNode just doesn't get it if I remove children from subnode
             Node pageNode = getPageNode(point, terrainNode);
-            Node tileNode = getTileNode(point, (Node) pageNode.getChild(FLOOR_INDEX));
-            if (!tileNode.getChildren().isEmpty()) {
-                tileNode.removeFromParent();
-                ((BatchNode) pageNode.getChild(FLOOR_INDEX)).attachChildAt(new Node(tileNode.getName()), getTileNodeIndex(point));
-                nodesNeedBatching.add((BatchNode) pageNode.getChild(FLOOR_INDEX));
-            }
-            tileNode = getTileNode(point, (Node) pageNode.getChild(WALL_INDEX));
-            if (!tileNode.getChildren().isEmpty()) {
-                tileNode.removeFromParent();
-                ((BatchNode) pageNode.getChild(WALL_INDEX)).attachChildAt(new Node(tileNode.getName()), getTileNodeIndex(point));
-                nodesNeedBatching.add((BatchNode) pageNode.getChild(WALL_INDEX));
-            }
-            tileNode = getTileNode(point, (Node) pageNode.getChild(TOP_INDEX));
-            if (!tileNode.getChildren().isEmpty()) {
-                tileNode.removeFromParent();
-                ((BatchNode) pageNode.getChild(TOP_INDEX)).attachChildAt(new Node(tileNode.getName()), getTileNodeIndex(point));
-                nodesNeedBatching.add((BatchNode) pageNode.getChild(TOP_INDEX));
+            for (int layer : LAYER_INDEXES) {
+                BatchNode batchNode = (BatchNode) pageNode.getChild(layer);
+                Node tileNode = getTileNode(point, batchNode);
+                replaced[layer] = !tileNode.getChildren().isEmpty();
+                if (replaced[layer]) {
+                    tileNode.removeFromParent();
+                    batchNode.attachChildAt(new Node(tileNode.getName()), getTileNodeIndex(point));
+                }
             }
 
             // Reconstruct
-            handleTile(tile, (Node) map.getChild(0));
+            handleTile(tile, terrainNode);
+
+            // The old tile stays in the batch until the batch is redone, hide the new one until that
+            for (int layer : LAYER_INDEXES) {
+                BatchNode batchNode = (BatchNode) pageNode.getChild(layer);
+                Node tileNode = getTileNode(point, batchNode);
+                if (replaced[layer] || !tileNode.getChildren().isEmpty()) {
+                    tileNode.setCullHint(Spatial.CullHint.Always);
+                    List<Node> tileNodes = dirtyBatches.get(batchNode);
+                    if (tileNodes == null) {
+                        tileNodes = new ArrayList<>();
+                        dirtyBatches.put(batchNode, tileNodes);
+                    }
+                    tileNodes.add(tileNode);
+                }
+            }
         }
+    }
+
+    /**
+     * Batch the terrain changed by the tile updates. Batching a terrain page is
+     * heavy, so the batches are spread over the frames by the given time
+     * budget. Still at least one batch is done on every call, the changes
+     * never starve. Call only from the render thread.
+     *
+     * @param budget maximum time to use, in nanoseconds
+     */
+    public void updateBatches(long budget) {
+        long start = System.nanoTime();
+        Iterator<Entry<BatchNode, List<Node>>> iter = dirtyBatches.entrySet().iterator();
+        while (iter.hasNext()) {
+            Entry<BatchNode, List<Node>> entry = iter.next();
+            iter.remove();
+
+            // Batch and show the new tiles
+            entry.getKey().batch();
+            for (Node tileNode : entry.getValue()) {
+                tileNode.setCullHint(Spatial.CullHint.Inherit);
+            }
 
-        // Batch
-        for (BatchNode batchNode : nodesNeedBatching) {
-            batchNode.batch();
+            if (System.nanoTime() - start >= budget) {
+                break;
+            }
         }
     }
 
     /**
-     * Sets the right material to tile (selected / decayed...)
+     * Sets the right material to tile (selected / decayed...). The materials
+     * are shared between the tiles in the same state.
      *
      * @param node
      */
@@ -222,6 +290,17 @@ public abstract class MapLoader implements ILoader<KwdFile> {
             return;
         }
 
+        // Decay
+        // FIXME: This doesn't sit well with the material thinking (meaning we produce the actual material files)
+        // Now we have a random starting texture...
+        final Terrain terrain = tile.getTerrain();
+        final int decayIndex;
+        if (terrain.getFlags().contains(Terrain.TerrainFlag.DECAY) && terrain.getTextureFrames() > 1) {
+            decayIndex = terrain.getTextureFrames() - (int) Math.ceil(tile.getHealthPercent() / (100f / terrain.getTextureFrames()));
+        } else {
+            decayIndex = 0;
+        }
+
         node.depthFirstTraversal(new SceneGraphVisitor() {
             @Override
             public void visit(Spatial spatial) {
@@ -229,47 +308,11 @@ public abstract class MapLoader implements ILoader<KwdFile> {
                     return;
                 }
 
-                Material material = ((Geometry) spatial).getMaterial();
-
-                // Decay
-                if (tile.getTerrain().getFlags().contains(Terrain.TerrainFlag.DECAY) && tile.getTerrain().getTextureFrames() > 1) {
-
-                    Integer texCount = spatial.getUserData(KmfModelLoader.MATERIAL_ALTERNATIVE_TEXTURES_COUNT);
-                    if (texCount != null) {
-
-                        // FIXME: This doesn't sit well with the material thinking (meaning we produce the actual material files)
-                        // Now we have a random starting texture...
-                        int textureIndex = tile.getTerrain().getTextureFrames() - (int) Math.ceil(tile.getHealthPercent() / (100f / tile.getTerrain().getTextureFrames()));
-                        String diffuseTexture = ((Texture) material.getParam("DiffuseMap").getValue()).getKey().getName().replaceFirst("_DECAY\\d", ""); // Unharmed texture
-                        if (textureIndex > 0) {
-
-                            // The first one doesn't have a number
-                            if (textureIndex == 1) {
-                                diffuseTexture = diffuseTexture.replaceFirst(".png", "_DECAY.png");
-                            } else {
-                                diffuseTexture = diffuseTexture.replaceFirst(".png", "_DECAY" + textureIndex + ".png");
-                            }
-                        }
-                        try {
-                            Texture texture = assetManager.loadTexture(new TextureKey(ConversionUtils.getCanonicalAssetKey(diffuseTexture), false));
-                            material.setTexture("DiffuseMap", texture);
-
-                            AssetUtils.assignMapsToMaterial(assetManager, material);
-                        } catch (Exception e) {
-                            logger.log(Level.WARNING, "Error applying decay texture: {0} to {1} terrain! ({2})", new Object[]{diffuseTexture, tile.getTerrain().getName(), e.getMessage()});
-                        }
-                    }
-                }
-
-                if (tile.isFlashed()) {
-                    material.setColor("Ambient", COLOR_FLASH);
-                    material.setBoolean("UseMaterialColors", true);
+                int index = (decayIndex > 0 && spatial.getUserData(KmfModelLoader.MATERIAL_ALTERNATIVE_TEXTURES_COUNT) != null ? decayIndex : 0);
+                if (index > 0 || tile.isFlashed() || tile.isSelected()) {
+                    Geometry geometry = (Geometry) spatial;
+                    geometry.setMaterial(materialCache.getMaterial(terrain, geometry.getMaterial(), index, tile.isFlashed(), tile.isSelected()));
                 }
-                if (tile.isSelected()) {
-                    material.setColor("Ambient", COLOR_TAG);
-                    material.setBoolean("UseMaterialColors", true);
-                }
-
             }
 
         });
@@ -407,20 +450,44 @@ public abstract class MapLoader implements ILoader<KwdFile> {
                     }
                     if (tex != 0) { // 0 is the default anyway
                         Geometry g = (Geometry) spatial;
-                        Material m = g.getMaterial();
-                        String asset = m.getAssetName();
-
-                        // Load new material
-                        Material newMaterial = assetManager.loadMaterial(asset.substring(0,
-                                asset.lastIndexOf(KmfModelLoader.MATERIAL_ALTERNATIVE_TEXTURE_SUFFIX_SEPARATOR) + 1).concat(tex + ".j3m"));
-                        AssetUtils.assignMapsToMaterial(assetManager, newMaterial);
-                        g.setMaterial(newMaterial);
+                        Material newMaterial = loadAlternativeMaterial(g, tex);
+                        if (newMaterial != null) {
+                            AssetUtils.assignMapsToMaterial(assetManager, newMaterial);
+                            g.setMaterial(newMaterial);
+                        }
                     }
                 }
             }
         });
     }
 
+    /**
+     * Loads an alternative material of the geometry. The models converted on
+     * demand have their materials embedded, so the alternative is made of the
+     * listed textures
+     *
+     * @param geometry the geometry
+     * @param index the alternative index
+     * @return the alternative material, or {@code null} if not found
+     */
+    private Material loadAlternativeMaterial(Geometry geometry, int index) {
+        Material material = geometry.getMaterial();
+        String asset = material.getAssetName();
+        if (asset != null) {
+            return assetManager.loadMaterial(asset.substring(0,
+                    asset.lastIndexOf(KmfModelLoader.MATERIAL_ALTERNATIVE_TEXTURE_SUFFIX_SEPARATOR) + 1).concat(index + ".j3m"));
+        }
+
+        List<String> textures = geometry.getUserData(KmfModelLoader.MATERIAL_ALTERNATIVE_TEXTURES);
+        if (textures == null || index >= textures.size()) {
+            logger.log(Level.WARNING, "No alternative material {0} for {1}!", new Object[]{index, geometry.getName()});
+            return null;
+        }
+        Material result = material.clone();
+        result.setTexture("DiffuseMap", assetManager.loadTexture(new TextureKey(textures.get(index), false)));
+        return result;
+    }
+
     /**
      * Loads the given asset and resets its scale and translation to match our
      * give grid
@@ -510,6 +577,31 @@ public abstract class MapLoader implements ILoader<KwdFile> {
         }
     }
 
+    /**
+     * Find the room or the lake the tile belongs to. When loading, these are
+     * found before the terrain pages are constructed, so that constructing a
+     * page doesn't modify anything shared with the other pages.
+     *
+     * @param tile the tile
+     */
+    private void handleEntities(TileData tile) {
+        Terrain terrain = tile.getTerrain();
+        if (terrain.getFlags().contains(Terrain.TerrainFlag.ROOM)) {
+            Room room = kwdFile.getRoomByTerrain(terrain.getTerrainId());
+            handleRoom(tile.getLocation(), room, null);
+
+            // Swap the terrain if this is a bridge
+            terrain = kwdFile.getTerrainBridge(tile.getFlag(), room);
+            if (terrain == null) {
+                return;
+            }
+        }
+
+        if (terrain.getFlags().contains(Terrain.TerrainFlag.CONSTRUCTION_TYPE_WATER)) {
+            handleTerrainBatch(tile.getLocation(), terrain);
+        }
+    }
+
     private void handleTorch(TileData tile, Node pageNode) {
 
         // The rooms actually contain the torch model resource, but it is always the same,
@@ -594,15 +686,7 @@ public abstract class MapLoader implements ILoader<KwdFile> {
         if (terrain.getFlags().contains(Terrain.TerrainFlag.CONSTRUCTION_TYPE_WATER)) {
 
             // Store the batch instance
-            if (!terrainBatchCoordinates.containsKey(p)) {
-                EntityInstance<Terrain> entityInstance = new EntityInstance<>(terrain);
-                findTerrainBatch(p, entityInstance);
-                if (terrain.getFlags().contains(Terrain.TerrainFlag.LAVA)) {
-                    lavaBatches.add(entityInstance);
-                } else {
-                    waterBatches.add(entityInstance);
-                }
-            }
+            handleTerrainBatch(p, terrain);
 
             spatial = new WaterConstructor(kwdFile).construct(mapData, p.x, p.y, terrain, assetManager, model.getName());
 
@@ -637,6 +721,25 @@ public abstract class MapLoader implements ILoader<KwdFile> {
         topTileNode.move(p.x * TILE_WIDTH, 0, p.y * TILE_WIDTH);
     }
 
+    /**
+     * Store the water or lava batch at the given coordinates, if not already
+     * found
+     *
+     * @param p the tile coordinates
+     * @param terrain the terrain
+     */
+    private void handleTerrainBatch(Point p, Terrain terrain) {
+        if (!terrainBatchCoordinates.containsKey(p)) {
+            EntityInstance<Terrain> entityInstance = new EntityInstance<>(terrain);
+            findTerrainBatch(p, entityInstance);
+            if (terrain.getFlags().contains(Terrain.TerrainFlag.LAVA)) {
+                lavaBatches.add(entityInstance);
+            } else {
+                waterBatches.add(entityInstance);
+            }
+        }
+    }
+
     private void handleSide(TileData tile, Node pageNode) {
         Point p = tile.getLocation();
         Node sideTileNode = getTileNode(p, (Node) pageNode.getChild(WALL_INDEX));
@@ -670,6 +773,12 @@ public abstract class MapLoader implements ILoader<KwdFile> {
         sideTileNode.setLocalTranslation(p.x * TILE_WIDTH, 0, p.y * TILE_WIDTH);
     }
 
+    /**
+     * Flash or unflash the given tiles. Call only from the render thread
+     *
+     * @param enabled flash or not
+     * @param points the tile coordinates
+     */
     public void flashTile(boolean enabled, List<Point> points) {
 
         for (Point p : points) {
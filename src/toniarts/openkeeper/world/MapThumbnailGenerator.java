@@ -28,14 +28,19 @@ import java.awt.image.PixelInterleavedSampleModel;
 import java.awt.image.Raster;
 import java.awt.image.WritableRaster;
 import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.imageio.ImageIO;
 import toniarts.openkeeper.tools.convert.AssetsConverter;
 import toniarts.openkeeper.tools.convert.ConversionUtils;
+import toniarts.openkeeper.tools.convert.DKAssetLocator;
 import toniarts.openkeeper.tools.convert.map.KwdFile;
 import toniarts.openkeeper.tools.convert.map.Terrain;
 import toniarts.openkeeper.tools.convert.map.Tile;
+import toniarts.openkeeper.utils.PathUtils;
 
 /**
  * This class creates thumbnails from KWD map files. Static helper class. The
@@ -148,8 +153,22 @@ public class MapThumbnailGenerator {
     private static IndexColorModel readPalette() {
         try {
 
-            // Read the DK II palette image
-            BufferedImage paletteImage = ImageIO.read(new File(ConversionUtils.getRealFileName(AssetsConverter.getAssetsFolder(), PALETTE_IMAGE)));
+            // Read the DK II palette image, straight from the archives if the textures are not converted
+            BufferedImage paletteImage;
+            File paletteFile = new File(AssetsConverter.getAssetsFolder().concat(PALETTE_IMAGE));
+            if (paletteFile.exists()) {
+                paletteImage = ImageIO.read(new File(ConversionUtils.getRealFileName(AssetsConverter.getAssetsFolder(), PALETTE_IMAGE)));
+            } else {
+                try (InputStream is = DKAssetLocator.openStream(PathUtils.getDKIIFolder(), PALETTE_IMAGE)) {
+                    if (is == null) {
+                        throw new FileNotFoundException("Palette image " + PALETTE_IMAGE + " not found from the DK II archives!");
+                    }
+                    paletteImage = ImageIO.read(is);
+                }
+            }
+            if (paletteImage == null) {
+                throw new IOException("Palette image " + PALETTE_IMAGE + " could not be read!");
+            }
 
             // The palette image is generally an image where 1 column represents one color, column width is 1px
             // We know that is is 64x16, but just play along with "dynamic" (we'll fail if it is over 256)
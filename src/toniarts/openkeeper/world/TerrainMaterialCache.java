@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2014-2016 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.world;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.asset.TextureKey;
+import com.jme3.material.Material;
+import com.jme3.texture.Texture;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import toniarts.openkeeper.tools.convert.ConversionUtils;
+import toniarts.openkeeper.tools.convert.map.Terrain;
+import toniarts.openkeeper.utils.AssetUtils;
+
+/**
+ * Shares the materials of the decayed, flashed and tagged terrain tiles. All
+ * the tiles in the same state get the same material instance, so the
+ * materials are created only once and the tiles still batch together.<br>
+ * The shared materials must not be modified.
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+final class TerrainMaterialCache {
+
+    private final AssetManager assetManager;
+    private final Map<MaterialKey, Material> materials = new ConcurrentHashMap<>();
+    private static final Logger logger = Logger.getLogger(TerrainMaterialCache.class.getName());
+
+    public TerrainMaterialCache(AssetManager assetManager) {
+        this.assetManager = assetManager;
+    }
+
+    /**
+     * Get the material for a tile geometry in the given state
+     *
+     * @param terrain the terrain of the tile
+     * @param material the original material of the geometry
+     * @param decayIndex the decay texture index, 0 for unharmed
+     * @param flashed is the tile flashed
+     * @param selected is the tile selected
+     * @return the shared material
+     */
+    public Material getMaterial(Terrain terrain, Material material, int decayIndex, boolean flashed, boolean selected) {
+        MaterialKey key = new MaterialKey(terrain.getTerrainId(), getName(material), decayIndex, flashed, selected);
+        Material result = materials.get(key);
+        if (result == null) {
+            result = createMaterial(terrain, material, decayIndex, flashed, selected);
+            Material existing = materials.putIfAbsent(key, result);
+            if (existing != null) {
+                result = existing;
+            }
+        }
+        return result;
+    }
+
+    private static String getName(Material material) {
+        if (material.getAssetName() != null) {
+            return material.getAssetName();
+        }
+        return ((Texture) material.getParam("DiffuseMap").getValue()).getKey().getName();
+    }
+
+    private Material createMaterial(Terrain terrain, Material original, int decayIndex, boolean flashed, boolean selected) {
+        Material material = original.clone();
+
+        // Decay
+        if (decayIndex > 0) {
+            String diffuseTexture = ((Texture) material.getParam("DiffuseMap").getValue()).getKey().getName().replaceFirst("_DECAY\\d", ""); // Unharmed texture
+
+            // The first one doesn't have a number
+            if (decayIndex == 1) {
+                diffuseTexture = diffuseTexture.replaceFirst(".png", "_DECAY.png");
+            } else {
+                diffuseTexture = diffuseTexture.replaceFirst(".png", "_DECAY" + decayIndex + ".png");
+            }
+            try {
+                Texture texture = assetManager.loadTexture(new TextureKey(ConversionUtils.getCanonicalAssetKey(diffuseTexture), false));
+                material.setTexture("DiffuseMap", texture);
+
+                AssetUtils.assignMapsToMaterial(assetManager, material);
+            } catch (Exception e) {
+                logger.log(Level.WARNING, "Error applying decay texture: {0} to {1} terrain! ({2})", new Object[]{diffuseTexture, terrain.getName(), e.getMessage()});
+            }
+        }
+
+        if (flashed) {
+            material.setColor("Ambient", MapLoader.COLOR_FLASH);
+            material.setBoolean("UseMaterialColors", true);
+        }
+        if (selected) {
+            material.setColor("Ambient", MapLoader.COLOR_TAG);
+            material.setBoolean("UseMaterialColors", true);
+        }
+        return material;
+    }
+
+    /**
+     * Identifies a shared material
+     */
+    private static class MaterialKey {
+
+        private final short terrainId;
+        private final String material;
+        private final int decayIndex;
+        private final boolean flashed;
+        private final boolean selected;
+
+        public MaterialKey(short terrainId, String material, int decayIndex, boolean flashed, boolean selected) {
+            this.terrainId = terrainId;
+            this.material = material;
+            this.decayIndex = decayIndex;
+            this.flashed = flashed;
+            this.selected = selected;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 7;
+            hash = 59 * hash + this.terrainId;
+            hash = 59 * hash + this.material.hashCode();
+            hash = 59 * hash + this.decayIndex;
+            hash = 59 * hash + (this.flashed ? 1 : 0);
+            hash = 59 * hash + (this.selected ? 1 : 0);
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            final MaterialKey other = (MaterialKey) obj;
+            return terrainId == other.terrainId && decayIndex == other.decayIndex
+                    && flashed == other.flashed && selected == other.selected
+                    && material.equals(other.material);
+        }
+    }
+
+}
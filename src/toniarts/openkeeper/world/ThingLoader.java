@@ -23,6 +23,7 @@ import com.jme3.scene.Node;
 import com.jme3.scene.Spatial;
 import java.awt.Point;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -65,6 +66,7 @@ public class ThingLoader {
      * List of creatures in the world
      */
     private final Set<CreatureControl> creatures = new LinkedHashSet<>();
+    private volatile List<CreatureControl> creatureSnapshot;
 
     /**
      * List of freeform objects in the world, not room property etc.<br>
@@ -89,7 +91,10 @@ public class ThingLoader {
             public void onDie(CreatureControl creature) {
 
                 // Remove the creature
-                creatures.remove(creature);
+                synchronized (creatures) {
+                    creatures.remove(creature);
+                    creatureSnapshot = null;
+                }
 
                 // Notify listeners
                 if (creatureListeners != null && creatureListeners.containsKey(creature.getOwnerId())) {
@@ -225,7 +230,10 @@ public class ThingLoader {
         if (entrance) {
             creatureControl.getStateMachine().setInitialState(CreatureState.ENTERING_DUNGEON);
         }
-        creatures.add(creatureControl);
+        synchronized (creatures) {
+            creatures.add(creatureControl);
+            creatureSnapshot = null;
+        }
 
         // Enqueue if app is set
         if (app != null) {
@@ -316,8 +324,24 @@ public class ThingLoader {
         }
     }
 
+    /**
+     * Get the creatures in the world. The list is a shared snapshot, it is
+     * only copied again after the creatures have changed
+     *
+     * @return unmodifiable list of the creatures
+     */
     public List<CreatureControl> getCreatures() {
-        return new ArrayList<>(creatures);
+        List<CreatureControl> snapshot = creatureSnapshot;
+        if (snapshot == null) {
+            synchronized (creatures) {
+                snapshot = creatureSnapshot;
+                if (snapshot == null) {
+                    snapshot = Collections.unmodifiableList(new ArrayList<>(creatures));
+                    creatureSnapshot = snapshot;
+                }
+            }
+        }
+        return snapshot;
     }
 
     public List<ObjectControl> getObjects() {
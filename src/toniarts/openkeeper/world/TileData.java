@@ -40,7 +40,15 @@ public final class TileData extends Tile {
     private final Point p;
     private final int index;
     private final KwdFile kwdFile;
-    private final static ResourceBundle bundle = Main.getResourceBundle("Interface/Texts/Text");
+
+    /**
+     * The texts are loaded only when needed, the map itself can be used
+     * without the converted assets
+     */
+    private static class BundleHolder {
+
+        private final static ResourceBundle bundle = Main.getResourceBundle("Interface/Texts/Text");
+    }
 
     protected TileData(KwdFile kwdFile, Tile tile, Terrain terrain, int x, int y, int index) {
         this.p = new Point(x, y);
@@ -167,7 +175,7 @@ public final class TileData extends Tile {
     }
 
     public String getTooltip() {
-        return bundle.getString(Integer.toString(getTerrain().getTooltipStringId()))
+        return BundleHolder.bundle.getString(Integer.toString(getTerrain().getTooltipStringId()))
                 .replaceAll("%37", Integer.toString(getHealthPercent()))
                 .replaceAll("%66", Integer.toString(terrain.getManaGain()))
                 .replaceAll("%67", Integer.toString(gold));
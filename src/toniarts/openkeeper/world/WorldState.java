@@ -16,7 +16,6 @@
  */
 package toniarts.openkeeper.world;
 
-import com.badlogic.gdx.ai.pfa.DefaultGraphPath;
 import com.badlogic.gdx.ai.pfa.GraphPath;
 import com.badlogic.gdx.ai.steer.utils.paths.LinePath;
 import com.badlogic.gdx.ai.steer.utils.paths.LinePath.Segment;
@@ -48,6 +47,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import toniarts.openkeeper.Main;
@@ -70,9 +70,8 @@ import toniarts.openkeeper.world.control.FlashTileControl;
 import toniarts.openkeeper.world.control.IInteractiveControl;
 import toniarts.openkeeper.world.creature.CreatureControl;
 import toniarts.openkeeper.world.creature.CreatureLoader;
-import toniarts.openkeeper.world.creature.pathfinding.MapDistance;
-import toniarts.openkeeper.world.creature.pathfinding.MapIndexedGraph;
-import toniarts.openkeeper.world.creature.pathfinding.MapPathFinder;
+import toniarts.openkeeper.world.creature.pathfinding.MapNavigationGrid;
+import toniarts.openkeeper.world.creature.pathfinding.PathFindingService;
 import toniarts.openkeeper.world.effect.EffectManagerState;
 import toniarts.openkeeper.world.listener.CreatureListener;
 import toniarts.openkeeper.world.listener.RoomListener;
@@ -97,9 +96,8 @@ public abstract class WorldState extends AbstractAppState {
     private final KwdFile kwdFile;
     private AssetManager assetManager;
     private Node worldNode;
-    private final MapIndexedGraph pathFindingMap;
-    private final MapPathFinder pathFinder;
-    private final MapDistance heuristic;
+    private final MapNavigationGrid navigationGrid;
+    private final PathFindingService pathFindingService;
     private final Node thingsNode;
     private final BulletAppState bulletAppState;
     private final EffectManagerState effectManager;
@@ -109,6 +107,7 @@ public abstract class WorldState extends AbstractAppState {
     private final FlashTileControl flashTileControl;
     public final Object goldLock = new Object();
 
+    private static final long TERRAIN_BATCH_BUDGET = 2000000; // Nanoseconds per frame for batching the changed terrain
     private static final Logger logger = Logger.getLogger(WorldState.class.getName());
 
     public WorldState(final KwdFile kwdFile, final AssetManager assetManager, GameState gameState) {
@@ -136,9 +135,10 @@ public abstract class WorldState extends AbstractAppState {
         worldNode.attachChild(mapLoader.load(assetManager, kwdFile));
 
         // For path finding
-        pathFindingMap = new MapIndexedGraph(this);
-        pathFinder = new MapPathFinder(pathFindingMap, false);
-        heuristic = new MapDistance();
+        navigationGrid = new MapNavigationGrid(this);
+        addListener(navigationGrid);
+        pathFindingService = new PathFindingService(this, navigationGrid);
+        addListener(pathFindingService.getPathCache());
 
         // Things
         thingsNode = thingLoader.loadAll(gameState.getCreatureTriggerState(), gameState.getObjectTriggerState());
@@ -250,6 +250,9 @@ public abstract class WorldState extends AbstractAppState {
         // Effects
         this.stateManager.detach(effectManager);
 
+        // Path finding workers
+        pathFindingService.shutdown();
+
         super.cleanup();
     }
 
@@ -275,6 +278,7 @@ public abstract class WorldState extends AbstractAppState {
         }
 
         flashTileControl.update(tpf);
+        mapLoader.updateBatches(TERRAIN_BATCH_BUDGET);
     }
 
     public AssetManager getAssetManager() {
@@ -289,7 +293,9 @@ public abstract class WorldState extends AbstractAppState {
     protected abstract void updateProgress(final float progress);
 
     /**
-     * If you want to get notified about tile changes
+     * If you want to get notified about tile changes. The changes are notified
+     * on the thread that made them, usually the render thread, so the listener
+     * must be safe to call while the game logic and the path finding run
      *
      * @param listener the listener
      */
@@ -505,7 +511,8 @@ public abstract class WorldState extends AbstractAppState {
      * Update map tiles, on the scene graph
      *
      * @param enqueue if {@code false} this is executed in the current thread,
-     * otherwise it is enqueued to the update loop
+     * otherwise it is enqueued to the update loop. Enqueue when calling from
+     * outside the render thread, i.e. from the game logic
      * @param points the map points to update
      */
     protected void updateTiles(boolean enqueue, Point... points) {
@@ -516,11 +523,13 @@ public abstract class WorldState extends AbstractAppState {
             app.enqueue(() -> {
 
                 mapLoader.updateTiles(points);
+                notifyTileChange(points);
 
                 return null;
             });
         } else {
             mapLoader.updateTiles(points);
+            notifyTileChange(points);
         }
     }
 
@@ -552,6 +561,9 @@ public abstract class WorldState extends AbstractAppState {
         // See if room walls are allowed and does this touch any rooms
         updateRoomWalls(tile);
         mapLoader.updateTiles(mapLoader.getSurroundingTiles(tile.getLocation(), true));
+
+        // Notify
+        notifyTileChange(tile.getLocation());
     }
 
     private void updateRoomWalls(TileData tile) {
@@ -610,6 +622,9 @@ public abstract class WorldState extends AbstractAppState {
         updateRoomWalls(tile);
 
         mapLoader.updateTiles(mapLoader.getSurroundingTiles(tile.getLocation(), true));
+
+        // Notify
+        notifyTileChange(tile.getLocation());
     }
 
     /**
@@ -701,7 +716,11 @@ public abstract class WorldState extends AbstractAppState {
             updateRoom(firstInstance);
         }
 
-        mapLoader.updateTiles(updatableTiles.toArray(new Point[updatableTiles.size()]));
+        Point[] tiles = updatableTiles.toArray(new Point[updatableTiles.size()]);
+        mapLoader.updateTiles(tiles);
+
+        // Notify
+        notifyTileChange(tiles);
 
         // New room, calculate gold capacity
         RoomInstance instance = mapLoader.getRoomCoordinates().get(instancePlots.get(0));
@@ -814,7 +833,11 @@ public abstract class WorldState extends AbstractAppState {
         }
         removeRoomInstances(soldInstances.toArray(new RoomInstance[soldInstances.size()]));
 
-        mapLoader.updateTiles(updatableTiles.toArray(new Point[updatableTiles.size()]));
+        Point[] tiles = updatableTiles.toArray(new Point[updatableTiles.size()]);
+        mapLoader.updateTiles(tiles);
+
+        // Notify
+        notifyTileChange(tiles);
 
         // See if any of the rooms survived
         Set<RoomInstance> newInstances = new HashSet<>();
@@ -879,8 +902,12 @@ public abstract class WorldState extends AbstractAppState {
         return null;
     }
 
+    public PathFindingService getPathFindingService() {
+        return pathFindingService;
+    }
+
     /**
-     * FIXME: This can NOT be. Just for quick easy testing.
+     * Find a path between two points, can be called from any thread
      *
      * @param start start point
      * @param end end point
@@ -888,12 +915,32 @@ public abstract class WorldState extends AbstractAppState {
      * @return output path, null if path not found
      */
     public GraphPath<TileData> findPath(Point start, Point end, Creature creature) {
-        pathFindingMap.setCreature(creature);
-        GraphPath<TileData> outPath = new DefaultGraphPath<>();
-        if (pathFinder.searchNodePath(getMapData().getTile(start.x, start.y), getMapData().getTile(end.x, end.y), heuristic, outPath)) {
-            return outPath;
-        }
-        return null;
+        return pathFindingService.findPath(getMapData().getTile(start.x, start.y), getMapData().getTile(end.x, end.y), creature);
+    }
+
+    /**
+     * Tells whether there is a path between two points, without searching it.
+     * Can be called from any thread
+     *
+     * @param start start point
+     * @param end end point
+     * @param creature the creature to find path for
+     * @return is the end reachable from the start
+     */
+    public boolean isReachable(Point start, Point end, Creature creature) {
+        return pathFindingService.isReachable(getMapData().getTile(start.x, start.y), getMapData().getTile(end.x, end.y), creature);
+    }
+
+    /**
+     * Find a path between two points in the path finding worker pool
+     *
+     * @param start start point
+     * @param end end point
+     * @param creature the creature to find path for
+     * @return the future path, completes with null if path not found
+     */
+    public CompletableFuture<GraphPath<TileData>> findPathAsync(Point start, Point end, Creature creature) {
+        return pathFindingService.findPathAsync(getMapData().getTile(start.x, start.y), getMapData().getTile(end.x, end.y), creature);
     }
 
     /**
@@ -914,26 +961,7 @@ public abstract class WorldState extends AbstractAppState {
      * @return is accessible
      */
     public boolean isAccessible(TileData tile, Creature creature) {
-        Terrain terrain = tile.getTerrain();
-        if (!terrain.getFlags().contains(Terrain.TerrainFlag.SOLID)) {
-
-            // TODO: Rooms, obstacles and what not, should create an universal isAccessible(Creature) to map loader / world handler maybe
-            if (terrain.getFlags().contains(Terrain.TerrainFlag.ROOM)) {
-
-                // Get room obstacles
-                RoomInstance roomInstance = getMapLoader().getRoomCoordinates().get(new Point(tile.getX(), tile.getY()));
-                GenericRoom room = getMapLoader().getRoomActuals().get(roomInstance);
-                return room.isTileAccessible(tile.getX(), tile.getY());
-            } else if (creature.getFlags().contains(Creature.CreatureFlag.CAN_FLY)) {
-                return true;
-            } else if (terrain.getFlags().contains(Terrain.TerrainFlag.LAVA) && !creature.getFlags().contains(Creature.CreatureFlag.CAN_WALK_ON_LAVA)) {
-                return false;
-            } else if (terrain.getFlags().contains(Terrain.TerrainFlag.WATER) && !creature.getFlags().contains(Creature.CreatureFlag.CAN_WALK_ON_WATER)) {
-                return false;
-            }
-            return true;
-        }
-        return false;
+        return navigationGrid.isAccessible(tile, MapNavigationGrid.MovementClass.fromCreature(creature));
     }
 
     /**
@@ -961,7 +989,7 @@ public abstract class WorldState extends AbstractAppState {
     }
 
     /**
-     * Notify the tile change listeners
+     * Notify the tile change listeners, on the current thread
      *
      * @param tiles changed tiles
      */
@@ -42,6 +42,11 @@ import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import toniarts.openkeeper.ai.creature.CreatureState;
 import toniarts.openkeeper.game.action.ActionPoint;
 import toniarts.openkeeper.game.party.Party;
@@ -127,6 +132,7 @@ public abstract class CreatureControl extends AbstractCreatureSteeringControl im
     private AnimationType playingAnimationType = AnimationType.IDLE;
     private ObjectControl creatureLair;
     private CreatureControl followTarget;
+    private CompletableFuture<GraphPath<TileData>> pathRequest;
 
     // Good creature specific stuff
     private Party party;
@@ -134,6 +140,7 @@ public abstract class CreatureControl extends AbstractCreatureSteeringControl im
     private ActionPoint objectiveTargetActionPoint;
     private EnumSet<Thing.Creature.CreatureFlag> flags;
     //
+    private static final Logger logger = Logger.getLogger(CreatureControl.class.getName());
 
     public CreatureControl(Thing.Creature creatureInstance, Creature creature, WorldState worldState, short playerId, short level) {
         super(creature);
@@ -196,6 +203,18 @@ public abstract class CreatureControl extends AbstractCreatureSteeringControl im
         if (stateMachine.getCurrentState() == null) {
             stateMachine.changeState(CreatureState.IDLE);
         }
+        updateAttributesAndTimers(tpf);
+        updateStateMachine();
+    }
+
+    /**
+     * Updates the creature's own attributes and state timers. Touches nothing
+     * but this creature, so it is safe to call for different creatures in
+     * parallel
+     *
+     * @param tpf time per frame
+     */
+    public void updateAttributesAndTimers(float tpf) {
 
         // Update attributes
         if (stateMachine.getCurrentState() != null && stateMachine.getCurrentState() != CreatureState.PICKED_UP) {
@@ -211,8 +230,16 @@ public abstract class CreatureControl extends AbstractCreatureSteeringControl im
                 timeInState = 0f;
             }
         }
+    }
 
-        // Update state machine
+    /**
+     * Runs the AI state machine
+     */
+    public void updateStateMachine() {
+        if (stateMachine.getCurrentState() == null) {
+            stateMachine.changeState(CreatureState.IDLE);
+        }
+        handlePathRequest();
         stateMachine.update();
     }
 
@@ -241,23 +268,51 @@ public abstract class CreatureControl extends AbstractCreatureSteeringControl im
     }
 
     public void navigateToRandomPoint() {
+
+        // The previous request is still being processed
+        if (pathRequest != null && !pathRequest.isDone()) {
+            return;
+        }
+
         Point p = worldState.findRandomAccessibleTile(worldState.getTileCoordinates(getSpatial().getWorldTranslation()), 10, creature);
         if (p != null) {
-            GraphPath<TileData> outPath = worldState.findPath(worldState.getTileCoordinates(getSpatial().getWorldTranslation()), p, creature);
+            pathRequest = worldState.findPathAsync(worldState.getTileCoordinates(getSpatial().getWorldTranslation()), p, creature);
+            handlePathRequest();
+        }
+    }
 
-            if (outPath != null && outPath.getCount() > 1) {
+    /**
+     * Take the path found by the path finding workers into use, if ready. The
+     * creature is only touched from the game logic thread
+     */
+    private void handlePathRequest() {
+        if (pathRequest == null || !pathRequest.isDone()) {
+            return;
+        }
 
-                // Debug
-//                worldHandler.drawPath(new LinePath<>(pathToArray(outPath)));
-                PrioritySteering<Vector2> prioritySteering = new PrioritySteering(this, 0.0001f);
-                FollowPath<Vector2, LinePathParam> followPath = new FollowPath(this, new LinePath<>(pathToArray(outPath), true), 2);
-                followPath.setDecelerationRadius(1f);
-                followPath.setArrivalTolerance(0.2f);
-                prioritySteering.add(followPath);
+        GraphPath<TileData> outPath;
+        try {
+            outPath = pathRequest.join();
+        } catch (CompletionException | CancellationException e) {
+            logger.log(Level.SEVERE, "Path finding failed!", e);
+            return;
+        } finally {
+            pathRequest = null;
+        }
 
-                prioritySteering.setEnabled(!isAnimationPlaying());
-                setSteeringBehavior(prioritySteering);
-            }
+        // We might have moved on to something else while waiting
+        if (outPath != null && outPath.getCount() > 1 && stateMachine.isInState(CreatureState.IDLE)) {
+
+            // Debug
+//            worldHandler.drawPath(new LinePath<>(pathToArray(outPath)));
+            PrioritySteering<Vector2> prioritySteering = new PrioritySteering(this, 0.0001f);
+            FollowPath<Vector2, LinePathParam> followPath = new FollowPath(this, new LinePath<>(pathToArray(outPath), true), 2);
+            followPath.setDecelerationRadius(1f);
+            followPath.setArrivalTolerance(0.2f);
+            prioritySteering.add(followPath);
+
+            prioritySteering.setEnabled(!isAnimationPlaying());
+            setSteeringBehavior(prioritySteering);
         }
     }
 
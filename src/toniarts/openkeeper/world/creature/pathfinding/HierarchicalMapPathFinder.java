@@ -0,0 +1,453 @@
+/*
+ * Copyright (C) 2014-2016 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.world.creature.pathfinding;
+
+import com.badlogic.gdx.ai.pfa.Connection;
+import com.badlogic.gdx.ai.pfa.GraphPath;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import toniarts.openkeeper.world.MapData;
+import toniarts.openkeeper.world.MapLoader;
+import toniarts.openkeeper.world.TileData;
+import toniarts.openkeeper.world.creature.pathfinding.MapNavigationGrid.MovementClass;
+import toniarts.openkeeper.world.listener.TileChangeListener;
+
+/**
+ * Hierarchical (HPA*) path finder. The map is divided to the same square pages
+ * as the terrain in the {@link MapLoader}. The page borders are scanned for
+ * entrances, and the costs between the entrances inside each page are
+ * precomputed. The search is first done on this abstract graph and then
+ * refined to tiles only within the pages on the route.<br>
+ * The pages are computed lazily per movement class and recomputed only after
+ * the passability of their tiles has changed. Searching is safe from several
+ * threads at once, the pages built from passability that changed meanwhile
+ * are never kept. The pages can be invalidated from any thread.
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public class HierarchicalMapPathFinder implements TileChangeListener {
+
+    /**
+     * Abstract graph data of a single page, immutable once built
+     */
+    private static class Page {
+
+        private final int pageX;
+        private final int pageY;
+        private final TileData[] entrances;
+        private final TileData[][] transitions;
+        private final float[][] transitionCosts;
+        private final float[][] distances;
+        private final int[][] parents;
+
+        public Page(int pageX, int pageY, TileData[] entrances, TileData[][] transitions, float[][] transitionCosts, float[][] distances, int[][] parents) {
+            this.pageX = pageX;
+            this.pageY = pageY;
+            this.entrances = entrances;
+            this.transitions = transitions;
+            this.transitionCosts = transitionCosts;
+            this.distances = distances;
+            this.parents = parents;
+        }
+
+        private boolean isSamePage(Page page) {
+            return (pageX == page.pageX && pageY == page.pageY);
+        }
+
+        private int indexOf(TileData tile) {
+            for (int i = 0; i < entrances.length; i++) {
+                if (entrances[i] == tile) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Node record of the abstract search
+     */
+    private static class NodeRecord implements Comparable<NodeRecord> {
+
+        private final TileData tile;
+        private final Page page;
+        private final int entranceIndex;
+        private NodeRecord parent;
+        private float costSoFar;
+        private float estimatedTotalCost;
+        private boolean closed = false;
+
+        public NodeRecord(TileData tile, Page page, int entranceIndex) {
+            this.tile = tile;
+            this.page = page;
+            this.entranceIndex = entranceIndex;
+        }
+
+        @Override
+        public int compareTo(NodeRecord o) {
+            return Float.compare(estimatedTotalCost, o.estimatedTotalCost);
+        }
+    }
+
+    private static final int PAGE_SIZE = MapLoader.PAGE_SQUARE_SIZE;
+    private static final int PAGE_TILES = PAGE_SIZE * PAGE_SIZE;
+    private static final MovementClass[] MOVEMENT_CLASSES = MovementClass.values();
+
+    private final MapData mapData;
+    private final MapNavigationGrid navigationGrid;
+    private final MapDistance heuristic;
+    private final int pagesX;
+    private final int pagesY;
+    private final AtomicReferenceArray<Page>[] pages;
+    private final AtomicIntegerArray versions; // Page versions, bumped on every invalidation
+
+    @SuppressWarnings("unchecked")
+    public HierarchicalMapPathFinder(MapData mapData, MapNavigationGrid navigationGrid, MapDistance heuristic) {
+        this.mapData = mapData;
+        this.navigationGrid = navigationGrid;
+        this.heuristic = heuristic;
+        pagesX = (int) Math.ceil(mapData.getWidth() / (float) PAGE_SIZE);
+        pagesY = (int) Math.ceil(mapData.getHeight() / (float) PAGE_SIZE);
+        versions = new AtomicIntegerArray(pagesX * pagesY);
+        pages = new AtomicReferenceArray[MOVEMENT_CLASSES.length];
+        for (MovementClass movementClass : MOVEMENT_CLASSES) {
+            pages[movementClass.ordinal()] = new AtomicReferenceArray<>(pagesX * pagesY);
+        }
+    }
+
+    /**
+     * Search a path between two tiles
+     *
+     * @param startNode start tile
+     * @param endNode end tile
+     * @param movementClass the movement class to search the path for
+     * @param outPath the tiles of the path are added here, including the
+     * start and the end
+     * @return true if the path was found
+     */
+    public boolean searchNodePath(TileData startNode, TileData endNode, MovementClass movementClass, GraphPath<TileData> outPath) {
+        Page startPage = getPage(startNode.getX() / PAGE_SIZE, startNode.getY() / PAGE_SIZE, movementClass);
+        Page endPage = getPage(endNode.getX() / PAGE_SIZE, endNode.getY() / PAGE_SIZE, movementClass);
+
+        // Costs from the start to its own page's entrances
+        float[] startDistances = new float[PAGE_TILES];
+        int[] startParents = new int[PAGE_TILES];
+        searchPage(startPage.pageX, startPage.pageY, startNode, movementClass, startDistances, startParents);
+
+        // The start & end are not part of the abstract graph, they are just connected to it for this search
+        NodeRecord startRecord = new NodeRecord(startNode, startPage, -1);
+        NodeRecord endRecord = new NodeRecord(endNode, endPage, -1);
+        Map<TileData, NodeRecord> records = new HashMap<>();
+        PriorityQueue<NodeRecord> openList = new PriorityQueue<>();
+        startRecord.closed = true;
+
+        if (startPage.isSamePage(endPage)) {
+            visit(startRecord, endRecord, startDistances[getLocalIndex(endNode)], endNode, openList);
+        }
+        for (TileData entrance : startPage.entrances) {
+            visit(startRecord, getRecord(entrance, startPage, records), startDistances[getLocalIndex(entrance)], endNode, openList);
+        }
+
+        // A* on the abstract graph
+        while (!openList.isEmpty()) {
+            NodeRecord current = openList.poll();
+            if (current == endRecord) {
+                generateNodePath(startRecord, endRecord, startParents, outPath);
+                return true;
+            }
+            current.closed = true;
+
+            // Inside the page
+            Page page = current.page;
+            float[] distances = page.distances[current.entranceIndex];
+            if (page.isSamePage(endPage)) {
+                visit(current, endRecord, distances[getLocalIndex(endNode)], endNode, openList);
+            }
+            for (TileData entrance : page.entrances) {
+                if (entrance != current.tile) {
+                    visit(current, getRecord(entrance, page, records), distances[getLocalIndex(entrance)], endNode, openList);
+                }
+            }
+
+            // To the neighbouring pages
+            TileData[] transitions = page.transitions[current.entranceIndex];
+            for (int i = 0; i < transitions.length; i++) {
+                Page neighbourPage = getPage(transitions[i].getX() / PAGE_SIZE, transitions[i].getY() / PAGE_SIZE, movementClass);
+                visit(current, getRecord(transitions[i], neighbourPage, records), page.transitionCosts[current.entranceIndex][i], endNode, openList);
+            }
+        }
+
+        return false;
+    }
+
+    private NodeRecord getRecord(TileData entrance, Page page, Map<TileData, NodeRecord> records) {
+        NodeRecord record = records.get(entrance);
+        if (record == null) {
+            record = new NodeRecord(entrance, page, page.indexOf(entrance));
+            records.put(entrance, record);
+        }
+        return record;
+    }
+
+    private void visit(NodeRecord current, NodeRecord node, float cost, TileData endNode, PriorityQueue<NodeRecord> openList) {
+        if (node.closed || (node.entranceIndex == -1 && node.tile != endNode) || Float.isInfinite(cost)) {
+            return;
+        }
+        float costSoFar = current.costSoFar + cost;
+        if (node.parent != null && node.costSoFar <= costSoFar) {
+            return;
+        }
+        if (node.parent != null) {
+            openList.remove(node);
+        }
+        node.parent = current;
+        node.costSoFar = costSoFar;
+        node.estimatedTotalCost = costSoFar + heuristic.estimate(node.tile, endNode);
+        openList.add(node);
+    }
+
+    /**
+     * Refines the abstract path to tiles
+     */
+    private void generateNodePath(NodeRecord startRecord, NodeRecord endRecord, int[] startParents, GraphPath<TileData> outPath) {
+        List<NodeRecord> abstractPath = new ArrayList<>();
+        for (NodeRecord record = endRecord; record != null; record = record.parent) {
+            abstractPath.add(record);
+        }
+
+        outPath.add(startRecord.tile);
+        for (int i = abstractPath.size() - 1; i > 0; i--) {
+            NodeRecord from = abstractPath.get(i);
+            NodeRecord to = abstractPath.get(i - 1);
+            if (from == startRecord) {
+                addPageSegment(startRecord.page, startParents, to.tile, outPath);
+            } else if (from.page.isSamePage(to.page)) {
+                addPageSegment(from.page, from.page.parents[from.entranceIndex], to.tile, outPath);
+            } else {
+
+                // Crossing the page border
+                outPath.add(to.tile);
+            }
+        }
+    }
+
+    private void addPageSegment(Page page, int[] parents, TileData to, GraphPath<TileData> outPath) {
+        List<TileData> segment = new ArrayList<>(PAGE_TILES);
+        for (int index = getLocalIndex(to); parents[index] != -1; index = parents[index]) {
+            segment.add(getTile(page.pageX, page.pageY, index));
+        }
+        for (int i = segment.size() - 1; i >= 0; i--) {
+            outPath.add(segment.get(i));
+        }
+    }
+
+    private Page getPage(int pageX, int pageY, MovementClass movementClass) {
+        int index = pageY * pagesX + pageX;
+        AtomicReferenceArray<Page> classPages = pages[movementClass.ordinal()];
+        Page page = classPages.get(index);
+        if (page == null) {
+
+            // The passability may change while building, then don't keep the page
+            int version = versions.get(index);
+            page = buildPage(pageX, pageY, movementClass);
+            if (classPages.compareAndSet(index, null, page) && versions.get(index) != version) {
+                classPages.compareAndSet(index, page, null);
+            }
+        }
+        return page;
+    }
+
+    private Page buildPage(int pageX, int pageY, MovementClass movementClass) {
+        int startX = pageX * PAGE_SIZE;
+        int startY = pageY * PAGE_SIZE;
+        int endX = Math.min(startX + PAGE_SIZE, mapData.getWidth()) - 1;
+        int endY = Math.min(startY + PAGE_SIZE, mapData.getHeight()) - 1;
+
+        // Scan the borders to the neighbouring pages
+        Map<TileData, List<TileData>> entrances = new LinkedHashMap<>();
+        if (pageY > 0) {
+            findEntrances(startX, endX, startY, 0, -1, movementClass, entrances);
+        }
+        if (pageX < pagesX - 1) {
+            findEntrances(startY, endY, endX, 1, 0, movementClass, entrances);
+        }
+        if (pageY < pagesY - 1) {
+            findEntrances(startX, endX, endY, 0, 1, movementClass, entrances);
+        }
+        if (pageX > 0) {
+            findEntrances(startY, endY, startX, -1, 0, movementClass, entrances);
+        }
+
+        // Transitions and the costs inside the page
+        int count = entrances.size();
+        TileData[] entranceTiles = new TileData[count];
+        TileData[][] transitions = new TileData[count][];
+        float[][] transitionCosts = new float[count][];
+        float[][] distances = new float[count][PAGE_TILES];
+        int[][] parents = new int[count][PAGE_TILES];
+        int i = 0;
+        for (Map.Entry<TileData, List<TileData>> entry : entrances.entrySet()) {
+            entranceTiles[i] = entry.getKey();
+            transitions[i] = entry.getValue().toArray(new TileData[entry.getValue().size()]);
+            transitionCosts[i] = new float[transitions[i].length];
+            for (int j = 0; j < transitions[i].length; j++) {
+                transitionCosts[i][j] = getCost(entranceTiles[i], transitions[i][j], movementClass);
+            }
+            searchPage(pageX, pageY, entranceTiles[i], movementClass, distances[i], parents[i]);
+            i++;
+        }
+
+        return new Page(pageX, pageY, entranceTiles, transitions, transitionCosts, distances, parents);
+    }
+
+    /**
+     * Finds the entrances on a page border. Each continuous run of passable
+     * tile pairs over the border gets one entrance, in the middle of the run
+     *
+     * @param from the first coordinate along the border
+     * @param to the last coordinate along the border
+     * @param border the fixed coordinate of the border on this page
+     * @param dx x direction to the neighbouring page
+     * @param dy y direction to the neighbouring page
+     * @param movementClass the movement class
+     * @param entrances the entrances and their transitions are added here
+     */
+    private void findEntrances(int from, int to, int border, int dx, int dy, MovementClass movementClass, Map<TileData, List<TileData>> entrances) {
+        int runStart = -1;
+        for (int i = from; i <= to + 1; i++) {
+            boolean passable = false;
+            if (i <= to) {
+                TileData tile = getBorderTile(i, border, dx);
+                TileData neighbour = mapData.getTile(tile.getX() + dx, tile.getY() + dy);
+                passable = (navigationGrid.isAccessible(tile, movementClass) && navigationGrid.isAccessible(neighbour, movementClass));
+            }
+            if (passable && runStart == -1) {
+                runStart = i;
+            } else if (!passable && runStart != -1) {
+                TileData tile = getBorderTile((runStart + i - 1) / 2, border, dx);
+                List<TileData> transitions = entrances.get(tile);
+                if (transitions == null) {
+                    transitions = new ArrayList<>(2);
+                    entrances.put(tile, transitions);
+                }
+                transitions.add(mapData.getTile(tile.getX() + dx, tile.getY() + dy));
+                runStart = -1;
+            }
+        }
+    }
+
+    private TileData getBorderTile(int i, int border, int dx) {
+        return (dx != 0 ? mapData.getTile(border, i) : mapData.getTile(i, border));
+    }
+
+    private float getCost(TileData from, TileData to, MovementClass movementClass) {
+        for (Connection<TileData> connection : navigationGrid.getConnections(from, movementClass)) {
+            if (connection.getToNode() == to) {
+                return connection.getCost();
+            }
+        }
+        return Float.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Dijkstra from a tile to all the tiles of the page, not leaving the page
+     *
+     * @param pageX page x
+     * @param pageY page y
+     * @param start the start tile, inside the page
+     * @param movementClass the movement class
+     * @param distances the costs to the tiles, by local index
+     * @param parents the previous tile on the path, by local index
+     */
+    private void searchPage(int pageX, int pageY, TileData start, MovementClass movementClass, float[] distances, int[] parents) {
+        Arrays.fill(distances, Float.POSITIVE_INFINITY);
+        Arrays.fill(parents, -1);
+        boolean[] visited = new boolean[PAGE_TILES];
+        distances[getLocalIndex(start)] = 0;
+
+        while (true) {
+            int current = -1;
+            for (int i = 0; i < PAGE_TILES; i++) {
+                if (!visited[i] && !Float.isInfinite(distances[i]) && (current == -1 || distances[i] < distances[current])) {
+                    current = i;
+                }
+            }
+            if (current == -1) {
+                break;
+            }
+            visited[current] = true;
+
+            TileData tile = getTile(pageX, pageY, current);
+            for (Connection<TileData> connection : navigationGrid.getConnections(tile, movementClass)) {
+                TileData to = connection.getToNode();
+                if (to.getX() / PAGE_SIZE != pageX || to.getY() / PAGE_SIZE != pageY) {
+                    continue;
+                }
+                int index = getLocalIndex(to);
+                float cost = distances[current] + connection.getCost();
+                if (cost < distances[index]) {
+                    distances[index] = cost;
+                    parents[index] = current;
+                }
+            }
+        }
+    }
+
+    private static int getLocalIndex(TileData tile) {
+        return (tile.getY() % PAGE_SIZE) * PAGE_SIZE + tile.getX() % PAGE_SIZE;
+    }
+
+    private TileData getTile(int pageX, int pageY, int localIndex) {
+        return mapData.getTile(pageX * PAGE_SIZE + localIndex % PAGE_SIZE, pageY * PAGE_SIZE + localIndex / PAGE_SIZE);
+    }
+
+    @Override
+    public void onTileChange(int x, int y) {
+        int pageX = x / PAGE_SIZE;
+        int pageY = y / PAGE_SIZE;
+        invalidatePage(pageX, pageY);
+
+        // The borders are shared with the neighbours
+        if (x % PAGE_SIZE == 0) {
+            invalidatePage(pageX - 1, pageY);
+        } else if (x % PAGE_SIZE == PAGE_SIZE - 1) {
+            invalidatePage(pageX + 1, pageY);
+        }
+        if (y % PAGE_SIZE == 0) {
+            invalidatePage(pageX, pageY - 1);
+        } else if (y % PAGE_SIZE == PAGE_SIZE - 1) {
+            invalidatePage(pageX, pageY + 1);
+        }
+    }
+
+    private void invalidatePage(int pageX, int pageY) {
+        if (pageX >= 0 && pageY >= 0 && pageX < pagesX && pageY < pagesY) {
+            versions.incrementAndGet(pageY * pagesX + pageX);
+            for (MovementClass movementClass : MOVEMENT_CLASSES) {
+                pages[movementClass.ordinal()].set(pageY * pagesX + pageX, null);
+            }
+        }
+    }
+
+}
@@ -17,13 +17,13 @@
 package toniarts.openkeeper.world.creature.pathfinding;
 
 import com.badlogic.gdx.ai.pfa.Connection;
-import com.badlogic.gdx.ai.pfa.DefaultConnection;
 import com.badlogic.gdx.ai.pfa.indexed.IndexedGraph;
 import com.badlogic.gdx.utils.Array;
 import toniarts.openkeeper.tools.convert.map.Creature;
-import toniarts.openkeeper.tools.convert.map.Terrain;
+import toniarts.openkeeper.world.MapData;
 import toniarts.openkeeper.world.TileData;
 import toniarts.openkeeper.world.WorldState;
+import toniarts.openkeeper.world.creature.pathfinding.MapNavigationGrid.MovementClass;
 
 /**
  * Map representation for the path finding
@@ -32,13 +32,17 @@ import toniarts.openkeeper.world.WorldState;
  */
 public class MapIndexedGraph implements IndexedGraph<TileData> {
 
-    private final WorldState worldState;
+    private final MapNavigationGrid navigationGrid;
     private final int nodeCount;
-    private Creature creature;
+    private MovementClass movementClass = MovementClass.WALKER;
 
-    public MapIndexedGraph(WorldState worldState) {
-        this.worldState = worldState;
-        nodeCount = worldState.getMapData().getHeight() * worldState.getMapData().getWidth();
+    public MapIndexedGraph(WorldState worldState, MapNavigationGrid navigationGrid) {
+        this(worldState.getMapData(), navigationGrid);
+    }
+
+    public MapIndexedGraph(MapData mapData, MapNavigationGrid navigationGrid) {
+        this.navigationGrid = navigationGrid;
+        nodeCount = mapData.getHeight() * mapData.getWidth();
     }
 
     @Override
@@ -58,7 +62,7 @@ public class MapIndexedGraph implements IndexedGraph<TileData> {
      * @param creature the creature
      */
     public void setCreature(Creature creature) {
-        this.creature = creature;
+        this.movementClass = MovementClass.fromCreature(creature);
     }
 
     @Override
@@ -66,38 +70,7 @@ public class MapIndexedGraph implements IndexedGraph<TileData> {
 
         // The connections depend on the creature type
         // No diagonal movement
-        Array<Connection<TileData>> connections = new Array<>(4);
-        addIfValidCoordinate(tile, tile.getX(), tile.getY() - 1, connections); // North
-        addIfValidCoordinate(tile, tile.getX() + 1, tile.getY(), connections); // East
-        addIfValidCoordinate(tile, tile.getX(), tile.getY() + 1, connections); // South
-        addIfValidCoordinate(tile, tile.getX() - 1, tile.getY(), connections); // West
-
-        return connections;
-    }
-
-    private void addIfValidCoordinate(final TileData startTile, final int x, final int y, final Array<Connection<TileData>> connections) {
-
-        // Valid coordinate
-        TileData tile = worldState.getMapData().getTile(x, y);
-        if (tile != null) {
-            Terrain terrain = tile.getTerrain();
-            if (!terrain.getFlags().contains(Terrain.TerrainFlag.SOLID)) {
-
-                // TODO: Rooms, obstacles and what not, should create an universal isAccessible(Creature) to map loader / world handler maybe
-                if (creature != null) {
-
-                    if (!worldState.isAccessible(tile, creature)) {
-                        return;
-                    }
-
-                    if (creature.getFlags().contains(Creature.CreatureFlag.CAN_FLY)) {
-                        connections.add(new DefaultConnection<>(startTile, tile)); // No cost
-                        return;
-                    }
-                }
-                connections.add(new MapConnection(startTile, tile));
-            }
-        }
+        return navigationGrid.getConnections(tile, movementClass);
     }
 
 }
@@ -0,0 +1,422 @@
+/*
+ * Copyright (C) 2014-2016 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.world.creature.pathfinding;
+
+import com.badlogic.gdx.ai.pfa.Connection;
+import com.badlogic.gdx.ai.pfa.DefaultConnection;
+import com.badlogic.gdx.utils.Array;
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import toniarts.openkeeper.tools.convert.map.Creature;
+import toniarts.openkeeper.tools.convert.map.Terrain;
+import toniarts.openkeeper.world.MapData;
+import toniarts.openkeeper.world.TileData;
+import toniarts.openkeeper.world.WorldState;
+import toniarts.openkeeper.world.listener.TileChangeListener;
+import toniarts.openkeeper.world.room.GenericRoom;
+import toniarts.openkeeper.world.room.RoomInstance;
+
+/**
+ * Precomputed passability of the map, per movement class. Keeps one byte per
+ * tile with a bit for each movement class and serves ready made connection
+ * arrays for the path finding, so that the A* expansion doesn't need to
+ * allocate anything. The connected regions of the map are labeled lazily, so
+ * the reachability can be told without searching a path.<br>
+ * The grid is kept up to date by listening to the tile changes, which come
+ * from the render thread. The updates are serialized, so they are safe from
+ * any thread. Reading is safe from several path finding threads at once, the
+ * connections built from passability that changed meanwhile are never kept.
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public class MapNavigationGrid implements TileChangeListener {
+
+    /**
+     * Creatures are divided to these classes by how they can move on the map
+     */
+    public enum MovementClass {
+
+        WALKER,
+        FLYER,
+        LAVA_WALKER,
+        WATER_WALKER,
+        LAVA_AND_WATER_WALKER;
+
+        private final byte mask = (byte) (1 << ordinal());
+
+        /**
+         * Get the movement class of a creature
+         *
+         * @param creature the creature, can be {@code null}
+         * @return the movement class
+         */
+        public static MovementClass fromCreature(Creature creature) {
+            if (creature == null) {
+                return WALKER;
+            }
+            if (creature.getFlags().contains(Creature.CreatureFlag.CAN_FLY)) {
+                return FLYER;
+            }
+            boolean lava = creature.getFlags().contains(Creature.CreatureFlag.CAN_WALK_ON_LAVA);
+            boolean water = creature.getFlags().contains(Creature.CreatureFlag.CAN_WALK_ON_WATER);
+            if (lava && water) {
+                return LAVA_AND_WATER_WALKER;
+            } else if (lava) {
+                return LAVA_WALKER;
+            } else if (water) {
+                return WATER_WALKER;
+            }
+            return WALKER;
+        }
+    }
+
+    /**
+     * Connected region labels of a movement class, immutable once built
+     */
+    private static class Regions {
+
+        private final int version;
+        private final int[] labels;
+
+        public Regions(int version, int[] labels) {
+            this.version = version;
+            this.labels = labels;
+        }
+    }
+
+    /**
+     * Tells whether a room tile can be accessed, the rooms have obstacles
+     */
+    public interface RoomAccess {
+
+        boolean isAccessible(TileData tile);
+    }
+
+    private static final int NORTH = 0;
+    private static final int EAST = 1;
+    private static final int SOUTH = 2;
+    private static final int WEST = 3;
+    private static final MovementClass[] MOVEMENT_CLASSES = MovementClass.values();
+
+    private final RoomAccess roomAccess;
+    private final MapData mapData;
+    private final int width;
+    private final int height;
+    private final byte[] passability;
+    private final Connection<TileData>[][] walkConnections;
+    private final Connection<TileData>[][] flyConnections;
+    private final AtomicReferenceArray<Array<Connection<TileData>>>[] connections;
+    private final AtomicIntegerArray versions; // Connection versions of the tiles, bumped on every invalidation
+    private final AtomicInteger passabilityVersion = new AtomicInteger(); // Bumped on every passability change
+    private final AtomicReferenceArray<Regions> regions = new AtomicReferenceArray<>(MOVEMENT_CLASSES.length);
+    private final List<TileChangeListener> listeners = new ArrayList<>();
+
+    public MapNavigationGrid(WorldState worldState) {
+        this(worldState.getMapData(), (TileData tile) -> {
+            RoomInstance roomInstance = worldState.getMapLoader().getRoomCoordinates().get(tile.getLocation());
+            GenericRoom room = worldState.getMapLoader().getRoomActuals().get(roomInstance);
+            return (room == null || room.isTileAccessible(tile.getX(), tile.getY()));
+        });
+    }
+
+    /**
+     * Creates a navigation grid without the world, i.e. for benchmarks
+     *
+     * @param mapData the map
+     * @param roomAccess tells the accessibility of the room tiles
+     */
+    @SuppressWarnings("unchecked")
+    public MapNavigationGrid(MapData mapData, RoomAccess roomAccess) {
+        this.roomAccess = roomAccess;
+        this.mapData = mapData;
+        width = mapData.getWidth();
+        height = mapData.getHeight();
+        int nodeCount = width * height;
+        passability = new byte[nodeCount];
+        walkConnections = new Connection[nodeCount][];
+        flyConnections = new Connection[nodeCount][];
+        versions = new AtomicIntegerArray(nodeCount);
+        connections = new AtomicReferenceArray[MOVEMENT_CLASSES.length];
+        for (MovementClass movementClass : MOVEMENT_CLASSES) {
+            connections[movementClass.ordinal()] = new AtomicReferenceArray<>(nodeCount);
+        }
+
+        // Initial passability & the connection objects
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                TileData tile = mapData.getTile(x, y);
+                passability[tile.getIndex()] = calculatePassability(tile);
+                createConnections(tile);
+            }
+        }
+    }
+
+    /**
+     * Create all the possible connections from the tile to its neighbours. No
+     * diagonal movement. Flyers don't care about the terrain costs.
+     *
+     * @param tile the tile
+     */
+    @SuppressWarnings("unchecked")
+    private void createConnections(TileData tile) {
+        Connection<TileData>[] walk = new Connection[4];
+        Connection<TileData>[] fly = new Connection[4];
+        TileData[] neighbours = {
+            mapData.getTile(tile.getX(), tile.getY() - 1), // North
+            mapData.getTile(tile.getX() + 1, tile.getY()), // East
+            mapData.getTile(tile.getX(), tile.getY() + 1), // South
+            mapData.getTile(tile.getX() - 1, tile.getY()) // West
+        };
+        for (int i = 0; i < neighbours.length; i++) {
+            if (neighbours[i] != null) {
+                walk[i] = new MapConnection(tile, neighbours[i]);
+                fly[i] = new DefaultConnection<>(tile, neighbours[i]); // No cost
+            }
+        }
+        walkConnections[tile.getIndex()] = walk;
+        flyConnections[tile.getIndex()] = fly;
+    }
+
+    /**
+     * Calculates the passability mask for the tile
+     *
+     * @param tile the tile
+     * @return mask of the movement classes that can access the tile
+     */
+    private byte calculatePassability(TileData tile) {
+        byte mask = 0;
+        for (MovementClass movementClass : MOVEMENT_CLASSES) {
+            if (calculateAccessibility(tile, movementClass)) {
+                mask |= movementClass.mask;
+            }
+        }
+        return mask;
+    }
+
+    private boolean calculateAccessibility(TileData tile, MovementClass movementClass) {
+        Terrain terrain = tile.getTerrain();
+        if (!terrain.getFlags().contains(Terrain.TerrainFlag.SOLID)) {
+
+            // TODO: Rooms, obstacles and what not
+            if (terrain.getFlags().contains(Terrain.TerrainFlag.ROOM)) {
+
+                // Get room obstacles
+                return roomAccess.isAccessible(tile);
+            } else if (movementClass == MovementClass.FLYER) {
+                return true;
+            } else if (terrain.getFlags().contains(Terrain.TerrainFlag.LAVA)
+                    && movementClass != MovementClass.LAVA_WALKER && movementClass != MovementClass.LAVA_AND_WATER_WALKER) {
+                return false;
+            } else if (terrain.getFlags().contains(Terrain.TerrainFlag.WATER)
+                    && movementClass != MovementClass.WATER_WALKER && movementClass != MovementClass.LAVA_AND_WATER_WALKER) {
+                return false;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Check if given tile is accessible by the given movement class
+     *
+     * @param tile the tile
+     * @param movementClass the movement class
+     * @return is accessible
+     */
+    public boolean isAccessible(TileData tile, MovementClass movementClass) {
+        return (passability[tile.getIndex()] & movementClass.mask) != 0;
+    }
+
+    /**
+     * Can the end tile be reached from the start tile. The start tile itself
+     * doesn't need to be accessible, a creature can always step off from it
+     *
+     * @param start the start tile
+     * @param end the end tile
+     * @param movementClass the movement class
+     * @return is reachable
+     */
+    public boolean isReachable(TileData start, TileData end, MovementClass movementClass) {
+        if (start == end) {
+            return true;
+        }
+        if (!isAccessible(end, movementClass)) {
+            return false;
+        }
+
+        int[] labels = getRegions(movementClass);
+        int region = labels[end.getIndex()];
+        if (isAccessible(start, movementClass)) {
+            return labels[start.getIndex()] == region;
+        }
+        for (Connection<TileData> connection : walkConnections[start.getIndex()]) {
+            if (connection != null && labels[connection.getToNode().getIndex()] == region) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the connected region labels of the tiles, the inaccessible tiles
+     * have none
+     *
+     * @param movementClass the movement class
+     * @return the region labels by tile index, do not modify
+     */
+    private int[] getRegions(MovementClass movementClass) {
+        int version = passabilityVersion.get();
+        Regions classRegions = regions.get(movementClass.ordinal());
+        if (classRegions == null || classRegions.version != version) {
+
+            // The passability may change while labeling, then don't keep the labels
+            classRegions = new Regions(version, labelRegions(movementClass));
+            if (passabilityVersion.get() == version) {
+                regions.set(movementClass.ordinal(), classRegions);
+            }
+        }
+        return classRegions.labels;
+    }
+
+    private int[] labelRegions(MovementClass movementClass) {
+        int[] labels = new int[width * height];
+        int[] queue = new int[width * height];
+        int region = 0;
+        for (int i = 0; i < labels.length; i++) {
+            if (labels[i] != 0 || (passability[i] & movementClass.mask) == 0) {
+                continue;
+            }
+
+            // Flood fill the region
+            region++;
+            labels[i] = region;
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = i;
+            while (head < tail) {
+                for (Connection<TileData> connection : walkConnections[queue[head++]]) {
+                    if (connection != null) {
+                        int index = connection.getToNode().getIndex();
+                        if (labels[index] == 0 && (passability[index] & movementClass.mask) != 0) {
+                            labels[index] = region;
+                            queue[tail++] = index;
+                        }
+                    }
+                }
+            }
+        }
+        return labels;
+    }
+
+    /**
+     * Get the connections from a tile for the given movement class. The
+     * returned array is shared, do not modify it
+     *
+     * @param tile the tile
+     * @param movementClass the movement class
+     * @return the connections
+     */
+    public Array<Connection<TileData>> getConnections(TileData tile, MovementClass movementClass) {
+        AtomicReferenceArray<Array<Connection<TileData>>> classConnections = connections[movementClass.ordinal()];
+        Array<Connection<TileData>> tileConnections = classConnections.get(tile.getIndex());
+        if (tileConnections == null) {
+
+            // The passability may change while building, then don't keep the connections
+            int version = versions.get(tile.getIndex());
+            tileConnections = buildConnections(tile, movementClass);
+            if (classConnections.compareAndSet(tile.getIndex(), null, tileConnections)
+                    && versions.get(tile.getIndex()) != version) {
+                classConnections.compareAndSet(tile.getIndex(), tileConnections, null);
+            }
+        }
+        return tileConnections;
+    }
+
+    private Array<Connection<TileData>> buildConnections(TileData tile, MovementClass movementClass) {
+        Connection<TileData>[] candidates = (movementClass == MovementClass.FLYER ? flyConnections[tile.getIndex()] : walkConnections[tile.getIndex()]);
+        Array<Connection<TileData>> tileConnections = new Array<>(4);
+        for (int i = NORTH; i <= WEST; i++) {
+            Connection<TileData> connection = candidates[i];
+            if (connection != null && isAccessible(connection.getToNode(), movementClass)) {
+                tileConnections.add(connection);
+            }
+        }
+        return tileConnections;
+    }
+
+    @Override
+    public synchronized void onTileChange(int x, int y) {
+        TileData tile = mapData.getTile(x, y);
+        if (tile == null) {
+            return;
+        }
+
+        // See if the passability changed at all
+        byte mask = calculatePassability(tile);
+        if (passability[tile.getIndex()] == mask) {
+            return;
+        }
+        passability[tile.getIndex()] = mask;
+        passabilityVersion.incrementAndGet();
+
+        // The neighbours' connections lead to this tile
+        invalidateConnections(mapData.getTile(x, y - 1));
+        invalidateConnections(mapData.getTile(x + 1, y));
+        invalidateConnections(mapData.getTile(x, y + 1));
+        invalidateConnections(mapData.getTile(x - 1, y));
+
+        // Notify
+        for (TileChangeListener listener : listeners) {
+            listener.onTileChange(x, y);
+        }
+    }
+
+    /**
+     * Update the given tiles
+     *
+     * @param points the tile coordinates
+     */
+    public void onTileChange(Point... points) {
+        for (Point p : points) {
+            onTileChange(p.x, p.y);
+        }
+    }
+
+    /**
+     * Add a listener that gets notified when the passability of a tile
+     * changes. Add the listeners before starting the path finding
+     *
+     * @param listener the listener
+     */
+    public void addListener(TileChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    private void invalidateConnections(TileData tile) {
+        if (tile != null) {
+            versions.incrementAndGet(tile.getIndex());
+            for (MovementClass movementClass : MOVEMENT_CLASSES) {
+                connections[movementClass.ordinal()].set(tile.getIndex(), null);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2014-2016 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.world.creature.pathfinding;
+
+import com.badlogic.gdx.ai.pfa.DefaultGraphPath;
+import com.badlogic.gdx.ai.pfa.GraphPath;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import toniarts.openkeeper.world.MapData;
+import toniarts.openkeeper.world.TileData;
+import toniarts.openkeeper.world.creature.pathfinding.MapNavigationGrid.MovementClass;
+import toniarts.openkeeper.world.listener.TileChangeListener;
+
+/**
+ * LRU cache of the found paths, keyed by start, goal and movement class. A
+ * path is dropped when any of the tiles on it changes. Only successful
+ * searches are cached. Thread safe.
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public class PathCache implements TileChangeListener {
+
+    private static final int MOVEMENT_CLASS_COUNT = MovementClass.values().length;
+
+    private final MapData mapData;
+    private final int maxSize;
+    private final Map<Long, TileData[]> paths;
+    private final Map<Integer, Set<Long>> pathsByTile = new HashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private long modCount = 0;
+
+    public PathCache(MapData mapData, int maxSize) {
+        this.mapData = mapData;
+        this.maxSize = maxSize;
+        paths = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Get a cached path
+     *
+     * @param start start tile
+     * @param end end tile
+     * @param movementClass the movement class
+     * @return a copy of the cached path, null if not cached
+     */
+    public GraphPath<TileData> get(TileData start, TileData end, MovementClass movementClass) {
+        TileData[] tiles;
+        synchronized (paths) {
+            tiles = paths.get(getKey(start, end, movementClass));
+        }
+        if (tiles == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        DefaultGraphPath<TileData> path = new DefaultGraphPath<>(tiles.length);
+        for (TileData tile : tiles) {
+            path.add(tile);
+        }
+        return path;
+    }
+
+    /**
+     * Get the modification stamp of the cache. Take this before searching a
+     * path and give it to {@link #put(TileData, TileData, MovementClass, GraphPath, long)
+     * }, so that paths searched over an outdated map don't get cached
+     *
+     * @return the stamp
+     */
+    public long getModCount() {
+        synchronized (paths) {
+            return modCount;
+        }
+    }
+
+    /**
+     * Cache a path
+     *
+     * @param start start tile
+     * @param end end tile
+     * @param movementClass the movement class
+     * @param path the found path
+     * @param modCount the modification stamp from before the search
+     */
+    public void put(TileData start, TileData end, MovementClass movementClass, GraphPath<TileData> path, long modCount) {
+        TileData[] tiles = new TileData[path.getCount()];
+        for (int i = 0; i < tiles.length; i++) {
+            tiles[i] = path.get(i);
+        }
+        long key = getKey(start, end, movementClass);
+
+        synchronized (paths) {
+            if (this.modCount != modCount) {
+                return;
+            }
+            remove(key);
+            paths.put(key, tiles);
+            for (TileData tile : tiles) {
+                Set<Long> keys = pathsByTile.get(tile.getIndex());
+                if (keys == null) {
+                    keys = new HashSet<>();
+                    pathsByTile.put(tile.getIndex(), keys);
+                }
+                keys.add(key);
+            }
+
+            // Evict the least recently used
+            Iterator<Map.Entry<Long, TileData[]>> iter = paths.entrySet().iterator();
+            while (paths.size() > maxSize) {
+                Map.Entry<Long, TileData[]> eldest = iter.next();
+                iter.remove();
+                removeFromTiles(eldest.getKey(), eldest.getValue());
+            }
+        }
+    }
+
+    private void remove(long key) {
+        TileData[] tiles = paths.remove(key);
+        if (tiles != null) {
+            removeFromTiles(key, tiles);
+        }
+    }
+
+    private void removeFromTiles(long key, TileData[] tiles) {
+        for (TileData tile : tiles) {
+            Set<Long> keys = pathsByTile.get(tile.getIndex());
+            if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                pathsByTile.remove(tile.getIndex());
+            }
+        }
+    }
+
+    @Override
+    public void onTileChange(int x, int y) {
+        TileData tile = mapData.getTile(x, y);
+        if (tile == null) {
+            return;
+        }
+        synchronized (paths) {
+            modCount++;
+            Set<Long> keys = pathsByTile.remove(tile.getIndex());
+            if (keys != null) {
+                for (Long key : keys) {
+                    remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Drop all the cached paths
+     */
+    public void clear() {
+        synchronized (paths) {
+            modCount++;
+            paths.clear();
+            pathsByTile.clear();
+        }
+    }
+
+    private long getKey(TileData start, TileData end, MovementClass movementClass) {
+        long nodeCount = (long) mapData.getWidth() * mapData.getHeight();
+        return (start.getIndex() * nodeCount + end.getIndex()) * MOVEMENT_CLASS_COUNT + movementClass.ordinal();
+    }
+
+    /**
+     * Get the number of path requests served from the cache
+     *
+     * @return cache hits
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Get the number of path requests that had to be searched
+     *
+     * @return cache misses
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int getSize() {
+        synchronized (paths) {
+            return paths.size();
+        }
+    }
+
+}
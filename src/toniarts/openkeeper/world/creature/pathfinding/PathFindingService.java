@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2014-2016 OpenKeeper
+ *
+ * OpenKeeper is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * OpenKeeper is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with OpenKeeper.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package toniarts.openkeeper.world.creature.pathfinding;
+
+import com.badlogic.gdx.ai.pfa.DefaultGraphPath;
+import com.badlogic.gdx.ai.pfa.GraphPath;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import toniarts.openkeeper.tools.convert.map.Creature;
+import toniarts.openkeeper.world.MapData;
+import toniarts.openkeeper.world.MapLoader;
+import toniarts.openkeeper.world.TileData;
+import toniarts.openkeeper.world.WorldState;
+import toniarts.openkeeper.world.creature.pathfinding.MapNavigationGrid.MovementClass;
+
+/**
+ * Thread safe path finding. Every thread gets its own search context (graph
+ * view & A* open list), only the navigation grid and the heuristic are shared.
+ * Path requests can be made synchronously from any thread, or queued to a
+ * worker pool sized by the available cores.<br>
+ * Long paths are searched hierarchically over the map pages, short ones with a
+ * plain A* on the tiles. The found paths are cached until a tile on them
+ * changes.
+ *
+ * @author Toni Helenius <helenius.toni@gmail.com>
+ */
+public class PathFindingService {
+
+    /**
+     * The per thread search state
+     */
+    private static class SearchContext {
+
+        private final MapIndexedGraph graph;
+        private final MapPathFinder pathFinder;
+
+        public SearchContext(MapData mapData, MapNavigationGrid navigationGrid) {
+            graph = new MapIndexedGraph(mapData, navigationGrid);
+            pathFinder = new MapPathFinder(graph, false);
+        }
+    }
+
+    private final MapDistance heuristic = new MapDistance();
+    private final MapNavigationGrid navigationGrid;
+    private final ThreadLocal<SearchContext> searchContext;
+    private final HierarchicalMapPathFinder hierarchicalPathFinder;
+    private final PathCache pathCache;
+    private final ExecutorService executor;
+    private volatile boolean directExecution = false;
+
+    private static final int HIERARCHICAL_SEARCH_DISTANCE = MapLoader.PAGE_SQUARE_SIZE * 2;
+    private static final int PATH_CACHE_SIZE = 512;
+    private static final Logger logger = Logger.getLogger(PathFindingService.class.getName());
+
+    public PathFindingService(WorldState worldState, MapNavigationGrid navigationGrid) {
+        this(worldState.getMapData(), navigationGrid);
+    }
+
+    public PathFindingService(MapData mapData, MapNavigationGrid navigationGrid) {
+        this.navigationGrid = navigationGrid;
+        searchContext = ThreadLocal.withInitial(() -> new SearchContext(mapData, navigationGrid));
+        hierarchicalPathFinder = new HierarchicalMapPathFinder(mapData, navigationGrid, heuristic);
+        navigationGrid.addListener(hierarchicalPathFinder);
+        pathCache = new PathCache(mapData, PATH_CACHE_SIZE);
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), (Runnable r) -> {
+            Thread thread = new Thread(r, "PathFinder-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Find a path, can be called from any thread
+     *
+     * @param start start tile
+     * @param end end tile
+     * @param creature the creature to find path for
+     * @return output path, null if path not found
+     */
+    public GraphPath<TileData> findPath(TileData start, TileData end, Creature creature) {
+        if (start == null || end == null) {
+            return null;
+        }
+
+        // See the cache first
+        MovementClass movementClass = MovementClass.fromCreature(creature);
+        GraphPath<TileData> outPath = pathCache.get(start, end, movementClass);
+        if (outPath != null) {
+            return outPath;
+        }
+
+        long modCount = pathCache.getModCount();
+        outPath = new DefaultGraphPath<>();
+        boolean found;
+        if (heuristic.estimate(start, end) > HIERARCHICAL_SEARCH_DISTANCE) {
+            found = hierarchicalPathFinder.searchNodePath(start, end, movementClass, outPath);
+        } else {
+            SearchContext context = searchContext.get();
+            context.graph.setCreature(creature);
+            found = context.pathFinder.searchNodePath(start, end, heuristic, outPath);
+        }
+        if (found) {
+            pathCache.put(start, end, movementClass, outPath, modCount);
+            return outPath;
+        }
+        return null;
+    }
+
+    /**
+     * Tells whether there is a path, without searching it. Can be called from
+     * any thread
+     *
+     * @param start start tile
+     * @param end end tile
+     * @param creature the creature to find path for
+     * @return is the end reachable from the start
+     */
+    public boolean isReachable(TileData start, TileData end, Creature creature) {
+        if (start == null || end == null) {
+            return false;
+        }
+        return navigationGrid.isReachable(start, end, MovementClass.fromCreature(creature));
+    }
+
+    /**
+     * Queue a path request to the worker pool
+     *
+     * @param start start tile
+     * @param end end tile
+     * @param creature the creature to find path for
+     * @return the future path, completes with null if path not found
+     */
+    public CompletableFuture<GraphPath<TileData>> findPathAsync(TileData start, TileData end, Creature creature) {
+        if (directExecution) {
+            return CompletableFuture.completedFuture(findPath(start, end, creature));
+        }
+        return CompletableFuture.supplyAsync(() -> findPath(start, end, creature), executor);
+    }
+
+    /**
+     * Run the queued requests right away on the calling thread instead of the
+     * worker pool. Makes the results independent of the thread timings, i.e.
+     * for simulations
+     *
+     * @param directExecution search on the calling thread
+     */
+    public void setDirectExecution(boolean directExecution) {
+        this.directExecution = directExecution;
+    }
+
+    /**
+     * Get the path cache, for the statistics
+     *
+     * @return the path cache
+     */
+    public PathCache getPathCache() {
+        return pathCache;
+    }
+
+    /**
+     * Get the number of path requests made so far
+     *
+     * @return the path request count
+     */
+    public long getRequestCount() {
+        return pathCache.getHits() + pathCache.getMisses();
+    }
+
+    /**
+     * Stops the worker pool, queued requests are discarded
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+        logger.log(Level.INFO, "Path cache hits {0}, misses {1}", new Object[]{pathCache.getHits(), pathCache.getMisses()});
+    }
+
+}
@@ -36,8 +36,8 @@ import toniarts.openkeeper.world.object.HighlightControl;
 public abstract class AbstractCreatureSteeringControl extends HighlightControl implements Steerable<Vector2>, IGameLogicUpdateable {
 
     protected final Creature creature;
-    protected SteeringBehavior<Vector2> steeringBehavior;
-    private static final SteeringAcceleration<Vector2> steeringOutput = new SteeringAcceleration<>(new Vector2());
+    protected volatile SteeringBehavior<Vector2> steeringBehavior;
+    private final SteeringAcceleration<Vector2> steeringOutput = new SteeringAcceleration<>(new Vector2()); // Own for every creature, they are steered in parallel
     private final Vector2 position = new Vector2();
     private float orientation = 0;
     private final Vector2 linearVelocity = new Vector2();